@@ -0,0 +1,106 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import android.arch.persistence.room.Room;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.utahmsd.cs6018.instyle.db.InStyleDatabase;
+import com.utahmsd.cs6018.instyle.util.DataGenerator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Takes snapshots of a Room database while another thread keeps committing batches of users, and
+ * checks that every snapshot opens on its own, passes integrity_check, and holds a whole number of
+ * batches (i.e., no transaction was torn).
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseSnapshotTest {
+
+    private static final String TEST_DATABASE = "snapshot-test";
+    private static final int BATCH_SIZE = 500;
+    private static final int NUM_SNAPSHOTS = 20;
+
+    private Context context;
+    private InStyleDatabase database;
+    private File snapshot;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        database = Room.databaseBuilder(context, InStyleDatabase.class, TEST_DATABASE).build();
+        snapshot = new File(context.getCacheDir(), "snapshot-test.db");
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(TEST_DATABASE);
+        snapshot.delete();
+    }
+
+    @Test
+    public void copyTo_duringWrites_isConsistent() throws Exception {
+        DataGenerator generator = new DataGenerator(6018L, 10);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int from = 0; writing.get(); from += BATCH_SIZE) {
+                database.userDao().insertAllUsers(generator.generateBatch(from, BATCH_SIZE).getUsers());
+            }
+        });
+        writer.start();
+
+        DatabaseSnapshot databaseSnapshot = new DatabaseSnapshot(database.getOpenHelper());
+        long previousCount = 0;
+        try {
+            for (int i = 0; i < NUM_SNAPSHOTS; i++) {
+                long start = System.nanoTime();
+                databaseSnapshot.copyTo(snapshot);
+                System.out.println(String.format("Snapshot %d: %,d bytes in %.1fms", i, snapshot.length(),
+                        (System.nanoTime() - start) / 1_000_000.0));
+
+                assertFalse(new File(snapshot.getPath() + "-wal").exists());
+                long count = checkSnapshot();
+                assertEquals(0, count % BATCH_SIZE);
+                assertTrue(count >= previousCount);
+                previousCount = count;
+            }
+        } finally {
+            writing.set(false);
+            writer.join();
+        }
+    }
+
+    /**
+     * @return Number of users in the snapshot
+     */
+    private long checkSnapshot() {
+        SQLiteDatabase copy = SQLiteDatabase.openDatabase(snapshot.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            try (Cursor cursor = copy.rawQuery("PRAGMA integrity_check", null)) {
+                assertTrue(cursor.moveToFirst());
+                assertEquals("ok", cursor.getString(0));
+            }
+            try (Cursor cursor = copy.rawQuery("SELECT COUNT(*) FROM User", null)) {
+                assertTrue(cursor.moveToFirst());
+                return cursor.getLong(0);
+            }
+        } finally {
+            copy.close();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.utahmsd.cs6018.instyle.db;
+
+import android.arch.lifecycle.LiveData;
+import android.arch.lifecycle.Observer;
+import android.arch.persistence.room.Room;
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.utahmsd.cs6018.instyle.db.dao.FitnessProfileDao;
+import com.utahmsd.cs6018.instyle.db.dao.UserDao;
+import com.utahmsd.cs6018.instyle.db.dao.WeatherDao;
+import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.db.entity.User;
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+import com.utahmsd.cs6018.instyle.util.DataGenerator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.latestDobForAge;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Load test for the database: bulk loads generated Users, FitnessProfiles and Weather records into
+ * an in-memory database, then measures the latency of every DAO method against it.
+ *
+ * The number of users defaults to 100,000 and can be changed with an instrumentation argument,
+ * e.g. -e numUsers 1000000. Results are printed to logcat/stdout.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DaoBenchmark {
+
+    private static final long SEED = 6018L;
+    private static final int DEFAULT_NUM_USERS = 100_000;
+    private static final int NUM_LOCATIONS = 200;
+    private static final int ITERATIONS = 100;
+
+    private InStyleDatabase database;
+    private UserDao userDao;
+    private FitnessProfileDao fitnessProfileDao;
+    private WeatherDao weatherDao;
+
+    private DataGenerator generator;
+    private int numUsers;
+    private final Random random = new Random(SEED);
+
+    @Before
+    public void setUp() {
+        database = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getTargetContext(),
+                InStyleDatabase.class).build();
+        userDao = database.userDao();
+        fitnessProfileDao = database.fitnessProfileDao();
+        weatherDao = database.weatherDao();
+
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        numUsers = Integer.parseInt(arguments.getString("numUsers", String.valueOf(DEFAULT_NUM_USERS)));
+        generator = new DataGenerator(SEED, NUM_LOCATIONS);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void benchmarkDaoMethods() {
+        BulkDataLoader.LoadResult load = new BulkDataLoader(database, generator).load(numUsers);
+        System.out.println("Insert throughput: " + load);
+        assertEquals(numUsers, userDao.countUsers());
+
+        System.out.println(String.format("Query latency with %,d users:", numUsers));
+
+        ///////// UserDao ///////////
+
+        time("UserDao.findUserByEmail", i -> assertNotNull(getValue(userDao.findUserByEmail(randomUser().getNormalizedEmail()))));
+        time("UserDao.getUserByEmail", i -> assertNotNull(userDao.getUserByEmail(randomUser().getNormalizedEmail())));
+        time("UserDao.countUsersByEmail", i -> assertEquals(1, userDao.countUsersByEmail(randomUser().getNormalizedEmail())));
+        time("UserDao.countUsers", i -> userDao.countUsers());
+        time("UserDao.getUserCount", i -> getValue(userDao.getUserCount()));
+        time("UserDao.loadUsersAfter", i -> userDao.loadUsersAfter(random.nextInt(numUsers), 50));
+        timeOnce("UserDao.loadAllUsers", () -> assertEquals(numUsers, getValue(userDao.loadAllUsers()).size()));
+        time("UserDao.updateUser", i -> {
+            User user = randomUser();
+            user.setPassword("updated" + i);
+            userDao.updateUser(user);
+        });
+        time("UserDao.insertUser", i -> userDao.insertUser(generator.generateBatch(numUsers + i, 1).getUsers().get(0)));
+
+        ///////// FitnessProfileDao ///////////
+
+        time("FitnessProfileDao.findByuserID", i -> assertNotNull(getValue(fitnessProfileDao.findByuserID(1 + random.nextInt(numUsers)))));
+        time("FitnessProfileDao.findDistinctLocations", i -> fitnessProfileDao.findDistinctLocations());
+        time("FitnessProfileDao.countBornBetween", i -> {
+            LocalDate today = LocalDate.now();
+            int minAge = 18 + random.nextInt(50);
+            fitnessProfileDao.countBornBetween(latestDobForAge(minAge + 5, today), latestDobForAge(minAge, today));
+        });
+        timeOnce("FitnessProfileDao.getAllFitnessProfileData", () -> fitnessProfileDao.getAllFitnessProfileData());
+        time("FitnessProfileDao.updateExistingFitnessProfileData", i -> {
+            FitnessProfile fp = getValue(fitnessProfileDao.findByuserID(1 + random.nextInt(numUsers)));
+            fp.setM_stepCount(i);
+            fitnessProfileDao.updateExistingFitnessProfileData(fp);
+        });
+        time("FitnessProfileDao.insertNewFitnessProfile", i ->
+                fitnessProfileDao.insertNewFitnessProfile(generator.generateBatch(numUsers + i, 1).getFitnessProfiles().get(0)));
+
+        ///////// WeatherDao ///////////
+
+        time("WeatherDao.findWeatherByLocation", i -> {
+            Weather weather = generator.generateWeather(random.nextInt(NUM_LOCATIONS));
+            assertNotNull(getValue(weatherDao.findWeatherByLocation(weather.getCity(), weather.getCountryCode())));
+        });
+        time("WeatherDao.findWeatherById", i -> assertNotNull(getValue(weatherDao.findWeatherById(1 + random.nextInt(NUM_LOCATIONS)))));
+        time("WeatherDao.loadAllWeather", i -> getValue(weatherDao.loadAllWeather()));
+        time("WeatherDao.insertWeather", i -> weatherDao.insertWeather(generator.generateWeather(random.nextInt(NUM_LOCATIONS))));
+        timeOnce("WeatherDao.insertAllWeather", () -> weatherDao.insertAllWeather(generator.generateWeather()));
+
+        ///////// Deletes ///////////
+
+        time("FitnessProfileDao.deleteFitnessProfileData", i ->
+                fitnessProfileDao.deleteFitnessProfileData(getValue(fitnessProfileDao.findByuserID(i + 1))));
+        time("UserDao.deleteUser", i -> userDao.deleteUser(userDao.getUserByEmail(generator.generateBatch(i, 1).getUsers().get(0).getNormalizedEmail())));
+        timeOnce("WeatherDao.deleteAllWeather", () -> weatherDao.deleteAllWeather());
+        //No DAO method deletes all fitness profiles, but they reference the users deleted below
+        database.getOpenHelper().getWritableDatabase().execSQL("DELETE FROM FitnessProfile");
+        timeOnce("UserDao.deleteAllUsers", () -> userDao.deleteAllUsers());
+        assertEquals(0, userDao.countUsers());
+    }
+
+    private User randomUser() {
+        User user = generator.generateBatch(random.nextInt(numUsers), 1).getUsers().get(0);
+        return userDao.getUserByEmail(user.getNormalizedEmail());
+    }
+
+    private static void time(String name, IntConsumer operation) {
+        for (int i = 0; i < 5; i++) { //Warm up
+            operation.accept(ITERATIONS + i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.accept(i);
+        }
+        System.out.println(String.format("  %-55s %10.1fus", name, (System.nanoTime() - start) / 1_000.0 / ITERATIONS));
+    }
+
+    private static void timeOnce(String name, Runnable operation) {
+        long start = System.nanoTime();
+        operation.run();
+        System.out.println(String.format("  %-55s %10.1fus (single call)", name, (System.nanoTime() - start) / 1_000.0));
+    }
+
+    /**
+     * Observes a LiveData query on the main thread and waits for its first value, which is what
+     * a UI observer would experience.
+     */
+    private static <T> T getValue(LiveData<T> liveData) {
+        Object[] value = new Object[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        Observer<T> observer = new Observer<T>() {
+            @Override
+            public void onChanged(T t) {
+                value[0] = t;
+                latch.countDown();
+                liveData.removeObserver(this);
+            }
+        };
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> liveData.observeForever(observer));
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        @SuppressWarnings("unchecked")
+        T result = (T) value[0];
+        return result;
+    }
+}
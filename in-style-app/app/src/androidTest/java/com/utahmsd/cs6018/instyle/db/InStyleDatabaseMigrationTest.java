@@ -0,0 +1,309 @@
+package com.utahmsd.cs6018.instyle.db;
+
+import android.arch.persistence.db.SupportSQLiteDatabase;
+import android.arch.persistence.db.SupportSQLiteOpenHelper;
+import android.arch.persistence.db.SupportSQLiteStatement;
+import android.arch.persistence.db.framework.FrameworkSQLiteOpenHelperFactory;
+import android.arch.persistence.room.Room;
+import android.arch.persistence.room.migration.Migration;
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.db.entity.User;
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+import com.utahmsd.cs6018.instyle.util.DataGenerator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.formatDob;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Runs the InStyleDatabase migration chain against generated databases of realistic size, starting
+ * from every earlier version, and prints how long each step takes.
+ *
+ * Each test creates a version 1 database with the schema Room generated for it, fills it with
+ * generated Users, FitnessProfiles and Weather, brings it up to the start version, then opens it
+ * with Room, which runs the remaining migrations and fails if the result doesn't match the current
+ * entities. The number of users defaults to 100,000 and can be changed with an instrumentation
+ * argument, e.g. -e numUsers 1000000.
+ */
+@RunWith(AndroidJUnit4.class)
+public class InStyleDatabaseMigrationTest {
+
+    private static final String TEST_DATABASE = "migration-test";
+    private static final long SEED = 6018L;
+    private static final int DEFAULT_NUM_USERS = 100_000;
+    private static final int NUM_LOCATIONS = 200;
+    private static final int BATCH_SIZE = 10_000;
+
+    //Schema Room generated for version 1, before there were any migrations
+    private static final String[] SCHEMA_V1 = {
+            "CREATE TABLE IF NOT EXISTS `User` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`email` TEXT, `pass` TEXT, `first_name` TEXT, `last_name` TEXT, `join_date` INTEGER)",
+            "CREATE UNIQUE INDEX `index_User_email` ON `User` (`email`)",
+            "CREATE TABLE IF NOT EXISTS `FitnessProfile` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`first_name` TEXT, `last_name` TEXT, `city` TEXT, `country` TEXT, `dob` TEXT, `sex` TEXT, " +
+                    "`weight_lbs` INTEGER NOT NULL, `height_ft` INTEGER NOT NULL, `height_in` INTEGER NOT NULL, " +
+                    "`lifestyle` TEXT, `weight_goal` TEXT, `lbs_per_week` INTEGER NOT NULL, `bmi` REAL NOT NULL, " +
+                    "`bmr` REAL NOT NULL, `user_id` INTEGER NOT NULL, `stepCount` REAL NOT NULL, " +
+                    "`dateLastUpdated` INTEGER, `profile_image` TEXT, FOREIGN KEY(`user_id`) REFERENCES " +
+                    "`User`(`id`) ON UPDATE NO ACTION ON DELETE NO ACTION )",
+            "CREATE UNIQUE INDEX `index_FitnessProfile_user_id` ON `FitnessProfile` (`user_id`)",
+            "CREATE TABLE IF NOT EXISTS `Weather` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`city` TEXT, `country` TEXT, `lat` REAL NOT NULL, `lon` REAL NOT NULL, `summary` TEXT, " +
+                    "`detail` TEXT, `current_temp` REAL, `temp_min` REAL, `temp_max` REAL, `wind` REAL NOT NULL, " +
+                    "`pressure` INTEGER NOT NULL, `humidity` INTEGER NOT NULL, `last_updated` INTEGER)",
+            "CREATE UNIQUE INDEX `index_Weather_city_country` ON `Weather` (`city`, `country`)"
+    };
+
+    private Context context;
+    private DataGenerator generator;
+    private int numUsers;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        numUsers = Integer.parseInt(arguments.getString("numUsers", String.valueOf(DEFAULT_NUM_USERS)));
+        generator = new DataGenerator(SEED, NUM_LOCATIONS);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void migrateFromVersion1() {
+        migrateFrom(1);
+    }
+
+    @Test
+    public void migrateFromVersion2() {
+        migrateFrom(2);
+    }
+
+    @Test
+    public void migrateFromVersion3() {
+        migrateFrom(3);
+    }
+
+    @Test
+    public void migrateFromVersion4() {
+        migrateFrom(4);
+    }
+
+    @Test
+    public void migrateFromVersion5() {
+        migrateFrom(5);
+    }
+
+    @Test
+    public void migrateFromVersion6() {
+        migrateFrom(6);
+    }
+
+    @Test
+    public void migrateFromVersion7() {
+        migrateFrom(7);
+    }
+
+    @Test
+    public void migrateFromVersion7_removesUsersWithDuplicateEmails() {
+        numUsers = 10;
+        User original = generator.generateBatch(0, 1).getUsers().get(0);
+        //Before version 8 only the email as typed was unique, so it could register again in upper case
+        createDatabase(7, db -> {
+            db.execSQL("INSERT INTO User (id, email, email_normalized, pass) VALUES (?, ?, ?, ?)",
+                    new Object[]{numUsers + 1, original.getEmail().toUpperCase(Locale.US),
+                            original.getNormalizedEmail(), "password"});
+            db.execSQL("INSERT INTO StepSample (user_id, timestamp, steps) VALUES (?, 0, 100)",
+                    new Object[]{numUsers + 1});
+        });
+
+        InStyleDatabase database = Room.databaseBuilder(context, InStyleDatabase.class, TEST_DATABASE)
+                .addMigrations(InStyleDatabase.MIGRATIONS)
+                .build();
+        try {
+            assertEquals(numUsers, database.userDao().countUsers());
+            assertEquals(original.getId(), database.userDao().getUserByEmail(original.getNormalizedEmail()).getId());
+            assertEquals(0, count(database, "SELECT COUNT(*) FROM StepSample"));
+        } finally {
+            database.close();
+        }
+    }
+
+    private void migrateFrom(int startVersion) {
+        createDatabase(startVersion);
+
+        Map<String, Double> timings = new LinkedHashMap<>();
+        InStyleDatabase database = Room.databaseBuilder(context, InStyleDatabase.class, TEST_DATABASE)
+                .addMigrations(timed(InStyleDatabase.MIGRATIONS, timings))
+                .build();
+        long start = System.nanoTime();
+        database.getOpenHelper().getWritableDatabase(); //Runs the migrations and validates the schema
+        double totalMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        System.out.println(String.format("Migrations from version %d with %,d users:", startVersion, numUsers));
+        for (Map.Entry<String, Double> timing : timings.entrySet()) {
+            System.out.println(String.format("  %-20s %10.1fms", timing.getKey(), timing.getValue()));
+        }
+        System.out.println(String.format("  %-20s %10.1fms", "Total (with open)", totalMillis));
+        assertEquals(InStyleDatabase.VERSION - startVersion, timings.size());
+
+        try {
+            assertEquals(numUsers, database.userDao().countUsers());
+            assertEquals(numUsers, count(database, "SELECT COUNT(*) FROM FitnessProfile"));
+            assertEquals(NUM_LOCATIONS, count(database, "SELECT COUNT(*) FROM Weather"));
+            assertEquals(0, count(database, "SELECT COUNT(*) FROM FitnessProfile WHERE dob IS NULL"));
+
+            for (int i = 0; i < numUsers; i += Math.max(1, numUsers / 100)) {
+                DataGenerator.Batch batch = generator.generateBatch(i, 1);
+                User user = batch.getUsers().get(0);
+                assertNotNull(database.userDao().getUserByEmail(user.getNormalizedEmail()));
+                assertEquals(batch.getFitnessProfiles().get(0).getM_dateOfBirth().toEpochDay(), count(database,
+                        "SELECT dob FROM FitnessProfile WHERE user_id = " + user.getId()));
+            }
+        } finally {
+            database.close();
+        }
+    }
+
+    private void createDatabase(int startVersion) {
+        createDatabase(startVersion, db -> { });
+    }
+
+    /**
+     * Creates a version 1 database filled with generated data, migrates it to startVersion, then
+     * hands it to afterMigrating (e.g., to add rows the later migrations have to deal with).
+     */
+    private void createDatabase(int startVersion, Consumer<SupportSQLiteDatabase> afterMigrating) {
+        SupportSQLiteOpenHelper.Callback callback = new SupportSQLiteOpenHelper.Callback(startVersion) {
+            @Override
+            public void onCreate(SupportSQLiteDatabase db) {
+                for (String sql : SCHEMA_V1) {
+                    db.execSQL(sql);
+                }
+                insertVersion1Data(db);
+                for (Migration migration : InStyleDatabase.MIGRATIONS) {
+                    if (migration.endVersion <= startVersion) {
+                        migration.migrate(db);
+                    }
+                }
+                afterMigrating.accept(db);
+            }
+
+            @Override
+            public void onUpgrade(SupportSQLiteDatabase db, int oldVersion, int newVersion) { }
+        };
+        SupportSQLiteOpenHelper helper = new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(context)
+                        .name(TEST_DATABASE)
+                        .callback(callback)
+                        .build());
+        helper.getWritableDatabase();
+        helper.close();
+    }
+
+    private void insertVersion1Data(SupportSQLiteDatabase db) {
+        SupportSQLiteStatement insertUser = db.compileStatement(
+                "INSERT INTO User (id, email, pass, first_name, last_name, join_date) VALUES (?, ?, ?, ?, ?, ?)");
+        SupportSQLiteStatement insertFitnessProfile = db.compileStatement(
+                "INSERT INTO FitnessProfile (first_name, last_name, city, country, dob, sex, weight_lbs, " +
+                        "height_ft, height_in, lifestyle, weight_goal, lbs_per_week, bmi, bmr, user_id, " +
+                        "stepCount, dateLastUpdated) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        generator.generate(numUsers, BATCH_SIZE, batch -> {
+            for (User user : batch.getUsers()) {
+                insertUser.bindLong(1, user.getId());
+                insertUser.bindString(2, user.getEmail());
+                insertUser.bindString(3, user.getPassword());
+                insertUser.bindString(4, user.getFirstName());
+                insertUser.bindString(5, user.getLastName());
+                insertUser.bindLong(6, user.getJoinDate().getTime());
+                insertUser.executeInsert();
+            }
+            for (FitnessProfile fp : batch.getFitnessProfiles()) {
+                insertFitnessProfile.bindString(1, fp.getM_fName());
+                insertFitnessProfile.bindString(2, fp.getM_lName());
+                insertFitnessProfile.bindString(3, fp.getM_city());
+                insertFitnessProfile.bindString(4, fp.getM_country());
+                insertFitnessProfile.bindString(5, formatDob(fp.getM_dateOfBirth()));
+                insertFitnessProfile.bindString(6, fp.getM_sex());
+                insertFitnessProfile.bindLong(7, fp.getM_weightInPounds());
+                insertFitnessProfile.bindLong(8, fp.getM_heightFeet());
+                insertFitnessProfile.bindLong(9, fp.getM_heightInches());
+                insertFitnessProfile.bindString(10, fp.getM_lifestyleSelection());
+                insertFitnessProfile.bindString(11, fp.getM_weightGoal());
+                insertFitnessProfile.bindLong(12, fp.getM_lbsPerWeek());
+                insertFitnessProfile.bindDouble(13, fp.getM_bmi());
+                insertFitnessProfile.bindDouble(14, fp.getM_bmr());
+                insertFitnessProfile.bindLong(15, fp.getUserId());
+                insertFitnessProfile.bindDouble(16, fp.getM_stepCount());
+                insertFitnessProfile.bindLong(17, fp.getM_dateLastUpdated().getTime());
+                insertFitnessProfile.executeInsert();
+            }
+        });
+
+        SupportSQLiteStatement insertWeather = db.compileStatement(
+                "INSERT INTO Weather (city, country, lat, lon, summary, detail, current_temp, temp_min, " +
+                        "temp_max, wind, pressure, humidity, last_updated) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        for (Weather weather : generator.generateWeather()) {
+            insertWeather.bindString(1, weather.getCity());
+            insertWeather.bindString(2, weather.getCountryCode());
+            insertWeather.bindDouble(3, weather.getLatitude());
+            insertWeather.bindDouble(4, weather.getLongitude());
+            insertWeather.bindString(5, weather.getForecastMain());
+            insertWeather.bindString(6, weather.getForecastDescription());
+            insertWeather.bindDouble(7, weather.getTemperature().temp);
+            insertWeather.bindDouble(8, weather.getTemperature().tempMin);
+            insertWeather.bindDouble(9, weather.getTemperature().tempMax);
+            insertWeather.bindDouble(10, weather.getWindSpeed());
+            insertWeather.bindLong(11, weather.getPressure());
+            insertWeather.bindLong(12, weather.getHumidity());
+            insertWeather.bindLong(13, weather.getLastUpdated().getTime());
+            insertWeather.executeInsert();
+        }
+    }
+
+    /**
+     * Wraps each migration to record how long it takes, keyed by e.g. "1 -> 2".
+     */
+    private static Migration[] timed(Migration[] migrations, Map<String, Double> timings) {
+        Migration[] timed = new Migration[migrations.length];
+        for (int i = 0; i < migrations.length; i++) {
+            Migration migration = migrations[i];
+            timed[i] = new Migration(migration.startVersion, migration.endVersion) {
+                @Override
+                public void migrate(SupportSQLiteDatabase database) {
+                    long start = System.nanoTime();
+                    migration.migrate(database);
+                    timings.put(startVersion + " -> " + endVersion, (System.nanoTime() - start) / 1_000_000.0);
+                }
+            };
+        }
+        return timed;
+    }
+
+    private static long count(InStyleDatabase database, String query) {
+        try (Cursor cursor = database.query(query, null)) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+}
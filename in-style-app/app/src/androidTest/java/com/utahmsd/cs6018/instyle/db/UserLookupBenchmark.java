@@ -0,0 +1,117 @@
+package com.utahmsd.cs6018.instyle.db;
+
+import android.arch.persistence.room.Room;
+import android.database.Cursor;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.utahmsd.cs6018.instyle.db.dao.UserDao;
+import com.utahmsd.cs6018.instyle.db.entity.User;
+import com.utahmsd.cs6018.instyle.util.UserGenerator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares login lookup latency of the old case-insensitive LIKE query on the email column with
+ * the equality lookup on the indexed email_normalized column, for increasing User table sizes.
+ *
+ * Runs on a device/emulator against an in-memory database, since it needs SQLite. Results are
+ * printed to logcat/stdout.
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserLookupBenchmark {
+
+    private static final int[] TABLE_SIZES = {1_000, 100_000, 1_000_000};
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final int LOOKUPS = 200;
+
+    private InStyleDatabase database;
+    private UserDao userDao;
+
+    @Before
+    public void setUp() {
+        database = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getTargetContext(),
+                InStyleDatabase.class).build();
+        userDao = database.userDao();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void normalizedEmailLookup_usesIndex() {
+        try (Cursor cursor = database.query(
+                "EXPLAIN QUERY PLAN SELECT * FROM User u WHERE u.email_normalized = ?",
+                new Object[]{"test@test.com"})) {
+            StringBuilder plan = new StringBuilder();
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnCount() - 1));
+            }
+            System.out.println("Query plan: " + plan);
+            assertTrue(plan.toString().contains("index_User_email_normalized"));
+        }
+    }
+
+    @Test
+    public void benchmarkLoginLookup() {
+        Random random = new Random(42);
+        List<String> emails = new ArrayList<>();
+        int inserted = 0;
+
+        for (int tableSize : TABLE_SIZES) {
+            while (inserted < tableSize) {
+                List<User> batch = UserGenerator.generateUserData(Math.min(INSERT_BATCH_SIZE, tableSize - inserted));
+                database.runInTransaction(() -> userDao.insertAllUsers(batch));
+                if (emails.size() < LOOKUPS * 10) {
+                    batch.forEach(user -> emails.add(user.getEmail()));
+                }
+                inserted += batch.size();
+            }
+
+            //Login emails as typed by the user, so the LIKE lookup matches case-insensitively
+            List<String> lookups = new ArrayList<>();
+            for (int i = 0; i < LOOKUPS; i++) {
+                lookups.add(emails.get(random.nextInt(emails.size())).toUpperCase());
+            }
+
+            double likeMicros = timeLookups(lookups, email -> {
+                try (Cursor cursor = database.query("SELECT * FROM User u WHERE u.email LIKE ?",
+                        new Object[]{email})) {
+                    return cursor.moveToFirst();
+                }
+            });
+            double equalityMicros = timeLookups(lookups,
+                    email -> userDao.getUserByEmail(User.normalizeEmail(email)) != null);
+
+            System.out.println(String.format("%,d users: LIKE %.1fus/lookup, '=' on email_normalized " +
+                    "%.1fus/lookup (%.1fx)", tableSize, likeMicros, equalityMicros, likeMicros / equalityMicros));
+        }
+    }
+
+    private interface Lookup {
+        boolean find(String email);
+    }
+
+    private static double timeLookups(List<String> emails, Lookup lookup) {
+        //Warm up the statement cache and page cache
+        for (int i = 0; i < 10; i++) {
+            assertTrue(lookup.find(emails.get(i)));
+        }
+        long start = System.nanoTime();
+        for (String email : emails) {
+            assertTrue(lookup.find(email));
+        }
+        return (System.nanoTime() - start) / 1_000.0 / emails.size();
+    }
+}
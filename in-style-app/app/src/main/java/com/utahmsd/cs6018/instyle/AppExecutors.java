@@ -0,0 +1,102 @@
+package com.utahmsd.cs6018.instyle;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+import com.utahmsd.cs6018.instyle.util.InstrumentedThreadPoolExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Application-wide executor pools shared by all of the repositories.
+ *
+ * Database reads/writes run on the disk IO pool and calls to the OpenWeatherMap/Geocoder APIs run
+ * on the network pool, so a slow weather fetch no longer blocks unrelated User or FitnessProfile
+ * writes behind it (which is what happened when every call spawned an AsyncTask on the global
+ * serial executor). Results that need to be posted to LiveData via setValue() are handed back
+ * through the main thread executor.
+ *
+ * Access follows the same singleton pattern as the database and repositories. Tests can swap in
+ * their own (e.g., synchronous) executors with setInstance().
+ */
+public class AppExecutors {
+
+    private static final int DISK_IO_THREADS = 2;
+    private static final int NETWORK_IO_THREADS = 3;
+
+    private static volatile AppExecutors INSTANCE;
+
+    private final Executor m_diskIO;
+    private final Executor m_networkIO;
+    private final Executor m_mainThread;
+
+    @VisibleForTesting
+    public AppExecutors(Executor diskIO, Executor networkIO, Executor mainThread) {
+        m_diskIO = diskIO;
+        m_networkIO = networkIO;
+        m_mainThread = mainThread;
+    }
+
+    private AppExecutors() {
+        this(new InstrumentedThreadPoolExecutor("disk-io", DISK_IO_THREADS),
+                new InstrumentedThreadPoolExecutor("network-io", NETWORK_IO_THREADS),
+                new MainThreadExecutor());
+    }
+
+    /**
+     * Static method to ensure only one set of executor pools is instantiated.
+     * @return
+     */
+    public static AppExecutors getInstance() {
+        if (INSTANCE == null) {
+            synchronized (AppExecutors.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new AppExecutors();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Replaces the shared executors, e.g. with executors that run tasks immediately on the
+     * calling thread so repository behavior can be driven deterministically from unit tests.
+     * Must be called before any of the repositories are first instantiated.
+     * @param executors
+     */
+    @VisibleForTesting
+    public static void setInstance(AppExecutors executors) {
+        synchronized (AppExecutors.class) {
+            INSTANCE = executors;
+        }
+    }
+
+    public Executor diskIO() { return m_diskIO; }
+
+    public Executor networkIO() { return m_networkIO; }
+
+    public Executor mainThread() { return m_mainThread; }
+
+    /**
+     * Logs queue depth and task latency for each of the instrumented pools.
+     */
+    public void logMetrics() {
+        if (m_diskIO instanceof InstrumentedThreadPoolExecutor) {
+            ((InstrumentedThreadPoolExecutor) m_diskIO).logMetrics();
+        }
+        if (m_networkIO instanceof InstrumentedThreadPoolExecutor) {
+            ((InstrumentedThreadPoolExecutor) m_networkIO).logMetrics();
+        }
+    }
+
+    private static class MainThreadExecutor implements Executor {
+        private final Handler m_mainThreadHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            m_mainThreadHandler.post(command);
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package com.utahmsd.cs6018.instyle;
 
 import android.app.Application;
+import android.arch.lifecycle.ProcessLifecycleOwner;
 import android.content.Intent;
+import android.os.Build;
+import android.util.Log;
 
+import com.utahmsd.cs6018.instyle.backup.BackupRestorer;
 import com.utahmsd.cs6018.instyle.db.InStyleDatabase;
 import com.utahmsd.cs6018.instyle.db.repo.FitnessProfileRepository;
+import com.utahmsd.cs6018.instyle.db.repo.StepCountRepository;
 import com.utahmsd.cs6018.instyle.db.repo.UserRepository;
 import com.utahmsd.cs6018.instyle.db.repo.WeatherRepository;
+import com.utahmsd.cs6018.instyle.image.ImageStore;
+
+import java.io.IOException;
 
 /**
  * Main application class containing static method calls to ensure the application only generates
@@ -15,15 +23,42 @@ import com.utahmsd.cs6018.instyle.db.repo.WeatherRepository;
  */
 public class InStyleApp extends Application {
 
+    private static final String LOG_TAG = InStyleApp.class.getSimpleName();
+
     @Override
     public void onCreate() {
         super.onCreate();
 
+        //Swap in a database restored from a backup while nothing has it open yet
+        try {
+            BackupRestorer.applyPendingRestore(getDatabasePath(InStyleDatabase.DATABASE_NAME),
+                    InStyleDatabase.VERSION);
+        } catch (IOException e) {
+            Log.d(LOG_TAG, String.format("Unable to apply restored database: '%s'", e.getMessage()));
+        }
+
         getDatabase();
 
         getUserRepository();
         getWeatherRepository();
 //        getFitnessProfileRepository();
+
+        //Recalculate stored fitness metrics for anyone whose birthday has passed since the last launch
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            FitnessProfileRepository.getInstance(this).refreshStaleMetrics();
+        }
+
+        //Delete profile images that were replaced, or picked but never saved
+        FitnessProfileRepository.getInstance(this).collectUnreferencedImages(ImageStore.getInstance(this));
+
+        //Keep weather for each user's location warm while the app is in the foreground
+        ProcessLifecycleOwner.get().getLifecycle()
+                .addObserver(getWeatherRepository().getPrefetchScheduler());
+
+        //Write buffered step counts when the app goes to the background, and drop old raw samples
+        ProcessLifecycleOwner.get().getLifecycle()
+                .addObserver(getStepCountRepository().getBuffer());
+        getStepCountRepository().pruneStepHistory();
     }
 
     public InStyleDatabase getDatabase() {
@@ -42,4 +77,8 @@ public class InStyleApp extends Application {
     public WeatherRepository getWeatherRepository() {
         return WeatherRepository.getInstance(getDatabase());
     }
+
+    public StepCountRepository getStepCountRepository() {
+        return StepCountRepository.getInstance(getDatabase());
+    }
 }
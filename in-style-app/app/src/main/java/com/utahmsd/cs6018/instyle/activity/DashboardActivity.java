@@ -5,9 +5,6 @@ import android.arch.lifecycle.Observer;
 import android.arch.lifecycle.ViewModelProviders;
 import android.content.Context;
 import android.content.Intent;
-import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.net.Uri;
 import android.os.Bundle;
@@ -17,18 +14,22 @@ import android.support.v4.app.FragmentTransaction;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
 
+import com.utahmsd.cs6018.instyle.AppExecutors;
 import com.utahmsd.cs6018.instyle.R;
+import com.utahmsd.cs6018.instyle.db.InStyleDatabase;
 import com.utahmsd.cs6018.instyle.db.entity.User;
 import com.utahmsd.cs6018.instyle.fragment.AccountSettingsFragment;
 import com.utahmsd.cs6018.instyle.fragment.LoginFragment;
 import com.utahmsd.cs6018.instyle.ui.RV_Adapter;
-import com.utahmsd.cs6018.instyle.util.GeocoderLocationUtils;
 import com.utahmsd.cs6018.instyle.viewmodel.FitnessProfileViewModel;
 import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
 import com.utahmsd.cs6018.instyle.fragment.DashboardFragment;
 import com.utahmsd.cs6018.instyle.fragment.FitnessDetailsFragment;
 import com.utahmsd.cs6018.instyle.fragment.ProfileSummaryFragment;
 import com.utahmsd.cs6018.instyle.fragment.WeatherFragment;
+import com.utahmsd.cs6018.instyle.geocoding.GeocodingService;
+import com.utahmsd.cs6018.instyle.sensor.AccelerometerGesturePipeline;
+import com.utahmsd.cs6018.instyle.sensor.ShakeGestureDetector;
 import com.utahmsd.cs6018.instyle.viewmodel.UserViewModel;
 import com.utahmsd.cs6018.instyle.viewmodel.WeatherViewModel;
 
@@ -48,9 +49,7 @@ public class DashboardActivity extends AppCompatActivity implements RV_Adapter.O
     private FitnessProfileViewModel m_fitnessProfileViewModel;
     private WeatherViewModel weatherViewModel;
     private UserViewModel userViewModel;
-    private final double m_threashold = 0.8;
-    private Sensor m_sensorAccel;
-    private SensorManager m_sensorManager;
+    private AccelerometerGesturePipeline m_gesturePipeline;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -66,47 +65,31 @@ public class DashboardActivity extends AppCompatActivity implements RV_Adapter.O
 
     }
 
+    /**
+     * Shaking the device opens the fitness details. Accelerometer events are filtered on their own
+     * thread, and only a detected (debounced) shake is posted back to the main thread.
+     */
     private void setSensors() {
-        m_sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
-        m_sensorAccel = m_sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
-
-        Log.d("Accel: ", "The sensor: " + m_sensorAccel.getStringType());
+        m_gesturePipeline = new AccelerometerGesturePipeline(
+                (SensorManager) getSystemService(Context.SENSOR_SERVICE),
+                AppExecutors.getInstance().mainThread(),
+                new ShakeGestureDetector(),
+                () -> {
+                    Log.d(LOG_TAG, "Shake gesture detected");
+                    fitnessDetailsButtonHandler();
+                });
     }
 
-    private SensorEventListener m_AccelListener = new SensorEventListener() {
-        @Override
-        public void onSensorChanged(SensorEvent event) {
-            double x = event.values[0];
-            double z = event.values[2];
-
-            if (x > m_threashold || z > m_threashold) {
-                Log.d(LOG_TAG, "onSensorChanged values beyond defined thresholds");
-                //TODO: FIX THIS BEHAVIOR, CALLING THE FITNESS DETAILS BUTTON HANDLER CAUSES AN INFINITE LOOP
-                fitnessDetailsButtonHandler();
-
-            }
-        }
-
-        @Override
-        public void onAccuracyChanged(Sensor sensor, int accuracy) {
-
-        }
-    };
-
     @Override
     protected void onResume() {
         super.onResume();
-        if (m_sensorAccel != null){
-            m_sensorManager.registerListener(m_AccelListener, m_sensorAccel, SensorManager.SENSOR_DELAY_NORMAL);
-        }
+        m_gesturePipeline.start();
     }
 
     @Override
     protected void onPause(){
         super.onPause();
-        if (m_AccelListener != null){
-            m_sensorManager.unregisterListener(m_AccelListener);
-        }
+        m_gesturePipeline.stop();
     }
 
     private void initializeViewModels() {
@@ -205,15 +188,16 @@ public class DashboardActivity extends AppCompatActivity implements RV_Adapter.O
             if (user != null) {
                 m_fitnessProfileViewModel.getFitnessProfile(user.getId()).observe(this, fp -> {
                     if (fp != null) {
-                        String coords = GeocoderLocationUtils.asyncFetchCoordinatesFromApi(fp.getM_city(), fp.getM_country());
-                        if (!isNotNullOrEmpty(coords)) {
-                            coords = DEFAULT_COORDINATES;
-                        }
-                        Uri searchUri = Uri.parse("geo:" + coords + "?q=hikes");
-                        Intent mapIntent = new Intent(Intent.ACTION_VIEW, searchUri);
-                        if (mapIntent.resolveActivity(getPackageManager()) != null) {
-                            startActivity(mapIntent);
-                        }
+                        //Usually served from the cached coordinates, without a Geocoder API call
+                        GeocodingService.getInstance(InStyleDatabase.getDatabaseInstance(this))
+                                .getCoordinates(fp.getM_city(), fp.getM_country(), coordinates -> {
+                                    String coords = isNotNullOrEmpty(coordinates) ? coordinates : DEFAULT_COORDINATES;
+                                    Uri searchUri = Uri.parse("geo:" + coords + "?q=hikes");
+                                    Intent mapIntent = new Intent(Intent.ACTION_VIEW, searchUri);
+                                    if (mapIntent.resolveActivity(getPackageManager()) != null) {
+                                        startActivity(mapIntent);
+                                    }
+                                });
                     }
                 });
             }
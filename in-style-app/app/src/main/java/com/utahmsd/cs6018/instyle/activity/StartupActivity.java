@@ -1,6 +1,5 @@
 package com.utahmsd.cs6018.instyle.activity;
 
-import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
@@ -8,17 +7,24 @@ import android.util.Log;
 
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.mobile.client.AWSMobileClient;
-import com.amazonaws.mobileconnectors.s3.transferutility.TransferListener;
-import com.amazonaws.mobileconnectors.s3.transferutility.TransferObserver;
-import com.amazonaws.mobileconnectors.s3.transferutility.TransferState;
-import com.amazonaws.mobileconnectors.s3.transferutility.TransferUtility;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.utahmsd.cs6018.instyle.BuildConfig;
+import com.utahmsd.cs6018.instyle.backup.BackupRestorer;
+import com.utahmsd.cs6018.instyle.backup.BackupResult;
+import com.utahmsd.cs6018.instyle.backup.DatabaseSnapshot;
+import com.utahmsd.cs6018.instyle.backup.IncrementalBackup;
+import com.utahmsd.cs6018.instyle.backup.ObjectStore;
+import com.utahmsd.cs6018.instyle.backup.RestoreResult;
+import com.utahmsd.cs6018.instyle.backup.S3ObjectStore;
+import com.utahmsd.cs6018.instyle.backup.SnapshotBackup;
+import com.utahmsd.cs6018.instyle.backup.SnapshotResult;
+import com.utahmsd.cs6018.instyle.db.InStyleDatabase;
 
 import java.io.File;
+import java.io.IOException;
 import java.sql.Date;
 import java.time.Instant;
-import java.util.Locale;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -32,8 +38,15 @@ public class StartupActivity extends AppCompatActivity {
     private static final String KEY = BuildConfig.AWS_API_KEY;
     private static final String SECRET = BuildConfig.AWS_API_SECRET;
     private static final String BUCKET_NAME = "instyle-database";
-    private static final String DATABASE_FILE_PATH =
-            "/data/user/0/com.example.mcresswell.project01/databases/instyle_database";
+    //Only upload the chunks of the database that changed since the last backup, instead of the whole file
+    private static final boolean INCREMENTAL_BACKUP = true;
+    private static final String INCREMENTAL_BACKUP_PREFIX = "incremental/";
+    private static final String SNAPSHOT_BACKUP_PREFIX = "full/";
+    private static final String BACKUP_STATE_FILE = "backup-state.manifest";
+    private static final String BACKUP_WORK_DIR = "backup";
+    //Download the latest backup and swap it in the next time the app starts, e.g., after a reinstall
+    private static final boolean RESTORE_LATEST_BACKUP = false;
+    private static final int RESTORE_THREADS = 4;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -51,103 +64,81 @@ public class StartupActivity extends AppCompatActivity {
 
         BasicAWSCredentials credentials = new BasicAWSCredentials(KEY, SECRET);
 
-        TransferUtility transferUtility =
-                buildTransferUtility(this, new AmazonS3Client(credentials));
+        AmazonS3Client s3Client = new AmazonS3Client(credentials);
+        ObjectStore store = new S3ObjectStore(s3Client, BUCKET_NAME);
+        SnapshotBackup snapshotBackup = new SnapshotBackup(
+                new DatabaseSnapshot(InStyleDatabase.getDatabaseInstance(this).getOpenHelper()),
+                store,
+                SNAPSHOT_BACKUP_PREFIX,
+                new File(getCacheDir(), BACKUP_WORK_DIR));
+        IncrementalBackup incrementalBackup = new IncrementalBackup(
+                store,
+                INCREMENTAL_BACKUP_PREFIX,
+                new File(getFilesDir(), BACKUP_STATE_FILE));
 
         ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
+        if (RESTORE_LATEST_BACKUP) {
+            executorService.execute(databaseRestoreTask(snapshotBackup, incrementalBackup,
+                    getDatabasePath(InStyleDatabase.DATABASE_NAME)));
+        }
         executorService.scheduleAtFixedRate(
-                databaseBackupTask(transferUtility), 1, 60, TimeUnit.MINUTES);
+                databaseBackupTask(snapshotBackup, incrementalBackup), 1, 60, TimeUnit.MINUTES);
 
     }
 
-    private static Runnable databaseBackupTask(TransferUtility transferUtility) {
+    /**
+     * Stages the latest backup of either kind; InStyleApp swaps it in on the next launch, before
+     * the database is opened.
+     */
+    private static Runnable databaseRestoreTask(SnapshotBackup snapshotBackup, IncrementalBackup incrementalBackup,
+                                                File databaseFile) {
         return () -> {
-
-            String timestamp = Date.from(Instant.now()).toString();
-            Log.d(LOG_TAG, String.format("------ Kicking off scheduled database backup task:  %s --------",
-                    timestamp));
-            uploadFileToS3(DATABASE_FILE_PATH,
-                    "db-backup-" + timestamp.replace(" ", "_"),
-                    transferUtility);
+            ExecutorService fetchExecutor = Executors.newFixedThreadPool(RESTORE_THREADS);
+            try {
+                RestoreResult result = new BackupRestorer(snapshotBackup, incrementalBackup, fetchExecutor)
+                        .stageLatest(databaseFile);
+                Log.d(LOG_TAG, "Database restore staged, restart the app to apply it: " + result);
+            } catch (IOException | RuntimeException e) {
+                Log.d(LOG_TAG, String.format("Database restore failed: '%s'", e.getMessage()));
+            } finally {
+                fetchExecutor.shutdown();
+            }
         };
     }
 
-    private static void uploadFileToS3(String inputFileName, String outputFileName, TransferUtility transferUtility) {
-
-        TransferObserver uploadObserver =
-                transferUtility.upload( BUCKET_NAME, outputFileName, new File(inputFileName));
-
-        uploadObserver.setTransferListener(new TransferListener() {
+    /**
+     * Both kinds of backup work from a consistent snapshot of the database, never the live file,
+     * which Room may be writing to.
+     */
+    private static Runnable databaseBackupTask(SnapshotBackup snapshotBackup, IncrementalBackup incrementalBackup) {
+        return () -> {
 
-            @Override
-            public void onStateChanged(int id, TransferState state) {
-                if (TransferState.COMPLETED == state) {
-                    Log.d(LOG_TAG, String.format(Locale.US,
-                            "TransferUtility Upload Completed Successfully at %s",
-                            Date.from(Instant.now()).toString()));
+            String timestamp = Date.from(Instant.now()).toString();
+            Log.d(LOG_TAG, String.format("------ Kicking off scheduled database backup task:  %s --------",
+                    timestamp));
+            //An exception escaping the task would cancel every later backup
+            try {
+                if (!INCREMENTAL_BACKUP) {
+                    SnapshotResult result = snapshotBackup.backup();
+                    Log.d(LOG_TAG, "Compressed database backup finished: " + result);
+                    return;
                 }
-            }
-
-            @Override
-            public void onProgressChanged(int id, long bytesCurrent, long bytesTotal) {
-                //TODO: Add logic in here
-
-                int percentProgress = (int) ((float)bytesCurrent/(float)bytesTotal) * 100;
-                Log.d(LOG_TAG, String.format("Upload transfer for transfer ID #%d   ----   %d percent" +
-                        " of %d bytes complete", id, percentProgress, bytesTotal));
-            }
-
-            @Override
-            public void onError(int id, Exception ex) {
-                Log.d(LOG_TAG, String.format("Error: upload failed for transfer ID:%d", id));
-                Log.d(LOG_TAG, String.format("Upload transfer exception: '%s'", ex.getMessage()));
-
-
-            }
-
-        });
-    }
-
-    private static TransferUtility buildTransferUtility(Context context, AmazonS3Client client) {
-        return TransferUtility.builder()
-                .context(context.getApplicationContext())
-                .awsConfiguration(AWSMobileClient.getInstance().getConfiguration())
-                .s3Client(client)
-                .build();
-    }
-
-    private static void downloadFileFromS3(String inputFileName, String outputFileName, TransferUtility transferUtility) {
-
-        TransferObserver uploadObserver =
-                transferUtility.download(BUCKET_NAME, outputFileName, new File(inputFileName));
-
-        uploadObserver.setTransferListener(new TransferListener() {
-
-            @Override
-            public void onStateChanged(int id, TransferState state) {
-                if (TransferState.COMPLETED == state) {
-                    Log.d(LOG_TAG, String.format(Locale.US,
-                            "TransferUtility Download Completed Successfully at %s",
-                            Date.from(Instant.now()).toString()));
+                //Taking a snapshot writes a new file every time, so check the live database first
+                String changeStamp = snapshotBackup.getSourceChangeStamp();
+                if (incrementalBackup.isBackedUp(changeStamp)) {
+                    Log.d(LOG_TAG, "Database unchanged since the last backup, skipping it");
+                    return;
                 }
+                File snapshot = snapshotBackup.takeSnapshot();
+                try {
+                    BackupResult result = incrementalBackup.backup(snapshot, changeStamp);
+                    Log.d(LOG_TAG, "Incremental database backup finished: " + result);
+                } finally {
+                    snapshot.delete();
+                }
+            } catch (IOException | RuntimeException e) {
+                Log.d(LOG_TAG, String.format("Database backup failed: '%s'", e.getMessage()));
             }
-
-            @Override
-            public void onProgressChanged(int id, long bytesCurrent, long bytesTotal) {
-                //TODO: Add logic in here
-
-                int percentProgress = (int) ((float)bytesCurrent/(float)bytesTotal) * 100;
-                Log.d(LOG_TAG, String.format("Download transfer for transfer ID #%d   ----   %d percent" +
-                        " of %d bytes complete", id, percentProgress, bytesTotal));
-            }
-
-            @Override
-            public void onError(int id, Exception ex) {
-                Log.d(LOG_TAG, String.format("Error: download failed for transfer ID #%d", id));
-                Log.d(LOG_TAG, String.format("Download transfer exception: '%s'", ex.getMessage()));
-
-            }
-
-        });
+        };
     }
-}
\ No newline at end of file
+}
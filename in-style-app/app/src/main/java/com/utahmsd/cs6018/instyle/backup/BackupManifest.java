@@ -0,0 +1,131 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Describes one snapshot of the database file taken by IncrementalBackup: the file is the
+ * concatenation of the listed chunks, each stored under its SHA-256 hash, so any snapshot can be
+ * rebuilt from its manifest alone.
+ *
+ * Manifests are stored as small text files, e.g.:
+ * <pre>
+ * instyle-backup-manifest 1
+ * created 1541116800000
+ * length 131072
+ * modified 1541116799000
+ * chunk-size 65536
+ * sha256 9f86d0...
+ * chunks 2
+ * 2c26b4...
+ * fcde2b...
+ * </pre>
+ */
+public class BackupManifest {
+
+    private static final String HEADER = "instyle-backup-manifest";
+    private static final int FORMAT_VERSION = 1;
+
+    private final long m_createdAt;
+    private final long m_fileLength;
+    private final long m_lastModified;
+    private final int m_chunkSize;
+    private final String m_fileSha256;
+    private final List<String> m_chunkHashes;
+
+    public BackupManifest(long createdAt, long fileLength, long lastModified, int chunkSize,
+                          String fileSha256, List<String> chunkHashes) {
+        m_createdAt = createdAt;
+        m_fileLength = fileLength;
+        m_lastModified = lastModified;
+        m_chunkSize = chunkSize;
+        m_fileSha256 = fileSha256;
+        m_chunkHashes = Collections.unmodifiableList(new ArrayList<>(chunkHashes));
+    }
+
+    public long getCreatedAt() { return m_createdAt; }
+
+    public long getFileLength() { return m_fileLength; }
+
+    /**
+     * @return File.lastModified() of the backed up file, used to skip unchanged files without
+     * reading them.
+     */
+    public long getLastModified() { return m_lastModified; }
+
+    public int getChunkSize() { return m_chunkSize; }
+
+    public String getFileSha256() { return m_fileSha256; }
+
+    public List<String> getChunkHashes() { return m_chunkHashes; }
+
+    /**
+     * @return Length of the chunk at the index; every chunk but the last is chunkSize long.
+     */
+    public int getChunkLength(int index) {
+        return (int) Math.min(m_chunkSize, m_fileLength - (long) index * m_chunkSize);
+    }
+
+    public byte[] toBytes() {
+        StringBuilder text = new StringBuilder(128 + m_chunkHashes.size() * 65);
+        text.append(HEADER).append(' ').append(FORMAT_VERSION).append('\n')
+                .append("created ").append(m_createdAt).append('\n')
+                .append("length ").append(m_fileLength).append('\n')
+                .append("modified ").append(m_lastModified).append('\n')
+                .append("chunk-size ").append(m_chunkSize).append('\n')
+                .append("sha256 ").append(m_fileSha256).append('\n')
+                .append("chunks ").append(m_chunkHashes.size()).append('\n');
+        for (String hash : m_chunkHashes) {
+            text.append(hash).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @throws IOException if the data isn't a manifest, or is truncated
+     */
+    public static BackupManifest fromBytes(byte[] data) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(data), StandardCharsets.UTF_8))) {
+            if (!(HEADER + " " + FORMAT_VERSION).equals(reader.readLine())) {
+                throw new IOException("Not a version " + FORMAT_VERSION + " backup manifest");
+            }
+            long createdAt = Long.parseLong(field(reader, "created"));
+            long fileLength = Long.parseLong(field(reader, "length"));
+            long lastModified = Long.parseLong(field(reader, "modified"));
+            int chunkSize = Integer.parseInt(field(reader, "chunk-size"));
+            String fileSha256 = field(reader, "sha256");
+            int chunkCount = Integer.parseInt(field(reader, "chunks"));
+            if (chunkSize <= 0 || chunkCount != (fileLength + chunkSize - 1) / chunkSize) {
+                throw new IOException(String.format(Locale.US,
+                        "%d chunks of %d bytes can't make up %d bytes", chunkCount, chunkSize, fileLength));
+            }
+            List<String> chunkHashes = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                String hash = reader.readLine();
+                if (hash == null) {
+                    throw new IOException("Manifest is missing chunks");
+                }
+                chunkHashes.add(hash);
+            }
+            return new BackupManifest(createdAt, fileLength, lastModified, chunkSize, fileSha256, chunkHashes);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed backup manifest", e);
+        }
+    }
+
+    private static String field(BufferedReader reader, String name) throws IOException {
+        String line = reader.readLine();
+        if (line == null || !line.startsWith(name + " ")) {
+            throw new IOException("Expected manifest field " + name + " but found " + line);
+        }
+        return line.substring(name.length() + 1);
+    }
+}
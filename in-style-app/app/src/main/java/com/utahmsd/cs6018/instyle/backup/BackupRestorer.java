@@ -0,0 +1,193 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import android.util.Log;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * Restores the database from a backup in two steps, so it can be replaced while Room doesn't have
+ * it open:
+ *
+ * 1. stageRestore() downloads a backup with parallel fetches (ranges of a compressed snapshot, or
+ * the chunks of an incremental backup), verifies its checksums, and leaves it next to the database
+ * as [database].pending. This can run at any time, and the live database is left alone if anything
+ * fails.
+ * 2. applyPendingRestore() is called when the app starts, before the database is opened, and
+ * renames the pending file over the database, unless it was written by a newer version of the app.
+ *
+ * Each restore is timed against COLD_RESTORE_SLO_MILLIS, the time a reinstalled app should take
+ * to get a user's data back.
+ */
+public class BackupRestorer {
+
+    private static final String LOG_TAG = BackupRestorer.class.getSimpleName();
+
+    public static final long COLD_RESTORE_SLO_MILLIS = 30_000L;
+    public static final int DEFAULT_RANGE_SIZE = 1024 * 1024;
+
+    private static final String PENDING_SUFFIX = ".pending";
+    //PRAGMA user_version is stored big-endian at this offset of the database header
+    private static final int USER_VERSION_OFFSET = 60;
+    //SQLite files that belong to the database being replaced, and mustn't be applied to the new one
+    private static final String[] DATABASE_SIDE_FILE_SUFFIXES = {"-wal", "-shm", "-journal"};
+
+    private final SnapshotBackup m_snapshotBackup;
+    private final IncrementalBackup m_incrementalBackup;
+    private final Executor m_executor;
+    private final int m_rangeSize;
+    private final LongSupplier m_clock;
+
+    private long m_restoreCount;
+    private long m_missedSloCount;
+    private RestoreResult m_lastResult;
+
+    /**
+     * @param snapshotBackup
+     * @param incrementalBackup
+     * @param executor Runs the fetches; its number of threads is the number of parallel requests
+     */
+    public BackupRestorer(SnapshotBackup snapshotBackup, IncrementalBackup incrementalBackup, Executor executor) {
+        this(snapshotBackup, incrementalBackup, executor, DEFAULT_RANGE_SIZE, System::currentTimeMillis);
+    }
+
+    BackupRestorer(SnapshotBackup snapshotBackup, IncrementalBackup incrementalBackup, Executor executor,
+                   int rangeSize, LongSupplier clock) {
+        m_snapshotBackup = snapshotBackup;
+        m_incrementalBackup = incrementalBackup;
+        m_executor = executor;
+        m_rangeSize = rangeSize;
+        m_clock = clock;
+    }
+
+    /**
+     * @return Every complete backup of either kind, oldest first.
+     */
+    public List<RestorePoint> listBackups() throws IOException {
+        List<RestorePoint> restorePoints = new ArrayList<>();
+        for (String key : m_snapshotBackup.listSnapshots()) {
+            restorePoints.add(new RestorePoint(RestorePoint.Kind.SNAPSHOT, key));
+        }
+        for (String key : m_incrementalBackup.listManifests()) {
+            restorePoints.add(new RestorePoint(RestorePoint.Kind.INCREMENTAL, key));
+        }
+        restorePoints.sort(Comparator.comparingLong(RestorePoint::getCreatedAt));
+        return restorePoints;
+    }
+
+    /**
+     * Stages the most recent backup; see stageRestore.
+     * @param databaseFile
+     * @return
+     * @throws FileNotFoundException if there are no backups
+     */
+    public RestoreResult stageLatest(File databaseFile) throws IOException {
+        List<RestorePoint> restorePoints = listBackups();
+        if (restorePoints.isEmpty()) {
+            throw new FileNotFoundException("There are no backups to restore");
+        }
+        return stageRestore(restorePoints.get(restorePoints.size() - 1), databaseFile);
+    }
+
+    /**
+     * Downloads and verifies the backup, and stages it to replace the database the next time the
+     * app starts. Blocks on the store, so it must be called from a background thread.
+     * @param restorePoint
+     * @param databaseFile Path of the database, e.g., Context.getDatabasePath(DATABASE_NAME)
+     * @return
+     * @throws IOException if the backup can't be downloaded or fails verification; nothing is
+     * staged.
+     */
+    public RestoreResult stageRestore(RestorePoint restorePoint, File databaseFile) throws IOException {
+        long start = m_clock.getAsLong();
+        File pending = pendingFile(databaseFile);
+        if (restorePoint.getKind() == RestorePoint.Kind.SNAPSHOT) {
+            m_snapshotBackup.restore(restorePoint.getKey(), pending, m_executor, m_rangeSize);
+        } else {
+            m_incrementalBackup.restore(restorePoint.getKey(), pending, m_executor);
+        }
+
+        RestoreResult result = new RestoreResult(restorePoint, pending.length(), m_clock.getAsLong() - start,
+                COLD_RESTORE_SLO_MILLIS);
+        Log.d(LOG_TAG, result.toString());
+        recordRestore(result);
+        return result;
+    }
+
+    /**
+     * Replaces the database with a staged restore, if there is one. Must be called before the
+     * database is opened, i.e., before InStyleDatabase.getDatabaseInstance().
+     *
+     * Room can only migrate a database up, so a restore with a higher user_version than the app's
+     * database version (a backup taken by a newer install) is deleted instead of being applied.
+     * @param databaseFile
+     * @param databaseVersion e.g., InStyleDatabase.VERSION
+     * @return Whether a restore was applied
+     * @throws IOException if the pending file can't be moved into place, or was rejected
+     */
+    public static boolean applyPendingRestore(File databaseFile, int databaseVersion) throws IOException {
+        File pending = pendingFile(databaseFile);
+        if (!pending.isFile()) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        int userVersion = readUserVersion(pending);
+        if (userVersion > databaseVersion) {
+            Files.delete(pending.toPath());
+            throw new IOException(String.format(Locale.US,
+                    "Rejected restored database with user_version %d, newer than %d", userVersion, databaseVersion));
+        }
+        //A WAL left next to the restored file would be replayed into it
+        for (String suffix : DATABASE_SIDE_FILE_SUFFIXES) {
+            Files.deleteIfExists(new File(databaseFile.getPath() + suffix).toPath());
+        }
+        if (!pending.renameTo(databaseFile)) {
+            throw new IOException("Unable to rename " + pending + " to " + databaseFile);
+        }
+        Log.d(LOG_TAG, String.format("Applied restored database in %dms", System.currentTimeMillis() - start));
+        return true;
+    }
+
+    /**
+     * Reads the header rather than opening the file, which would create a journal next to it.
+     * @throws IOException if the file is too short to be a database
+     */
+    private static int readUserVersion(File file) throws IOException {
+        try (RandomAccessFile database = new RandomAccessFile(file, "r")) {
+            database.seek(USER_VERSION_OFFSET);
+            return database.readInt();
+        } catch (EOFException e) {
+            throw new IOException(file + " is too short to be a database", e);
+        }
+    }
+
+    private static File pendingFile(File databaseFile) {
+        return new File(databaseFile.getPath() + PENDING_SUFFIX);
+    }
+
+    private synchronized void recordRestore(RestoreResult result) {
+        m_restoreCount++;
+        if (!result.isWithinSlo()) {
+            m_missedSloCount++;
+        }
+        m_lastResult = result;
+    }
+
+    ///////// Statistics ///////////
+
+    public synchronized long getRestoreCount() { return m_restoreCount; }
+
+    public synchronized long getMissedSloCount() { return m_missedSloCount; }
+
+    public synchronized RestoreResult getLastResult() { return m_lastResult; }
+}
@@ -0,0 +1,52 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+/**
+ * Outcome of one IncrementalBackup run: the manifest of the snapshot (null if the file hadn't
+ * changed since the last backup), how many of its chunks had to be uploaded, and how long the
+ * whole run took.
+ */
+public class BackupResult {
+
+    private final String manifestKey;
+    private final int totalChunks;
+    private final int uploadedChunks;
+    private final long uploadedBytes;
+    private final long elapsedMillis;
+
+    public BackupResult(String manifestKey, int totalChunks, int uploadedChunks, long uploadedBytes,
+                        long elapsedMillis) {
+        this.manifestKey = manifestKey;
+        this.totalChunks = totalChunks;
+        this.uploadedChunks = uploadedChunks;
+        this.uploadedBytes = uploadedBytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    static BackupResult unchanged(long elapsedMillis) {
+        return new BackupResult(null, 0, 0, 0, elapsedMillis);
+    }
+
+    /**
+     * @return Key of the uploaded manifest, or null if nothing changed and nothing was uploaded.
+     */
+    public String getManifestKey() { return manifestKey; }
+
+    public boolean isUnchanged() { return manifestKey == null; }
+
+    public int getTotalChunks() { return totalChunks; }
+
+    public int getUploadedChunks() { return uploadedChunks; }
+
+    /**
+     * @return Bytes of chunk data uploaded, not counting the manifest itself.
+     */
+    public long getUploadedBytes() { return uploadedBytes; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    @Override
+    public String toString() {
+        return String.format("BackupResult[manifest=%s, chunks=%d/%d, uploaded=%d bytes, elapsed=%dms]",
+                manifestKey, uploadedChunks, totalChunks, uploadedBytes, elapsedMillis);
+    }
+}
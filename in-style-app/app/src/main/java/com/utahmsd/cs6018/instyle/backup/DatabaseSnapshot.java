@@ -0,0 +1,104 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import android.arch.persistence.db.SupportSQLiteDatabase;
+import android.arch.persistence.db.SupportSQLiteOpenHelper;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Takes transactionally consistent copies of the live database while the app keeps using it.
+ *
+ * Room keeps the database in WAL mode, so the database file alone can be missing committed
+ * transactions, and copying it while a transaction commits can produce a torn copy. A snapshot
+ * first checkpoints as much of the WAL as it can into the database file, then holds a write
+ * transaction (readers carry on, writers wait) while it copies the database file and what's left
+ * of the WAL, which only takes as long as copying the file. The copy is then opened on its own to
+ * fold its WAL into it and checked with PRAGMA quick_check, so the result is a single file.
+ */
+public class DatabaseSnapshot implements SnapshotSource {
+
+    private static final String LOG_TAG = DatabaseSnapshot.class.getSimpleName();
+
+    private static final String WAL_SUFFIX = "-wal";
+    private static final String SHM_SUFFIX = "-shm";
+
+    private final SupportSQLiteOpenHelper m_openHelper;
+
+    /**
+     * @param openHelper e.g., InStyleDatabase.getOpenHelper(); the database is only opened when the
+     *                   first snapshot is taken, on the thread taking it.
+     */
+    public DatabaseSnapshot(SupportSQLiteOpenHelper openHelper) {
+        m_openHelper = openHelper;
+    }
+
+    /**
+     * Checkpoints the WAL first, so the stamp describes the files as a snapshot's own checkpoint
+     * leaves them, and the next stamp only differs if something was written since.
+     * @return Lengths and modification times of the database file and its WAL
+     */
+    @Override
+    public String getChangeStamp() {
+        SupportSQLiteDatabase db = m_openHelper.getWritableDatabase();
+        try (Cursor cursor = db.query("PRAGMA wal_checkpoint(TRUNCATE)")) {
+            cursor.moveToFirst();
+        }
+        File databaseFile = new File(db.getPath());
+        File wal = new File(databaseFile.getPath() + WAL_SUFFIX);
+        //Truncating an empty WAL can still touch it, so its time only counts when it has frames
+        return String.format(Locale.US, "%d:%d:%d:%d", databaseFile.length(), databaseFile.lastModified(),
+                wal.length(), wal.length() > 0 ? wal.lastModified() : 0);
+    }
+
+    @Override
+    public void copyTo(File destination) throws IOException {
+        long start = System.currentTimeMillis();
+        SupportSQLiteDatabase db = m_openHelper.getWritableDatabase();
+        File databaseFile = new File(db.getPath());
+        File destinationWal = new File(destination.getPath() + WAL_SUFFIX);
+        Files.deleteIfExists(new File(destination.getPath() + SHM_SUFFIX).toPath());
+
+        //Best effort: a busy checkpoint just leaves more of the WAL to copy
+        try (Cursor cursor = db.query("PRAGMA wal_checkpoint(TRUNCATE)")) {
+            cursor.moveToFirst();
+        }
+
+        db.beginTransaction();
+        try {
+            Files.copy(databaseFile.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            File wal = new File(databaseFile.getPath() + WAL_SUFFIX);
+            if (wal.length() > 0) {
+                Files.copy(wal.toPath(), destinationWal.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.deleteIfExists(destinationWal.toPath());
+            }
+        } finally {
+            db.endTransaction(); //Nothing was written, so there's nothing to commit
+        }
+        long copiedMillis = System.currentTimeMillis() - start;
+
+        SQLiteDatabase copy = SQLiteDatabase.openDatabase(destination.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try {
+            try (Cursor cursor = copy.rawQuery("PRAGMA journal_mode=DELETE", null)) {
+                cursor.moveToFirst(); //Checkpoints the copied WAL into the file and deletes it
+            }
+            try (Cursor cursor = copy.rawQuery("PRAGMA quick_check", null)) {
+                String result = cursor.moveToFirst() ? cursor.getString(0) : null;
+                if (!"ok".equals(result)) {
+                    throw new IOException("Database snapshot failed quick_check: " + result);
+                }
+            }
+        } finally {
+            copy.close();
+        }
+        Log.d(LOG_TAG, String.format("Snapshot of %s took %dms (%dms holding the write lock), %d bytes",
+                databaseFile.getName(), System.currentTimeMillis() - start, copiedMillis, destination.length()));
+    }
+}
@@ -0,0 +1,126 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ObjectStore backed by a local directory, with one file per key ('/' in keys maps to
+ * subdirectories). Stands in for S3 in tests, and can be used to keep backups on the device.
+ * Objects are written to a temporary file and renamed into place, so a reader never sees a
+ * partially written object.
+ */
+public class FileObjectStore implements ObjectStore {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File m_root;
+
+    public FileObjectStore(File root) {
+        m_root = root;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return file(key).isFile();
+    }
+
+    @Override
+    public void put(String key, byte[] data) throws IOException {
+        File file = file(key);
+        File temp = tempFile(file);
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+        }
+        rename(temp, file);
+    }
+
+    @Override
+    public void put(String key, File source) throws IOException {
+        File file = file(key);
+        File temp = tempFile(file);
+        Files.copy(source.toPath(), temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        rename(temp, file);
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        File file = file(key);
+        if (!file.isFile()) {
+            throw new FileNotFoundException(key);
+        }
+        return Files.readAllBytes(file.toPath());
+    }
+
+    @Override
+    public byte[] getRange(String key, long offset, int length) throws IOException {
+        File file = file(key);
+        if (!file.isFile()) {
+            throw new FileNotFoundException(key);
+        }
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            byte[] data = new byte[(int) Math.max(0, Math.min(length, in.length() - offset))];
+            in.seek(offset);
+            in.readFully(data);
+            return data;
+        }
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        File file = file(key);
+        if (!file.isFile()) {
+            throw new FileNotFoundException(key);
+        }
+        return file.length();
+    }
+
+    @Override
+    public List<String> list(String prefix) {
+        List<String> keys = new ArrayList<>();
+        collectKeys(m_root, "", prefix, keys);
+        Collections.sort(keys);
+        return keys;
+    }
+
+    private void collectKeys(File directory, String keyPrefix, String prefix, List<String> keys) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String key = keyPrefix + file.getName();
+            if (file.isDirectory()) {
+                collectKeys(file, key + "/", prefix, keys);
+            } else if (key.startsWith(prefix) && !key.endsWith(TEMP_SUFFIX)) {
+                keys.add(key);
+            }
+        }
+    }
+
+    private File file(String key) {
+        return new File(m_root, key);
+    }
+
+    private static File tempFile(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create " + parent);
+        }
+        return new File(parent, file.getName() + TEMP_SUFFIX);
+    }
+
+    private static void rename(File temp, File file) throws IOException {
+        if (!temp.renameTo(file)) {
+            throw new IOException("Unable to rename " + temp + " to " + file);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import android.util.Log;
+
+import com.utahmsd.cs6018.instyle.util.Checksums;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * Backs up a file (the database) to an ObjectStore in content-addressed chunks, uploading only
+ * the chunks that changed since the last backup.
+ *
+ * The file is split into fixed size chunks, a multiple of the SQLite page size, and each chunk is
+ * stored under its SHA-256 hash, so a chunk that's already in the store is never uploaded again.
+ * Each backup writes a BackupManifest listing its chunks, which is enough to rebuild that
+ * snapshot. The last manifest is also kept in a local state file: if the file's length and
+ * modification time still match it, the backup is skipped without reading the file, and chunks
+ * listed in it are known to be uploaded without asking the store. A snapshot is a new file every
+ * time, so when backing up snapshots the source database's change stamp is kept next to it
+ * instead, and isBackedUp() lets the caller skip taking the snapshot at all.
+ *
+ * On a mostly idle device most scheduled backups upload nothing, and after a few rows are
+ * written a backup uploads a few chunks instead of the whole database.
+ */
+public class IncrementalBackup {
+
+    private static final String LOG_TAG = IncrementalBackup.class.getSimpleName();
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024; //16 SQLite pages
+
+    private static final String CHUNKS = "chunks/";
+    private static final String MANIFESTS = "manifests/";
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    private static final String CHANGE_STAMP_SUFFIX = ".source";
+
+    private final ObjectStore m_store;
+    private final String m_prefix;
+    private final File m_stateFile;
+    private final int m_chunkSize;
+    private final LongSupplier m_clock;
+
+    /**
+     * @param store
+     * @param prefix Prefix of every key this backup writes, e.g., "instyle_database/"
+     * @param stateFile Local file that the last uploaded manifest is kept in
+     */
+    public IncrementalBackup(ObjectStore store, String prefix, File stateFile) {
+        this(store, prefix, stateFile, DEFAULT_CHUNK_SIZE, System::currentTimeMillis);
+    }
+
+    IncrementalBackup(ObjectStore store, String prefix, File stateFile, int chunkSize, LongSupplier clock) {
+        m_store = store;
+        m_prefix = prefix;
+        m_stateFile = stateFile;
+        m_chunkSize = chunkSize;
+        m_clock = clock;
+    }
+
+    /**
+     * Uploads the chunks of the file that aren't in the store yet, followed by the manifest.
+     * Blocks on the store, so it must be called from a background thread.
+     * @param source
+     * @return
+     * @throws IOException if the file can't be read or the store fails; the state file is only
+     * updated once the manifest is uploaded, so the next backup retries from the last good one.
+     */
+    public BackupResult backup(File source) throws IOException {
+        return backup(source, null);
+    }
+
+    /**
+     * Same as backup(source), for a snapshot of a source with the given change stamp, which is
+     * recorded once the backup succeeds.
+     * @param snapshot
+     * @param sourceChangeStamp From SnapshotBackup.getSourceChangeStamp() before the snapshot was
+     *                          taken, or null
+     * @return
+     * @throws IOException
+     */
+    public BackupResult backup(File snapshot, String sourceChangeStamp) throws IOException {
+        long start = m_clock.getAsLong();
+        BackupManifest previous = loadState();
+        if (previous != null && previous.getFileLength() == snapshot.length()
+                && previous.getLastModified() == snapshot.lastModified()) {
+            Log.d(LOG_TAG, "Skipping backup of unchanged " + snapshot.getName());
+            saveChangeStamp(sourceChangeStamp);
+            return BackupResult.unchanged(m_clock.getAsLong() - start);
+        }
+        if (previous != null && !m_store.exists(manifestKey(previous))) {
+            Log.d(LOG_TAG, "Last backup is missing from the store, uploading every chunk");
+            previous = null;
+        }
+
+        Set<String> uploaded = previous == null ?
+                new HashSet<>() : new HashSet<>(previous.getChunkHashes());
+        List<String> chunkHashes = new ArrayList<>();
+        MessageDigest fileDigest = Checksums.newSha256();
+        byte[] chunk = new byte[m_chunkSize];
+        int uploadedChunks = 0;
+        long uploadedBytes = 0;
+        long length = 0;
+
+        try (InputStream in = new FileInputStream(snapshot)) {
+            int read;
+            while ((read = readChunk(in, chunk)) > 0) {
+                length += read;
+                fileDigest.update(chunk, 0, read);
+                String hash = Checksums.sha256(chunk, 0, read);
+                chunkHashes.add(hash);
+                if (uploaded.add(hash)) {
+                    String key = chunkKey(hash);
+                    if (!m_store.exists(key)) { //e.g., uploaded before the state file was lost
+                        m_store.put(key, Arrays.copyOf(chunk, read));
+                        uploadedChunks++;
+                        uploadedBytes += read;
+                    }
+                }
+            }
+        }
+
+        BackupManifest manifest = new BackupManifest(start, length, snapshot.lastModified(), m_chunkSize,
+                Checksums.toHex(fileDigest.digest()), chunkHashes);
+        if (previous != null && previous.getFileSha256().equals(manifest.getFileSha256())) {
+            //Touched but not changed, so the last snapshot still describes it
+            saveState(new BackupManifest(previous.getCreatedAt(), previous.getFileLength(),
+                    manifest.getLastModified(), previous.getChunkSize(), previous.getFileSha256(),
+                    previous.getChunkHashes()));
+            saveChangeStamp(sourceChangeStamp);
+            return BackupResult.unchanged(m_clock.getAsLong() - start);
+        }
+        String manifestKey = manifestKey(manifest);
+        m_store.put(manifestKey, manifest.toBytes());
+        saveState(manifest);
+        saveChangeStamp(sourceChangeStamp);
+
+        BackupResult result = new BackupResult(manifestKey, chunkHashes.size(), uploadedChunks, uploadedBytes,
+                m_clock.getAsLong() - start);
+        Log.d(LOG_TAG, result.toString());
+        return result;
+    }
+
+    /**
+     * @param sourceChangeStamp From SnapshotBackup.getSourceChangeStamp()
+     * @return Whether the last backup was of a snapshot of the source with this change stamp, so
+     * there's no need to take another one.
+     */
+    public boolean isBackedUp(String sourceChangeStamp) {
+        if (sourceChangeStamp == null || loadState() == null) {
+            return false;
+        }
+        File changeStampFile = changeStampFile();
+        try {
+            return changeStampFile.isFile() && sourceChangeStamp.equals(
+                    new String(Files.readAllBytes(changeStampFile.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.d(LOG_TAG, "Ignoring unreadable change stamp: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return Keys of every manifest in the store, oldest first.
+     */
+    public List<String> listManifests() throws IOException {
+        return m_store.list(m_prefix + MANIFESTS);
+    }
+
+    /**
+     * Rebuilds the snapshot described by a manifest into the destination file, checking the hash
+     * of every chunk and of the whole file. The file is written next to the destination and only
+     * renamed over it once it has been verified.
+     * @param manifestKey
+     * @param destination
+     * @return The manifest that was restored
+     * @throws IOException if a chunk is missing or doesn't match its hash
+     */
+    public BackupManifest restore(String manifestKey, File destination) throws IOException {
+        return restore(manifestKey, destination, Runnable::run);
+    }
+
+    /**
+     * Same as restore(manifestKey, destination), fetching the chunks in parallel on the executor.
+     * Each distinct chunk is fetched once and written to every position it appears at.
+     * @param manifestKey
+     * @param destination
+     * @param executor
+     * @return The manifest that was restored
+     * @throws IOException if a chunk is missing or doesn't match its hash
+     */
+    public BackupManifest restore(String manifestKey, File destination, Executor executor) throws IOException {
+        BackupManifest manifest = BackupManifest.fromBytes(m_store.get(manifestKey));
+        Map<String, List<Integer>> chunkIndexes = new LinkedHashMap<>();
+        List<String> chunkHashes = manifest.getChunkHashes();
+        for (int i = 0; i < chunkHashes.size(); i++) {
+            chunkIndexes.computeIfAbsent(chunkHashes.get(i), hash -> new ArrayList<>()).add(i);
+        }
+
+        File temp = new File(destination.getPath() + ".restore");
+        try {
+            try (RandomAccessFile file = new RandomAccessFile(temp, "rw")) {
+                file.setLength(manifest.getFileLength());
+                FileChannel channel = file.getChannel();
+                List<ParallelTasks.Task> fetches = new ArrayList<>(chunkIndexes.size());
+                for (Map.Entry<String, List<Integer>> entry : chunkIndexes.entrySet()) {
+                    fetches.add(() -> {
+                        String hash = entry.getKey();
+                        byte[] chunk = m_store.get(chunkKey(hash));
+                        if (chunk.length != manifest.getChunkLength(entry.getValue().get(0))
+                                || !Checksums.sha256(chunk, 0, chunk.length).equals(hash)) {
+                            throw new IOException("Chunk " + hash + " is corrupt");
+                        }
+                        for (int index : entry.getValue()) {
+                            ParallelTasks.writeAt(channel, chunk, (long) index * manifest.getChunkSize());
+                        }
+                    });
+                }
+                ParallelTasks.runAll(executor, fetches);
+            }
+            if (!Checksums.sha256(temp).equals(manifest.getFileSha256())) {
+                throw new IOException("Restored file doesn't match the manifest's checksum");
+            }
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(destination)) {
+            throw new IOException("Unable to rename " + temp + " to " + destination);
+        }
+        return manifest;
+    }
+
+    String chunkKey(String hash) {
+        return m_prefix + CHUNKS + hash;
+    }
+
+    /**
+     * Manifest keys are zero padded creation times, so they list in the order they were taken.
+     */
+    String manifestKey(BackupManifest manifest) {
+        return String.format(Locale.US, "%s%s%013d%s", m_prefix, MANIFESTS, manifest.getCreatedAt(), MANIFEST_SUFFIX);
+    }
+
+    private BackupManifest loadState() {
+        if (!m_stateFile.isFile()) {
+            return null;
+        }
+        try {
+            return BackupManifest.fromBytes(Files.readAllBytes(m_stateFile.toPath()));
+        } catch (IOException e) { //Start over with a full backup
+            Log.d(LOG_TAG, "Ignoring unreadable backup state: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveState(BackupManifest manifest) throws IOException {
+        File temp = new File(m_stateFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(manifest.toBytes());
+        }
+        if (!temp.renameTo(m_stateFile)) {
+            throw new IOException("Unable to rename " + temp + " to " + m_stateFile);
+        }
+    }
+
+    /**
+     * Written after the state file, so a stamp never vouches for a backup that didn't finish.
+     */
+    private void saveChangeStamp(String sourceChangeStamp) throws IOException {
+        File changeStampFile = changeStampFile();
+        if (sourceChangeStamp == null) {
+            Files.deleteIfExists(changeStampFile.toPath());
+        } else {
+            Files.write(changeStampFile.toPath(), sourceChangeStamp.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private File changeStampFile() {
+        return new File(m_stateFile.getPath() + CHANGE_STAMP_SUFFIX);
+    }
+
+    /**
+     * Reads until the buffer is full or the stream ends.
+     * @return Number of bytes read, 0 at the end of the stream
+     */
+    private static int readChunk(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
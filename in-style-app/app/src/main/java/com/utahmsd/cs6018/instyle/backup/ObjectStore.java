@@ -0,0 +1,48 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Minimal blocking object store that database backups are written to: S3 in the app
+ * (S3ObjectStore), or a local directory in tests (FileObjectStore). Calls block on the network or
+ * disk, so they must be made from a background thread.
+ */
+public interface ObjectStore {
+
+    boolean exists(String key) throws IOException;
+
+    void put(String key, byte[] data) throws IOException;
+
+    /**
+     * Uploads the file's contents without reading it into memory, e.g., a compressed snapshot.
+     */
+    void put(String key, File file) throws IOException;
+
+    /**
+     * @throws java.io.FileNotFoundException if there is no object with the key
+     */
+    byte[] get(String key) throws IOException;
+
+    /**
+     * Reads part of an object, e.g., to fetch a large object in parallel ranges.
+     * @param key
+     * @param offset
+     * @param length
+     * @return The bytes from offset to offset + length, or to the end of the object if it's shorter
+     * @throws java.io.FileNotFoundException if there is no object with the key
+     */
+    byte[] getRange(String key, long offset, int length) throws IOException;
+
+    /**
+     * @return Size of the object in bytes
+     * @throws java.io.FileNotFoundException if there is no object with the key
+     */
+    long size(String key) throws IOException;
+
+    /**
+     * @return Keys that start with the prefix, in lexicographic order
+     */
+    List<String> list(String prefix) throws IOException;
+}
@@ -0,0 +1,105 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the fetches of a restore on an executor and waits for all of them, rethrowing the first
+ * failure once every fetch has stopped. A direct executor (Runnable::run) runs them one after the other on the calling thread.
+ * Fetches write what they download straight to its position in the restored file, through a
+ * shared FileChannel.
+ */
+final class ParallelTasks {
+
+    interface Task {
+        void run() throws IOException;
+    }
+
+    private ParallelTasks() { }
+
+    static void runAll(Executor executor, List<Task> tasks) throws IOException {
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<Void>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Task task : tasks) {
+                FutureTask<Void> future = new FutureTask<>(() -> {
+                    if (failed.get()) {
+                        return null; //Cancelled by an earlier failure
+                    }
+                    try {
+                        task.run();
+                    } catch (IOException | RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                    return null;
+                });
+                executor.execute(future);
+                futures.add(future); //Only tasks that were handed to the executor are waited for
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for fetches");
+        } finally {
+            //The caller closes the FileChannel as soon as this returns, so after a failure the
+            //tasks that haven't started skip their fetch and the running ones are waited for,
+            //rather than left writing to a closed channel. Not interrupted, which would close it too.
+            failed.set(true);
+            awaitAll(futures);
+        }
+    }
+
+    /**
+     * Waits for every task to finish, ignoring how; the first failure has already been rethrown.
+     */
+    private static void awaitAll(List<Future<Void>> futures) {
+        boolean interrupted = false;
+        for (Future<Void> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (ExecutionException e) {
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the data at the position in the file. Positional writes don't move the channel's
+     * position, so any number of fetches can write through one channel at once.
+     */
+    static void writeAt(FileChannel channel, byte[] data, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
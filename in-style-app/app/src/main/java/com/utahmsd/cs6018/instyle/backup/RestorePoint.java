@@ -0,0 +1,46 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import java.util.Date;
+
+/**
+ * A backup that can be restored: either a compressed snapshot from SnapshotBackup, or a manifest
+ * from IncrementalBackup.
+ */
+public class RestorePoint {
+
+    public enum Kind { SNAPSHOT, INCREMENTAL }
+
+    private final Kind kind;
+    private final String key;
+    private final long createdAt;
+
+    public RestorePoint(Kind kind, String key) {
+        this.kind = kind;
+        this.key = key;
+        this.createdAt = parseCreatedAt(key);
+    }
+
+    public Kind getKind() { return kind; }
+
+    public String getKey() { return key; }
+
+    public long getCreatedAt() { return createdAt; }
+
+    /**
+     * Both kinds of backup name their keys [prefix][zero padded creation time].[suffix]
+     */
+    private static long parseCreatedAt(String key) {
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        int end = name.indexOf('.');
+        try {
+            return Long.parseLong(end == -1 ? name : name.substring(0, end));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a backup key: " + key, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RestorePoint[%s %s, created %s]", kind, key, new Date(createdAt));
+    }
+}
@@ -0,0 +1,46 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import java.util.Locale;
+
+/**
+ * Outcome of one BackupRestorer run: which backup was staged, how big the restored database is,
+ * and how long downloading and verifying it took compared to the cold restore SLO.
+ */
+public class RestoreResult {
+
+    private final RestorePoint restorePoint;
+    private final long restoredBytes;
+    private final long elapsedMillis;
+    private final long sloMillis;
+
+    public RestoreResult(RestorePoint restorePoint, long restoredBytes, long elapsedMillis, long sloMillis) {
+        this.restorePoint = restorePoint;
+        this.restoredBytes = restoredBytes;
+        this.elapsedMillis = elapsedMillis;
+        this.sloMillis = sloMillis;
+    }
+
+    public RestorePoint getRestorePoint() { return restorePoint; }
+
+    public long getRestoredBytes() { return restoredBytes; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public long getSloMillis() { return sloMillis; }
+
+    public boolean isWithinSlo() { return elapsedMillis <= sloMillis; }
+
+    /**
+     * @return Restored (uncompressed) bytes per second
+     */
+    public double getThroughputBytesPerSecond() {
+        return restoredBytes * 1000.0 / Math.max(1, elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "RestoreResult[%s %s, %d bytes in %dms (%.0f KB/s), %s %dms SLO]",
+                restorePoint.getKind(), restorePoint.getKey(), restoredBytes, elapsedMillis,
+                getThroughputBytesPerSecond() / 1024, isWithinSlo() ? "within" : "MISSED", sloMillis);
+    }
+}
@@ -0,0 +1,147 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ObjectStore backed by an S3 bucket, using the synchronous AmazonS3Client calls (TransferUtility
+ * is built for single large files in the background, not for many small objects).
+ * AWS client errors are rethrown as IOExceptions.
+ */
+public class S3ObjectStore implements ObjectStore {
+
+    private static final int NOT_FOUND = 404;
+
+    private final AmazonS3Client m_client;
+    private final String m_bucket;
+
+    public S3ObjectStore(AmazonS3Client client, String bucket) {
+        m_client = client;
+        m_bucket = bucket;
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            m_client.getObjectMetadata(m_bucket, key);
+            return true;
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == NOT_FOUND) {
+                return false;
+            }
+            throw new IOException(e);
+        } catch (AmazonClientException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] data) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(data.length);
+        try {
+            m_client.putObject(m_bucket, key, new ByteArrayInputStream(data), metadata);
+        } catch (AmazonClientException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void put(String key, File file) throws IOException {
+        try {
+            m_client.putObject(m_bucket, key, file);
+        } catch (AmazonClientException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public byte[] get(String key) throws IOException {
+        return read(key, new GetObjectRequest(m_bucket, key));
+    }
+
+    /**
+     * Uses an HTTP range request, so only the requested bytes are transferred.
+     */
+    @Override
+    public byte[] getRange(String key, long offset, int length) throws IOException {
+        GetObjectRequest request = new GetObjectRequest(m_bucket, key);
+        request.setRange(offset, offset + length - 1); //Inclusive
+        return read(key, request);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        try {
+            return m_client.getObjectMetadata(m_bucket, key).getContentLength();
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == NOT_FOUND) {
+                throw new FileNotFoundException(key);
+            }
+            throw new IOException(e);
+        } catch (AmazonClientException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public List<String> list(String prefix) throws IOException {
+        List<String> keys = new ArrayList<>();
+        try {
+            ObjectListing listing = m_client.listObjects(m_bucket, prefix);
+            while (true) {
+                for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                    keys.add(summary.getKey());
+                }
+                if (!listing.isTruncated()) {
+                    break;
+                }
+                listing = m_client.listNextBatchOfObjects(listing);
+            }
+        } catch (AmazonClientException e) {
+            throw new IOException(e);
+        }
+        return keys; //S3 lists keys in lexicographic order
+    }
+
+    private byte[] read(String key, GetObjectRequest request) throws IOException {
+        try {
+            S3Object object = m_client.getObject(request);
+            try (InputStream in = object.getObjectContent()) {
+                return readAll(in);
+            }
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == NOT_FOUND) {
+                throw new FileNotFoundException(key);
+            }
+            throw new IOException(e);
+        } catch (AmazonClientException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8_192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
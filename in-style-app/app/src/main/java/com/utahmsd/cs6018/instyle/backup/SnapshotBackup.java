@@ -0,0 +1,266 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import android.util.Log;
+
+import com.utahmsd.cs6018.instyle.util.Checksums;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Backs up the database as a single compressed artifact: takes a consistent snapshot of it, streams
+ * the snapshot through gzip while hashing it, and uploads the result.
+ *
+ * Each backup is stored as two objects: "snapshots/[created].db.gz", and next to it a ".sha256"
+ * object with the SHA-256 of the uncompressed snapshot in sha256sum format. The checksum is
+ * uploaded last, so a backup without one is incomplete and shouldn't be restored.
+ */
+public class SnapshotBackup {
+
+    private static final String LOG_TAG = SnapshotBackup.class.getSimpleName();
+
+    public static final String ARTIFACT_SUFFIX = ".db.gz";
+    public static final String CHECKSUM_SUFFIX = ".sha256";
+
+    private static final String SNAPSHOTS = "snapshots/";
+    private static final String SNAPSHOT_FILE = "snapshot.db";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SnapshotSource m_source;
+    private final ObjectStore m_store;
+    private final String m_prefix;
+    private final File m_workDir;
+    private final LongSupplier m_clock;
+
+    private long m_runCount;
+    private long m_failedRunCount;
+    private SnapshotResult m_lastResult;
+
+    /**
+     * @param source
+     * @param store
+     * @param prefix Prefix of every key this backup writes
+     * @param workDir Local directory the snapshot and the compressed artifact are written to while
+     *                a backup runs, e.g., under the cache directory
+     */
+    public SnapshotBackup(SnapshotSource source, ObjectStore store, String prefix, File workDir) {
+        this(source, store, prefix, workDir, System::currentTimeMillis);
+    }
+
+    SnapshotBackup(SnapshotSource source, ObjectStore store, String prefix, File workDir, LongSupplier clock) {
+        m_source = source;
+        m_store = store;
+        m_prefix = prefix;
+        m_workDir = workDir;
+        m_clock = clock;
+    }
+
+    /**
+     * Takes a snapshot and uploads it compressed. Blocks on the store, so it must be called from a
+     * background thread.
+     * @return
+     * @throws IOException if the snapshot, compression or upload fails; nothing is left in the
+     * work directory either way.
+     */
+    public SnapshotResult backup() throws IOException {
+        long start = m_clock.getAsLong();
+        File snapshot = null;
+        File artifact = new File(m_workDir, SNAPSHOT_FILE + ARTIFACT_SUFFIX);
+        try {
+            snapshot = takeSnapshot();
+            long snapshotDone = m_clock.getAsLong();
+
+            String sha256 = compress(snapshot, artifact);
+            long compressDone = m_clock.getAsLong();
+
+            String key = artifactKey(start);
+            m_store.put(key, artifact);
+            m_store.put(key + CHECKSUM_SUFFIX,
+                    String.format("%s  %s\n", sha256, SNAPSHOT_FILE).getBytes(StandardCharsets.UTF_8));
+
+            SnapshotResult result = new SnapshotResult(key, sha256, snapshot.length(), artifact.length(),
+                    snapshotDone - start, compressDone - snapshotDone, m_clock.getAsLong() - compressDone);
+            Log.d(LOG_TAG, result.toString());
+            recordRun(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            recordRun(null);
+            throw e;
+        } finally {
+            if (snapshot != null) {
+                snapshot.delete();
+            }
+            artifact.delete();
+        }
+    }
+
+    /**
+     * Takes a snapshot into the work directory, e.g., for IncrementalBackup to chunk instead of the
+     * live database file. The caller deletes it when done.
+     * @return
+     * @throws IOException
+     */
+    public File takeSnapshot() throws IOException {
+        if (!m_workDir.isDirectory() && !m_workDir.mkdirs()) {
+            throw new IOException("Unable to create " + m_workDir);
+        }
+        File snapshot = new File(m_workDir, SNAPSHOT_FILE);
+        try {
+            m_source.copyTo(snapshot);
+        } catch (IOException | RuntimeException e) {
+            snapshot.delete();
+            throw e;
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return The source's change stamp, e.g., to skip taking a snapshot of a database that hasn't
+     * changed since the last backup; null if the source can't tell.
+     * @throws IOException
+     */
+    public String getSourceChangeStamp() throws IOException {
+        return m_source.getChangeStamp();
+    }
+
+    /**
+     * @return Keys of every complete backup's artifact, oldest first.
+     */
+    public List<String> listSnapshots() throws IOException {
+        List<String> keys = new ArrayList<>();
+        for (String key : m_store.list(m_prefix + SNAPSHOTS)) {
+            if (key.endsWith(ARTIFACT_SUFFIX + CHECKSUM_SUFFIX)) {
+                keys.add(key.substring(0, key.length() - CHECKSUM_SUFFIX.length()));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Downloads a compressed snapshot in ranges fetched in parallel on the executor, then
+     * decompresses it into the destination while checking it against the snapshot's checksum. The
+     * file is written next to the destination and only renamed over it once it has been verified.
+     * @param artifactKey Key from listSnapshots()
+     * @param destination
+     * @param executor
+     * @param rangeSize Bytes fetched by each request
+     * @throws java.io.FileNotFoundException if the backup is missing or incomplete
+     * @throws IOException if the download fails or doesn't match its checksum
+     */
+    public void restore(String artifactKey, File destination, Executor executor, int rangeSize) throws IOException {
+        String checksum = new String(m_store.get(artifactKey + CHECKSUM_SUFFIX), StandardCharsets.UTF_8);
+        String sha256 = checksum.split("\\s+", 2)[0];
+        long size = m_store.size(artifactKey);
+
+        File compressed = new File(destination.getPath() + ARTIFACT_SUFFIX + ".part");
+        File temp = new File(destination.getPath() + ".restore");
+        try {
+            try (RandomAccessFile file = new RandomAccessFile(compressed, "rw")) {
+                file.setLength(size);
+                FileChannel channel = file.getChannel();
+                List<ParallelTasks.Task> fetches = new ArrayList<>();
+                for (long offset = 0; offset < size; offset += rangeSize) {
+                    long rangeOffset = offset;
+                    int length = (int) Math.min(rangeSize, size - offset);
+                    fetches.add(() -> {
+                        byte[] range = m_store.getRange(artifactKey, rangeOffset, length);
+                        if (range.length != length) {
+                            throw new IOException(String.format(Locale.US, "Expected %d bytes at %d of %s, got %d",
+                                    length, rangeOffset, artifactKey, range.length));
+                        }
+                        ParallelTasks.writeAt(channel, range, rangeOffset);
+                    });
+                }
+                ParallelTasks.runAll(executor, fetches);
+            }
+            if (!decompress(compressed, temp).equals(sha256)) {
+                throw new IOException("Restored snapshot doesn't match its checksum");
+            }
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        } finally {
+            compressed.delete();
+        }
+        if (!temp.renameTo(destination)) {
+            throw new IOException("Unable to rename " + temp + " to " + destination);
+        }
+    }
+
+    /**
+     * Snapshot keys are zero padded creation times, so they list in the order they were taken.
+     */
+    String artifactKey(long createdAt) {
+        return String.format(Locale.US, "%s%s%013d%s", m_prefix, SNAPSHOTS, createdAt, ARTIFACT_SUFFIX);
+    }
+
+    /**
+     * Gzips the file into the destination in one pass.
+     * @return SHA-256 of the uncompressed file
+     */
+    private static String compress(File source, File destination) throws IOException {
+        MessageDigest digest = Checksums.newSha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(source);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(destination), BUFFER_SIZE)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        }
+        return Checksums.toHex(digest.digest());
+    }
+
+    /**
+     * @return SHA-256 of the decompressed file
+     */
+    private static String decompress(File source, File destination) throws IOException {
+        MessageDigest digest = Checksums.newSha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = new GZIPInputStream(new FileInputStream(source), BUFFER_SIZE);
+             OutputStream out = new FileOutputStream(destination)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        }
+        return Checksums.toHex(digest.digest());
+    }
+
+    private synchronized void recordRun(SnapshotResult result) {
+        m_runCount++;
+        if (result == null) {
+            m_failedRunCount++;
+        } else {
+            m_lastResult = result;
+        }
+    }
+
+    ///////// Statistics ///////////
+
+    public synchronized long getRunCount() { return m_runCount; }
+
+    public synchronized long getFailedRunCount() { return m_failedRunCount; }
+
+    /**
+     * @return Result of the last successful run, or null if there hasn't been one.
+     */
+    public synchronized SnapshotResult getLastResult() { return m_lastResult; }
+}
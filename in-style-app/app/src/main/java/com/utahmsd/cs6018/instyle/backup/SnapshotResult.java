@@ -0,0 +1,70 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import java.util.Locale;
+
+/**
+ * Outcome and timings of one SnapshotBackup run: how long the snapshot, compression and upload
+ * took, and how well the snapshot compressed.
+ */
+public class SnapshotResult {
+
+    private final String key;
+    private final String sha256;
+    private final long snapshotBytes;
+    private final long compressedBytes;
+    private final long snapshotMillis;
+    private final long compressMillis;
+    private final long uploadMillis;
+
+    public SnapshotResult(String key, String sha256, long snapshotBytes, long compressedBytes,
+                          long snapshotMillis, long compressMillis, long uploadMillis) {
+        this.key = key;
+        this.sha256 = sha256;
+        this.snapshotBytes = snapshotBytes;
+        this.compressedBytes = compressedBytes;
+        this.snapshotMillis = snapshotMillis;
+        this.compressMillis = compressMillis;
+        this.uploadMillis = uploadMillis;
+    }
+
+    /**
+     * @return Key of the uploaded, gzip compressed snapshot
+     */
+    public String getKey() { return key; }
+
+    /**
+     * @return SHA-256 of the uncompressed snapshot
+     */
+    public String getSha256() { return sha256; }
+
+    public long getSnapshotBytes() { return snapshotBytes; }
+
+    public long getCompressedBytes() { return compressedBytes; }
+
+    public long getSnapshotMillis() { return snapshotMillis; }
+
+    public long getCompressMillis() { return compressMillis; }
+
+    public long getUploadMillis() { return uploadMillis; }
+
+    public long getElapsedMillis() { return snapshotMillis + compressMillis + uploadMillis; }
+
+    public double getCompressionRatio() {
+        return compressedBytes == 0 ? 0 : (double) snapshotBytes / compressedBytes;
+    }
+
+    /**
+     * @return Uncompressed bytes backed up per second, over the whole run
+     */
+    public double getThroughputBytesPerSecond() {
+        return snapshotBytes * 1000.0 / Math.max(1, getElapsedMillis());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "SnapshotResult[key=%s, %d -> %d bytes (%.1fx), snapshot=%dms, " +
+                        "compress=%dms, upload=%dms, throughput=%.0f KB/s]",
+                key, snapshotBytes, compressedBytes, getCompressionRatio(), snapshotMillis, compressMillis,
+                uploadMillis, getThroughputBytesPerSecond() / 1024);
+    }
+}
@@ -0,0 +1,28 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Something that can write a consistent copy of itself to a file: the live database
+ * (DatabaseSnapshot) in the app, or a plain file in tests.
+ */
+public interface SnapshotSource {
+
+    /**
+     * Writes a copy to the destination, replacing it, that can be opened on its own.
+     * @param destination
+     * @throws IOException if the copy can't be taken; the destination may then be left partially
+     * written.
+     */
+    void copyTo(File destination) throws IOException;
+
+    /**
+     * @return Something that changes whenever the source is written to, so a backup can tell the
+     * source is unchanged without copying it, or null if the source can't tell.
+     * @throws IOException
+     */
+    default String getChangeStamp() throws IOException {
+        return null;
+    }
+}
@@ -0,0 +1,102 @@
+package com.utahmsd.cs6018.instyle.db;
+
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+import com.utahmsd.cs6018.instyle.util.DataGenerator;
+
+import java.util.List;
+
+/**
+ * Streams synthetic data from a DataGenerator into the database, one batch per transaction, so
+ * that millions of rows can be loaded without holding them all in memory or paying for a
+ * transaction per row.
+ *
+ * Generated user ids start at 1 by default, so data should be loaded into empty tables (e.g., an
+ * in-memory database) or the generator's first user id set past the existing users.
+ */
+public class BulkDataLoader {
+
+    private static final String LOG_TAG = BulkDataLoader.class.getSimpleName();
+
+    public static final int DEFAULT_BATCH_SIZE = 5_000;
+
+    /**
+     * Number of rows inserted into each table and how long it took.
+     */
+    public static class LoadResult {
+        private final int m_numUsers;
+        private final int m_numFitnessProfiles;
+        private final int m_numWeather;
+        private final long m_elapsedMillis;
+
+        LoadResult(int numUsers, int numFitnessProfiles, int numWeather, long elapsedMillis) {
+            m_numUsers = numUsers;
+            m_numFitnessProfiles = numFitnessProfiles;
+            m_numWeather = numWeather;
+            m_elapsedMillis = elapsedMillis;
+        }
+
+        public int getNumUsers() { return m_numUsers; }
+
+        public int getNumFitnessProfiles() { return m_numFitnessProfiles; }
+
+        public int getNumWeather() { return m_numWeather; }
+
+        public long getElapsedMillis() { return m_elapsedMillis; }
+
+        public int getTotalRows() { return m_numUsers + m_numFitnessProfiles + m_numWeather; }
+
+        public double getRowsPerSecond() {
+            return m_elapsedMillis == 0 ? 0 : getTotalRows() * 1000.0 / m_elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d users, %d fitness profiles, %d weather records in %dms (%.0f rows/s)",
+                    m_numUsers, m_numFitnessProfiles, m_numWeather, m_elapsedMillis, getRowsPerSecond());
+        }
+    }
+
+    private final InStyleDatabase m_database;
+    private final DataGenerator m_generator;
+    private int m_batchSize = DEFAULT_BATCH_SIZE;
+
+    public BulkDataLoader(InStyleDatabase database, DataGenerator generator) {
+        m_database = database;
+        m_generator = generator;
+    }
+
+    public void setBatchSize(int batchSize) { m_batchSize = batchSize; }
+
+    /**
+     * Inserts a Weather record for each of the generator's locations, then the given number of
+     * users along with their fitness profiles.
+     * @param numUsers
+     * @return
+     */
+    @WorkerThread
+    public LoadResult load(int numUsers) {
+        long start = System.currentTimeMillis();
+
+        List<Weather> weatherList = m_generator.generateWeather();
+        m_database.runInTransaction(() -> m_database.weatherDao().insertAllWeather(weatherList));
+
+        int[] loaded = new int[2];
+        m_generator.generate(numUsers, m_batchSize, batch -> {
+            m_database.runInTransaction(() -> {
+                m_database.userDao().insertAllUsers(batch.getUsers());
+                m_database.fitnessProfileDao().insertAll(batch.getFitnessProfiles());
+            });
+            loaded[0] += batch.getUsers().size();
+            loaded[1] += batch.getFitnessProfiles().size();
+            Log.d(LOG_TAG, String.format("Loaded %d of %d users", loaded[0], numUsers));
+        });
+
+        LoadResult result = new LoadResult(loaded[0], loaded[1], weatherList.size(),
+                System.currentTimeMillis() - start);
+        Log.d(LOG_TAG, "Bulk load complete: " + result);
+        return result;
+    }
+}
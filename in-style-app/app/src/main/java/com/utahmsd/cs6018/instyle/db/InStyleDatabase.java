@@ -2,22 +2,33 @@ package com.utahmsd.cs6018.instyle.db;
 
 import android.arch.lifecycle.LiveData;
 import android.arch.lifecycle.MutableLiveData;
+import android.arch.persistence.db.SupportSQLiteDatabase;
 import android.arch.persistence.room.Database;
 import android.arch.persistence.room.Room;
 import android.arch.persistence.room.RoomDatabase;
 import android.arch.persistence.room.TypeConverters;
+import android.arch.persistence.room.migration.Migration;
 import android.content.Context;
+import android.support.annotation.NonNull;
 import android.util.Log;
 
 import com.utahmsd.cs6018.instyle.db.dao.FitnessProfileDao;
+import com.utahmsd.cs6018.instyle.db.dao.GeocodingDao;
+import com.utahmsd.cs6018.instyle.db.dao.ImageRefDao;
+import com.utahmsd.cs6018.instyle.db.dao.StepCountDao;
 import com.utahmsd.cs6018.instyle.db.dao.UserDao;
 import com.utahmsd.cs6018.instyle.db.dao.WeatherDao;
 import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.db.entity.GeocodedLocation;
+import com.utahmsd.cs6018.instyle.db.entity.ImageRef;
+import com.utahmsd.cs6018.instyle.db.entity.StepRollup;
+import com.utahmsd.cs6018.instyle.db.entity.StepSample;
 import com.utahmsd.cs6018.instyle.db.entity.User;
 import com.utahmsd.cs6018.instyle.db.entity.Weather;
 import com.utahmsd.cs6018.instyle.util.DataTypeConverters;
 
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Class that serves as the main access point for the underlying connection to the application's
@@ -27,13 +38,191 @@ import java.util.List;
  * database (i.e., static method getDatabaseInstance() will reference a single instance of the database,
  * as opposed to generating multiple database instances).
  */
-@Database(entities = {User.class, FitnessProfile.class, Weather.class}, version = 1)
+@Database(entities = {User.class, FitnessProfile.class, Weather.class, StepSample.class, StepRollup.class,
+        ImageRef.class, GeocodedLocation.class},
+        version = InStyleDatabase.VERSION,
+        exportSchema = false)
 @TypeConverters({DataTypeConverters.class})
 public abstract class InStyleDatabase extends RoomDatabase {
 
     private static final String LOG_TAG = InStyleDatabase.class.getSimpleName();
 
-    private static final String DATABASE_NAME = "instyle_database";
+    public static final String DATABASE_NAME = "instyle_database";
+
+    /**
+     * Current schema version. Every change to an entity bumps this and adds a migration from the
+     * previous version to MIGRATIONS, so existing users, profiles and cached weather survive the
+     * upgrade. Schemas aren't exported; InStyleDatabaseMigrationTest recreates the version 1 schema
+     * by hand and checks every migration against the database Room expects.
+     */
+    public static final int VERSION = 8;
+
+    ///////// Migrations ///////////
+
+    /**
+     * Base class for the migrations below, which logs how long each one takes, since they run
+     * while the database is first opened.
+     */
+    abstract static class TimedMigration extends Migration {
+
+        TimedMigration(int startVersion, int endVersion) {
+            super(startVersion, endVersion);
+        }
+
+        @Override
+        public final void migrate(@NonNull SupportSQLiteDatabase database) {
+            long start = System.nanoTime();
+            onMigrate(database);
+            Log.d(LOG_TAG, String.format(Locale.US, "Migrated database from version %d to %d in %.1fms",
+                    startVersion, endVersion, (System.nanoTime() - start) / 1_000_000.0));
+        }
+
+        protected abstract void onMigrate(@NonNull SupportSQLiteDatabase database);
+    }
+
+    /**
+     * Adds the email_normalized column (and its index) to the User table, filling it in for
+     * existing users.
+     */
+    static final Migration MIGRATION_1_2 = new TimedMigration(1, 2) {
+        @Override
+        protected void onMigrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE User ADD COLUMN email_normalized TEXT");
+            database.execSQL("UPDATE User SET email_normalized = LOWER(TRIM(email))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_User_email_normalized ON User (email_normalized)");
+        }
+    };
+
+    /**
+     * Adds the stored age/daily caloric intake columns and the metrics version stamp to
+     * FitnessProfile. Existing rows are left at metrics_version 0, i.e., stale, and
+     * FitnessProfileRepository recalculates them the next time they're read.
+     */
+    static final Migration MIGRATION_2_3 = new TimedMigration(2, 3) {
+        @Override
+        protected void onMigrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE FitnessProfile ADD COLUMN age INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE FitnessProfile ADD COLUMN daily_calories REAL NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE FitnessProfile ADD COLUMN metrics_version INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE FitnessProfile ADD COLUMN metrics_valid_until INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_FitnessProfile_metrics_valid_until " +
+                    "ON FitnessProfile (metrics_valid_until)");
+        }
+    };
+
+    /**
+     * Changes FitnessProfile.dob from MM/dd/yyyy text to an epoch day (see DataTypeConverters) and
+     * indexes it. SQLite can't change the type of a column, so the table is rebuilt with the dates
+     * converted in SQL; dobs that aren't MM/dd/yyyy dates become NULL.
+     */
+    static final Migration MIGRATION_3_4 = new TimedMigration(3, 4) {
+        @Override
+        protected void onMigrate(@NonNull SupportSQLiteDatabase database) {
+            final String columns = "id, first_name, last_name, city, country, %s, sex, weight_lbs, " +
+                    "height_ft, height_in, lifestyle, weight_goal, lbs_per_week, bmi, bmr, age, " +
+                    "daily_calories, metrics_version, metrics_valid_until, user_id, stepCount, " +
+                    "dateLastUpdated, profile_image";
+            //Same as FitnessProfileUtils.parseDob: MM/dd/yyyy, with days past the end of the month
+            //(e.g., 02/30) moved back to the last day of the month
+            final String monthStart = "substr(TRIM(dob), 7, 4) || '-' || substr(TRIM(dob), 1, 2) || '-01'";
+            final String day = "CAST(substr(TRIM(dob), 4, 2) AS INTEGER)";
+            final String dobToEpochDay = "CASE WHEN TRIM(dob) GLOB '[0-9][0-9]/[0-9][0-9]/[0-9][0-9][0-9][0-9]' " +
+                    "AND date(" + monthStart + ") IS NOT NULL AND " + day + " BETWEEN 1 AND 31 " +
+                    "THEN CAST(julianday(" + monthStart + ") - 2440587.5 AS INTEGER) - 1 + MIN(" + day + ", " +
+                    "CAST(strftime('%d', " + monthStart + ", '+1 month', '-1 day') AS INTEGER)) END";
+
+            database.execSQL("CREATE TABLE FitnessProfile_new (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, first_name TEXT, last_name TEXT, " +
+                    "city TEXT, country TEXT, dob INTEGER, sex TEXT, weight_lbs INTEGER NOT NULL, " +
+                    "height_ft INTEGER NOT NULL, height_in INTEGER NOT NULL, lifestyle TEXT, " +
+                    "weight_goal TEXT, lbs_per_week INTEGER NOT NULL, bmi REAL NOT NULL, " +
+                    "bmr REAL NOT NULL, age INTEGER NOT NULL, daily_calories REAL NOT NULL, " +
+                    "metrics_version INTEGER NOT NULL, metrics_valid_until INTEGER NOT NULL, " +
+                    "user_id INTEGER NOT NULL, stepCount REAL NOT NULL, dateLastUpdated INTEGER, " +
+                    "profile_image TEXT, FOREIGN KEY(user_id) REFERENCES User(id) " +
+                    "ON UPDATE NO ACTION ON DELETE NO ACTION)");
+            database.execSQL("INSERT INTO FitnessProfile_new (" + String.format(columns, "dob") + ") " +
+                    "SELECT " + String.format(columns, dobToEpochDay) + " FROM FitnessProfile");
+            database.execSQL("DROP TABLE FitnessProfile");
+            database.execSQL("ALTER TABLE FitnessProfile_new RENAME TO FitnessProfile");
+            database.execSQL("CREATE UNIQUE INDEX index_FitnessProfile_user_id ON FitnessProfile (user_id)");
+            database.execSQL("CREATE INDEX index_FitnessProfile_metrics_valid_until ON FitnessProfile (metrics_valid_until)");
+            database.execSQL("CREATE INDEX index_FitnessProfile_dob ON FitnessProfile (dob)");
+        }
+    };
+
+    /**
+     * Adds the StepSample and StepRollup tables that step counter readings are written to.
+     */
+    static final Migration MIGRATION_4_5 = new TimedMigration(4, 5) {
+        @Override
+        protected void onMigrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS StepSample (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, user_id INTEGER NOT NULL, " +
+                    "timestamp INTEGER NOT NULL, steps INTEGER NOT NULL)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_StepSample_user_id_timestamp " +
+                    "ON StepSample (user_id, timestamp)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS StepRollup (" +
+                    "user_id INTEGER NOT NULL, resolution INTEGER NOT NULL, bucket_start INTEGER NOT NULL, " +
+                    "steps INTEGER NOT NULL, PRIMARY KEY(user_id, resolution, bucket_start))");
+        }
+    };
+
+    /**
+     * Adds the ImageRef table that counts references to images in the ImageStore. Profile images
+     * stored before this version are content URIs rather than keys, so there's nothing to count.
+     */
+    static final Migration MIGRATION_5_6 = new TimedMigration(5, 6) {
+        @Override
+        protected void onMigrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS ImageRef (" +
+                    "image_key TEXT NOT NULL, ref_count INTEGER NOT NULL, PRIMARY KEY(image_key))");
+        }
+    };
+
+    /**
+     * Adds the GeocodedLocation table that resolved city coordinates are cached in.
+     */
+    static final Migration MIGRATION_6_7 = new TimedMigration(6, 7) {
+        @Override
+        protected void onMigrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS GeocodedLocation (" +
+                    "city TEXT NOT NULL, country TEXT NOT NULL, lat REAL NOT NULL, lon REAL NOT NULL, " +
+                    "updated_at INTEGER NOT NULL, PRIMARY KEY(city, country))");
+        }
+    };
+
+    /**
+     * Makes the normalized email, rather than the email as it was typed, unique, so the same
+     * address can't register twice in a different case. Of the users sharing a normalized email,
+     * the first to register is kept; the others are deleted along with their profiles and step
+     * counts (and their profiles' image references).
+     */
+    static final Migration MIGRATION_7_8 = new TimedMigration(7, 8) {
+        @Override
+        protected void onMigrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TEMP TABLE DuplicateUser AS SELECT id FROM User u " +
+                    "WHERE id > (SELECT MIN(id) FROM User d WHERE d.email_normalized = u.email_normalized)");
+            database.execSQL("UPDATE ImageRef SET ref_count = ref_count - (SELECT COUNT(*) FROM FitnessProfile fp " +
+                    "WHERE fp.profile_image = ImageRef.image_key AND fp.user_id IN (SELECT id FROM DuplicateUser))");
+            database.execSQL("DELETE FROM FitnessProfile WHERE user_id IN (SELECT id FROM DuplicateUser)");
+            database.execSQL("DELETE FROM StepSample WHERE user_id IN (SELECT id FROM DuplicateUser)");
+            database.execSQL("DELETE FROM StepRollup WHERE user_id IN (SELECT id FROM DuplicateUser)");
+            database.execSQL("DELETE FROM User WHERE id IN (SELECT id FROM DuplicateUser)");
+            database.execSQL("DROP TABLE DuplicateUser");
+            database.execSQL("DROP INDEX IF EXISTS index_User_email");
+            database.execSQL("DROP INDEX IF EXISTS index_User_email_normalized");
+            database.execSQL("CREATE UNIQUE INDEX index_User_email_normalized ON User (email_normalized)");
+        }
+    };
+
+    /**
+     * Every migration, in order. Opening a database from any earlier version runs the ones after it.
+     */
+    static final Migration[] MIGRATIONS = {MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4,
+            MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8};
+
+    ///////// DAOs ///////////
 
     //Abstract getters for each DAO
     public abstract UserDao userDao();
@@ -42,6 +231,12 @@ public abstract class InStyleDatabase extends RoomDatabase {
 
     public abstract WeatherDao weatherDao();
 
+    public abstract StepCountDao stepCountDao();
+
+    public abstract ImageRefDao imageRefDao();
+
+    public abstract GeocodingDao geocodingDao();
+
     //DATABASE IS A SINGLETON
     private static volatile InStyleDatabase INSTANCE;
 
@@ -59,10 +254,12 @@ public abstract class InStyleDatabase extends RoomDatabase {
             synchronized (InStyleDatabase.class) {
                 if (INSTANCE == null) {
                     Log.d(LOG_TAG, "Instantiating InStyle Database . . .");
-                    //Create single instance of database with FitnessProfile, User, and Weather tables
+                    //Create single instance of database with FitnessProfile, User, Weather and step count tables
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                             InStyleDatabase.class, DATABASE_NAME)
-                            .fallbackToDestructiveMigration() //Clear database every time schema is changed
+                            //No destructive fallback: a missing migration should fail loudly in
+                            //InStyleDatabaseMigrationTest rather than wipe users' data
+                            .addMigrations(MIGRATIONS)
                             .build();
 
                     INSTANCE.updateIsDatabaseCreatedFlag(context.getApplicationContext());
@@ -9,7 +9,10 @@ import android.arch.persistence.room.Query;
 import android.arch.persistence.room.Update;
 
 import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.weather.WeatherLocation;
 
+import java.time.LocalDate;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -64,5 +67,36 @@ public interface FitnessProfileDao {
 
     @Query("SELECT * FROM FitnessProfile") //YOU DONT NEED TO EXPLICITLY ORDER THIS BY ID, THATS THE DEFAULT ORDERING.
     List<FitnessProfile> getAllFitnessProfileData();
+
+    @Update
+    void updateAll(List<FitnessProfile> fitnessProfiles);
+
+    //Profiles whose stored metrics were calculated before a birthday, searched on the metrics_valid_until
+    //index. Rows calculated with older formulas are reset to 0 when METRICS_VERSION is bumped.
+    @Query("SELECT * FROM FitnessProfile WHERE metrics_valid_until <= :todayEpochDay")
+    List<FitnessProfile> findProfilesWithStaleMetrics(long todayEpochDay);
+
+    @Query("SELECT * FROM FitnessProfile WHERE user_id = :m_userID AND " +
+            "(metrics_version != :metricsVersion OR metrics_valid_until <= :todayEpochDay)")
+    FitnessProfile findByuserIDWithStaleMetrics(int m_userID, int metricsVersion, long todayEpochDay);
+
+    //Profiles born in (bornAfter, bornOnOrBefore], e.g., an age range (see FitnessProfileUtils.latestDobForAge)
+    @Query("SELECT * FROM FitnessProfile WHERE dob > :bornAfter AND dob <= :bornOnOrBefore")
+    LiveData<List<FitnessProfile>> findBornBetween(LocalDate bornAfter, LocalDate bornOnOrBefore);
+
+    @Query("SELECT COUNT(*) FROM FitnessProfile WHERE dob > :bornAfter AND dob <= :bornOnOrBefore")
+    int countBornBetween(LocalDate bornAfter, LocalDate bornOnOrBefore);
+
+    //Today's total from the StepRollup table, written along with each batch of step samples
+    @Query("UPDATE FitnessProfile SET stepCount = :stepCount, dateLastUpdated = :dateLastUpdated WHERE user_id = :m_userID")
+    void updateDailyStepCount(int m_userID, float stepCount, Date dateLastUpdated);
+
+    //Key of the profile's image in the ImageStore, read before it's replaced to update the ImageRef counts
+    @Query("SELECT profile_image FROM FitnessProfile WHERE user_id = :m_userID")
+    String findProfileImage(int m_userID);
+
+    //Locations that weather data is prefetched for in the background
+    @Query("SELECT DISTINCT city, country FROM FitnessProfile WHERE city IS NOT NULL AND country IS NOT NULL")
+    List<WeatherLocation> findDistinctLocations();
 }
 
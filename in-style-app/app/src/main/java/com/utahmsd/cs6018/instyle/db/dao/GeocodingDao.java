@@ -0,0 +1,29 @@
+package com.utahmsd.cs6018.instyle.db.dao;
+
+import android.arch.persistence.room.Dao;
+import android.arch.persistence.room.Insert;
+import android.arch.persistence.room.OnConflictStrategy;
+import android.arch.persistence.room.Query;
+
+import com.utahmsd.cs6018.instyle.db.entity.GeocodedLocation;
+
+import java.util.List;
+
+/**
+ * Data Access Object (DAO) for querying the GeocodedLocation table in database.
+ * Scenarios where this DAO will be used:
+ * 1. The coordinates of a city are looked up before asking the Google Geocoder API.
+ * 2. Coordinates resolved by the Geocoder API, or returned with fetched weather, are stored.
+ */
+@Dao
+public interface GeocodingDao {
+
+    @Query("SELECT * FROM GeocodedLocation WHERE city = :city AND country = :countryCode")
+    GeocodedLocation findLocation(String city, String countryCode);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertLocation(GeocodedLocation location);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAllLocations(List<GeocodedLocation> locations);
+}
@@ -0,0 +1,35 @@
+package com.utahmsd.cs6018.instyle.db.dao;
+
+import android.arch.persistence.room.Dao;
+import android.arch.persistence.room.Insert;
+import android.arch.persistence.room.OnConflictStrategy;
+import android.arch.persistence.room.Query;
+
+import com.utahmsd.cs6018.instyle.db.entity.ImageRef;
+
+import java.util.List;
+
+/**
+ * Data Access Object (DAO) for querying the ImageRef table in database.
+ * Scenarios where this DAO will be used:
+ * 1. A FitnessProfile is written with a new profile image (its count goes up, the old one's down).
+ * 2. Unreferenced images are garbage collected from the ImageStore.
+ */
+@Dao
+public interface ImageRefDao {
+
+    /**
+     * @return Row ID of the inserted ref, or -1 if the image already had a row
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long insertIfAbsent(ImageRef imageRef);
+
+    @Query("UPDATE ImageRef SET ref_count = ref_count + :delta WHERE image_key = :imageKey")
+    void addToRefCount(String imageKey, int delta);
+
+    @Query("DELETE FROM ImageRef WHERE ref_count <= 0")
+    int deleteUnreferenced();
+
+    @Query("SELECT image_key FROM ImageRef WHERE ref_count > 0")
+    List<String> loadReferencedKeys();
+}
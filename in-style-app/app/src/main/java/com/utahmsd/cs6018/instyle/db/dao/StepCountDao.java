@@ -0,0 +1,60 @@
+package com.utahmsd.cs6018.instyle.db.dao;
+
+import android.arch.lifecycle.LiveData;
+import android.arch.persistence.room.Dao;
+import android.arch.persistence.room.Insert;
+import android.arch.persistence.room.OnConflictStrategy;
+import android.arch.persistence.room.Query;
+
+import com.utahmsd.cs6018.instyle.db.entity.StepRollup;
+import com.utahmsd.cs6018.instyle.db.entity.StepSample;
+import com.utahmsd.cs6018.instyle.steps.StepResolution;
+
+import java.util.List;
+
+/**
+ * Data Access Object (DAO) for querying the StepSample and StepRollup tables in database.
+ * Scenarios where this DAO will be used:
+ * 1. A batch of buffered step counter samples is written, and added to the rollups.
+ * 2. A step history chart is displayed for a user (read from the rollups).
+ * 3. Samples and minute rollups older than their retention period are deleted.
+ */
+@Dao
+public interface StepCountDao {
+
+    @Insert
+    void insertSamples(List<StepSample> samples);
+
+    @Query("SELECT * FROM StepSample WHERE user_id = :userId AND timestamp >= :fromMillis " +
+            "AND timestamp < :toMillis ORDER BY timestamp ASC")
+    List<StepSample> loadSamples(int userId, long fromMillis, long toMillis);
+
+    @Query("DELETE FROM StepSample WHERE timestamp < :beforeMillis")
+    int deleteSamplesBefore(long beforeMillis);
+
+    /**
+     * Inserts rollups for buckets that don't have a row yet.
+     * @return Row ID of each inserted rollup, or -1 where the bucket already had a row
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] insertRollupsIfAbsent(List<StepRollup> rollups);
+
+    @Query("UPDATE StepRollup SET steps = steps + :steps WHERE user_id = :userId " +
+            "AND resolution = :resolution AND bucket_start = :bucketStart")
+    void addToRollup(int userId, StepResolution resolution, long bucketStart, int steps);
+
+    @Query("SELECT * FROM StepRollup WHERE user_id = :userId AND resolution = :resolution " +
+            "AND bucket_start >= :fromMillis AND bucket_start < :toMillis ORDER BY bucket_start ASC")
+    LiveData<List<StepRollup>> loadRollups(int userId, StepResolution resolution, long fromMillis, long toMillis);
+
+    @Query("SELECT steps FROM StepRollup WHERE user_id = :userId AND resolution = :resolution " +
+            "AND bucket_start = :bucketStart")
+    LiveData<Integer> loadRollupSteps(int userId, StepResolution resolution, long bucketStart);
+
+    @Query("SELECT steps FROM StepRollup WHERE user_id = :userId AND resolution = :resolution " +
+            "AND bucket_start = :bucketStart")
+    int getRollupSteps(int userId, StepResolution resolution, long bucketStart);
+
+    @Query("DELETE FROM StepRollup WHERE resolution = :resolution AND bucket_start < :beforeMillis")
+    int deleteRollupsBefore(StepResolution resolution, long beforeMillis);
+}
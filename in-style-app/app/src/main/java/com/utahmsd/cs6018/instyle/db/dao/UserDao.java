@@ -30,8 +30,13 @@ import java.util.Optional;
 @Dao
 public interface UserDao {
 
-    @Query("SELECT * FROM User u WHERE u.email LIKE :email")
-    LiveData<User> findUserByEmail(String email);
+    //Lookups are matched against the normalized email (see User.normalizeEmail()) with '=' so that
+    //they use the email_normalized index instead of scanning the table
+    @Query("SELECT * FROM User u WHERE u.email_normalized = :normalizedEmail")
+    LiveData<User> findUserByEmail(String normalizedEmail);
+
+    @Query("SELECT * FROM User u WHERE u.email_normalized = :normalizedEmail LIMIT 1")
+    User getUserByEmail(String normalizedEmail);
 
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertUser(User user);
@@ -55,4 +60,16 @@ public interface UserDao {
     @Query("SELECT COUNT(*) FROM User")
     LiveData<Integer> getUserCount();
 
+    @Query("SELECT COUNT(*) FROM User")
+    int countUsers();
+
+    //Keyset pagination: loads the next page of users following the last id that was loaded,
+    //which walks the primary key index instead of skipping over rows like OFFSET does
+    @Query("SELECT * FROM User WHERE id > :afterId ORDER BY id ASC LIMIT :pageSize")
+    List<User> loadUsersAfter(int afterId, int pageSize);
+
+    //Existence check that is a point lookup on the email_normalized index
+    @Query("SELECT COUNT(*) FROM User WHERE email_normalized = :normalizedEmail")
+    int countUsersByEmail(String normalizedEmail);
+
 }
@@ -28,10 +28,13 @@ public interface WeatherDao {
     @Query("SELECT * FROM Weather WHERE city = :city AND (country IS NULL OR country LIKE :country)")
     LiveData<Weather> findWeatherByLocation(String city, String country);
 
+    @Query("SELECT * FROM Weather WHERE city = :city AND (country IS NULL OR country LIKE :country)")
+    Weather loadWeatherByLocation(String city, String country);
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertWeather(Weather weather);
 
-    @Insert
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertAllWeather(List<Weather> weatherList);
 
     @Query("DELETE FROM Weather")
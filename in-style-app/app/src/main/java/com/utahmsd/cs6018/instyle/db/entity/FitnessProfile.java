@@ -9,17 +9,19 @@ import android.arch.persistence.room.PrimaryKey;
 import android.os.Build;
 import android.support.annotation.RequiresApi;
 
+import java.time.LocalDate;
 import java.util.Date;
 
-import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateAge;
-import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateBMR;
-import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateBmi;
-import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateHeightInInches;
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.formatDob;
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.parseDob;
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.updateDerivedMetrics;
 
 @Entity(foreignKeys = @ForeignKey(entity = User.class,
                             parentColumns = "id",
                             childColumns = "user_id"),
-        indices = {@Index(value = {"user_id"}, unique = true)})
+        indices = {@Index(value = {"user_id"}, unique = true),
+                   @Index(value = {"metrics_valid_until"}),
+                   @Index(value = {"dob"})})
 public class FitnessProfile {
 
     @PrimaryKey(autoGenerate = true)
@@ -38,8 +40,9 @@ public class FitnessProfile {
     @ColumnInfo(name = "country")
     private String m_country;
 
+    //Stored as an epoch day (see DataTypeConverters), so age ranges can be queried with the index
     @ColumnInfo(name = "dob")
-    private String m_dob;
+    private LocalDate m_dateOfBirth;
 
     @ColumnInfo(name = "sex")
     private String m_sex;
@@ -68,6 +71,20 @@ public class FitnessProfile {
     @ColumnInfo(name = "bmr")
     private double m_bmr;
 
+    @ColumnInfo(name = "age")
+    private int m_age;
+
+    @ColumnInfo(name = "daily_calories")
+    private double m_dailyCaloricIntake;
+
+    //FitnessProfileUtils.METRICS_VERSION that age, bmi, bmr and daily_calories were calculated with
+    @ColumnInfo(name = "metrics_version")
+    private int m_metricsVersion;
+
+    //Epoch day of the next birthday, when the age dependent metrics need to be recalculated
+    @ColumnInfo(name = "metrics_valid_until")
+    private long m_metricsValidUntil;
+
     @ColumnInfo(name = "user_id")
     private int userId;
 
@@ -77,6 +94,7 @@ public class FitnessProfile {
     @ColumnInfo(name = "dateLastUpdated")
     private Date m_dateLastUpdated;
 
+    //Key of the image in the ImageStore (profiles saved before it existed may hold a content URI)
     @ColumnInfo(name = "profile_image")
     private String m_profileImage;
 
@@ -103,7 +121,7 @@ public class FitnessProfile {
         m_Id = m_userId;
         this.m_fName = m_fName;
         this.m_lName = m_lName;
-        this.m_dob = m_dob;
+        setM_dob(m_dob);
         this.m_sex = m_sex;
         this.m_city = m_city;
         this.m_country = m_country;
@@ -116,8 +134,7 @@ public class FitnessProfile {
         this.m_stepCount = m_stepCount;
         this.m_dateLastUpdated = m_dateLastUpdated;
 
-        m_bmi = calculateBmi(calculateHeightInInches(m_heightFeet, m_heightInches), m_weightInPounds);
-        m_bmr = calculateBMR(m_heightFeet, m_heightInches, m_sex, m_weightInPounds, calculateAge(m_dob));
+        updateDerivedMetrics(this, LocalDate.now().toEpochDay());
     }
 
     public int getM_Id() { return m_Id; }
@@ -132,9 +149,22 @@ public class FitnessProfile {
 
     public void setM_lName(String m_lName) { this.m_lName = m_lName; }
 
-    public String getM_dob() { return m_dob; }
+    public LocalDate getM_dateOfBirth() { return m_dateOfBirth; }
 
-    public void setM_dob(String m_dob) { this.m_dob = m_dob; }
+    public void setM_dateOfBirth(LocalDate m_dateOfBirth) { this.m_dateOfBirth = m_dateOfBirth; }
+
+    /**
+     * @return Date of birth in MM/dd/yyyy format, as shown in the profile form.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public String getM_dob() { return m_dateOfBirth == null ? null : formatDob(m_dateOfBirth); }
+
+    /**
+     * Sets the date of birth from MM/dd/yyyy format, as entered in the profile form. Anything that
+     * isn't a valid date leaves the date of birth unset (null).
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public void setM_dob(String m_dob) { this.m_dateOfBirth = parseDob(m_dob); }
 
     public String getM_sex() { return m_sex; }
 
@@ -182,6 +212,22 @@ public class FitnessProfile {
 
     public void setM_bmr(double m_bmr) { this.m_bmr = m_bmr; }
 
+    public int getM_age() { return m_age; }
+
+    public void setM_age(int m_age) { this.m_age = m_age; }
+
+    public double getM_dailyCaloricIntake() { return m_dailyCaloricIntake; }
+
+    public void setM_dailyCaloricIntake(double m_dailyCaloricIntake) { this.m_dailyCaloricIntake = m_dailyCaloricIntake; }
+
+    public int getM_metricsVersion() { return m_metricsVersion; }
+
+    public void setM_metricsVersion(int m_metricsVersion) { this.m_metricsVersion = m_metricsVersion; }
+
+    public long getM_metricsValidUntil() { return m_metricsValidUntil; }
+
+    public void setM_metricsValidUntil(long m_metricsValidUntil) { this.m_metricsValidUntil = m_metricsValidUntil; }
+
     public int getUserId() { return userId; }
 
     public void setUserId(int userId) { this.userId = userId; }
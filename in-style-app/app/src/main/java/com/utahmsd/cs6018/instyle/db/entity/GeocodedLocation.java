@@ -0,0 +1,72 @@
+package com.utahmsd.cs6018.instyle.db.entity;
+
+import android.arch.persistence.room.ColumnInfo;
+import android.arch.persistence.room.Entity;
+import android.arch.persistence.room.Ignore;
+import android.support.annotation.NonNull;
+
+/**
+ * Coordinates of a city, resolved by the Google Geocoder API or taken from an OpenWeatherMap
+ * response for it. The table is keyed by the scrubbed city and country code (see GeocodingService),
+ * with an empty country code when the country isn't known.
+ */
+@Entity(primaryKeys = {"city", "country"})
+public class GeocodedLocation {
+
+    @NonNull
+    @ColumnInfo(name = "city")
+    private String city;
+
+    @NonNull
+    @ColumnInfo(name = "country")
+    private String countryCode;
+
+    @ColumnInfo(name = "lat")
+    private double latitude;
+
+    @ColumnInfo(name = "lon")
+    private double longitude;
+
+    //When the coordinates were resolved, in epoch millis
+    @ColumnInfo(name = "updated_at")
+    private long updatedAt;
+
+    public GeocodedLocation() { }
+
+    @Ignore
+    public GeocodedLocation(@NonNull String city, @NonNull String countryCode, double latitude, double longitude,
+                            long updatedAt) {
+        this.city = city;
+        this.countryCode = countryCode;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.updatedAt = updatedAt;
+    }
+
+    @NonNull
+    public String getCity() { return city; }
+
+    public void setCity(@NonNull String city) { this.city = city; }
+
+    @NonNull
+    public String getCountryCode() { return countryCode; }
+
+    public void setCountryCode(@NonNull String countryCode) { this.countryCode = countryCode; }
+
+    public double getLatitude() { return latitude; }
+
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+
+    public double getLongitude() { return longitude; }
+
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+
+    public long getUpdatedAt() { return updatedAt; }
+
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+
+    /**
+     * @return "lat,lon", the same format as GeocoderLocationUtils.DEFAULT_COORDINATES
+     */
+    public String getCoordinates() { return latitude + "," + longitude; }
+}
@@ -0,0 +1,40 @@
+package com.utahmsd.cs6018.instyle.db.entity;
+
+import android.arch.persistence.room.ColumnInfo;
+import android.arch.persistence.room.Entity;
+import android.arch.persistence.room.Ignore;
+import android.arch.persistence.room.PrimaryKey;
+import android.support.annotation.NonNull;
+
+/**
+ * Number of rows that reference an image in the ImageStore by its key (i.e., FitnessProfiles with
+ * it as their profile_image). Images without a row are garbage collected from the store.
+ */
+@Entity
+public class ImageRef {
+
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "image_key")
+    private String imageKey;
+
+    @ColumnInfo(name = "ref_count")
+    private int refCount;
+
+    public ImageRef() { }
+
+    @Ignore
+    public ImageRef(@NonNull String imageKey, int refCount) {
+        this.imageKey = imageKey;
+        this.refCount = refCount;
+    }
+
+    @NonNull
+    public String getImageKey() { return imageKey; }
+
+    public void setImageKey(@NonNull String imageKey) { this.imageKey = imageKey; }
+
+    public int getRefCount() { return refCount; }
+
+    public void setRefCount(int refCount) { this.refCount = refCount; }
+}
@@ -0,0 +1,57 @@
+package com.utahmsd.cs6018.instyle.db.entity;
+
+import android.arch.persistence.room.ColumnInfo;
+import android.arch.persistence.room.Entity;
+import android.arch.persistence.room.Ignore;
+import android.support.annotation.NonNull;
+
+import com.utahmsd.cs6018.instyle.steps.StepResolution;
+
+/**
+ * Total steps a user took in one minute, hour or day bucket, starting at bucketStart. The table is
+ * keyed by (user_id, resolution, bucket_start), so a step history chart is a single range scan of
+ * the primary key.
+ */
+@Entity(primaryKeys = {"user_id", "resolution", "bucket_start"})
+public class StepRollup {
+
+    @ColumnInfo(name = "user_id")
+    private int userId;
+
+    @NonNull
+    @ColumnInfo(name = "resolution")
+    private StepResolution resolution;
+
+    @ColumnInfo(name = "bucket_start")
+    private long bucketStart;
+
+    @ColumnInfo(name = "steps")
+    private int steps;
+
+    public StepRollup() { }
+
+    @Ignore
+    public StepRollup(int userId, @NonNull StepResolution resolution, long bucketStart, int steps) {
+        this.userId = userId;
+        this.resolution = resolution;
+        this.bucketStart = bucketStart;
+        this.steps = steps;
+    }
+
+    public int getUserId() { return userId; }
+
+    public void setUserId(int userId) { this.userId = userId; }
+
+    @NonNull
+    public StepResolution getResolution() { return resolution; }
+
+    public void setResolution(@NonNull StepResolution resolution) { this.resolution = resolution; }
+
+    public long getBucketStart() { return bucketStart; }
+
+    public void setBucketStart(long bucketStart) { this.bucketStart = bucketStart; }
+
+    public int getSteps() { return steps; }
+
+    public void setSteps(int steps) { this.steps = steps; }
+}
@@ -0,0 +1,56 @@
+package com.utahmsd.cs6018.instyle.db.entity;
+
+import android.arch.persistence.room.ColumnInfo;
+import android.arch.persistence.room.Entity;
+import android.arch.persistence.room.Ignore;
+import android.arch.persistence.room.Index;
+import android.arch.persistence.room.PrimaryKey;
+
+/**
+ * Steps counted by the step counter sensor, starting at the given time. Consecutive sensor events
+ * are coalesced into one sample by StepCountBuffer before they're written, so a sample covers at
+ * most a few seconds (and never crosses a minute boundary).
+ *
+ * Raw samples are only kept for a week (see StepCountRepository.pruneStepHistory); step history
+ * is read from StepRollup.
+ */
+@Entity(indices = {@Index(value = {"user_id", "timestamp"})})
+public class StepSample {
+
+    @PrimaryKey(autoGenerate = true)
+    private int id;
+
+    @ColumnInfo(name = "user_id")
+    private int userId;
+
+    @ColumnInfo(name = "timestamp")
+    private long timestamp;
+
+    @ColumnInfo(name = "steps")
+    private int steps;
+
+    public StepSample() { }
+
+    @Ignore
+    public StepSample(int userId, long timestamp, int steps) {
+        this.userId = userId;
+        this.timestamp = timestamp;
+        this.steps = steps;
+    }
+
+    public int getId() { return id; }
+
+    public void setId(int id) { this.id = id; }
+
+    public int getUserId() { return userId; }
+
+    public void setUserId(int userId) { this.userId = userId; }
+
+    public long getTimestamp() { return timestamp; }
+
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+
+    public int getSteps() { return steps; }
+
+    public void setSteps(int steps) { this.steps = steps; }
+}
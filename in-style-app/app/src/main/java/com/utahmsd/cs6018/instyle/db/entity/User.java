@@ -7,6 +7,7 @@ import android.arch.persistence.room.Index;
 import android.arch.persistence.room.PrimaryKey;
 
 import java.util.Date;
+import java.util.Locale;
 
 import static android.arch.persistence.room.ForeignKey.SET_NULL;
 
@@ -17,7 +18,7 @@ import static android.arch.persistence.room.ForeignKey.SET_NULL;
  * in comparison to all of the fitness data for the user.
  */
 
-@Entity(indices = {@Index(value = {"email"}, unique = true)})
+@Entity(indices = {@Index(value = {"email_normalized"}, unique = true)})
 public class User {
 
     @PrimaryKey(autoGenerate = true)
@@ -26,6 +27,12 @@ public class User {
     @ColumnInfo(name = "email")
     private String email;
 
+    //Trimmed, lower case copy of the email that login lookups are matched against with '=' so
+    //that the index can be used (a case-insensitive LIKE on the email column can't use it). It's
+    //the unique one, so the same address can't register twice in a different case
+    @ColumnInfo(name = "email_normalized")
+    private String normalizedEmail;
+
     @ColumnInfo(name = "pass")
     private String password;
 
@@ -52,6 +59,24 @@ public class User {
 
     public void setEmail(String email) {
         this.email = email;
+        this.normalizedEmail = normalizeEmail(email);
+    }
+
+    public String getNormalizedEmail() {
+        return normalizedEmail;
+    }
+
+    public void setNormalizedEmail(String normalizedEmail) {
+        this.normalizedEmail = normalizedEmail;
+    }
+
+    /**
+     * Normalizes an email address for lookups against the email_normalized column.
+     * @param email
+     * @return
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.US);
     }
 
     public String getPassword() {
@@ -1,19 +1,38 @@
 package com.utahmsd.cs6018.instyle.db.repo;
 
-import android.annotation.SuppressLint;
 import android.arch.lifecycle.LiveData;
+import android.arch.lifecycle.MutableLiveData;
 import android.content.Context;
-import android.os.AsyncTask;
+import android.os.Build;
+import android.support.annotation.RequiresApi;
+import android.util.Log;
 
+import com.utahmsd.cs6018.instyle.AppExecutors;
 import com.utahmsd.cs6018.instyle.db.InStyleDatabase;
 import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import com.utahmsd.cs6018.instyle.db.entity.ImageRef;
+import com.utahmsd.cs6018.instyle.image.ImageStore;
+import com.utahmsd.cs6018.instyle.util.FitnessMetricsBatch;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.METRICS_VERSION;
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.latestDobForAge;
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.updateDerivedMetrics;
 
 public class FitnessProfileRepository {
+    private static final String LOG_TAG = FitnessProfileRepository.class.getSimpleName();
+
+    //Images stored this recently are kept even if no profile references them yet (see ImageStore)
+    private static final long UNREFERENCED_IMAGE_GRACE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
     private LiveData<FitnessProfile> fitnessProfileData;
     private InStyleDatabase m_db;
-    private Executor m_executor = Executors.newSingleThreadExecutor();
+    private final AppExecutors m_executors = AppExecutors.getInstance();
 
     //The following three items make this a singleton
     //make the only call that applies to all accesses of the repository.
@@ -33,36 +52,146 @@ public class FitnessProfileRepository {
     }
 
     //This is where the Repository gets the data.
+    @RequiresApi(api = Build.VERSION_CODES.O)
     public LiveData<FitnessProfile> getFitnessProfileData(int userID){
-        //get from database when ready. Number value currently hard coded.
+        //If the stored metrics are out of date (e.g., a birthday has passed), the refreshed
+        //profile is posted to the returned LiveData once it's written
+        m_executors.diskIO().execute(() -> {
+            FitnessProfile stale = m_db.fitnessProfileDao()
+                    .findByuserIDWithStaleMetrics(userID, METRICS_VERSION, LocalDate.now().toEpochDay());
+            if (stale != null) {
+                updateMetrics(stale, LocalDate.now().toEpochDay());
+                m_db.fitnessProfileDao().updateExistingFitnessProfileData(stale);
+            }
+        });
        return m_db.fitnessProfileDao().findByuserID(userID);
     }
 
+    @RequiresApi(api = Build.VERSION_CODES.O)
     public void updateFitnessProfile(FitnessProfile fitnessProfile) {
         //This is only used to updated the fitness profile data for the sample data
         //This is not correctly using the pub sub model of the observer and live data
-        m_executor.execute(
-                () -> m_db.fitnessProfileDao().updateExistingFitnessProfileData(fitnessProfile)
-        );
+        m_executors.diskIO().execute(() -> {
+            updateMetrics(fitnessProfile, LocalDate.now().toEpochDay());
+            m_db.runInTransaction(() -> {
+                String previousImage = m_db.fitnessProfileDao().findProfileImage(fitnessProfile.getUserId());
+                m_db.fitnessProfileDao().updateExistingFitnessProfileData(fitnessProfile);
+                updateImageRefs(previousImage, fitnessProfile.getM_profileImage());
+            });
+        });
     }
 
-    @SuppressLint("StaticFieldLeak")
+    @RequiresApi(api = Build.VERSION_CODES.O)
     public void insertNewFitnessProfile(FitnessProfile fitnessProfile) {
-        new AsyncTask<Void, Void, Void>() {
-            @Override
-            protected Void doInBackground(Void... params) {
+        m_executors.diskIO().execute(() -> {
+            updateMetrics(fitnessProfile, LocalDate.now().toEpochDay());
+            m_db.runInTransaction(() -> { //Replaces the user's existing profile, if they have one
+                String previousImage = m_db.fitnessProfileDao().findProfileImage(fitnessProfile.getUserId());
                 m_db.fitnessProfileDao().insertNewFitnessProfile(fitnessProfile);
-                return null;
-            }
+                updateImageRefs(previousImage, fitnessProfile.getM_profileImage());
+            });
+        });
+    }
 
-            @Override
-            protected void onPostExecute(Void aVoid) {
-                super.onPostExecute(aVoid);
+    /**
+     * Moves a reference from the profile's previous image to its new one. Must be called in the
+     * same transaction as the profile write. Values that aren't ImageStore keys (e.g., content URIs
+     * written before images were kept in the store) aren't counted.
+     */
+    private void updateImageRefs(String previousImage, String newImage) {
+        if (Objects.equals(previousImage, newImage)) {
+            return;
+        }
+        if (ImageStore.isKey(newImage)) {
+            m_db.imageRefDao().insertIfAbsent(new ImageRef(newImage, 0));
+            m_db.imageRefDao().addToRefCount(newImage, 1);
+        }
+        if (ImageStore.isKey(previousImage)) {
+            m_db.imageRefDao().addToRefCount(previousImage, -1);
+        }
+    }
+
+    /**
+     * Deletes the images in the store that no profile references any more, once they're past
+     * their grace period.
+     * @param store
+     */
+    public void collectUnreferencedImages(ImageStore store) {
+        m_executors.diskIO().execute(() -> {
+            m_db.imageRefDao().deleteUnreferenced();
+            store.collectGarbage(new HashSet<>(m_db.imageRefDao().loadReferencedKeys()),
+                    UNREFERENCED_IMAGE_GRACE_MILLIS);
+        });
+    }
+
+    /**
+     * Finds every FitnessProfile whose age today is between minAge and maxAge (inclusive), with
+     * a range query on the indexed dob column.
+     * @param minAge
+     * @param maxAge
+     * @return
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public LiveData<List<FitnessProfile>> getFitnessProfilesByAge(int minAge, int maxAge) {
+        LocalDate today = LocalDate.now();
+        return m_db.fitnessProfileDao().findBornBetween(latestDobForAge(maxAge + 1, today),
+                latestDobForAge(minAge, today));
+    }
+
+    /**
+     * Recalculates the stored metrics of every profile whose birthday has passed since they were
+     * last calculated, or that were reset when METRICS_VERSION was bumped. Only those profiles are
+     * loaded, so on most days this is a single search of the metrics_valid_until index that
+     * returns nothing.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public void refreshStaleMetrics() {
+        m_executors.diskIO().execute(() -> {
+            long today = LocalDate.now().toEpochDay();
+            List<FitnessProfile> stale = m_db.fitnessProfileDao().findProfilesWithStaleMetrics(today);
+            if (stale.isEmpty()) {
+                return;
             }
-        }.execute();
+            for (FitnessProfile fp : stale) {
+                updateMetrics(fp, today);
+            }
+            m_db.fitnessProfileDao().updateAll(stale);
+            Log.d(LOG_TAG, String.format("Refreshed metrics for %d fitness profiles", stale.size()));
+        });
+    }
+
+    /**
+     * A profile without a dob has no metrics to calculate, so it's stamped valid until it's saved
+     * with one, instead of being selected as stale again on every launch.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private static void updateMetrics(FitnessProfile fitnessProfile, long todayEpochDay) {
+        if (fitnessProfile.getM_dateOfBirth() == null) {
+            Log.d(LOG_TAG, "Unable to calculate metrics without a dob for user " + fitnessProfile.getUserId());
+            fitnessProfile.setM_metricsVersion(METRICS_VERSION);
+            fitnessProfile.setM_metricsValidUntil(Long.MAX_VALUE);
+            return;
+        }
+        updateDerivedMetrics(fitnessProfile, todayEpochDay);
+    }
 
-//        m_executor.execute(
-//                () -> m_db.fitnessProfileDao().insertNewFitnessProfile(fitnessProfile)
-//        );
+    /**
+     * Loads every FitnessProfile and calculates their metrics as one batch, off the main thread,
+     * for cohort reports and admin analytics.
+     * @return LiveData that the computed batch is posted to
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public LiveData<FitnessMetricsBatch> computeCohortMetrics() {
+        MutableLiveData<FitnessMetricsBatch> result = new MutableLiveData<>();
+        m_executors.diskIO().execute(() -> {
+            long start = System.currentTimeMillis();
+            FitnessMetricsBatch batch =
+                    FitnessMetricsBatch.fromProfiles(m_db.fitnessProfileDao().getAllFitnessProfileData());
+            batch.computeParallel(LocalDate.now().toEpochDay());
+            Log.d(LOG_TAG, String.format("Computed metrics for %d fitness profiles in %dms",
+                    batch.size(), System.currentTimeMillis() - start));
+            result.postValue(batch);
+        });
+        return result;
     }
 }
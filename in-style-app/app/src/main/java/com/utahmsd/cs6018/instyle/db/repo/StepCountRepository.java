@@ -0,0 +1,141 @@
+package com.utahmsd.cs6018.instyle.db.repo;
+
+import android.arch.lifecycle.LiveData;
+import android.util.Log;
+
+import com.utahmsd.cs6018.instyle.AppExecutors;
+import com.utahmsd.cs6018.instyle.db.InStyleDatabase;
+import com.utahmsd.cs6018.instyle.db.dao.StepCountDao;
+import com.utahmsd.cs6018.instyle.db.entity.StepRollup;
+import com.utahmsd.cs6018.instyle.db.entity.StepSample;
+import com.utahmsd.cs6018.instyle.steps.StepCountBuffer;
+import com.utahmsd.cs6018.instyle.steps.StepResolution;
+
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Executors;
+
+/**
+ * Repository for step counter data. Sensor readings go through a StepCountBuffer, which writes
+ * them to the StepSample table in batches along with their minute/hour/day rollups. Step history
+ * is read from the StepRollup table, and each user's FitnessProfile.stepCount is kept up to date
+ * with today's total as batches are written.
+ */
+public class StepCountRepository {
+
+    private static final String LOG_TAG = StepCountRepository.class.getSimpleName();
+
+    private static final long RAW_SAMPLE_RETENTION_MILLIS = 7 * StepResolution.DAY.getLengthMillis();
+    private static final long MINUTE_ROLLUP_RETENTION_MILLIS = 30 * StepResolution.DAY.getLengthMillis();
+
+    private static volatile StepCountRepository INSTANCE;
+
+    private final InStyleDatabase m_db;
+    private final StepCountDao m_stepCountDao;
+    private final AppExecutors m_executors = AppExecutors.getInstance();
+    private final StepCountBuffer m_buffer;
+
+    private StepCountRepository(final InStyleDatabase database) {
+        m_db = database;
+        m_stepCountDao = database.stepCountDao();
+        m_buffer = new StepCountBuffer(
+                Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "step-count-flush")),
+                m_executors.diskIO(),
+                this::writeBatch,
+                TimeZone.getDefault());
+    }
+
+    /**
+     * Static method to ensure only one instance of the StepCountRepository is instantiated.
+     * @param database
+     * @return
+     */
+    public static StepCountRepository getInstance(final InStyleDatabase database) {
+        if (INSTANCE == null) {
+            synchronized (StepCountRepository.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new StepCountRepository(database);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Buffers a step counter reading for the user; see StepCountBuffer.record.
+     * @param userId
+     * @param stepsSinceBoot
+     */
+    public void recordStepCounter(int userId, float stepsSinceBoot) {
+        m_buffer.record(userId, stepsSinceBoot, System.currentTimeMillis());
+    }
+
+    public int getPendingSteps(int userId) {
+        return m_buffer.getPendingSteps(userId);
+    }
+
+    /**
+     * Returns the buffer, which flushes when registered as an observer of the process lifecycle
+     * and the app goes to the background.
+     * @return
+     */
+    public StepCountBuffer getBuffer() {
+        return m_buffer;
+    }
+
+    /**
+     * Step totals for each bucket of the given resolution in [fromMillis, toMillis), e.g., hourly
+     * totals for a chart of today's steps.
+     */
+    public LiveData<List<StepRollup>> getStepHistory(int userId, StepResolution resolution,
+                                                     long fromMillis, long toMillis) {
+        return m_stepCountDao.loadRollups(userId, resolution, fromMillis, toMillis);
+    }
+
+    /**
+     * @return LiveData of the steps written so far today, or null if there are none yet.
+     */
+    public LiveData<Integer> getStepsToday(int userId) {
+        long today = StepResolution.DAY.bucketStart(System.currentTimeMillis(), TimeZone.getDefault());
+        return m_stepCountDao.loadRollupSteps(userId, StepResolution.DAY, today);
+    }
+
+    /**
+     * Deletes raw samples older than a week and minute rollups older than 30 days. Hour and day
+     * rollups are kept.
+     */
+    public void pruneStepHistory() {
+        m_executors.diskIO().execute(() -> {
+            long now = System.currentTimeMillis();
+            int samples = m_stepCountDao.deleteSamplesBefore(now - RAW_SAMPLE_RETENTION_MILLIS);
+            int rollups = m_stepCountDao.deleteRollupsBefore(StepResolution.MINUTE, now - MINUTE_ROLLUP_RETENTION_MILLIS);
+            Log.d(LOG_TAG, String.format("Pruned %d step samples and %d minute rollups", samples, rollups));
+        });
+    }
+
+    private void writeBatch(List<StepSample> samples, List<StepRollup> rollups) {
+        long start = System.currentTimeMillis();
+        long today = StepResolution.DAY.bucketStart(start, TimeZone.getDefault());
+        m_db.runInTransaction(() -> {
+            m_stepCountDao.insertSamples(samples);
+            long[] rowIds = m_stepCountDao.insertRollupsIfAbsent(rollups);
+            for (int i = 0; i < rollups.size(); i++) {
+                if (rowIds[i] == -1) { //The bucket already has a row from an earlier batch
+                    StepRollup rollup = rollups.get(i);
+                    m_stepCountDao.addToRollup(rollup.getUserId(), rollup.getResolution(),
+                            rollup.getBucketStart(), rollup.getSteps());
+                }
+            }
+            for (StepRollup rollup : rollups) {
+                if (rollup.getResolution() == StepResolution.DAY && rollup.getBucketStart() == today) {
+                    m_db.fitnessProfileDao().updateDailyStepCount(rollup.getUserId(),
+                            m_stepCountDao.getRollupSteps(rollup.getUserId(), StepResolution.DAY, today),
+                            new Date(start));
+                }
+            }
+        });
+        Log.d(LOG_TAG, String.format("Wrote %d step samples and %d rollups in %dms",
+                samples.size(), rollups.size(), System.currentTimeMillis() - start));
+    }
+}
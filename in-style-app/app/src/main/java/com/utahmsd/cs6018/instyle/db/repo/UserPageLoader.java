@@ -0,0 +1,88 @@
+package com.utahmsd.cs6018.instyle.db.repo;
+
+import com.utahmsd.cs6018.instyle.db.entity.User;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keyset-paginated list of users in id order, loaded a page at a time.
+ *
+ * Loaded users are appended to an array owned by the loader that only grows by doubling, and each
+ * list returned is a read-only view of the users loaded up to that point. Appending a page never
+ * changes what an earlier list sees, so lists can be handed to the UI while more pages are loaded,
+ * and loading n users copies O(n) references in total instead of copying the list for every page.
+ *
+ * Not thread-safe; the UserRepository only calls it while holding its user page lock.
+ */
+class UserPageLoader {
+
+    interface PageSource {
+        List<User> loadUsersAfter(int afterId, int pageSize);
+    }
+
+    private final PageSource m_source;
+    private final int m_pageSize;
+
+    private User[] m_users;
+    private int m_loadedCount;
+    private int m_lastLoadedUserId;
+    private boolean m_allUsersLoaded;
+
+    UserPageLoader(PageSource source, int pageSize) {
+        m_source = source;
+        m_pageSize = pageSize;
+        reset();
+    }
+
+    /**
+     * Appends the next page of users. Once every user has been loaded, this only picks up users
+     * that were inserted since.
+     * @return Every user loaded so far
+     */
+    List<User> loadNextPage() {
+        List<User> page = m_source.loadUsersAfter(m_lastLoadedUserId, m_pageSize);
+        if (m_loadedCount + page.size() > m_users.length) {
+            m_users = Arrays.copyOf(m_users, Math.max(m_users.length * 2, m_loadedCount + page.size()));
+        }
+        for (User user : page) {
+            m_users[m_loadedCount++] = user;
+        }
+        if (!page.isEmpty()) {
+            m_lastLoadedUserId = page.get(page.size() - 1).getId();
+        }
+        m_allUsersLoaded = page.size() < m_pageSize;
+        return getLoadedUsers();
+    }
+
+    /**
+     * Loads the users again from the start, as many as were loaded before (and at least one page),
+     * e.g. after users were inserted, updated or deleted.
+     * @return Every user loaded so far
+     */
+    List<User> reload() {
+        int count = Math.max(m_loadedCount, m_pageSize);
+        reset();
+        do {
+            loadNextPage();
+        } while (!m_allUsersLoaded && m_loadedCount < count);
+        return getLoadedUsers();
+    }
+
+    void reset() {
+        //A new array, so lists returned before the reset are left as they were
+        m_users = new User[m_pageSize];
+        m_loadedCount = 0;
+        m_lastLoadedUserId = 0;
+        m_allUsersLoaded = false;
+    }
+
+    List<User> getLoadedUsers() {
+        return Collections.unmodifiableList(Arrays.asList(m_users).subList(0, m_loadedCount));
+    }
+
+    boolean isAllUsersLoaded() {
+        return m_allUsersLoaded;
+    }
+}
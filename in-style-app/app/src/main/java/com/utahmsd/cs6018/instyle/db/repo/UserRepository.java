@@ -1,19 +1,21 @@
 package com.utahmsd.cs6018.instyle.db.repo;
 
-import android.annotation.SuppressLint;
 import android.arch.lifecycle.LiveData;
 import android.arch.lifecycle.MediatorLiveData;
-import android.os.AsyncTask;
+import android.arch.persistence.room.InvalidationTracker;
+import android.support.annotation.NonNull;
 import android.util.Log;
 
+import com.utahmsd.cs6018.instyle.AppExecutors;
 import com.utahmsd.cs6018.instyle.db.InStyleDatabase;
 import com.utahmsd.cs6018.instyle.db.dao.UserDao;
 import com.utahmsd.cs6018.instyle.db.entity.User;
 
 import java.sql.Date;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Singleton;
 
@@ -31,6 +33,7 @@ public class UserRepository {
 
     private static final String TEST_EMAIL = "test@test.com";
     private final UserDao mUserDao;
+    private final AppExecutors mExecutors;
 
     private InStyleDatabase inStyleDatabase;
     private static UserRepository userRepository;
@@ -40,11 +43,20 @@ public class UserRepository {
 
     private static final int NUM_TEST_USERS = 10; //Number of random test users to generate
     private static final int MAX_USERS = 1000; //Maximum allowable of users in table
+    private static final int USER_PAGE_SIZE = 50; //Number of users loaded into the user list at a time
+
+    //Keyset pagination state for the user list, guarded by m_userPageLock
+    private final Object m_userPageLock = new Object();
+    private final UserPageLoader m_userPageLoader;
+    private volatile boolean m_allUsersLoaded = false;
+    private final AtomicBoolean m_userPageLoadInFlight = new AtomicBoolean();
 
 
     private UserRepository(final InStyleDatabase database) {
         inStyleDatabase = database;
         mUserDao = inStyleDatabase.userDao();
+        mExecutors = AppExecutors.getInstance();
+        m_userPageLoader = new UserPageLoader(mUserDao::loadUsersAfter, USER_PAGE_SIZE);
 
 
 //        List<User> testUsers = UserGenerator.generateUserData(50);
@@ -83,6 +95,15 @@ public class UserRepository {
         m_observableUser = new MediatorLiveData<>();
         m_observableUser.setValue(null);
 
+        //The user list is loaded a page at a time rather than observed, so reload the pages that
+        //were loaded whenever users are inserted, updated or deleted
+        inStyleDatabase.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("User") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                asyncReloadUserPages();
+            }
+        });
+
     }
 
     /**
@@ -107,10 +128,20 @@ public class UserRepository {
         return m_observableUser;
     }
 
+    /**
+     * Returns the users loaded so far, in id order. More users are appended to the list each time
+     * loadNextUserPage() is called, and the loaded users are reloaded whenever the User table
+     * changes.
+     * @return
+     */
     public LiveData<List<User>> getUsers() {
         return m_observableUserList;
     }
 
+    public boolean isLastUserPageLoaded() {
+        return m_allUsersLoaded;
+    }
+
     ///////// CRUD Operations ///////////
 
     public void insert(User user) {
@@ -119,9 +150,10 @@ public class UserRepository {
     }
 
     public LiveData<User> find(String userEmail) {
-        m_observableUser.addSource(mUserDao.findUserByEmail(userEmail), user -> {
+        String normalizedEmail = User.normalizeEmail(userEmail);
+        m_observableUser.addSource(mUserDao.findUserByEmail(normalizedEmail), user -> {
             if (user != null) {
-                m_observableUser.removeSource(mUserDao.findUserByEmail(userEmail));
+                m_observableUser.removeSource(mUserDao.findUserByEmail(normalizedEmail));
 
                 Log.d(LOG_TAG, String.format("findUserByEmail() for email  %s LiveData<User> onChanged", user.getEmail()));
                 if (inStyleDatabase.isDatabaseCreated().getValue() != null) {
@@ -131,7 +163,7 @@ public class UserRepository {
             }
 
         });
-        asyncLoadUser(userEmail);
+        asyncLoadUser(normalizedEmail);
 
         return m_observableUser;
     }
@@ -150,222 +182,160 @@ public class UserRepository {
         asyncDeleteAllUsers();
     }
 
+    /**
+     * Makes sure the testing user account exists and loads the first page of users.
+     *
+     * Only the number of users and a lookup on the unique email index are queried up front, so
+     * startup time and memory use no longer grow with the size of the User table.
+     * @return
+     */
     public LiveData<List<User>> loadUsersInDatabase() {
-        m_observableUserList.addSource(mUserDao.loadAllUsers(), userList -> {
-            if (userList != null) {
-                if (inStyleDatabase.isDatabaseCreated().getValue() != null) {
-                    //            m_observableUserList.removeSource(mUserDao.loadAllUsers());
-                    List<String> emailList = new ArrayList<>();
-                    Log.d(LOG_TAG, "USER REPOSITORY HAS FINISHED LOADING USERS FROM DATABASE");
-                    Log.d(LOG_TAG, "Number of users in User database: " + userList.size());
-
-                    Log.d(LOG_TAG, "------------------------------------------");
-                    Log.d(LOG_TAG, "------------------------------------------");
-
-                    Log.d(LOG_TAG, "PRINTING USERS IN USER DATABASE");
-                    Log.d(LOG_TAG, "\n");
-
-                    userList.forEach(users -> {
-                        emailList.add(users.getEmail());
-                        Log.d(LOG_TAG, "\nUser data record: " + users.getId() + "\t'" + users.getEmail() + "'\t'" + users.getFirstName() + "'\t'" + users.getLastName() + "'\t'" + users.getJoinDate() + "'\t'" + "'");
-                    });
-
-                    Log.d(LOG_TAG, "\n");
-                    Log.d(LOG_TAG, "------------------------------------------");
-                    Log.d(LOG_TAG, "------------------------------------------");
-
-                    if (!emailList.contains(TEST_EMAIL)) {
-                        Log.d(LOG_TAG, "Testing user account test@test.com does not exist in database, adding to User table.");
-                        asyncInsertTestUser("test@test.com",
-                                "password", "Hello",
-                                "Kitty", Date.valueOf("2018-01-01"));
-                    }
-
-
-                }
+        m_userPageLoadInFlight.set(true);
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, "Number of users in User database: " + mUserDao.countUsers());
+
+            if (mUserDao.countUsersByEmail(User.normalizeEmail(TEST_EMAIL)) == 0) {
+                Log.d(LOG_TAG, "Testing user account test@test.com does not exist in database, adding to User table.");
+                insertTestUser(TEST_EMAIL,
+                        "password", "Hello",
+                        "Kitty", Date.valueOf("2018-01-01"));
             }
 
+            synchronized (m_userPageLock) {
+                m_userPageLoader.reset();
+                loadNextUserPageInBackground();
+            }
         });
 
-        asyncLoadAllUsers();
-
         return m_observableUserList;
     }
 
+    /**
+     * Appends the next USER_PAGE_SIZE users to the list returned by getUsers(). Once every user has
+     * been loaded, this only picks up users that were inserted since. Does nothing if a page is
+     * currently being loaded.
+     */
+    public void loadNextUserPage() {
+        if (!m_userPageLoadInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        mExecutors.diskIO().execute(() -> {
+            synchronized (m_userPageLock) {
+                loadNextUserPageInBackground();
+            }
+        });
+    }
+
     public boolean authenticateUser(User user) {
         if (user == null) {
             return false;
         }
-        LiveData<User> result = find(user.getEmail());
-        return result.getValue().getPassword().equals(user.getPassword());
+        User existingUser = find(user.getEmail()).getValue();
+        return existingUser != null && existingUser.getPassword().equals(user.getPassword());
     }
 
 
     //////////// ASYNC TASKS FOR A SINGLE USER /////////////
 
-    @SuppressLint("StaticFieldLeak")
-    private void asyncLoadUser(String email) {
-        new AsyncTask<String, Void, User>() {
-            @Override
-            protected User doInBackground(String... params) {
-                String userToLoad = params[0];
-                Log.d(LOG_TAG, String.format("Retrieving user record with email %s", userToLoad));
+    private void asyncLoadUser(String normalizedEmail) {
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, String.format("Retrieving user record with email %s", normalizedEmail));
 
-                LiveData<User> user = mUserDao.findUserByEmail(userToLoad);
-                User userVal = user.getValue();
-                return userVal;
-            }
+            User userVal = mUserDao.getUserByEmail(normalizedEmail);
 
-            @Override
-            protected void onPostExecute(User user) {
-                //A null check here does not work to check if the user is contained in the database.
-                //For some reason, even though this method is supposed to be called after doInBackground()
-                //Completes, it is always still initially null briefly while a valid existing user is being fetched.
-                    m_observableUser.setValue(user);
-            }
-        }.execute(email);
+            mExecutors.mainThread().execute(() -> m_observableUser.setValue(userVal));
+        });
     }
 
-    @SuppressLint("StaticFieldLeak")
     private void asyncInsertUser(User user) {
-        new AsyncTask<User, Void, Void>() {
-            @Override
-            protected Void doInBackground(User... params) {
-                User userToInsert = params[0];
-                Log.d(LOG_TAG, String.format("Inserting new user record with email %s into database", userToInsert.getEmail()));
-                //Insert new user record into database
-                mUserDao.insertUser(userToInsert);
-
-                Log.d(LOG_TAG, "Inserting User data . . .");
-                return null;
-            }
-        }.execute(user);
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, String.format("Inserting new user record with email %s into database", user.getEmail()));
+            //Insert new user record into database
+            mUserDao.insertUser(user);
+
+            Log.d(LOG_TAG, "Inserting User data . . .");
+        });
     }
 
-    @SuppressLint("StaticFieldLeak")
     private void asyncUpdateUser(User user) {
-        new AsyncTask<User, Void, Void>() {
-            @Override
-            protected Void doInBackground(User... params) {
-                User userToUpdate = params[0];
-                Log.d(LOG_TAG, String.format("Updating existing user record with email %s in database", userToUpdate.getEmail()));
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, String.format("Updating existing user record with email %s in database", user.getEmail()));
 
-                //Updating existing user record in database
-                mUserDao.updateUser(userToUpdate);
+            //Updating existing user record in database
+            mUserDao.updateUser(user);
 
-                Log.d(LOG_TAG, "Updating User data . . .");
-                return null;
-            }
-        }.execute(user);
+            Log.d(LOG_TAG, "Updating User data . . .");
+        });
     }
 
-    @SuppressLint("StaticFieldLeak")
     private void asyncDeleteUser(User user) {
-        new AsyncTask<User, Void, Void>() {
-            @Override
-            protected Void doInBackground(User... params) {
-                User userToDelete = params[0];
-                Log.d(LOG_TAG, String.format("Deleting existing user record with email %s from database", userToDelete.getEmail()));
-
-                //Delete user record from database
-                mUserDao.deleteUser(userToDelete);
-                Log.d(LOG_TAG, "Deleting User data . . .");
-                return null;
-            }
-        }.execute(user);
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, String.format("Deleting existing user record with email %s from database", user.getEmail()));
+
+            //Delete user record from database
+            mUserDao.deleteUser(user);
+            Log.d(LOG_TAG, "Deleting User data . . .");
+        });
     }
 
 
     ////////////////// ASYNC TASKS FOR A LIST OF USERS //////////////////
 
-    @SuppressLint("StaticFieldLeak")
-    @SuppressWarnings("unchecked")
     public void asyncResetUserDatabase(int numRecords) {
-        new AsyncTask<Void, Void, Void>() {
-            @Override
-            protected Void doInBackground(Void... params) {
-                if (numRecords > MAX_USERS) {
-                    Log.d(LOG_TAG, String.format("Number of records in User table exceeds max of %d. Resetting database contents", MAX_USERS));
+        mExecutors.diskIO().execute(() -> {
+            if (numRecords > MAX_USERS) {
+                Log.d(LOG_TAG, String.format("Number of records in User table exceeds max of %d. Resetting database contents", MAX_USERS));
 
-                    mUserDao.deleteAllUsers();
-                }
-
-                return null;
+                mUserDao.deleteAllUsers();
             }
-        }.execute();
+        });
     }
 
-    @SuppressLint("StaticFieldLeak")
-    @SuppressWarnings("unchecked")
     public void asyncPopulateWithUserList(List<User> users) {
-        new AsyncTask<List<User>, Void, Void>() {
-            @Override
-            protected Void doInBackground(List<User>... params) {
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, "Inserting test data into database table to populate.");
 
-                Log.d(LOG_TAG, "Inserting test data into database table to populate.");
-
-                //Insert randomly generated user data
-                mUserDao.insertAllUsers(params[0]);
-
-                return null;
-            }
-        }.execute(users);
+            //Insert randomly generated user data
+            mUserDao.insertAllUsers(users);
+        });
     }
 
-    @SuppressLint("StaticFieldLeak")
-    private void asyncLoadAllUsers() {
-        new AsyncTask<Void, Void, List<User>>() {
-            @Override
-            protected List<User> doInBackground(Void... params) {
-                Log.d(LOG_TAG, "Loading users from database");
-                LiveData<List<User>> listLiveData = mUserDao.loadAllUsers();
-
-                if (listLiveData.getValue() != null) {
-                    return listLiveData.getValue();
-                }
-                return null;
-            }
-
-            @Override
-            protected void onPostExecute(List<User> userList) {
-                //A null check here does not work to check if User database table is empty.
-                //For some reason, even though this method is supposed to be called after doInBackground()
-                //Completes, it is always still initially null briefly while the list is being retrieved.
-                //Aka it appears to execute while the database operation is still in progress
-                    m_observableUserList.setValue(userList);
-            }
-        }.execute();
+    //Must be called while holding m_userPageLock
+    private void loadNextUserPageInBackground() {
+        try {
+            Log.d(LOG_TAG, "Loading next page of users");
+            publishUserPage(m_userPageLoader.loadNextPage());
+        } finally {
+            m_userPageLoadInFlight.set(false);
+        }
     }
 
-    @SuppressLint("StaticFieldLeak")
-    private void asyncDeleteAllUsers() {
-        new AsyncTask<Void, Void, Void>() {
-            @Override
-            protected Void doInBackground(Void... params) {
-                Log.d(LOG_TAG, "Deleting all users from database");
-                mUserDao.deleteAllUsers();
-                return null;
+    private void asyncReloadUserPages() {
+        mExecutors.diskIO().execute(() -> {
+            synchronized (m_userPageLock) {
+                Log.d(LOG_TAG, "User table changed, reloading loaded pages of users");
+                publishUserPage(m_userPageLoader.reload());
             }
-
-            @Override
-            protected void onPostExecute(Void voidResult) {
-                m_observableUserList.setValue(Collections.emptyList());
-            }
-        }.execute();
+        });
     }
 
-    @SuppressLint("StaticFieldLeak")
-    private void asyncInsertTestUser(String email, String pass, String first, String last, Date date) {
-        new AsyncTask<Void, Void, Void>() {
-            @Override
-            protected Void doInBackground(Void... params) {
-
-                insertTestUser(email, pass, first, last, date);
+    //Must be called while holding m_userPageLock
+    private void publishUserPage(List<User> userList) {
+        m_allUsersLoaded = m_userPageLoader.isAllUsersLoaded();
+        mExecutors.mainThread().execute(() -> m_observableUserList.setValue(userList));
+    }
 
-                return null;
+    private void asyncDeleteAllUsers() {
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, "Deleting all users from database");
+            mUserDao.deleteAllUsers();
 
+            synchronized (m_userPageLock) {
+                m_userPageLoader.reset();
+                m_allUsersLoaded = false;
             }
-        }.execute();
+            mExecutors.mainThread().execute(() -> m_observableUserList.setValue(Collections.emptyList()));
+        });
     }
 
     private void insertTestUser(String email, String password,
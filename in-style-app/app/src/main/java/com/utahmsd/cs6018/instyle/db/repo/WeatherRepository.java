@@ -1,21 +1,36 @@
 package com.utahmsd.cs6018.instyle.db.repo;
 
-import android.annotation.SuppressLint;
 import android.arch.lifecycle.LiveData;
 import android.arch.lifecycle.MediatorLiveData;
-import android.os.AsyncTask;
+import android.arch.lifecycle.MutableLiveData;
 import android.util.Log;
 
+import com.utahmsd.cs6018.instyle.AppExecutors;
 import com.utahmsd.cs6018.instyle.db.InStyleDatabase;
 import com.utahmsd.cs6018.instyle.db.dao.WeatherDao;
 import com.utahmsd.cs6018.instyle.db.entity.Weather;
+import com.utahmsd.cs6018.instyle.geocoding.GeocodingService;
+import com.utahmsd.cs6018.instyle.weather.InFlightRequests;
+import com.utahmsd.cs6018.instyle.weather.WeatherCache;
 import com.utahmsd.cs6018.instyle.weather.WeatherClient;
+import com.utahmsd.cs6018.instyle.weather.WeatherLocation;
+import com.utahmsd.cs6018.instyle.weather.WeatherPrefetchScheduler;
+import com.utahmsd.cs6018.instyle.weather.WeatherRefreshResult;
 
 import java.sql.Date;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static com.utahmsd.cs6018.instyle.util.WeatherUtils.DEFAULT_CITY;
 import static com.utahmsd.cs6018.instyle.util.WeatherUtils.DEFAULT_COUNTRY;
@@ -35,11 +50,13 @@ public class WeatherRepository {
 
     private static final String LOG_TAG = WeatherRepository.class.getSimpleName();
 
-    public static final long DATA_REFRESH_INTERVAL = 300_000L; //If weather data is older than 5 minutes, refetch data
     private static final String DUMMY_CITY = "Salt Lake City";
     private static final String DUMMY_COUNTRY = "United States";
+    private static final int MAX_CONCURRENT_FETCHES = 3; //Max API requests in flight for a batch refresh
+    private static final double PREFETCH_INTERVAL_FRACTION = 0.8; //Prefetch once 80% of the TTL has elapsed
 
     private WeatherDao mWeatherDao;
+    private final AppExecutors mExecutors;
     private InStyleDatabase inStyleDatabase;
     private static WeatherRepository weatherRepository;
     private static WeatherClient weatherClient = new WeatherClient(); //For fetching real-time weather data from API
@@ -47,20 +64,36 @@ public class WeatherRepository {
     private MediatorLiveData<List<Weather>> m_observableWeatherList;
     private MediatorLiveData<Weather> m_observableWeather;
 
+    //In-memory cache in front of the Weather table, checked before querying the database
+    private final WeatherCache m_weatherCache = new WeatherCache();
+
+    //Locations ("City,CountryCode") with a database lookup and/or API fetch currently in progress
+    private final InFlightRequests m_inFlightRequests = new InFlightRequests();
+
+    private final MutableLiveData<WeatherRefreshResult> m_observableRefreshResult = new MutableLiveData<>();
+
+    private WeatherPrefetchScheduler m_prefetchScheduler;
+
+    //Coordinates in fetched weather are cached for geocoding lookups
+    private final GeocodingService m_geocodingService;
+
     private WeatherRepository(final InStyleDatabase database) {
         inStyleDatabase = database;
         mWeatherDao = inStyleDatabase.weatherDao();
+        mExecutors = AppExecutors.getInstance();
+        m_geocodingService = GeocodingService.getInstance(database);
 
 //        asyncResetWeatherDatabase();
 
         //Retrieve additional data to insert into the database by making API calls to fetch real-time weather
 //
-//        asyncFetchWeatherFromApi("Tokyo", "Japan", false);
-//        asyncFetchWeatherFromApi("Seoul", "Korea", false);
-//        asyncFetchWeatherFromApi("Hong Kong", "Hong Kong", false);
-//        asyncFetchWeatherFromApi("NEW YORK", "United States", false);
-//        asyncFetchWeatherFromApi("Salt Lake City", "United States", false);
-//        asyncFetchWeatherFromApi("Rome", "Italy", false);
+//        refreshWeather(Arrays.asList(
+//                new WeatherLocation("Tokyo", "Japan"),
+//                new WeatherLocation("Seoul", "Korea"),
+//                new WeatherLocation("Hong Kong", "Hong Kong"),
+//                new WeatherLocation("NEW YORK", "United States"),
+//                new WeatherLocation("Salt Lake City", "United States"),
+//                new WeatherLocation("Rome", "Italy")));
 
         addLiveDataListenerSources();
 
@@ -103,7 +136,7 @@ public class WeatherRepository {
 
                             if (!weatherCities.contains(DUMMY_CITY)) {
                                 Log.d(LOG_TAG, "Adding dummy weather data");
-                                asyncFetchWeatherFromApi(DUMMY_CITY, DUMMY_COUNTRY, false);
+                                fetchWeatherFromApi(DUMMY_CITY, DUMMY_COUNTRY, false);
                             }
                         }
 
@@ -139,40 +172,212 @@ public class WeatherRepository {
         long differential = Instant.now().toEpochMilli() - lastUpdated.toEpochMilli();
         Log.d(LOG_TAG, "Weather data was last fetched " + differential/1000 + " seconds ago");
 
-        return  differential > DATA_REFRESH_INTERVAL;
+        return m_weatherCache.isExpired(lastUpdated.toEpochMilli());
+    }
+
+    /**
+     * Sets how long fetched weather data is considered valid before it is refetched from the API.
+     * @param refreshIntervalMillis
+     */
+    public void setDataRefreshInterval(long refreshIntervalMillis) {
+        m_weatherCache.setTtlMillis(refreshIntervalMillis);
+        if (m_prefetchScheduler != null) {
+            m_prefetchScheduler.setIntervalMillis((long) (refreshIntervalMillis * PREFETCH_INTERVAL_FRACTION));
+        }
+    }
+
+    public long getDataRefreshInterval() {
+        return m_weatherCache.getTtlMillis();
     }
 
+    public WeatherCache getWeatherCache() {
+        return m_weatherCache;
+    }
+
+    /**
+     * Returns the scheduler that keeps weather data for every location in the FitnessProfile table
+     * warm in the cache, refreshing it shortly before the cached data would expire. The scheduler
+     * doesn't run until it is started (or registered as an observer of the process lifecycle).
+     * @return
+     */
+    public synchronized WeatherPrefetchScheduler getPrefetchScheduler() {
+        if (m_prefetchScheduler == null) {
+            m_prefetchScheduler = new WeatherPrefetchScheduler(
+                    Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "weather-prefetch")),
+                    () -> inStyleDatabase.fitnessProfileDao().findDistinctLocations(),
+                    this::refreshWeather,
+                    (long) (getDataRefreshInterval() * PREFETCH_INTERVAL_FRACTION),
+                    new Random());
+        }
+        return m_prefetchScheduler;
+    }
+
+    /**
+     * Loads weather for the given location from the database, fetching from the OpenWeatherMap API
+     * if no record exists or the existing record is expired.
+     *
+     * Concurrent requests for the same (scrubbed) city and country code are coalesced: only the
+     * first caller performs the database lookup and network fetch, and later callers simply
+     * receive the shared result through getWeather() once it is posted.
+     * @param city
+     * @param country
+     */
     public void fetchWeatherDataFromDataSource(String city, String country) {
         String cityScrubbed = formatCaseCity(city);
         String countryScrubbed = formatCaseCountryCodeFromCountryName(country);
 
-        LiveData<Weather> result = findInDatabase(city, country);
+        final String requestKey = requestKey(cityScrubbed, countryScrubbed);
+        boolean started = m_inFlightRequests.run(requestKey, () -> {
+            WeatherCache.CacheResult cached = m_weatherCache.get(cityScrubbed, countryScrubbed);
+            if (cached != null) {
+                m_observableWeather.setValue(cached.getWeather());
+                if (!cached.isStale()) {
+                    Log.d(LOG_TAG, String.format("Serving weather data for %s from memory cache", requestKey));
+                    return CompletableFuture.completedFuture(null);
+                }
+                //Display stale data right away, but revalidate it in the background
+                Log.d(LOG_TAG, String.format("Serving stale weather data for %s from memory cache " +
+                        "while refreshing", requestKey));
+                return fetchWeatherFromApi(city, country, true);
+            }
 
-        m_observableWeather.addSource(result, r-> {
-            m_observableWeather.removeSource(result);
+            return CompletableFuture.supplyAsync(
+                    () -> mWeatherDao.loadWeatherByLocation(cityScrubbed, countryScrubbed), mExecutors.diskIO())
+                    .thenCompose(weather -> {
+                        if (weather == null) {
+                            Log.d(LOG_TAG, String.format("No existing weather data record for %s, %s exists in the database", cityScrubbed, countryScrubbed));
 
-                if (result.getValue() != null && result.getValue().getCity().equals(cityScrubbed) && result.getValue().getCountryCode().equals(countryScrubbed)) {
-                    Log.d(LOG_TAG, String.format("Existing weather data was found in database for %s, %s. " +
-                            "Now just need to check to see whether weather data is more than 5 minutes old. ", cityScrubbed, countryScrubbed));
-                    if (isWeatherDataExpired(result.getValue())) {
-                        Log.d(LOG_TAG, "WEATHER DATA IN DATABASE IS EXPIRED");
+                            Log.d(LOG_TAG, "Fetching data for the first time from OpenWeatherAPI . . .");
 
-                        asyncFetchWeatherFromApi(city, country, true);
-                    } else { //Weather data is in database and is not expired yet
+                            return fetchWeatherFromApi(city, country, false);
+                        }
+                        Log.d(LOG_TAG, String.format("Existing weather data was found in database for %s, %s. " +
+                                "Now just need to check to see whether weather data has expired. ", cityScrubbed, countryScrubbed));
+                        mExecutors.mainThread().execute(() -> m_observableWeather.setValue(weather));
+                        if (isWeatherDataExpired(weather)) {
+                            Log.d(LOG_TAG, "WEATHER DATA IN DATABASE IS EXPIRED");
 
+                            return fetchWeatherFromApi(city, country, true);
+                        }
+                        //Weather data is in database and is not expired yet
                         Log.d(LOG_TAG, "WEATHER DATA IS STILL VALID");
-                        //No need to do anything
+                        m_weatherCache.put(weather);
+                        return CompletableFuture.completedFuture(null);
+                    });
+        });
+        if (!started) {
+            Log.d(LOG_TAG, String.format("Request for weather data for %s is already in flight, " +
+                            "coalescing with existing request (%d requests coalesced total)", requestKey,
+                    m_inFlightRequests.getCoalescedCount()));
+        }
+    }
 
-                    }
-                } else {
-                    Log.d(LOG_TAG, String.format("No existing weather data record for %s, %s exists in the database", cityScrubbed, countryScrubbed));
+    private static String requestKey(String cityScrubbed, String countryScrubbed) {
+        return cityScrubbed + "," + countryScrubbed;
+    }
+
+    /**
+     * Returns the number of weather requests that were coalesced into an already in-flight request
+     * for the same location, i.e. the number of database lookups and API calls that were saved.
+     * @return
+     */
+    public long getCoalescedRequestCount() {
+        return m_inFlightRequests.getCoalescedCount();
+    }
 
-                    Log.d(LOG_TAG, "Fetching data for the first time from OpenWeatherAPI . . .");
+    /**
+     * Fetches current weather for each of the given locations from the OpenWeatherMap API, with at
+     * most MAX_CONCURRENT_FETCHES requests in flight at once, then writes all of the results to the
+     * database in a single transaction. One aggregated WeatherRefreshResult is posted to
+     * getWeatherRefreshResult() once the whole batch has completed.
+     *
+     * Locations that fetchWeatherDataFromDataSource() (or another batch) is already fetching are
+     * skipped rather than fetched twice, and are in neither the fetched nor the failed list.
+     * @param locations
+     */
+    public void refreshWeather(Collection<WeatherLocation> locations) {
+        refreshWeather(locations, null);
+    }
 
-                    asyncFetchWeatherFromApi(city, country, false);
+    /**
+     * @param locations
+     * @param onComplete Called with the aggregated result once the batch has completed (in addition
+     *                   to it being posted to getWeatherRefreshResult()). May be null.
+     */
+    public void refreshWeather(Collection<WeatherLocation> locations, Consumer<WeatherRefreshResult> onComplete) {
+        final long startMillis = System.currentTimeMillis();
+        List<WeatherLocation> distinctLocations = new ArrayList<>(new LinkedHashSet<>(locations));
+        if (distinctLocations.isEmpty()) {
+            publishRefreshResult(
+                    new WeatherRefreshResult(Collections.emptyList(), Collections.emptyList(), 0), onComplete);
+            return;
+        }
+        Log.d(LOG_TAG, String.format("Refreshing weather data for %d locations", distinctLocations.size()));
+
+        Queue<WeatherLocation> pending = new ConcurrentLinkedQueue<>(distinctLocations);
+        Queue<Weather> fetched = new ConcurrentLinkedQueue<>();
+        Queue<WeatherLocation> failed = new ConcurrentLinkedQueue<>();
+
+        //Each worker keeps pulling locations until none are left, which bounds the number of
+        //concurrent API requests without queueing one task per location on the network pool
+        int numWorkers = Math.min(MAX_CONCURRENT_FETCHES, distinctLocations.size());
+        AtomicInteger activeWorkers = new AtomicInteger(numWorkers);
+        for (int i = 0; i < numWorkers; i++) {
+            mExecutors.networkIO().execute(() -> {
+                WeatherLocation location;
+                while ((location = pending.poll()) != null) {
+                    String requestKey = requestKey(formatCaseCity(location.getCity()),
+                            formatCaseCountryCodeFromCountryName(location.getCountry()));
+                    if (!m_inFlightRequests.claim(requestKey)) {
+                        Log.d(LOG_TAG, String.format("Weather data for %s is already being fetched, skipping",
+                                requestKey));
+                        continue;
+                    }
+                    Weather weather = null;
+                    try {
+                        weather = fetchCurrentWeather(location.getCity(), location.getCountry());
+                    } catch (RuntimeException e) {
+                        Log.d(LOG_TAG, String.format("Error fetching weather data for %s: '%s'",
+                                location, e.getMessage()));
+                    } finally {
+                        m_inFlightRequests.release(requestKey);
+                    }
+                    if (weather != null) {
+                        fetched.add(weather);
+                    } else {
+                        Log.d(LOG_TAG, String.format("Unable to refresh weather data for %s", location));
+                        failed.add(location);
+                    }
                 }
-        });
+                if (activeWorkers.decrementAndGet() == 0) {
+                    mExecutors.diskIO().execute(() -> writeRefreshedWeather(
+                            new ArrayList<>(fetched), new ArrayList<>(failed), startMillis, onComplete));
+                }
+            });
+        }
+    }
+
+    private void writeRefreshedWeather(List<Weather> fetched, List<WeatherLocation> failed, long startMillis,
+                                       Consumer<WeatherRefreshResult> onComplete) {
+        if (!fetched.isEmpty()) {
+            inStyleDatabase.runInTransaction(() -> {
+                mWeatherDao.insertAllWeather(fetched);
+                m_geocodingService.recordWeatherCoordinates(fetched);
+            });
+            fetched.forEach(m_weatherCache::put);
+        }
+        WeatherRefreshResult result =
+                new WeatherRefreshResult(fetched, failed, System.currentTimeMillis() - startMillis);
+        Log.d(LOG_TAG, "Batch weather refresh complete: " + result);
+
+        publishRefreshResult(result, onComplete);
+    }
 
+    private void publishRefreshResult(WeatherRefreshResult result, Consumer<WeatherRefreshResult> onComplete) {
+        m_observableRefreshResult.postValue(result);
+        if (onComplete != null) {
+            onComplete.accept(result);
+        }
     }
 
     public void loadRandomWeatherData(int recordNum) {
@@ -184,6 +389,8 @@ public class WeatherRepository {
 
     public LiveData<Weather> getWeather() { return m_observableWeather; }
 
+    public LiveData<WeatherRefreshResult> getWeatherRefreshResult() { return m_observableRefreshResult; }
+
     public LiveData<List<Weather>> getAllWeather() {
         return m_observableWeatherList;
     }
@@ -194,6 +401,7 @@ public class WeatherRepository {
         weather.setCity(formatCaseCity(weather.getCity()));
         weather.setCountryCode(formatCaseCountryCodeFromCountryName(weather.getCountryCode()));
 
+        m_weatherCache.put(weather);
         asyncInsertWeather(weather);
     }
 
@@ -224,137 +432,105 @@ public class WeatherRepository {
 
     ///////////// ASYNC TASKS FOR FETCHING REAL-TIME WEATHER DATA FROM WEATHER API ///////////////
 
-    @SuppressLint("StaticFieldLeak")
-    private void asyncFetchWeatherFromApi(String city, String country, boolean isDataRefresh) {
-        new AsyncTask<String, Void, Weather>() {
-            @Override
-            protected Weather doInBackground(String... params) {
-                String city = params[0];
-                String country = params[1];
-
-                Log.d(LOG_TAG, String.format(
-                        "Fetching real-time weather data from OpenWeatherMap API for %s, %s", city, country));
-
-                Weather weatherData = fetchCurrentWeather(city, country);
-
-                if (isDataRefresh) { //Update existing data record for previously fetched location
-                    Log.d(LOG_TAG, String.format(
-                            "Updating weather data fetched from OpenWeatherMap API for %s, %s " +
-                                    "into database to replace existing data record with new time last updated as %s",
-                            weatherData.getCity(), weatherData.getCountryCode(), weatherData.getLastUpdated().toString()));
-//                        mWeatherDao.updateWeather(weatherData);
-                } else { //Weather data not previously fetched before, insert
+    /**
+     * Fetches weather on the network pool, then writes it on the disk IO pool.
+     * @return Future completed once the weather has been written, or exceptionally if the fetch
+     * throws or either pool rejects its stage
+     */
+    private CompletableFuture<Void> fetchWeatherFromApi(String city, String country, boolean isDataRefresh) {
+        return CompletableFuture
+                .supplyAsync(() -> {
                     Log.d(LOG_TAG, String.format(
-                            "Inserting weather data fetched from OpenWeatherMap API for %s, %s " +
-                                    "as new record into database with time last updated as %s",
-                            weatherData.getCity(), weatherData.getCountryCode(), weatherData.getLastUpdated().toString()));
-                }
-                mWeatherDao.insertWeather(weatherData);
+                            "Fetching real-time weather data from OpenWeatherMap API for %s, %s", city, country));
+                    return fetchCurrentWeather(city, country);
+                }, mExecutors.networkIO())
+                //Hand the database write off to the disk IO pool so the network thread is freed up
+                .thenAcceptAsync(weatherData -> writeFetchedWeather(city, country, weatherData, isDataRefresh),
+                        mExecutors.diskIO())
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        Log.d(LOG_TAG, String.format("Error fetching weather data for %s, %s: '%s'",
+                                city, country, e.getMessage()));
+                    }
+                });
+    }
 
-                return weatherData;
-            }
+    private void writeFetchedWeather(String city, String country, Weather weatherData, boolean isDataRefresh) {
+        if (weatherData == null) {
+            Log.d(LOG_TAG, String.format("Unable to fetch weather data for %s, %s", city, country));
+            return;
+        }
+        if (isDataRefresh) { //Update existing data record for previously fetched location
+            Log.d(LOG_TAG, String.format(
+                    "Updating weather data fetched from OpenWeatherMap API for %s, %s " +
+                            "into database to replace existing data record with new time last updated as %s",
+                    weatherData.getCity(), weatherData.getCountryCode(), weatherData.getLastUpdated().toString()));
+        } else { //Weather data not previously fetched before, insert
+            Log.d(LOG_TAG, String.format(
+                    "Inserting weather data fetched from OpenWeatherMap API for %s, %s " +
+                            "as new record into database with time last updated as %s",
+                    weatherData.getCity(), weatherData.getCountryCode(), weatherData.getLastUpdated().toString()));
+        }
+        inStyleDatabase.runInTransaction(() -> {
+            mWeatherDao.insertWeather(weatherData);
+            m_geocodingService.recordWeatherCoordinates(Collections.singletonList(weatherData));
+        });
+        m_weatherCache.put(weatherData);
 
-            @Override
-            protected void onPostExecute(Weather weather) {
-                m_observableWeather.setValue(weather);
-            }
-        }.execute(city, country);
+        mExecutors.mainThread().execute(() -> m_observableWeather.setValue(weatherData));
     }
 
     //////////// ASYNC TASKS FOR A SINGLE WEATHER RECORD /////////////
 
-    @SuppressLint("StaticFieldLeak")
     private void asyncLoadWeatherFromDatabase(String city, String country) {
-        new AsyncTask<String, Void, Weather>() {
-            @Override
-            protected Weather doInBackground(String... params) {
-                String city = params[0];
-                String country = params[1];
-                Log.d(LOG_TAG, String.format("Retrieving weather record for %s, %s from database", city, country));
-
-                LiveData<Weather> weather = mWeatherDao.findWeatherByLocation(city, country);
-                return weather.getValue();
-            }
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, String.format("Retrieving weather record for %s, %s from database", city, country));
 
-            @Override
-            protected void onPostExecute(Weather weather) {
-                m_observableWeather.setValue(weather);
-            }
-        }.execute(city, country);
+            Weather weather = mWeatherDao.findWeatherByLocation(city, country).getValue();
+            mExecutors.mainThread().execute(() -> m_observableWeather.setValue(weather));
+        });
     }
 
-    @SuppressLint("StaticFieldLeak")
     private void asyncInsertWeather(Weather weather) {
-        new AsyncTask<Weather, Void, Void>() {
-            @Override
-            protected Void doInBackground(Weather... params) {
-                Weather weatherToInsert = params[0];
-                Log.d(LOG_TAG, String.format("Inserting weather record for %s, %s into database",
-                        weatherToInsert.getCity(),
-                        weatherToInsert.getCountryCode()));
-
-                mWeatherDao.insertWeather(weatherToInsert);
-
-                Log.d(LOG_TAG, "Inserting Weather data . . .");
-                return null;
-            }
-        }.execute(weather);
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, String.format("Inserting weather record for %s, %s into database",
+                    weather.getCity(),
+                    weather.getCountryCode()));
+
+            mWeatherDao.insertWeather(weather);
+
+            Log.d(LOG_TAG, "Inserting Weather data . . .");
+        });
     }
 
     ////////////////// ASYNC TASKS FOR A MULTIPLE WEATHER RECORDS //////////////////
 
-    @SuppressLint("StaticFieldLeak")
     private void asyncLoadWeatherDataFromDatabase() {
-        new AsyncTask<Void, Void, List<Weather>>() {
-            @Override
-            protected List<Weather> doInBackground(Void... params) {
-                Log.d(LOG_TAG, "Loading weather from database");
-                LiveData<List<Weather>> listLiveData = mWeatherDao.loadAllWeather();
-
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, "Loading weather from database");
+            List<Weather> weatherList = mWeatherDao.loadAllWeather().getValue();
 
-                return listLiveData.getValue();
-            }
-
-            @Override
-            protected void onPostExecute(List<Weather> weatherList) {
-                m_observableWeatherList.setValue(weatherList);
-            }
-        }.execute();
+            mExecutors.mainThread().execute(() -> m_observableWeatherList.setValue(weatherList));
+        });
     }
 
-    @SuppressLint("StaticFieldLeak")
     private void asyncDeleteAllWeatherDataFromDatabase() {
-        new AsyncTask<Void, Void, Void>() {
-            @Override
-            protected Void doInBackground(Void... params) {
-                Log.d(LOG_TAG, "Deleting all weather from database");
-                mWeatherDao.deleteAllWeather();
-                return null;
-            }
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, "Deleting all weather from database");
+            mWeatherDao.deleteAllWeather();
+            m_weatherCache.clear();
 
-            @Override
-            protected void onPostExecute(Void voidResult) {
-                m_observableWeatherList.setValue(Collections.emptyList());
-            }
-        }.execute();
+            mExecutors.mainThread().execute(() -> m_observableWeatherList.setValue(Collections.emptyList()));
+        });
     }
 
-    @SuppressLint("StaticFieldLeak")
     private void asyncLoadRandomWeatherData(int recordNumber) {
-        new AsyncTask<Void, Void, Weather>() {
-            @Override
-            protected Weather doInBackground(Void... params) {
-                Log.d(LOG_TAG, String.format("Loading weather record number %d", recordNumber));
-
-                LiveData<Weather> weatherResult = mWeatherDao.findWeatherById(recordNumber);
-                return weatherResult.getValue();
-            }
+        mExecutors.diskIO().execute(() -> {
+            Log.d(LOG_TAG, String.format("Loading weather record number %d", recordNumber));
 
-            @Override
-            protected void onPostExecute(Weather weather) {
-                m_observableWeather.setValue(weather);
-            }
-        }.execute();
+            Weather weather = mWeatherDao.findWeatherById(recordNumber).getValue();
+            mExecutors.mainThread().execute(() -> m_observableWeather.setValue(weather));
+        });
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////
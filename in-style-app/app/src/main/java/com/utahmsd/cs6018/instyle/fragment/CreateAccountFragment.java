@@ -23,15 +23,15 @@ import com.utahmsd.cs6018.instyle.viewmodel.UserListViewModel;
 import com.utahmsd.cs6018.instyle.viewmodel.UserViewModel;
 import com.utahmsd.cs6018.instyle.db.entity.User;
 import com.utahmsd.cs6018.instyle.util.Constants;
+import com.utahmsd.cs6018.instyle.util.ValidationUtils;
+import com.utahmsd.cs6018.instyle.util.validation.ValidationError;
+import com.utahmsd.cs6018.instyle.util.validation.ValidationRuleSet;
 
 import java.time.Instant;
 import java.util.Date;
 
 import static com.utahmsd.cs6018.instyle.util.Constants.SAVE_INSTANCE_STATE;
 import static com.utahmsd.cs6018.instyle.util.Constants.VIEW_STATE_RESTORED;
-import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isNotNullOrEmpty;
-import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidAlphaChars;
-import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidEmail;
 
 /**
  * Fragment class for screen that user sees when the Create Account button is pressed in the Login screen.
@@ -40,6 +40,17 @@ public class CreateAccountFragment extends Fragment {
 
     private static final String LOG_TAG = CreateAccountFragment.class.getSimpleName();
 
+    private static final ValidationRuleSet<CreateAccountFragment> ACCOUNT_FORM_RULES =
+            new ValidationRuleSet<CreateAccountFragment>()
+                    .field("email", f -> f.m_email.getText().toString(),
+                            ValidationUtils::isValidEmail, "Invalid email.")
+                    .field("password", f -> f.m_password.getText().toString(),
+                            ValidationUtils::isNotNullOrEmpty, "Invalid password.")
+                    .field("firstName", f -> f.m_firstName.getText().toString(),
+                            ValidationUtils::isValidAlphaChars, "Invalid first name.")
+                    .field("lastName", f -> f.m_lastName.getText().toString(),
+                            ValidationUtils::isValidAlphaChars, "Invalid last name.");
+
     private Button m_btn_createAccount;
     private EditText m_email, m_password, m_firstName, m_lastName;
     private UserViewModel userViewModel;
@@ -176,20 +187,9 @@ public class CreateAccountFragment extends Fragment {
         }
 
         private boolean isAccountDataValid () {
-            if (!isValidEmail(m_email.getText().toString())) {
-                Toast.makeText(getContext(), "Invalid email.", Toast.LENGTH_SHORT).show();
-                return false;
-            }
-            if (!isNotNullOrEmpty(m_password.getText().toString())) {
-                Toast.makeText(getContext(), "Invalid password.", Toast.LENGTH_SHORT).show();
-
-            }
-            else if (!isValidAlphaChars(m_firstName.getText().toString())) {
-                Toast.makeText(getContext(), "Invalid first name.", Toast.LENGTH_SHORT).show();
-                return false;
-            }
-            else if (!isValidAlphaChars(m_lastName.getText().toString())) {
-                Toast.makeText(getContext(), "Invalid last name.", Toast.LENGTH_SHORT).show();
+            ValidationError error = ACCOUNT_FORM_RULES.validate(this).getFirstError();
+            if (error != null) {
+                Toast.makeText(getContext(), error.getMessage(), Toast.LENGTH_SHORT).show();
                 return false;
             }
             return true;
@@ -3,6 +3,7 @@ package com.utahmsd.cs6018.instyle.fragment;
 
 import android.app.Activity;
 import android.app.AlertDialog;
+import android.arch.lifecycle.Transformations;
 import android.arch.lifecycle.ViewModelProviders;
 import android.content.DialogInterface;
 import android.content.Intent;
@@ -30,11 +31,6 @@ import com.utahmsd.cs6018.instyle.viewmodel.UserViewModel;
 import java.util.Locale;
 
 import static com.utahmsd.cs6018.instyle.util.Constants.CREATE_VIEW;
-import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateAge;
-import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateBMR;
-import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateBmi;
-import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateDailyCaloricIntake;
-import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateHeightInInches;
 
 public class FitnessDetailsFragment extends Fragment {
 
@@ -44,6 +40,7 @@ public class FitnessDetailsFragment extends Fragment {
     private static final double DEFAULT_BMR = 1500;
     private static final double DEFAULT_BMI = 20.0;
     private static final int STEP_COUNT_PLACEHOLDER = 789; //Temp placeholder for step count
+    private static final int NO_USER = -1;
 
     private static final String DOUBLE_FORMAT = "%.1f";
 
@@ -58,7 +55,9 @@ public class FitnessDetailsFragment extends Fragment {
 
     private SensorManager mSensorManager;
     private Sensor mStepCounter;
-    private float m_numberOfSteps;
+    private int m_userId = NO_USER;
+    private Integer m_writtenStepsToday; //Today's steps that have been written to the database
+    private int m_numberOfSteps;
 
     public FitnessDetailsFragment() { }
 
@@ -71,12 +70,13 @@ public class FitnessDetailsFragment extends Fragment {
     private final SensorEventListener mListener = new SensorEventListener() {
         @Override
         public void onSensorChanged(SensorEvent sensorEvent) {
-            m_numberOfSteps = sensorEvent.values[0];
-            Log.d(LOG_TAG, String.format(Locale.US, "Total step count: %f steps", m_numberOfSteps));
-            m_tvstepCount.setText(String.format(Locale.US, "%f %s", m_numberOfSteps, STEPS));
-            //TODO: Fix fitness profile view model database calls for updating step count data -- causes null pointer exception
-//            m_fitnessProfileViewModel.updateFitnessProfileDailyStepCount(m_numberOfSteps);
-            
+            Log.d(LOG_TAG, String.format(Locale.US, "Total step count since reboot: %f steps", sensorEvent.values[0]));
+            if (m_userId == NO_USER) {
+                return; //Steps are recorded once the user has loaded
+            }
+            //Buffered in memory and written in batches, so this is cheap on the main thread
+            m_fitnessProfileViewModel.recordStepCount(m_userId, sensorEvent.values[0]);
+            updateStepCount();
         }
 
         @Override
@@ -146,26 +146,13 @@ public class FitnessDetailsFragment extends Fragment {
         m_userViewModel.getUser().observe(this, user -> {
             Log.d(LOG_TAG, "UserViewModel observer for getUser()");
             if (user != null) {
+                m_userId = user.getId();
                 m_fitnessProfileViewModel.getFitnessProfile(user.getId()).observe(this, fp -> {
                     if (fp != null) {
-                        //TODO: Fix fitness profile view model database calls for updating step count data
-//                        m_fitnessProfileViewModel.updateFitnessProfileDailyStepCount(8.0f);
-                        int calcAge = calculateAge(fp.getM_dob());
-                        double basalMetabolicRate = calculateBMR(fp.getM_heightFeet(),
-                                fp.getM_heightInches(),
-                                fp.getM_sex(),
-                                fp.getM_weightInPounds(),
-                                calcAge);
-                        double bodyMassIndex = calculateBmi(calculateHeightInInches(
-                                fp.getM_heightFeet(),
-                                fp.getM_heightInches()),
-                                fp.getM_weightInPounds());
                         fitnessDetailsSubHeading.setText(String.format(Locale.US,"FITNESS DATA FOR %s", fp.getM_fName()));
-                        m_numberOfSteps = fp.getM_stepCount();
-                        m_tvcalsToEat.setText(String.format(Locale.US, DOUBLE_FORMAT + CALORIC_INTAKE, calculateDailyCaloricIntake(fp)));
-                        m_tvBMR.setText(String.format(Locale.US, DOUBLE_FORMAT + BMR, basalMetabolicRate));
-                        m_bodyMassIndex.setText(String.format(Locale.US, DOUBLE_FORMAT, bodyMassIndex));
-                        m_tvstepCount.setText(String.format(Locale.US, "%s %s",m_numberOfSteps, STEPS));
+                        m_tvcalsToEat.setText(String.format(Locale.US, DOUBLE_FORMAT + CALORIC_INTAKE, fp.getM_dailyCaloricIntake()));
+                        m_tvBMR.setText(String.format(Locale.US, DOUBLE_FORMAT + BMR, fp.getM_bmr()));
+                        m_bodyMassIndex.setText(String.format(Locale.US, DOUBLE_FORMAT, fp.getM_bmi()));
                     } else {
                         displayNoExistingFitnessProfileAlertDialog();
                     }
@@ -175,6 +162,20 @@ public class FitnessDetailsFragment extends Fragment {
                 displayNoExistingFitnessProfileAlertDialog();
             }
         });
+
+        //Observed once, switching to the user's steps whenever the user changes, rather than adding
+        //another observer on every user emission
+        Transformations.switchMap(m_userViewModel.getUser(),
+                user -> user != null ? m_fitnessProfileViewModel.getWrittenStepsToday(user.getId()) : null)
+                .observe(this, steps -> {
+                    m_writtenStepsToday = steps;
+                    updateStepCount();
+                });
+    }
+
+    private void updateStepCount() {
+        m_numberOfSteps = m_fitnessProfileViewModel.getStepsToday(m_userId, m_writtenStepsToday);
+        m_tvstepCount.setText(String.format(Locale.US, "%s %s", m_numberOfSteps, STEPS));
     }
 
     private void displayNoExistingFitnessProfileAlertDialog() {
@@ -1,7 +1,6 @@
 package com.utahmsd.cs6018.instyle.fragment;
 
 
-import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
 import android.app.Activity;
 import android.app.AlertDialog;
@@ -13,13 +12,10 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.database.Cursor;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.ColorDrawable;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.ParcelFileDescriptor;
 import android.provider.MediaStore;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -29,45 +25,38 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
 import android.widget.Button;
 import android.widget.DatePicker;
 import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.SeekBar;
-import android.widget.Spinner;
 import android.widget.Toast;
 
 import com.utahmsd.cs6018.instyle.R;
 import com.utahmsd.cs6018.instyle.activity.DashboardActivity;
 import com.utahmsd.cs6018.instyle.activity.ProfileSummaryActivity;
 import com.utahmsd.cs6018.instyle.db.entity.User;
+import com.utahmsd.cs6018.instyle.image.ImageStore;
+import com.utahmsd.cs6018.instyle.image.ProfileImageLoader;
+import com.utahmsd.cs6018.instyle.ui.CountryNameAdapter;
 import com.utahmsd.cs6018.instyle.viewmodel.FitnessProfileViewModel;
 import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
 import com.utahmsd.cs6018.instyle.util.Constants;
+import com.utahmsd.cs6018.instyle.util.ValidationUtils;
+import com.utahmsd.cs6018.instyle.util.validation.ValidationError;
+import com.utahmsd.cs6018.instyle.util.validation.ValidationRuleSet;
 import com.utahmsd.cs6018.instyle.viewmodel.UserViewModel;
 
-import java.io.ByteArrayOutputStream;
-import java.io.FileDescriptor;
-import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
+import java.time.LocalDate;
 import java.util.Locale;
 import java.util.Objects;
 
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.formatDob;
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.parseDob;
 import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isNotNullOrEmpty;
-import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidCity;
-import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidDobFormat;
-import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidHeight;
-import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidName;
-import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidSex;
-import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidWeight;
-import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidWeightPlan;
-import static com.utahmsd.cs6018.instyle.util.mapper.CountryCodeMapper.getCountryNames;
+import static com.utahmsd.cs6018.instyle.util.WeatherUtils.DEFAULT_COUNTRY;
+import static com.utahmsd.cs6018.instyle.util.mapper.CountryCodeMapper.findCountryName;
 
 /**
  * A simple {@link Fragment} subclass.
@@ -77,8 +66,29 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
 
     private static final int REQUEST_IMAGE_CAPTURE = 1;
     private static final int READ_REQUEST_CODE = 42;
-    private static final int WIDE_DISPLAY_IMG_DIM = 600;
-    private static final int MOBILE_IMG_DIM = 300;
+
+    //Checked in order, so the first error shown is for the first invalid field on the form
+    private static final ValidationRuleSet<ProfileEntryFragment> PROFILE_FORM_RULES =
+            new ValidationRuleSet<ProfileEntryFragment>()
+                    .field("firstName", f -> f.etxt_firstName.getText().toString(),
+                            ValidationUtils::isValidName, "Invalid first name.")
+                    .field("lastName", f -> f.etxt_lastName.getText().toString(),
+                            ValidationUtils::isValidName, "Invalid last name.")
+                    .field("dob", f -> f.etxt_dob.getText().toString(),
+                            ValidationUtils::isValidDobFormat, "Invalid date of birth.")
+                    .field("sex", f -> f.etxt_sex.getText().toString(),
+                            ValidationUtils::isValidSex, "Invalid sex.")
+                    .field("city", f -> f.etxt_city.getText().toString(),
+                            ValidationUtils::isValidCity, "Invalid city.")
+                    .field("country", f -> f.actv_country.getText().toString(),
+                            country -> findCountryName(country) != null, "Invalid country.")
+                    .field("weight", f -> f.etxt_weight.getText().toString(),
+                            ValidationUtils::isValidWeight, "Invalid weight.")
+                    .rule("height", f -> ValidationUtils.isValidHeight(f.etxt_heightFeet.getText().toString(),
+                            f.etxt_heightInches.getText().toString()), "Please enter a valid height in feet/inches.")
+                    .field("lbsPerWeek", f -> f.etxt_lbsPerWeek.getText().toString(),
+                            ValidationUtils::isValidWeightPlan,
+                            "Please enter a valid weekly weight goal (i.e., a maximum weight management change of 5lbs/week)");
 
 
     private FitnessProfileViewModel m_fitnessProfileViewModel;
@@ -89,10 +99,9 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
             etxt_weight, etxt_heightFeet, etxt_heightInches, etxt_lbsPerWeek;
     private Button profileEntryButton;
     private ImageButton takeProfileImageButton;
-    private Bitmap profileImage;
-    private Spinner countrySpinner;
+    private AutoCompleteTextView actv_country;
     private SeekBar lifestyleSlider, weightGoalSlider;
-    private String imageUriString;
+    private String profileImageKey; //Key of the image in the ImageStore
 
     public ProfileEntryFragment() { }
 
@@ -188,18 +197,10 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
         }
     }
 
-    @SuppressLint("SimpleDateFormat")
+    @RequiresApi(api = Build.VERSION_CODES.O)
     private void displayDatePickerDialog() {
-        Date defaultDate = Date.from(Instant.now());
-        if (isValidDobFormat(etxt_dob.getText().toString())) {
-            try {
-                defaultDate = new SimpleDateFormat("MM/dd/yyyy").parse(etxt_dob.getText().toString());
-            } catch (ParseException e) {
-                e.printStackTrace();
-            }
-        }
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(defaultDate);
+        LocalDate dob = parseDob(etxt_dob.getText().toString());
+        LocalDate defaultDate = dob != null ? dob : LocalDate.now();
 
         Log.d(LOG_TAG, String.format("Default date set on dialog: '%s'", defaultDate.toString()));
 
@@ -209,9 +210,9 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
                 Log.d(LOG_TAG, String.format(Locale.US, "birthdate was set: %d-%d-%d",
                         year, month, day));
 
-                etxt_dob.setText(String.format(Locale.US, "%d/%d/%d", month+1, day, year));
+                etxt_dob.setText(formatDob(LocalDate.of(year, month + 1, day)));
             }
-        }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
+        }, defaultDate.getYear(), defaultDate.getMonthValue() - 1, defaultDate.getDayOfMonth());
 
         dialog.getWindow().setBackgroundDrawable(new ColorDrawable(android.graphics.Color.TRANSPARENT));
         dialog.show();
@@ -220,27 +221,28 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
     @Override
     public void onActivityResult(int requestCode, int resultCode, @Nullable Intent intent) {
         super.onActivityResult(requestCode, resultCode, intent);
-        int dim = getResources().getBoolean(R.bool.isWideDisplay) ? WIDE_DISPLAY_IMG_DIM : MOBILE_IMG_DIM;
+        int dim = ProfileImageLoader.getTargetSize(getContext());
         if (intent != null) {
             if (requestCode == READ_REQUEST_CODE && resultCode == Activity.RESULT_OK) {
                 Uri uri = null;
                 uri = intent.getData();
                 Log.d(LOG_TAG, "URI: " + uri.toString());
                 Log.d(LOG_TAG, "ACTUAL FILE PATH: " + getImageFilePathFromUri(uri));
-                imageUriString = uri.toString();
 
-                try {
-                    Bitmap bitmap = getBitmapFromUri(uri);
-                    takeProfileImageButton.setImageBitmap(bitmap);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                //Copied into the ImageStore, then decoded off the main thread at the size it's displayed
+                ProfileImageLoader.getInstance(getContext()).importImage(uri, this::onProfileImageStored);
             } else if (requestCode == REQUEST_IMAGE_CAPTURE && resultCode == Activity.RESULT_OK) {
+                Bitmap thumbnail = null;
                 if (intent.getExtras() != null) {
-                    profileImage = (Bitmap) intent.getExtras().get("data");
+                    thumbnail = (Bitmap) intent.getExtras().get("data");
                 }
-                if (profileImage != null) {
-                    takeProfileImageButton.setImageBitmap(profileImage);
+                if (thumbnail != null) {
+                    takeProfileImageButton.setImageBitmap(thumbnail);
+                    ProfileImageLoader.getInstance(getContext()).importBitmap(thumbnail, key -> {
+                        if (key != null) {
+                            profileImageKey = key;
+                        }
+                    });
                 }
             }
             takeProfileImageButton.setMinimumHeight(dim);
@@ -255,9 +257,10 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
         super.onViewStateRestored(savedInstanceState);
 
         if(savedInstanceState != null) {
-            profileImage = savedInstanceState.getParcelable("M_IMG_DATA");
-            takeProfileImageButton.setImageBitmap(profileImage);
-//            imageUriString = savedInstanceState.getString("uri");
+            profileImageKey = savedInstanceState.getString("M_IMG_KEY");
+            if (profileImageKey != null) {
+                loadProfileImage(profileImageKey); //From the memory cache
+            }
         }
     }
 
@@ -266,10 +269,9 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
         Log.d(LOG_TAG, "onSaveInstanceState");
 
         super.onSaveInstanceState(savedInstanceState);
-        if (takeProfileImageButton != null && takeProfileImageButton.getDrawable() != null) {
-            Bitmap bitmap = ((BitmapDrawable) takeProfileImageButton.getDrawable()).getBitmap();
-            savedInstanceState.putParcelable("M_IMG_DATA", bitmap);
-//            savedInstanceState.putString("uri", getUriFromBitmap(bitmap).toString());
+        //Only the key, rather than the image, so the saved state stays small
+        if (profileImageKey != null) {
+            savedInstanceState.putString("M_IMG_KEY", profileImageKey);
         }
     }
 
@@ -287,15 +289,9 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
         profileEntryButton = view.findViewById(R.id.btn_submit);
         takeProfileImageButton = view.findViewById(R.id.btn_img_takeImage);
 
-        countrySpinner = view.findViewById(R.id.spinner_country);
-
-        ArrayList<String> countryOptions = getCountryNames();
-        countryOptions.add(0, "United States");
-        ArrayAdapter<String> adapter = new ArrayAdapter<>(Objects.requireNonNull(getActivity()),
-                android.R.layout.simple_spinner_item,
-                countryOptions);
-        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-        countrySpinner.setAdapter(adapter);
+        actv_country = view.findViewById(R.id.actv_country);
+        actv_country.setAdapter(new CountryNameAdapter(Objects.requireNonNull(getActivity())));
+        actv_country.setText(DEFAULT_COUNTRY, false);
 
         lifestyleSlider = view.findViewById(R.id.slider_lifestyle);
         lifestyleSlider.setProgress(1); //Default slider position to 'moderate'
@@ -314,15 +310,45 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
         etxt_heightInches.setText(String.valueOf(fp.getM_heightInches()));
         etxt_city.setText(fp.getM_city());
 
-        int pos = getCountryNames().indexOf(fp.getM_country());
-        countrySpinner.setSelection(pos);
+        actv_country.setText(fp.getM_country(), false);
 
         etxt_weight.setText(String.valueOf(fp.getM_weightInPounds()));
         etxt_lbsPerWeek.setText(String.valueOf(Math.abs(fp.getM_lbsPerWeek())));
 
+        if (profileImageKey == null && fp.getM_profileImage() != null) {
+            profileImageKey = fp.getM_profileImage();
+            loadProfileImage(profileImageKey);
+            if (!ImageStore.isKey(profileImageKey)) { //Picked before there was a store, saved with the profile
+                String legacyUri = profileImageKey;
+                ProfileImageLoader.getInstance(getContext()).importImage(Uri.parse(legacyUri), key -> {
+                    if (key != null && legacyUri.equals(profileImageKey)) {
+                        profileImageKey = key;
+                    }
+                });
+            }
+        }
+
         restoreSliderPositions(fp);
     }
 
+    private void loadProfileImage(String storedImage) {
+        ProfileImageLoader.getInstance(getContext())
+                .load(storedImage, ProfileImageLoader.getTargetSize(getContext()), takeProfileImageButton);
+    }
+
+    private void onProfileImageStored(String key) {
+        if (key == null) {
+            if (isAdded()) {
+                Toast.makeText(getContext(), "Unable to read the selected image", Toast.LENGTH_SHORT).show();
+            }
+            return;
+        }
+        profileImageKey = key;
+        if (isAdded()) {
+            loadProfileImage(key);
+        }
+    }
+
     private void restoreSliderPositions(FitnessProfile fp) {
         if (fp.getM_lifestyleSelection().equalsIgnoreCase("ACTIVE")) {
             lifestyleSlider.setProgress(2);
@@ -401,14 +427,14 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
 
         tempFitnessProfile.setM_weightGoal(weightGoalSlider.getProgress() == 2 ?
                 "GAIN" : weightGoalSlider.getProgress() == 1 ? "MAINTAIN" : "LOSE");
-        tempFitnessProfile.setM_country(getCountryNames().get(countrySpinner.getSelectedItemPosition()));
+        tempFitnessProfile.setM_country(findCountryName(actv_country.getText().toString()));
         tempFitnessProfile.setM_weightInPounds(Integer.parseInt(etxt_weight.getText().toString()));
         tempFitnessProfile.setM_heightFeet(Integer.parseInt(etxt_heightFeet.getText().toString()));
 
         String heightInches = etxt_heightInches.getText().toString();
         tempFitnessProfile.setM_heightInches(!isNotNullOrEmpty(heightInches) ? 0 : Integer.parseInt(heightInches));
 
-        tempFitnessProfile.setM_profileImage(imageUriString);
+        tempFitnessProfile.setM_profileImage(profileImageKey);
 
         final int lbsPerWeek = Integer.parseInt(etxt_lbsPerWeek.getText().toString());
 
@@ -439,36 +465,9 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
     }
 
     private boolean isUserInputDataValid() {
-        if (!isValidName(etxt_firstName.getText().toString())) {
-            Toast.makeText(getContext(), "Invalid first name.", Toast.LENGTH_SHORT).show();
-            return false;
-        }
-        else if (!isValidName(etxt_lastName.getText().toString())) {
-            Toast.makeText(getContext(), "Invalid last name.", Toast.LENGTH_SHORT).show();
-            return false;
-        }
-        else if (!isValidDobFormat(etxt_dob.getText().toString())) {
-            Toast.makeText(getContext(), "Invalid date of birth.", Toast.LENGTH_SHORT).show();
-            return false;
-        }
-        else if (!isValidSex(etxt_sex.getText().toString())) {
-            Toast.makeText(getContext(), "Invalid sex.", Toast.LENGTH_SHORT).show();
-            return false;
-        }
-        else if (!isValidCity(etxt_city.getText().toString())) {
-            Toast.makeText(getContext(), "Invalid city.", Toast.LENGTH_SHORT).show();
-            return false;
-        }
-        else if (!isValidWeight(etxt_weight.getText().toString())) {
-            Toast.makeText(getContext(), "Invalid weight.", Toast.LENGTH_SHORT).show();
-            return false;
-        }
-        else if (!isValidHeight(etxt_heightFeet.getText().toString(), etxt_heightInches.getText().toString())) {
-            Toast.makeText(getContext(), "Please enter a valid height in feet/inches.", Toast.LENGTH_SHORT).show();
-            return false;
-        }
-        else if (!isValidWeightPlan(etxt_lbsPerWeek.getText().toString())) {
-            Toast.makeText(getContext(), "Please enter a valid weekly weight goal (i.e., a maximum weight management change of 5lbs/week)", Toast.LENGTH_SHORT).show();
+        ValidationError error = PROFILE_FORM_RULES.validate(this).getFirstError();
+        if (error != null) {
+            Toast.makeText(getContext(), error.getMessage(), Toast.LENGTH_SHORT).show();
             return false;
         }
         return true;
@@ -512,25 +511,6 @@ public class ProfileEntryFragment extends Fragment implements View.OnClickListen
 
         builder.create().show();
     }
-//    public Uri getUriFromBitmap(Context context, Bitmap bitmap) {
-    public Uri getUriFromBitmap(Bitmap bitmap) {
-        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 100, bytes);
-        String path = MediaStore.Images.Media.insertImage(getActivity().getContentResolver(), bitmap, "img", null);
-        return Uri.parse(path);
-    }
-
-    private Bitmap getBitmapFromUri(Uri uri) throws IOException {
-        ParcelFileDescriptor parcelFileDescriptor =
-                getActivity().getContentResolver().openFileDescriptor(uri, "r");
-        FileDescriptor fileDescriptor = parcelFileDescriptor.getFileDescriptor();
-        Bitmap image = BitmapFactory.decodeFileDescriptor(fileDescriptor);
-        parcelFileDescriptor.close();
-        return getResources().getBoolean(R.bool.isWideDisplay) ?
-                Bitmap.createScaledBitmap(image, WIDE_DISPLAY_IMG_DIM, WIDE_DISPLAY_IMG_DIM, false):
-                Bitmap.createScaledBitmap(image, MOBILE_IMG_DIM, MOBILE_IMG_DIM, false);
-    }
-
     public String getImageFilePathFromUri(Uri uri) {
         Cursor cursor = null;
         try {
@@ -18,20 +18,20 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
-import android.widget.ImageButton;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.utahmsd.cs6018.instyle.R;
 import com.utahmsd.cs6018.instyle.activity.ProfileEntryActivity;
 import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
 import com.utahmsd.cs6018.instyle.db.entity.User;
+import com.utahmsd.cs6018.instyle.image.ProfileImageLoader;
 import com.utahmsd.cs6018.instyle.util.Constants;
 import com.utahmsd.cs6018.instyle.viewmodel.FitnessProfileViewModel;
 import com.utahmsd.cs6018.instyle.viewmodel.UserViewModel;
 
 import java.util.Locale;
 
-import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateAge;
 import static com.utahmsd.cs6018.instyle.util.WeatherUtils.formatCaseCity;
 
 public class ProfileSummaryFragment extends Fragment
@@ -43,7 +43,7 @@ public class ProfileSummaryFragment extends Fragment
     private FitnessProfileViewModel m_fitnessProfileViewModel;
 
     private Button m_editButton;
-    private ImageButton m_profilePhoto;
+    private ImageView m_profilePhoto;
     private TextView m_firstName, m_lastName, m_sex, m_age, m_heightFeet, m_heightInches, m_location,
             m_weight, m_activity, m_weightGoal;
 
@@ -82,7 +82,7 @@ public class ProfileSummaryFragment extends Fragment
         m_activity = v.findViewById(R.id.radiogp_lifestyle);
         m_weightGoal = v.findViewById(R.id.radiogp_weightGoal);
         m_editButton = v.findViewById(R.id.btn_edit);
-        m_profilePhoto = v.findViewById(R.id.btn_img_takeImage);
+        m_profilePhoto = v.findViewById(R.id.img_profile_summary);
 
         m_editButton.setOnClickListener(this);
 
@@ -141,7 +141,7 @@ public class ProfileSummaryFragment extends Fragment
                 formatCaseCity(fp.getM_fName()), fp.getM_lName().toUpperCase().charAt(0)));
 //        m_lastName.setText(formatCaseCity(fp.getM_lName()));
         m_sex.setText(fp.getM_sex().toUpperCase());
-        m_age.setText(String.format(Locale.US, "%dy", calculateAge(fp.getM_dob())));
+        m_age.setText(String.format(Locale.US, "%dy", fp.getM_age()));
 //        m_heightFeet.setText(String.format(Locale.US, "%d ft.,", fp.getM_heightFeet()));
 //        m_heightInches.setText(String.format(Locale.US, " %d in.", fp.getM_heightInches()));
         m_weight.setText(String.format(Locale.US, "%d lbs", fp.getM_weightInPounds()));
@@ -157,6 +157,10 @@ public class ProfileSummaryFragment extends Fragment
                     formatCaseCity(fp.getM_weightGoal()), Math.abs(fp.getM_lbsPerWeek())));
         }
 
+        if (fp.getM_profileImage() != null) {
+            ProfileImageLoader.getInstance(getContext()).load(fp.getM_profileImage(),
+                    ProfileImageLoader.getTargetSize(getContext()), m_profilePhoto);
+        }
     }
 
 //        m_userViewModel.getUser().observe(this, user -> {
@@ -0,0 +1,250 @@
+package com.utahmsd.cs6018.instyle.geocoding;
+
+import android.util.Log;
+
+import com.utahmsd.cs6018.instyle.AppExecutors;
+import com.utahmsd.cs6018.instyle.db.InStyleDatabase;
+import com.utahmsd.cs6018.instyle.db.dao.GeocodingDao;
+import com.utahmsd.cs6018.instyle.db.entity.GeocodedLocation;
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+import com.utahmsd.cs6018.instyle.util.GeocoderLocationUtils;
+import com.utahmsd.cs6018.instyle.util.mapper.CountryCodeMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import static com.utahmsd.cs6018.instyle.util.WeatherUtils.formatCaseCity;
+
+/**
+ * Resolves the coordinates of a city without blocking the caller.
+ *
+ * Lookups run on a background executor and check the GeocodedLocation table first, so the Google
+ * Geocoder API is only called for a city the first time it's looked up, or once its coordinates
+ * are older than the time to live, which is long since cities don't move. Coordinates returned
+ * with OpenWeatherMap responses are written to the same table (see recordWeatherCoordinates), so
+ * the location of anyone whose weather has been fetched never needs the Geocoder API at all.
+ *
+ * Concurrent lookups for the same city and country share one database lookup and API call.
+ */
+public class GeocodingService {
+
+    private static final String LOG_TAG = GeocodingService.class.getSimpleName();
+
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.DAYS.toMillis(90);
+
+    /**
+     * Fetches "lat,lon" for a city from the network, or returns null if it can't be found.
+     */
+    interface CoordinateFetcher {
+        String fetch(String city, String countryCode) throws IOException;
+    }
+
+    private static volatile GeocodingService INSTANCE;
+
+    private final GeocodingDao m_dao;
+    private final CoordinateFetcher m_fetcher;
+    private final Executor m_executor;
+    private final Executor m_mainThread;
+    private final long m_ttlMillis;
+    private final LongSupplier m_clock;
+
+    //Lookups in progress, keyed by "City,CountryCode"
+    private final Map<String, CompletableFuture<String>> m_inFlight = new ConcurrentHashMap<>();
+
+    private long m_cacheHits;
+    private long m_fetches;
+    private long m_failedFetches;
+    private long m_coalesced;
+
+    GeocodingService(GeocodingDao dao, CoordinateFetcher fetcher, Executor executor, Executor mainThread,
+                     long ttlMillis, LongSupplier clock) {
+        m_dao = dao;
+        m_fetcher = fetcher;
+        m_executor = executor;
+        m_mainThread = mainThread;
+        m_ttlMillis = ttlMillis;
+        m_clock = clock;
+    }
+
+    /**
+     * Static method to ensure only one instance of the GeocodingService is instantiated.
+     * @param database
+     * @return
+     */
+    public static GeocodingService getInstance(InStyleDatabase database) {
+        if (INSTANCE == null) {
+            synchronized (GeocodingService.class) {
+                if (INSTANCE == null) {
+                    AppExecutors executors = AppExecutors.getInstance();
+                    INSTANCE = new GeocodingService(database.geocodingDao(),
+                            GeocoderLocationUtils::getCoordinatesFromCityAndCountryCode,
+                            executors.networkIO(), executors.mainThread(), DEFAULT_TTL_MILLIS,
+                            System::currentTimeMillis);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Looks up the coordinates of the city in the background.
+     * @param city
+     * @param country Country name or two letter country code; may be null
+     * @return Future completed with "lat,lon", or null if the city can't be found
+     */
+    public CompletableFuture<String> getCoordinates(String city, String country) {
+        String cityScrubbed = formatCaseCity(city);
+        if (cityScrubbed == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String countryCode = toCountryCode(country);
+        String requestKey = cityScrubbed + "," + countryCode;
+
+        CompletableFuture<String> lookup = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = m_inFlight.putIfAbsent(requestKey, lookup);
+        if (inFlight != null) {
+            recordCoalesced();
+            return inFlight;
+        }
+        try {
+            m_executor.execute(() -> {
+                try {
+                    lookup.complete(lookup(cityScrubbed, countryCode));
+                } catch (RuntimeException e) {
+                    lookup.completeExceptionally(e);
+                } finally {
+                    m_inFlight.remove(requestKey);
+                }
+            });
+        } catch (RuntimeException e) { //e.g., rejected; later lookups of the city mustn't wait on this one
+            m_inFlight.remove(requestKey);
+            lookup.completeExceptionally(e);
+        }
+        return lookup;
+    }
+
+    /**
+     * Same as getCoordinates(city, country), calling back on the main thread.
+     * @param city
+     * @param country
+     * @param callback Called with "lat,lon", or null if the city can't be found
+     */
+    public void getCoordinates(String city, String country, Consumer<String> callback) {
+        getCoordinates(city, country).whenComplete((coordinates, e) -> {
+            if (e != null) {
+                Log.d(LOG_TAG, String.format("Unable to look up coordinates for %s, %s: '%s'",
+                        city, country, e.getMessage()));
+            }
+            m_mainThread.execute(() -> callback.accept(e == null ? coordinates : null));
+        });
+    }
+
+    /**
+     * Stores the coordinates returned with fetched weather. Writes to the database, so it must be
+     * called from a background thread (e.g., in the transaction the weather is written in).
+     * @param weatherList
+     */
+    public void recordWeatherCoordinates(Collection<Weather> weatherList) {
+        long now = m_clock.getAsLong();
+        List<GeocodedLocation> locations = new ArrayList<>(weatherList.size());
+        for (Weather weather : weatherList) {
+            String city = formatCaseCity(weather.getCity());
+            if (city == null || (weather.getLatitude() == 0 && weather.getLongitude() == 0)) {
+                continue;
+            }
+            //Through the float's string, so e.g. 40.77f is stored as 40.77 rather than 40.77000045776367
+            locations.add(new GeocodedLocation(city, toCountryCode(weather.getCountryCode()),
+                    Double.parseDouble(Float.toString(weather.getLatitude())),
+                    Double.parseDouble(Float.toString(weather.getLongitude())), now));
+        }
+        if (!locations.isEmpty()) {
+            m_dao.insertAllLocations(locations);
+        }
+    }
+
+    private String lookup(String city, String countryCode) {
+        long now = m_clock.getAsLong();
+        GeocodedLocation cached = m_dao.findLocation(city, countryCode);
+        if (cached != null && now - cached.getUpdatedAt() < m_ttlMillis) {
+            recordCacheHit();
+            return cached.getCoordinates();
+        }
+
+        Log.d(LOG_TAG, String.format("Fetching coordinates using the Google Geocoder API for %s, %s",
+                city, countryCode));
+        recordFetch();
+        String coordinates = null;
+        try {
+            coordinates = m_fetcher.fetch(city, countryCode.isEmpty() ? null : countryCode);
+        } catch (IOException e) {
+            Log.d(LOG_TAG, String.format("Unable to fetch coordinates for %s, %s: '%s'",
+                    city, countryCode, e.getMessage()));
+        }
+        GeocodedLocation fetched = parseCoordinates(city, countryCode, coordinates, now);
+        if (fetched == null) {
+            recordFailedFetch();
+            //Expired coordinates are still better than none
+            return cached != null ? cached.getCoordinates() : null;
+        }
+        m_dao.insertLocation(fetched);
+        return fetched.getCoordinates();
+    }
+
+    private static GeocodedLocation parseCoordinates(String city, String countryCode, String coordinates,
+                                                     long now) {
+        if (coordinates == null) {
+            return null;
+        }
+        String[] latLon = coordinates.split(",");
+        try {
+            return latLon.length == 2 ? new GeocodedLocation(city, countryCode,
+                    Double.parseDouble(latLon[0].trim()), Double.parseDouble(latLon[1].trim()), now) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The two letter country code of a country name or code, in upper case, or an empty
+     * string if the country isn't known.
+     */
+    static String toCountryCode(String country) {
+        if (country == null) {
+            return "";
+        }
+        String trimmed = country.trim();
+        if (trimmed.length() == 2 && CountryCodeMapper.getCountryName(trimmed) != null) {
+            return trimmed.toUpperCase(Locale.US);
+        }
+        String countryCode = CountryCodeMapper.getCountryCode(trimmed);
+        return countryCode != null ? countryCode : "";
+    }
+
+    private synchronized void recordCacheHit() { m_cacheHits++; }
+
+    private synchronized void recordFetch() { m_fetches++; }
+
+    private synchronized void recordFailedFetch() { m_failedFetches++; }
+
+    private synchronized void recordCoalesced() { m_coalesced++; }
+
+    ///////// Statistics ///////////
+
+    public synchronized long getCacheHits() { return m_cacheHits; }
+
+    public synchronized long getFetches() { return m_fetches; }
+
+    public synchronized long getFailedFetches() { return m_failedFetches; }
+
+    public synchronized long getCoalescedLookups() { return m_coalesced; }
+}
@@ -0,0 +1,49 @@
+package com.utahmsd.cs6018.instyle.image;
+
+/**
+ * Sizing math for decoding images no bigger than they're displayed: BitmapFactory can only
+ * subsample by powers of 2 while decoding, so an image is decoded at the smallest power of 2 that
+ * keeps it at least as big as the target, then scaled the rest of the way down.
+ */
+public final class BitmapSampling {
+
+    private BitmapSampling() { }
+
+    /**
+     * @param width Width of the encoded image, from a decode with inJustDecodeBounds
+     * @param height Height of the encoded image
+     * @param targetSize Size of the square the image is displayed in
+     * @return Largest power of 2 that the image can be subsampled by, with its longer side still
+     * at least targetSize (1 if the image is already smaller), so fitWithin only scales it down.
+     */
+    public static int calculateInSampleSize(int width, int height, int targetSize) {
+        int longerSide = Math.max(width, height);
+        int inSampleSize = 1;
+        while (longerSide / (inSampleSize * 2) >= targetSize) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * @return Width and height that fit the image in a targetSize square without changing its
+     * aspect ratio, or the image's own size if it already fits (it's never scaled up).
+     */
+    public static int[] fitWithin(int width, int height, int targetSize) {
+        int longerSide = Math.max(width, height);
+        if (longerSide <= targetSize) {
+            return new int[] {width, height};
+        }
+        double scale = (double) targetSize / longerSide;
+        return new int[] {Math.max(1, (int) Math.round(width * scale)), Math.max(1, (int) Math.round(height * scale))};
+    }
+
+    /**
+     * @param maxHeapBytes Runtime.maxMemory()
+     * @param heapFraction e.g., 8 for an eighth of the heap
+     * @return Size of the bitmap memory cache in KB
+     */
+    public static int memoryCacheSizeKb(long maxHeapBytes, int heapFraction) {
+        return (int) (maxHeapBytes / 1024 / heapFraction);
+    }
+}
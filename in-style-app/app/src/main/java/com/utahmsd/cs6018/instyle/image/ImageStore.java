@@ -0,0 +1,207 @@
+package com.utahmsd.cs6018.instyle.image;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.utahmsd.cs6018.instyle.util.Checksums;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * On-disk store of profile images, keyed by the SHA-256 hash of their bytes. Profiles and saved
+ * instance state only carry the 64 character key, never the image itself.
+ *
+ * Storing the same image twice (e.g., picking the same photo again, or two profiles with the same
+ * avatar) writes it once. Which keys are still in use is counted in the ImageRef table, as profiles
+ * that reference them are written; collectGarbage() deletes the images that nothing references.
+ * Images that were stored recently are kept even if nothing references them yet, since a profile
+ * form that's still being filled in (or a saved instance state) may be holding their key.
+ *
+ * Access follows the same singleton pattern as the database and repositories.
+ */
+public class ImageStore {
+
+    private static final String LOG_TAG = ImageStore.class.getSimpleName();
+
+    private static final String IMAGE_DIR = "images";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int KEY_LENGTH = 64;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static volatile ImageStore INSTANCE;
+
+    private final File m_directory;
+    private final LongSupplier m_clock;
+
+    private long m_stored;
+    private long m_deduplicated;
+    private long m_bytesWritten;
+    private long m_collected;
+    private long m_bytesCollected;
+
+    public ImageStore(File directory) {
+        this(directory, System::currentTimeMillis);
+    }
+
+    ImageStore(File directory, LongSupplier clock) {
+        m_directory = directory;
+        m_clock = clock;
+    }
+
+    /**
+     * Static method to ensure only one instance of the ImageStore is instantiated.
+     * @param context
+     * @return
+     */
+    public static ImageStore getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ImageStore.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ImageStore(new File(context.getApplicationContext().getFilesDir(), IMAGE_DIR));
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Copies the image into the store, unless an identical one is already there. Reads the whole
+     * stream, so it must be called from a background thread.
+     * @param in
+     * @return Key of the stored image
+     * @throws IOException if the stream can't be read or the image can't be written
+     */
+    public String put(InputStream in) throws IOException {
+        if (!m_directory.isDirectory() && !m_directory.mkdirs()) {
+            throw new IOException("Unable to create " + m_directory);
+        }
+        MessageDigest digest = Checksums.newSha256();
+        File temp = File.createTempFile("image", TEMP_SUFFIX, m_directory);
+        long length = 0;
+        try {
+            try (OutputStream out = new FileOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    length += read;
+                }
+            }
+            String key = Checksums.toHex(digest.digest());
+            File file = getFile(key);
+            if (file.isFile()) {
+                temp.delete();
+                recordDeduplicated();
+            } else if (!temp.renameTo(file)) {
+                throw new IOException("Unable to rename " + temp + " to " + file);
+            } else {
+                recordStored(length);
+            }
+            //Restarts its grace period, so it isn't collected before a profile references it
+            file.setLastModified(m_clock.getAsLong());
+            return key;
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        }
+    }
+
+    public String put(byte[] data) throws IOException {
+        return put(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * @return File the image is stored in; it may not exist (see contains)
+     */
+    public File getFile(String key) {
+        if (!isKey(key)) {
+            throw new IllegalArgumentException("Not an image key: " + key);
+        }
+        return new File(m_directory, key);
+    }
+
+    public boolean contains(String key) {
+        return isKey(key) && getFile(key).isFile();
+    }
+
+    /**
+     * @return Whether the value is an image key, as opposed to, e.g., a content URI stored in
+     * FitnessProfile.profile_image before images were kept in the store.
+     */
+    public static boolean isKey(String value) {
+        if (value == null || value.length() != KEY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Deletes every image that isn't referenced and hasn't been stored for at least graceMillis,
+     * along with temp files left behind by interrupted puts.
+     * @param referencedKeys Keys that are still in use
+     * @param graceMillis
+     * @return Number of images deleted
+     */
+    public int collectGarbage(Set<String> referencedKeys, long graceMillis) {
+        File[] files = m_directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        long cutoff = m_clock.getAsLong() - graceMillis;
+        int deleted = 0;
+        long deletedBytes = 0;
+        for (File file : files) {
+            String name = file.getName();
+            boolean garbage = isKey(name) ? !referencedKeys.contains(name) : name.endsWith(TEMP_SUFFIX);
+            if (garbage && file.lastModified() < cutoff) {
+                long length = file.length();
+                if (file.delete()) {
+                    deleted++;
+                    deletedBytes += length;
+                }
+            }
+        }
+        recordCollected(deleted, deletedBytes);
+        Log.d(LOG_TAG, String.format("Collected %d unreferenced images (%d bytes)", deleted, deletedBytes));
+        return deleted;
+    }
+
+    private synchronized void recordStored(long bytes) {
+        m_stored++;
+        m_bytesWritten += bytes;
+    }
+
+    private synchronized void recordDeduplicated() { m_deduplicated++; }
+
+    private synchronized void recordCollected(int images, long bytes) {
+        m_collected += images;
+        m_bytesCollected += bytes;
+    }
+
+    ///////// Statistics ///////////
+
+    public synchronized long getStoredCount() { return m_stored; }
+
+    public synchronized long getDeduplicatedCount() { return m_deduplicated; }
+
+    public synchronized long getBytesWritten() { return m_bytesWritten; }
+
+    public synchronized long getCollectedCount() { return m_collected; }
+
+    public synchronized long getBytesCollected() { return m_bytesCollected; }
+}
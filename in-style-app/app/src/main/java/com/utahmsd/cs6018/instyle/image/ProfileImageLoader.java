@@ -0,0 +1,350 @@
+package com.utahmsd.cs6018.instyle.image;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import com.utahmsd.cs6018.instyle.AppExecutors;
+import com.utahmsd.cs6018.instyle.R;
+import com.utahmsd.cs6018.instyle.util.Checksums;
+import com.utahmsd.cs6018.instyle.util.InstrumentedThreadPoolExecutor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Loads profile images into ImageViews at the size they're displayed, without decoding the full
+ * resolution photo on the main thread.
+ *
+ * A load first checks an LRU cache of decoded bitmaps, sized to a fraction of the heap, which
+ * makes it synchronous. Otherwise the image is decoded on a background thread from a disk cache of
+ * downscaled variants, or, the first time, from the source image: its bounds are read first, and
+ * it's decoded subsampled by a power of 2 (see BitmapSampling) before being scaled to its final
+ * size, so a 12 megapixel photo takes a few hundred KB of heap rather than ~48MB. The variant is
+ * then written to the disk cache, so every later load of that image at that size (on any screen)
+ * is a small JPEG decode.
+ *
+ * Picked and captured images are copied into the ImageStore (see importImage), and loaded by
+ * their key from then on.
+ *
+ * Access follows the same singleton pattern as the database and repositories.
+ */
+public class ProfileImageLoader {
+
+    private static final String LOG_TAG = ProfileImageLoader.class.getSimpleName();
+
+    public static final int WIDE_DISPLAY_IMG_DIM = 600;
+    public static final int MOBILE_IMG_DIM = 300;
+
+    private static final int MEMORY_CACHE_HEAP_FRACTION = 8;
+    private static final String DISK_CACHE_DIR = "profile_images";
+    private static final long DISK_CACHE_MAX_BYTES = 10 * 1024 * 1024;
+    private static final int DISK_CACHE_JPEG_QUALITY = 90;
+    //Camera thumbnails only come as a Bitmap, so they're encoded once, when they're stored
+    private static final int CAPTURED_IMAGE_JPEG_QUALITY = 95;
+    private static final int DECODE_QUEUE_CAPACITY = 32;
+
+    private static volatile ProfileImageLoader INSTANCE;
+
+    private final Context m_context;
+    private final File m_diskCacheDir;
+    private final ImageStore m_store;
+    private final LruCache<String, Bitmap> m_memoryCache;
+    private final Executor m_decodeExecutor;
+    private final Executor m_importExecutor;
+    private final Executor m_mainThread;
+
+    private long m_memoryHits;
+    private long m_diskHits;
+    private long m_decodes;
+
+    private ProfileImageLoader(Context context) {
+        m_context = context.getApplicationContext();
+        m_diskCacheDir = new File(m_context.getCacheDir(), DISK_CACHE_DIR);
+        m_store = ImageStore.getInstance(m_context);
+        m_memoryCache = new LruCache<String, Bitmap>(BitmapSampling.memoryCacheSizeKb(
+                Runtime.getRuntime().maxMemory(), MEMORY_CACHE_HEAP_FRACTION)) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+        //Decoding is CPU bound, so it gets its own thread instead of holding up database writes. Its
+        //queue drops the oldest load when it's full, which only costs an image that's out of date
+        m_decodeExecutor = new InstrumentedThreadPoolExecutor("image-decode", 1, DECODE_QUEUE_CAPACITY);
+        //Imports mustn't be dropped, or the picked image is lost without its callback being called
+        m_importExecutor = AppExecutors.getInstance().diskIO();
+        m_mainThread = AppExecutors.getInstance().mainThread();
+    }
+
+    /**
+     * Static method to ensure only one instance of the ProfileImageLoader (and its caches) is
+     * instantiated.
+     * @param context
+     * @return
+     */
+    public static ProfileImageLoader getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ProfileImageLoader.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ProfileImageLoader(context);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @return Size of the square profile images are displayed in on this device
+     */
+    public static int getTargetSize(Context context) {
+        return context.getResources().getBoolean(R.bool.isWideDisplay) ? WIDE_DISPLAY_IMG_DIM : MOBILE_IMG_DIM;
+    }
+
+    /**
+     * Displays the image in the view, scaled down to fit a targetSize square. Must be called on
+     * the main thread. If the view is given another image before this one has loaded, this one is
+     * dropped.
+     * @param uri
+     * @param targetSize
+     * @param view
+     */
+    public void load(Uri uri, int targetSize, ImageView view) {
+        String key = cacheKey(uri, targetSize);
+        view.setTag(key);
+        Bitmap cached = m_memoryCache.get(key);
+        if (cached != null) {
+            recordMemoryHit();
+            view.setImageBitmap(cached);
+            return;
+        }
+        m_decodeExecutor.execute(() -> {
+            Bitmap bitmap = loadBitmap(uri, targetSize, key);
+            if (bitmap != null) {
+                m_mainThread.execute(() -> {
+                    if (key.equals(view.getTag())) {
+                        view.setImageBitmap(bitmap);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Same as load(uri, targetSize, view), for an image stored in a FitnessProfile: the key of an
+     * image in the ImageStore, or the content URI of one picked before there was a store.
+     * @param storedImage
+     * @param targetSize
+     * @param view
+     */
+    public void load(String storedImage, int targetSize, ImageView view) {
+        load(ImageStore.isKey(storedImage) ? Uri.fromFile(m_store.getFile(storedImage)) : Uri.parse(storedImage),
+                targetSize, view);
+    }
+
+    /**
+     * Copies the image into the ImageStore on the disk IO pool, so it can still be shown once
+     * the app no longer has access to the URI.
+     * @param uri
+     * @param callback Called on the main thread with the image's key, or null if it can't be read
+     */
+    public void importImage(Uri uri, Consumer<String> callback) {
+        m_importExecutor.execute(() -> {
+            String key = null;
+            try (InputStream in = m_context.getContentResolver().openInputStream(uri)) {
+                if (in != null) {
+                    key = m_store.put(in);
+                }
+            } catch (IOException | SecurityException e) {
+                Log.d(LOG_TAG, String.format("Unable to store profile image %s: '%s'", uri, e.getMessage()));
+            }
+            String result = key;
+            m_mainThread.execute(() -> callback.accept(result));
+        });
+    }
+
+    /**
+     * Same as importImage(uri, callback), for an image that's only available as a Bitmap, e.g., a
+     * camera thumbnail.
+     * @param bitmap
+     * @param callback Called on the main thread with the image's key, or null if it can't be stored
+     */
+    public void importBitmap(Bitmap bitmap, Consumer<String> callback) {
+        m_importExecutor.execute(() -> {
+            String key = null;
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, CAPTURED_IMAGE_JPEG_QUALITY, out);
+                key = m_store.put(out.toByteArray());
+            } catch (IOException e) {
+                Log.d(LOG_TAG, String.format("Unable to store captured profile image: '%s'", e.getMessage()));
+            }
+            String result = key;
+            m_mainThread.execute(() -> callback.accept(result));
+        });
+    }
+
+    /**
+     * Loads the bitmap from the disk cache, or decodes it from the source and caches the result.
+     * Runs on the decode thread.
+     * @return The bitmap, or null if the image can't be read
+     */
+    private Bitmap loadBitmap(Uri uri, int targetSize, String key) {
+        long start = System.currentTimeMillis();
+        File cached = new File(m_diskCacheDir, key + ".jpg");
+        Bitmap bitmap = null;
+        if (cached.isFile()) {
+            bitmap = BitmapFactory.decodeFile(cached.getPath());
+            if (bitmap != null) {
+                cached.setLastModified(start); //Least recently used files are trimmed first
+                recordDiskHit();
+            }
+        }
+        if (bitmap == null) {
+            try {
+                bitmap = decodeSampled(uri, targetSize);
+            } catch (IOException | SecurityException e) {
+                Log.d(LOG_TAG, String.format("Unable to decode profile image %s: '%s'", uri, e.getMessage()));
+                return null;
+            }
+            if (bitmap == null) {
+                return null;
+            }
+            recordDecode();
+            writeToDiskCache(cached, bitmap);
+        }
+        m_memoryCache.put(key, bitmap);
+        Log.d(LOG_TAG, String.format(Locale.US, "Loaded %dx%d profile image in %dms",
+                bitmap.getWidth(), bitmap.getHeight(), System.currentTimeMillis() - start));
+        return bitmap;
+    }
+
+    /**
+     * Reads the image's bounds, then decodes it subsampled to the smallest power of 2 that's still
+     * at least targetSize, and scales that down the rest of the way.
+     */
+    private Bitmap decodeSampled(Uri uri, int targetSize) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        //Each pass opens its own descriptor, as a decode leaves the file offset at an arbitrary position
+        try (ParcelFileDescriptor descriptor = openFileDescriptor(uri)) {
+            BitmapFactory.decodeFileDescriptor(descriptor.getFileDescriptor(), null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null; //Not an image
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = BitmapSampling.calculateInSampleSize(options.outWidth, options.outHeight, targetSize);
+        Bitmap sampled;
+        try (ParcelFileDescriptor descriptor = openFileDescriptor(uri)) {
+            sampled = BitmapFactory.decodeFileDescriptor(descriptor.getFileDescriptor(), null, options);
+        }
+        if (sampled == null) {
+            return null;
+        }
+        int[] size = BitmapSampling.fitWithin(sampled.getWidth(), sampled.getHeight(), targetSize);
+        Bitmap scaled = Bitmap.createScaledBitmap(sampled, size[0], size[1], true);
+        if (scaled != sampled) {
+            sampled.recycle();
+        }
+        return scaled;
+    }
+
+    /**
+     * @throws FileNotFoundException if the provider returns no descriptor, e.g., it crashed
+     */
+    private ParcelFileDescriptor openFileDescriptor(Uri uri) throws FileNotFoundException {
+        ParcelFileDescriptor descriptor = m_context.getContentResolver().openFileDescriptor(uri, "r");
+        if (descriptor == null) {
+            throw new FileNotFoundException("No file descriptor for " + uri);
+        }
+        return descriptor;
+    }
+
+    private void writeToDiskCache(File file, Bitmap bitmap) {
+        if (!m_diskCacheDir.isDirectory() && !m_diskCacheDir.mkdirs()) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, DISK_CACHE_JPEG_QUALITY, out);
+        } catch (IOException e) {
+            Log.d(LOG_TAG, String.format("Unable to cache profile image: '%s'", e.getMessage()));
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+        }
+        trimDiskCache();
+    }
+
+    /**
+     * Deletes the least recently used variants until the disk cache is under its maximum size.
+     */
+    private void trimDiskCache() {
+        File[] files = m_diskCacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long totalBytes = 0;
+        for (File file : files) {
+            totalBytes += file.length();
+        }
+        if (totalBytes <= DISK_CACHE_MAX_BYTES) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (totalBytes <= DISK_CACHE_MAX_BYTES) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                totalBytes -= length;
+            }
+        }
+    }
+
+    /**
+     * Hash of the image's URI and the size it's decoded at, so each size is cached separately and
+     * the URI can be used as a file name.
+     */
+    private static String cacheKey(Uri uri, int targetSize) {
+        byte[] hash = Checksums.newSha256().digest(uri.toString().getBytes(StandardCharsets.UTF_8));
+        return Checksums.toHex(Arrays.copyOf(hash, 16)) + '_' + targetSize;
+    }
+
+    private synchronized void recordMemoryHit() { m_memoryHits++; }
+
+    private synchronized void recordDiskHit() { m_diskHits++; }
+
+    private synchronized void recordDecode() { m_decodes++; }
+
+    ///////// Statistics ///////////
+
+    public synchronized long getMemoryHits() { return m_memoryHits; }
+
+    public synchronized long getDiskHits() { return m_diskHits; }
+
+    public synchronized long getDecodes() { return m_decodes; }
+
+    public int getMemoryCacheSizeKb() { return m_memoryCache.size(); }
+}
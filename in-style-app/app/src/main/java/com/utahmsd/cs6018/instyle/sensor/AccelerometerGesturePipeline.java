@@ -0,0 +1,113 @@
+package com.utahmsd.cs6018.instyle.sensor;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs accelerometer events through a ShakeGestureDetector on a dedicated handler thread, and
+ * posts only the detected gestures to the main thread.
+ *
+ * The listener is registered with a max report latency, so the sensor hub can batch events in
+ * hardware and wake the application processor a few times a second instead of for every sample.
+ * If a gesture is already waiting to be delivered to the main thread, further gestures are
+ * coalesced into it instead of being posted again.
+ */
+public class AccelerometerGesturePipeline implements SensorEventListener {
+
+    private static final String LOG_TAG = AccelerometerGesturePipeline.class.getSimpleName();
+
+    public static final int SAMPLING_PERIOD_US = SensorManager.SENSOR_DELAY_GAME;
+    public static final int MAX_REPORT_LATENCY_US = 200_000;
+
+    /**
+     * Called on the main thread when a gesture is detected.
+     */
+    public interface OnGestureListener {
+        void onGesture();
+    }
+
+    private final SensorManager m_sensorManager;
+    private final Sensor m_accelerometer;
+    private final Executor m_mainThread;
+    private final ShakeGestureDetector m_detector;
+    private final OnGestureListener m_listener;
+
+    private final AtomicBoolean m_gesturePending = new AtomicBoolean();
+    private final Runnable m_deliverGesture = this::deliverGesture; //Allocated once, not per gesture
+    private volatile boolean m_running;
+    private HandlerThread m_sensorThread;
+
+    public AccelerometerGesturePipeline(SensorManager sensorManager, Executor mainThread,
+                                        ShakeGestureDetector detector, OnGestureListener listener) {
+        m_sensorManager = sensorManager;
+        m_accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+        m_mainThread = mainThread;
+        m_detector = detector;
+        m_listener = listener;
+    }
+
+    /**
+     * Starts the sensor thread and registers for accelerometer events, e.g., from onResume.
+     * @return false if the device has no accelerometer
+     */
+    public boolean start() {
+        if (m_accelerometer == null) {
+            Log.d(LOG_TAG, "No accelerometer available");
+            return false;
+        }
+        if (m_running) {
+            return true;
+        }
+        m_sensorThread = new HandlerThread("accelerometer");
+        m_sensorThread.start();
+        Handler handler = new Handler(m_sensorThread.getLooper());
+        handler.post(m_detector::reset); //Runs before the first event, on the thread the detector is used from
+        m_running = true;
+        m_sensorManager.registerListener(this, m_accelerometer, SAMPLING_PERIOD_US, MAX_REPORT_LATENCY_US, handler);
+        Log.d(LOG_TAG, "Registered accelerometer listener on " + m_sensorThread.getName());
+        return true;
+    }
+
+    /**
+     * Unregisters the listener and stops the sensor thread, e.g., from onPause. Gestures that
+     * haven't been delivered yet are dropped.
+     */
+    public void stop() {
+        if (!m_running) {
+            return;
+        }
+        m_running = false;
+        m_sensorManager.unregisterListener(this);
+        m_sensorThread.quitSafely();
+        m_sensorThread = null;
+        Log.d(LOG_TAG, String.format("Unregistered accelerometer listener after %d samples and %d gestures",
+                m_detector.getSampleCount(), m_detector.getGestureCount()));
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        float[] values = event.values;
+        if (m_detector.onSample(event.timestamp, values[0], values[1], values[2])
+                && m_gesturePending.compareAndSet(false, true)) {
+            m_mainThread.execute(m_deliverGesture);
+        }
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) { }
+
+    private void deliverGesture() {
+        m_gesturePending.set(false);
+        if (m_running) {
+            m_listener.onGesture();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.utahmsd.cs6018.instyle.sensor;
+
+/**
+ * Detects a shake of the device from a stream of accelerometer samples.
+ *
+ * A low-pass filter tracks gravity, which is subtracted from each sample to get the linear
+ * acceleration. A shake is the linear acceleration rising above the threshold at least minPeaks
+ * times within the peak window; each rise counts once, however many samples it lasts. After a
+ * shake is detected, further peaks are ignored for the cooldown period, so continued shaking
+ * doesn't fire the gesture again and again.
+ *
+ * onSample only does float arithmetic on primitive fields and never allocates, since it runs for
+ * every accelerometer event. Timestamps are the sensor event timestamps rather than the time the
+ * event is delivered, so detection works the same when events are delivered in batches. Not
+ * thread safe; samples should all come from the same (sensor) thread.
+ */
+public class ShakeGestureDetector {
+
+    public static final float DEFAULT_FILTER_ALPHA = 0.8f;
+    public static final float DEFAULT_THRESHOLD = 12f; //m/s^2 beyond gravity, i.e., about 1.2g
+    public static final int DEFAULT_MIN_PEAKS = 2;
+    public static final long DEFAULT_PEAK_WINDOW_NANOS = 500_000_000L;
+    public static final long DEFAULT_COOLDOWN_NANOS = 1_000_000_000L;
+
+    private final float m_filterAlpha;
+    private final float m_thresholdSquared; //Compared to the squared magnitude to avoid a sqrt per sample
+    private final int m_minPeaks;
+    private final long m_peakWindowNanos;
+    private final long m_cooldownNanos;
+
+    private float m_gravityX, m_gravityY, m_gravityZ;
+    private boolean m_initialized;
+    private boolean m_aboveThreshold;
+    private int m_peakCount;
+    private long m_firstPeakNanos;
+    private boolean m_coolingDown;
+    private long m_lastGestureNanos;
+
+    private long m_sampleCount;
+    private long m_gestureCount;
+
+    public ShakeGestureDetector() {
+        this(DEFAULT_FILTER_ALPHA, DEFAULT_THRESHOLD, DEFAULT_MIN_PEAKS, DEFAULT_PEAK_WINDOW_NANOS,
+                DEFAULT_COOLDOWN_NANOS);
+    }
+
+    public ShakeGestureDetector(float filterAlpha, float threshold, int minPeaks, long peakWindowNanos,
+                                long cooldownNanos) {
+        m_filterAlpha = filterAlpha;
+        m_thresholdSquared = threshold * threshold;
+        m_minPeaks = minPeaks;
+        m_peakWindowNanos = peakWindowNanos;
+        m_cooldownNanos = cooldownNanos;
+    }
+
+    /**
+     * @param timestampNanos Sensor event timestamp
+     * @param x Acceleration along each axis, in m/s^2, including gravity
+     * @return true if this sample completes a shake.
+     */
+    public boolean onSample(long timestampNanos, float x, float y, float z) {
+        m_sampleCount++;
+        if (!m_initialized) { //Start from the first sample instead of filtering up from 0
+            m_gravityX = x;
+            m_gravityY = y;
+            m_gravityZ = z;
+            m_initialized = true;
+            return false;
+        }
+        m_gravityX = m_filterAlpha * m_gravityX + (1 - m_filterAlpha) * x;
+        m_gravityY = m_filterAlpha * m_gravityY + (1 - m_filterAlpha) * y;
+        m_gravityZ = m_filterAlpha * m_gravityZ + (1 - m_filterAlpha) * z;
+
+        float linearX = x - m_gravityX;
+        float linearY = y - m_gravityY;
+        float linearZ = z - m_gravityZ;
+        boolean above = linearX * linearX + linearY * linearY + linearZ * linearZ > m_thresholdSquared;
+        boolean peak = above && !m_aboveThreshold;
+        m_aboveThreshold = above;
+        if (!peak) {
+            return false;
+        }
+
+        if (m_coolingDown && timestampNanos - m_lastGestureNanos < m_cooldownNanos) {
+            return false;
+        }
+        m_coolingDown = false;
+        if (m_peakCount == 0 || timestampNanos - m_firstPeakNanos > m_peakWindowNanos) {
+            m_peakCount = 1;
+            m_firstPeakNanos = timestampNanos;
+        } else {
+            m_peakCount++;
+        }
+        if (m_peakCount < m_minPeaks) {
+            return false;
+        }
+        m_peakCount = 0;
+        m_coolingDown = true;
+        m_lastGestureNanos = timestampNanos;
+        m_gestureCount++;
+        return true;
+    }
+
+    /**
+     * Forgets the gravity estimate and any peaks, e.g., when the sensor is re-registered after a
+     * pause and the device may have been moved in the meantime.
+     */
+    public void reset() {
+        m_initialized = false;
+        m_aboveThreshold = false;
+        m_peakCount = 0;
+        m_coolingDown = false;
+    }
+
+    ///////// Statistics ///////////
+
+    public long getSampleCount() { return m_sampleCount; }
+
+    public long getGestureCount() { return m_gestureCount; }
+}
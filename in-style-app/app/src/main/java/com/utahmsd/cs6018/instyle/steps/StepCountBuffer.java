@@ -0,0 +1,223 @@
+package com.utahmsd.cs6018.instyle.steps;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleObserver;
+import android.arch.lifecycle.OnLifecycleEvent;
+import android.util.Log;
+
+import com.utahmsd.cs6018.instyle.db.entity.StepRollup;
+import com.utahmsd.cs6018.instyle.db.entity.StepSample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer between the step counter sensor and the StepSample/StepRollup tables.
+ *
+ * The sensor reports the total number of steps since the device booted, as often as every step.
+ * record() is cheap enough to call from onSensorChanged on the main thread: it turns each reading
+ * into the number of steps since the previous one, and adds it to the last buffered sample if
+ * that sample started less than a few seconds ago (in the same minute). Buffered samples are
+ * written as one batch, together with their minute/hour/day rollups, once the flush interval has
+ * passed since the first of them was recorded, or as soon as the maximum number of samples is
+ * buffered. The buffer is also flushed when the app goes to the background.
+ *
+ * Writes run on the write executor (the disk IO pool). If one fails, its samples are put back in
+ * the buffer and retried with the next flush.
+ */
+public class StepCountBuffer implements LifecycleObserver {
+
+    private static final String LOG_TAG = StepCountBuffer.class.getSimpleName();
+
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 30_000L;
+    public static final int DEFAULT_MAX_PENDING_SAMPLES = 64;
+    public static final long DEFAULT_COALESCE_MILLIS = 10_000L;
+
+    private static final StepResolution[] RESOLUTIONS = StepResolution.values();
+
+    /**
+     * Writes a batch of samples, and adds the rollups' steps to the stored rollups, in one
+     * transaction.
+     */
+    public interface Writer {
+        void write(List<StepSample> samples, List<StepRollup> rollups);
+    }
+
+    private final ScheduledExecutorService m_scheduler;
+    private final Executor m_writeExecutor;
+    private final Writer m_writer;
+    private final TimeZone m_timeZone;
+
+    private volatile long m_flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+    private volatile int m_maxPendingSamples = DEFAULT_MAX_PENDING_SAMPLES;
+    private volatile long m_coalesceMillis = DEFAULT_COALESCE_MILLIS;
+
+    private List<StepSample> m_pending = new ArrayList<>();
+    private ScheduledFuture<?> m_pendingFlush;
+    private float m_lastStepsSinceBoot = Float.NaN;
+    private int m_lastUserId;
+
+    private long m_eventCount;
+    private long m_sampleCount;
+    private long m_flushCount;
+    private long m_failedFlushCount;
+
+    public StepCountBuffer(ScheduledExecutorService scheduler, Executor writeExecutor, Writer writer,
+                           TimeZone timeZone) {
+        m_scheduler = scheduler;
+        m_writeExecutor = writeExecutor;
+        m_writer = writer;
+        m_timeZone = timeZone;
+    }
+
+    /**
+     * Records a step counter reading. The first reading (and the first after the user changes) is
+     * only used as the baseline for the next one.
+     * @param userId
+     * @param stepsSinceBoot Value of the TYPE_STEP_COUNTER sensor event
+     * @param timestampMillis Wall clock time of the event
+     */
+    public synchronized void record(int userId, float stepsSinceBoot, long timestampMillis) {
+        m_eventCount++;
+        float lastStepsSinceBoot = m_lastStepsSinceBoot;
+        m_lastStepsSinceBoot = stepsSinceBoot;
+        if (Float.isNaN(lastStepsSinceBoot) || userId != m_lastUserId) {
+            m_lastUserId = userId;
+            return;
+        }
+        //The counter starts over from 0 when the device reboots
+        int steps = Math.round(stepsSinceBoot >= lastStepsSinceBoot ?
+                stepsSinceBoot - lastStepsSinceBoot : stepsSinceBoot);
+        if (steps <= 0) {
+            return;
+        }
+
+        if (!m_pending.isEmpty()) {
+            StepSample last = m_pending.get(m_pending.size() - 1);
+            long minuteLength = StepResolution.MINUTE.getLengthMillis();
+            if (last.getUserId() == userId && timestampMillis >= last.getTimestamp()
+                    && timestampMillis - last.getTimestamp() < m_coalesceMillis
+                    && timestampMillis / minuteLength == last.getTimestamp() / minuteLength) {
+                last.setSteps(last.getSteps() + steps);
+                return;
+            }
+        }
+        m_pending.add(new StepSample(userId, timestampMillis, steps));
+        m_sampleCount++;
+
+        if (m_pending.size() >= m_maxPendingSamples) {
+            flush();
+        }
+        else if (m_pendingFlush == null) {
+            m_pendingFlush = m_scheduler.schedule(this::flush, m_flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Hands every buffered sample to the write executor now, instead of waiting for the flush
+     * interval to pass.
+     */
+    @OnLifecycleEvent(Lifecycle.Event.ON_STOP)
+    public synchronized void flush() {
+        if (m_pendingFlush != null) { //No-op when called from the scheduled flush itself
+            m_pendingFlush.cancel(false);
+            m_pendingFlush = null;
+        }
+        if (m_pending.isEmpty()) {
+            return;
+        }
+        List<StepSample> samples = m_pending;
+        m_pending = new ArrayList<>();
+        m_flushCount++;
+        try {
+            m_writeExecutor.execute(() -> write(samples));
+        } catch (RuntimeException e) { //e.g., rejected by a disk IO pool that's shut down
+            Log.d(LOG_TAG, String.format("Unable to hand step samples to the write executor: '%s'", e.getMessage()));
+            requeue(samples);
+        }
+    }
+
+    private void write(List<StepSample> samples) {
+        try {
+            m_writer.write(samples, rollUp(samples, m_timeZone));
+        } catch (RuntimeException e) {
+            Log.d(LOG_TAG, String.format("Unable to write step samples: '%s'", e.getMessage()));
+            requeue(samples);
+        }
+    }
+
+    private synchronized void requeue(List<StepSample> samples) {
+        m_failedFlushCount++;
+        Log.d(LOG_TAG, String.format("Failed to write %d step samples, retrying with the next flush", samples.size()));
+        m_pending.addAll(0, samples);
+        if (m_pendingFlush == null) {
+            m_pendingFlush = m_scheduler.schedule(this::flush, m_flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sums samples into minute, hour and day buckets. Samples are in the order they were recorded,
+     * so each bucket normally gets one rollup; if the clock goes backwards (or the user changes
+     * back and forth), a bucket can get more than one, which Writer adds up.
+     * @param samples
+     * @param timeZone
+     * @return
+     */
+    static List<StepRollup> rollUp(List<StepSample> samples, TimeZone timeZone) {
+        List<StepRollup> rollups = new ArrayList<>();
+        StepRollup[] current = new StepRollup[RESOLUTIONS.length];
+        for (StepSample sample : samples) {
+            for (StepResolution resolution : RESOLUTIONS) {
+                long bucketStart = resolution.bucketStart(sample.getTimestamp(), timeZone);
+                StepRollup rollup = current[resolution.ordinal()];
+                if (rollup == null || rollup.getUserId() != sample.getUserId()
+                        || rollup.getBucketStart() != bucketStart) {
+                    rollup = new StepRollup(sample.getUserId(), resolution, bucketStart, 0);
+                    current[resolution.ordinal()] = rollup;
+                    rollups.add(rollup);
+                }
+                rollup.setSteps(rollup.getSteps() + sample.getSteps());
+            }
+        }
+        return rollups;
+    }
+
+    /**
+     * @return Steps recorded for the user that haven't been handed to the writer yet, e.g., to
+     * add to the stored total for today while displaying it.
+     */
+    public synchronized int getPendingSteps(int userId) {
+        int steps = 0;
+        for (StepSample sample : m_pending) {
+            if (sample.getUserId() == userId) {
+                steps += sample.getSteps();
+            }
+        }
+        return steps;
+    }
+
+    ///////// Configuration ///////////
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) { m_flushIntervalMillis = flushIntervalMillis; }
+
+    public void setMaxPendingSamples(int maxPendingSamples) { m_maxPendingSamples = maxPendingSamples; }
+
+    public void setCoalesceMillis(long coalesceMillis) { m_coalesceMillis = coalesceMillis; }
+
+    ///////// Statistics ///////////
+
+    public synchronized int getPendingSampleCount() { return m_pending.size(); }
+
+    public synchronized long getEventCount() { return m_eventCount; }
+
+    public synchronized long getSampleCount() { return m_sampleCount; }
+
+    public synchronized long getFlushCount() { return m_flushCount; }
+
+    public synchronized long getFailedFlushCount() { return m_failedFlushCount; }
+}
@@ -0,0 +1,54 @@
+package com.utahmsd.cs6018.instyle.steps;
+
+import java.util.TimeZone;
+
+/**
+ * Bucket sizes that recorded steps are rolled up into (see StepRollup). Step history charts query
+ * the rollup for the resolution they display instead of summing raw samples.
+ */
+public enum StepResolution {
+    MINUTE(60_000L),
+    HOUR(3_600_000L),
+    DAY(86_400_000L);
+
+    private final long m_lengthMillis;
+
+    StepResolution(long lengthMillis) {
+        m_lengthMillis = lengthMillis;
+    }
+
+    public long getLengthMillis() { return m_lengthMillis; }
+
+    /**
+     * Value stored in the StepRollup table's resolution column. Unlike ordinal(), this doesn't
+     * change if resolutions are added or reordered.
+     */
+    public int getMinutes() { return (int) (m_lengthMillis / MINUTE.m_lengthMillis); }
+
+    public static StepResolution fromMinutes(int minutes) {
+        for (StepResolution resolution : values()) {
+            if (resolution.getMinutes() == minutes) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("No step resolution of " + minutes + " minutes");
+    }
+
+    /**
+     * Start of the bucket (e.g., local midnight for DAY) that the timestamp falls in.
+     * @param timestampMillis
+     * @param timeZone Time zone that buckets line up with
+     * @return
+     */
+    public long bucketStart(long timestampMillis, TimeZone timeZone) {
+        int offset = timeZone.getOffset(timestampMillis);
+        long local = timestampMillis + offset;
+        long start = local - Math.floorMod(local, m_lengthMillis) - offset;
+        //On the day of a daylight saving change, the start of the bucket had a different offset
+        int startOffset = timeZone.getOffset(start);
+        if (startOffset != offset) {
+            start += offset - startOffset;
+        }
+        return start;
+    }
+}
@@ -0,0 +1,71 @@
+package com.utahmsd.cs6018.instyle.ui;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.TextView;
+
+import com.utahmsd.cs6018.instyle.util.mapper.CountryCodeMapper;
+
+import java.util.List;
+
+/**
+ * Adapter for autocompleting country names as the user types, e.g., in an AutoCompleteTextView.
+ * Suggestions come straight from CountryCodeMapper's sorted index, so filtering on each
+ * keystroke is a binary search rather than copying and scanning the list of countries.
+ */
+public class CountryNameAdapter extends BaseAdapter implements Filterable {
+
+    private final LayoutInflater m_inflater;
+    private List<String> m_countryNames = CountryCodeMapper.getCountryNames();
+
+    private final Filter m_filter = new Filter() {
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            List<String> matches = CountryCodeMapper.findCountryNamesByPrefix(constraint);
+            FilterResults results = new FilterResults();
+            results.values = matches;
+            results.count = matches.size();
+            return results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            m_countryNames = (List<String>) results.values;
+            if (results.count > 0) {
+                notifyDataSetChanged();
+            } else {
+                notifyDataSetInvalidated();
+            }
+        }
+    };
+
+    public CountryNameAdapter(Context context) {
+        m_inflater = LayoutInflater.from(context);
+    }
+
+    @Override
+    public int getCount() { return m_countryNames.size(); }
+
+    @Override
+    public String getItem(int position) { return m_countryNames.get(position); }
+
+    @Override
+    public long getItemId(int position) { return position; }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView view = (TextView) (convertView != null ? convertView :
+                m_inflater.inflate(android.R.layout.simple_dropdown_item_1line, parent, false));
+        view.setText(getItem(position));
+        return view;
+    }
+
+    @Override
+    public Filter getFilter() { return m_filter; }
+}
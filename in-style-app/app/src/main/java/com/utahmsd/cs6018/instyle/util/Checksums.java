@@ -0,0 +1,54 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 helpers shared by the backups and the image store and loader. Hashes are written as lower
+ * case hex.
+ */
+public final class Checksums {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private Checksums() { }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required on every platform", e);
+        }
+    }
+
+    public static String sha256(byte[] data, int offset, int length) {
+        MessageDigest digest = newSha256();
+        digest.update(data, offset, length);
+        return toHex(digest.digest());
+    }
+
+    public static String sha256(File file) throws IOException {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+}
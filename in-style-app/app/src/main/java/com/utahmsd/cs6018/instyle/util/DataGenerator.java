@@ -0,0 +1,257 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.db.entity.User;
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateBmi;
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.updateDerivedMetrics;
+import static com.utahmsd.cs6018.instyle.util.WeatherUtils.formatCaseCity;
+import static com.utahmsd.cs6018.instyle.util.WeatherUtils.formatCaseCountryCodeFromCountryName;
+
+/**
+ * Generates synthetic, correlated test data for the User, FitnessProfile and Weather tables at any
+ * volume, deterministically from a seed.
+ *
+ * Every user is generated from its own index (using a Random seeded from the data set seed and the
+ * index), so the same seed always produces the same rows regardless of the batch size they are
+ * generated in, and batches can be generated and inserted one at a time without holding the whole
+ * data set in memory. Each user gets a FitnessProfile whose height, weight, weight goal and step
+ * count are correlated with each other, and whose city and country match one of the generated
+ * Weather records (skewed so that a few cities are much more popular than the rest).
+ */
+public class DataGenerator {
+
+    //Fixed reference date so that generated ages and timestamps don't depend on when data is generated
+    public static final LocalDate DEFAULT_REFERENCE_DATE = LocalDate.of(2018, 12, 1);
+
+
+    //City, country name, latitude, longitude, average temperature (K)
+    private static final Object[][] LOCATIONS = {
+            {"Salt Lake City", "United States", 40.76f, -111.89f, 284.0},
+            {"Provo", "United States", 40.23f, -111.66f, 283.0},
+            {"New York", "United States", 40.71f, -74.01f, 286.0},
+            {"Seattle", "United States", 47.61f, -122.33f, 284.0},
+            {"Tokyo", "Japan", 35.69f, 139.69f, 289.0},
+            {"Seoul", "Korea", 37.57f, 126.98f, 286.0},
+            {"Hong Kong", "Hong Kong", 22.32f, 114.17f, 296.0},
+            {"London", "United Kingdom", 51.51f, -0.13f, 284.0},
+            {"Paris", "France", 48.86f, 2.35f, 285.0},
+            {"Rome", "Italy", 41.90f, 12.50f, 289.0},
+            {"Berlin", "Germany", 52.52f, 13.40f, 283.0},
+            {"Madrid", "Spain", 40.42f, -3.70f, 288.0},
+            {"Sydney", "Australia", -33.87f, 151.21f, 291.0},
+            {"Toronto", "Canada", 43.65f, -79.38f, 282.0},
+            {"Mexico City", "Mexico", 19.43f, -99.13f, 290.0},
+            {"Sao Paulo", "Brazil", -23.55f, -46.63f, 293.0},
+    };
+    private static final String[] FORECASTS = {"Clear", "Clouds", "Rain", "Snow", "Mist"};
+    private static final String[] LIFESTYLES = {"SEDENTARY", "MODERATE", "ACTIVE"};
+
+    /**
+     * Users and their fitness profiles generated for a range of indices.
+     */
+    public static class Batch {
+        private final int m_fromIndex;
+        private final List<User> m_users;
+        private final List<FitnessProfile> m_fitnessProfiles;
+
+        Batch(int fromIndex, List<User> users, List<FitnessProfile> fitnessProfiles) {
+            m_fromIndex = fromIndex;
+            m_users = users;
+            m_fitnessProfiles = fitnessProfiles;
+        }
+
+        public int getFromIndex() { return m_fromIndex; }
+
+        public List<User> getUsers() { return m_users; }
+
+        public List<FitnessProfile> getFitnessProfiles() { return m_fitnessProfiles; }
+
+        public int size() { return m_users.size(); }
+    }
+
+    private final long m_seed;
+    private final int m_numLocations;
+    private final LocalDate m_referenceDate;
+    private final Date m_referenceTimestamp;
+    private int m_firstUserId = 1;
+
+    /**
+     * @param seed
+     * @param numLocations Number of distinct cities that users live in (and Weather records).
+     */
+    public DataGenerator(long seed, int numLocations) {
+        this(seed, numLocations, DEFAULT_REFERENCE_DATE);
+    }
+
+    public DataGenerator(long seed, int numLocations, LocalDate referenceDate) {
+        m_seed = seed;
+        m_numLocations = numLocations;
+        m_referenceDate = referenceDate;
+        m_referenceTimestamp = Date.from(referenceDate.atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+
+    /**
+     * Sets the id assigned to the user with index 0 (ids are assigned sequentially from there), so
+     * generated fitness profiles can reference their users without reading ids back after insert.
+     * @param firstUserId
+     */
+    public void setFirstUserId(int firstUserId) { m_firstUserId = firstUserId; }
+
+    public int getNumLocations() { return m_numLocations; }
+
+    ///////// Weather ///////////
+
+    public List<Weather> generateWeather() {
+        List<Weather> weatherList = new ArrayList<>(m_numLocations);
+        for (int i = 0; i < m_numLocations; i++) {
+            weatherList.add(generateWeather(i));
+        }
+        return weatherList;
+    }
+
+    public Weather generateWeather(int locationIndex) {
+        Random random = randomFor(-1 - locationIndex); //Negative indices so they don't overlap with users
+        Object[] location = LOCATIONS[locationIndex % LOCATIONS.length];
+        double averageTemp = (double) location[4];
+
+        Weather weather = new Weather();
+        weather.setCity(formatCaseCity(getCity(locationIndex)));
+        weather.setCountryCode(formatCaseCountryCodeFromCountryName((String) location[1]));
+        weather.setLatitude((float) location[2]);
+        weather.setLongitude((float) location[3]);
+        weather.setForecastMain(FORECASTS[random.nextInt(FORECASTS.length)]);
+        weather.setForecastDescription(weather.getForecastMain().toLowerCase(Locale.US));
+        double temp = averageTemp + random.nextGaussian() * 8;
+        weather.setTemperature(weather.createTemp(temp, temp - random.nextInt(5), temp + random.nextInt(5)));
+        weather.setPressure(990 + random.nextInt(40));
+        weather.setHumidity(10 + random.nextInt(90));
+        weather.setWindSpeed(random.nextFloat() * 15);
+        weather.setLastUpdated(m_referenceTimestamp);
+        return weather;
+    }
+
+    /**
+     * Returns the name of the city with the given index. Past the built-in list of cities, names
+     * are made unique by appending a letter suffix (city names can't contain digits).
+     * @param locationIndex
+     * @return
+     */
+    public static String getCity(int locationIndex) {
+        String city = (String) LOCATIONS[locationIndex % LOCATIONS.length][0];
+        int suffix = locationIndex / LOCATIONS.length;
+        if (suffix == 0) {
+            return city;
+        }
+        StringBuilder letters = new StringBuilder();
+        while (suffix > 0) {
+            suffix--;
+            letters.insert(0, (char) ('a' + suffix % 26));
+            suffix /= 26;
+        }
+        return city + " " + letters;
+    }
+
+    public static String getCountry(int locationIndex) {
+        return (String) LOCATIONS[locationIndex % LOCATIONS.length][1];
+    }
+
+    ///////// Users and fitness profiles ///////////
+
+    /**
+     * Generates users (and their fitness profiles) with indices [0, numUsers) in batches of the
+     * given size, passing each batch to the consumer before generating the next one.
+     * @param numUsers
+     * @param batchSize
+     * @param consumer
+     */
+    public void generate(int numUsers, int batchSize, Consumer<Batch> consumer) {
+        for (int fromIndex = 0; fromIndex < numUsers; fromIndex += batchSize) {
+            consumer.accept(generateBatch(fromIndex, Math.min(batchSize, numUsers - fromIndex)));
+        }
+    }
+
+    public Batch generateBatch(int fromIndex, int count) {
+        List<User> users = new ArrayList<>(count);
+        List<FitnessProfile> fitnessProfiles = new ArrayList<>(count);
+        for (int index = fromIndex; index < fromIndex + count; index++) {
+            Random random = randomFor(index);
+            User user = generateUser(random, index);
+            users.add(user);
+            fitnessProfiles.add(generateFitnessProfile(random, user));
+        }
+        return new Batch(fromIndex, users, fitnessProfiles);
+    }
+
+    private User generateUser(Random random, int index) {
+        User user = UserGenerator.generateUser(random, index);
+        user.setId(m_firstUserId + index);
+        user.setJoinDate(Date.from(m_referenceDate.minusDays(random.nextInt(3 * 365))
+                .atStartOfDay(ZoneOffset.UTC).toInstant()));
+        return user;
+    }
+
+    private FitnessProfile generateFitnessProfile(Random random, User user) {
+        FitnessProfile fp = new FitnessProfile();
+        fp.setUserId(user.getId());
+        fp.setM_fName(user.getFirstName());
+        fp.setM_lName(user.getLastName());
+
+        boolean female = random.nextBoolean();
+        fp.setM_sex(female ? "F" : "M");
+
+        int age = 18 + random.nextInt(58);
+        fp.setM_dateOfBirth(m_referenceDate.minusYears(age).minusDays(random.nextInt(365)));
+
+        int heightInInches = clamp((int) Math.round((female ? 64 : 69) + random.nextGaussian() * 3), 58, 84);
+        fp.setM_heightFeet(heightInInches / 12);
+        fp.setM_heightInches(heightInInches % 12);
+
+        double targetBmi = clamp(26.5 + random.nextGaussian() * 4.5, 16, 45);
+        int weight = clamp((int) Math.round(targetBmi * heightInInches * heightInInches / 703), 80, 500);
+        fp.setM_weightInPounds(weight);
+
+        //Heavier users are more likely to want to lose weight, lighter users to gain
+        double bmi = calculateBmi(heightInInches, weight);
+        String weightGoal = bmi >= 25 && random.nextInt(4) != 0 ? "LOSE" :
+                bmi < 18.5 && random.nextInt(4) != 0 ? "GAIN" : "MAINTAIN";
+        fp.setM_weightGoal(weightGoal);
+        fp.setM_lbsPerWeek(weightGoal.equals("MAINTAIN") ? 0 : 1 + random.nextInt(2));
+
+        int lifestyle = random.nextInt(LIFESTYLES.length);
+        fp.setM_lifestyleSelection(LIFESTYLES[lifestyle]);
+        fp.setM_stepCount(Math.max(0, 3_000 + 3_500 * lifestyle + (float) random.nextGaussian() * 2_000));
+
+        //Skew towards the first few cities, like a real user base concentrated in a few metro areas
+        double r = random.nextDouble();
+        int locationIndex = (int) (m_numLocations * r * r);
+        fp.setM_city(getCity(locationIndex));
+        fp.setM_country(getCountry(locationIndex));
+
+        updateDerivedMetrics(fp, m_referenceDate.toEpochDay());
+        fp.setM_dateLastUpdated(m_referenceTimestamp);
+        return fp;
+    }
+
+    private Random randomFor(long index) {
+        return new Random(m_seed * 0x9E3779B97F4A7C15L + index);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
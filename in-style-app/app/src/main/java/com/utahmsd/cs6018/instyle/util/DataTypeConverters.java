@@ -1,7 +1,12 @@
 package com.utahmsd.cs6018.instyle.util;
 
 import android.arch.persistence.room.TypeConverter;
+import android.os.Build;
+import android.support.annotation.RequiresApi;
 
+import com.utahmsd.cs6018.instyle.steps.StepResolution;
+
+import java.time.LocalDate;
 import java.util.Date;
 
 public class DataTypeConverters {
@@ -14,5 +19,32 @@ public class DataTypeConverters {
     public static Long dateToTimestamp(Date date) {
         return date == null ? null : date.getTime();
     }
-}
 
+    /**
+     * Dates (e.g., date of birth) are stored as days since 1970-01-01.
+     */
+    @TypeConverter
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static LocalDate fromEpochDay(Long value) {
+        return value == null ? null : LocalDate.ofEpochDay(value);
+    }
+
+    @TypeConverter
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static Long localDateToEpochDay(LocalDate date) {
+        return date == null ? null : date.toEpochDay();
+    }
+
+    /**
+     * Step rollup resolutions are stored as their bucket length in minutes.
+     */
+    @TypeConverter
+    public static StepResolution fromResolutionMinutes(Integer minutes) {
+        return minutes == null ? null : StepResolution.fromMinutes(minutes);
+    }
+
+    @TypeConverter
+    public static Integer resolutionToMinutes(StepResolution resolution) {
+        return resolution == null ? null : resolution.getMinutes();
+    }
+}
@@ -0,0 +1,226 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import android.os.Build;
+import android.support.annotation.RequiresApi;
+import android.util.Log;
+
+import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.BodyMassIndex;
+import com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.Lifestyle;
+import com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.Sex;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateAge;
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateBMR;
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateBmi;
+import static com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.calculateDailyCaloricIntake;
+
+/**
+ * Computes age, BMI, BMI classification, BMR and daily caloric intake for many FitnessProfiles at
+ * once, e.g., for cohort reports and admin analytics.
+ *
+ * Profiles are loaded once into primitive column arrays, with sex and lifestyle stored as enum
+ * ordinals and date of birth as an epoch day. compute() is then a single loop over the columns,
+ * with no string comparisons, date parsing or allocation per profile. computeParallel() splits
+ * the rows across a ForkJoinPool. Results are the same as FitnessProfileUtils' per profile methods.
+ */
+public class FitnessMetricsBatch {
+
+    private static final String LOG_TAG = FitnessMetricsBatch.class.getSimpleName();
+
+    //Splitting rows into smaller tasks than this costs more than it saves
+    static final int PARALLEL_THRESHOLD = 4_096;
+
+    private static final Sex[] SEXES = Sex.values();
+    private static final Lifestyle[] LIFESTYLES = Lifestyle.values();
+    private static final BodyMassIndex[] BODY_MASS_INDEXES = BodyMassIndex.values();
+
+    private int m_size;
+    private int m_numSkipped;
+
+    ///////// Inputs ///////////
+    private final int[] m_userIds;
+    private final int[] m_heightInInches;
+    private final int[] m_weightInPounds;
+    private final int[] m_lbsPerWeek;
+    private final byte[] m_sex;
+    private final byte[] m_lifestyle;
+    private final long[] m_dobEpochDays;
+
+    ///////// Outputs ///////////
+    private final int[] m_ages;
+    private final double[] m_bmi;
+    private final byte[] m_bmiClassification;
+    private final double[] m_bmr;
+    private final double[] m_dailyCaloricIntake;
+
+    public FitnessMetricsBatch(int capacity) {
+        m_userIds = new int[capacity];
+        m_heightInInches = new int[capacity];
+        m_weightInPounds = new int[capacity];
+        m_lbsPerWeek = new int[capacity];
+        m_sex = new byte[capacity];
+        m_lifestyle = new byte[capacity];
+        m_dobEpochDays = new long[capacity];
+
+        m_ages = new int[capacity];
+        m_bmi = new double[capacity];
+        m_bmiClassification = new byte[capacity];
+        m_bmr = new double[capacity];
+        m_dailyCaloricIntake = new double[capacity];
+    }
+
+    /**
+     * Loads FitnessProfiles into a new batch. Profiles without a date of birth are skipped,
+     * since their age and caloric intake can't be calculated.
+     * @param profiles
+     * @return
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static FitnessMetricsBatch fromProfiles(List<FitnessProfile> profiles) {
+        FitnessMetricsBatch batch = new FitnessMetricsBatch(profiles.size());
+        for (FitnessProfile fp : profiles) {
+            if (fp.getM_dateOfBirth() == null) {
+                Log.d(LOG_TAG, "Skipping FitnessProfile " + fp.getM_Id() + " without a dob");
+                batch.m_numSkipped++;
+                continue;
+            }
+            batch.add(fp.getUserId(),
+                    FitnessProfileUtils.calculateHeightInInches(fp.getM_heightFeet(), fp.getM_heightInches()),
+                    fp.getM_weightInPounds(),
+                    Sex.fromString(fp.getM_sex()),
+                    Lifestyle.fromString(fp.getM_lifestyleSelection()),
+                    fp.getM_lbsPerWeek(),
+                    fp.getM_dateOfBirth().toEpochDay());
+        }
+        return batch;
+    }
+
+    /**
+     * Adds a row. Metrics for it are calculated by the next call to compute/computeParallel.
+     * @throws ArrayIndexOutOfBoundsException if the batch is already at capacity
+     */
+    public void add(int userId, int heightInInches, int weightInPounds, Sex sex, Lifestyle lifestyle,
+                    int lbsPerWeek, long dobEpochDay) {
+        int row = m_size;
+        m_userIds[row] = userId;
+        m_heightInInches[row] = heightInInches;
+        m_weightInPounds[row] = weightInPounds;
+        m_sex[row] = (byte) sex.ordinal();
+        m_lifestyle[row] = (byte) lifestyle.ordinal();
+        m_lbsPerWeek[row] = lbsPerWeek;
+        m_dobEpochDays[row] = dobEpochDay;
+        m_size++;
+    }
+
+    /**
+     * Calculates metrics for every row on the calling thread.
+     * @param todayEpochDay Day that ages are calculated on, e.g., LocalDate.now().toEpochDay()
+     */
+    public void compute(long todayEpochDay) {
+        computeRows(0, m_size, todayEpochDay);
+    }
+
+    /**
+     * Calculates metrics for every row, split across the common ForkJoinPool.
+     * @param todayEpochDay Day that ages are calculated on, e.g., LocalDate.now().toEpochDay()
+     */
+    public void computeParallel(long todayEpochDay) {
+        computeParallel(todayEpochDay, ForkJoinPool.commonPool());
+    }
+
+    public void computeParallel(long todayEpochDay, ForkJoinPool pool) {
+        pool.invoke(new ComputeTask(0, m_size, todayEpochDay));
+    }
+
+    private void computeRows(int from, int to, long todayEpochDay) {
+        for (int row = from; row < to; row++) {
+            int age = calculateAge(m_dobEpochDays[row], todayEpochDay);
+            double bmi = calculateBmi(m_heightInInches[row], m_weightInPounds[row]);
+            double bmr = calculateBMR(m_heightInInches[row], SEXES[m_sex[row]], m_weightInPounds[row], age);
+
+            m_ages[row] = age;
+            m_bmi[row] = bmi;
+            m_bmiClassification[row] = (byte) FitnessProfileUtils.getBmiClassification(bmi).ordinal();
+            m_bmr[row] = bmr;
+            m_dailyCaloricIntake[row] = calculateDailyCaloricIntake(bmr, LIFESTYLES[m_lifestyle[row]], m_lbsPerWeek[row]);
+        }
+    }
+
+    private class ComputeTask extends RecursiveAction {
+        private final int m_from;
+        private final int m_to;
+        private final long m_todayEpochDay;
+
+        ComputeTask(int from, int to, long todayEpochDay) {
+            m_from = from;
+            m_to = to;
+            m_todayEpochDay = todayEpochDay;
+        }
+
+        @Override
+        protected void compute() {
+            if (m_to - m_from <= PARALLEL_THRESHOLD) {
+                computeRows(m_from, m_to, m_todayEpochDay);
+                return;
+            }
+            int mid = (m_from + m_to) >>> 1;
+            invokeAll(new ComputeTask(m_from, mid, m_todayEpochDay),
+                    new ComputeTask(mid, m_to, m_todayEpochDay));
+        }
+    }
+
+    ///////// Results ///////////
+
+    public int size() { return m_size; }
+
+    /**
+     * @return Number of profiles fromProfiles skipped because they had no date of birth.
+     */
+    public int getNumSkipped() { return m_numSkipped; }
+
+    public int getUserId(int row) { return m_userIds[row]; }
+
+    public int getAge(int row) { return m_ages[row]; }
+
+    public double getBmi(int row) { return m_bmi[row]; }
+
+    public BodyMassIndex getBmiClassification(int row) { return BODY_MASS_INDEXES[m_bmiClassification[row]]; }
+
+    public double getBmr(int row) { return m_bmr[row]; }
+
+    public double getDailyCaloricIntake(int row) { return m_dailyCaloricIntake[row]; }
+
+    /**
+     * @return Number of rows in each BMI classification, indexed by BodyMassIndex ordinal.
+     */
+    public int[] countByBmiClassification() {
+        int[] counts = new int[BODY_MASS_INDEXES.length];
+        for (int row = 0; row < m_size; row++) {
+            counts[m_bmiClassification[row]]++;
+        }
+        return counts;
+    }
+
+    public double getAverageBmi() {
+        return average(m_bmi);
+    }
+
+    public double getAverageDailyCaloricIntake() {
+        return average(m_dailyCaloricIntake);
+    }
+
+    private double average(double[] column) {
+        if (m_size == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int row = 0; row < m_size; row++) {
+            sum += column[row];
+        }
+        return sum / m_size;
+    }
+}
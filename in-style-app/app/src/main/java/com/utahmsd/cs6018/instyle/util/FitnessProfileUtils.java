@@ -10,6 +10,7 @@ import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
 import java.time.LocalDate;
 import java.time.Period;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Locale;
 
 public class FitnessProfileUtils {
@@ -19,6 +20,16 @@ public class FitnessProfileUtils {
     private static final double POUND_PER_KG = 2.2;
     private static final double CM_PER_INCH = 2.54;
 
+    private static final DateTimeFormatter DOB_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy", Locale.US);
+
+    /**
+     * Version of the formulas below. Bump this whenever calculateBmi, calculateBMR or
+     * calculateDailyCaloricIntake change, so the metrics stored on each FitnessProfile get recomputed,
+     * along with a database migration that sets metrics_valid_until = 0 on rows with an older
+     * metrics_version: the launch time refresh only searches the metrics_valid_until index.
+     */
+    public static final int METRICS_VERSION = 1;
+
 
     public enum BodyMassIndex {
         UNDERWEIGHT,
@@ -28,9 +39,46 @@ public class FitnessProfileUtils {
         CLINICALLY_OBESE
     }
 
+    public enum Sex {
+        MALE,
+        FEMALE;
+
+        /**
+         * Anything other than "F" is treated as male, as calculateBMR always has.
+         */
+        public static Sex fromString(String sex) {
+            return "F".equalsIgnoreCase(sex) ? FEMALE : MALE;
+        }
+    }
+
+    public enum Lifestyle {
+        SEDENTARY(1.2),
+        MODERATE(1.55),
+        ACTIVE(1.725);
+
+        private final double m_bmrFactor;
+
+        Lifestyle(double bmrFactor) {
+            m_bmrFactor = bmrFactor;
+        }
+
+        /**
+         * Multiplier from BMR to calories burned per day.
+         */
+        public double getBmrFactor() { return m_bmrFactor; }
+
+        /**
+         * Anything other than SEDENTARY or MODERATE is treated as ACTIVE.
+         */
+        public static Lifestyle fromString(String lifestyle) {
+            return SEDENTARY.name().equalsIgnoreCase(lifestyle) ? SEDENTARY :
+                    MODERATE.name().equalsIgnoreCase(lifestyle) ? MODERATE : ACTIVE;
+        }
+    }
+
     public static double calculateBmi(int heightInInches, int weightInPounds) {
         final double BMI_METRIC_TO_IMPERIAL_SCALE_FACTOR = 703;
-        return weightInPounds/Math.pow(heightInInches, 2) * BMI_METRIC_TO_IMPERIAL_SCALE_FACTOR;
+        return weightInPounds / ((double) heightInInches * heightInInches) * BMI_METRIC_TO_IMPERIAL_SCALE_FACTOR;
     }
 
     public static BodyMassIndex getBmiClassification(double bmiValue) {
@@ -49,14 +97,14 @@ public class FitnessProfileUtils {
     public static double calculateBMR(int heightFeet, int heightInches,
                                       String sex, int weightInPounds, int age) {
 
-        int totalHeightInInches = calculateHeightInInches(heightFeet, heightInches);
-
-        if (sex.equalsIgnoreCase("F")){
-
-            return calculateFemaleBmr(weightInPounds, totalHeightInInches, age);
-        }
+        return calculateBMR(calculateHeightInInches(heightFeet, heightInches), Sex.fromString(sex),
+                weightInPounds, age);
+    }
 
-        return calculateMaleBmr(weightInPounds, totalHeightInInches, age);
+    public static double calculateBMR(int heightInInches, Sex sex, int weightInPounds, int age) {
+        return sex == Sex.FEMALE ?
+                calculateFemaleBmr(weightInPounds, heightInInches, age) :
+                calculateMaleBmr(weightInPounds, heightInInches, age);
     }
 
     private static double calculateFemaleBmr(int weightLbs, int heightInches, int age) {
@@ -67,30 +115,25 @@ public class FitnessProfileUtils {
         return 66 + (6.23 * weightLbs) + (12.7 * heightInches) - (6.8 * age);
     }
 
+    @RequiresApi(api = Build.VERSION_CODES.O)
     public static double calculateDailyCaloricIntake(FitnessProfile fp) {
 
-        final double BMR_FACTOR_SEDENTRY = 1.2;
-        final double BMR_FACTOR_MODERATE = 1.55;
-        final double BMR_FACTOR_ACTIVE = 1.725;
-
-        final double CALORIC_DIFFERENCE_DAILY = fp.getM_lbsPerWeek() * CALORIES_PER_POUND / 7;
-
         double calculatedBmr = calculateBMR(fp.getM_heightFeet(),
                                             fp.getM_heightInches(),
                                             fp.getM_sex(),
                                             fp.getM_weightInPounds(),
-                                            calculateAge(fp.getM_dob()));
+                                            calculateAge(fp.getM_dateOfBirth().toEpochDay(), LocalDate.now().toEpochDay()));
 
-        double baselineCalories = fp.getM_lifestyleSelection().equalsIgnoreCase("SEDENTARY") ?
-                        calculatedBmr * BMR_FACTOR_SEDENTRY :
-                        fp.getM_lifestyleSelection().equalsIgnoreCase("MODERATE") ?
-                                calculatedBmr * BMR_FACTOR_MODERATE :
-                        calculatedBmr * BMR_FACTOR_ACTIVE;
+        return calculateDailyCaloricIntake(calculatedBmr,
+                Lifestyle.fromString(fp.getM_lifestyleSelection()), fp.getM_lbsPerWeek());
+    }
 
-        double total = baselineCalories + CALORIC_DIFFERENCE_DAILY;
+    public static double calculateDailyCaloricIntake(double bmr, Lifestyle lifestyle, int lbsPerWeek) {
+        final double CALORIC_DIFFERENCE_DAILY = lbsPerWeek * CALORIES_PER_POUND / 7;
 
-        return total < 0 ? 0 : total;
+        double total = bmr * lifestyle.getBmrFactor() + CALORIC_DIFFERENCE_DAILY;
 
+        return total < 0 ? 0 : total;
     }
 
 
@@ -133,12 +176,122 @@ public class FitnessProfileUtils {
 
     @RequiresApi(api = Build.VERSION_CODES.O)
     public static int calculateAge(String m_dob) {
-        DateTimeFormatter dob_format = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-        dob_format = dob_format.withLocale(Locale.US);
-
-        LocalDate dob = LocalDate.parse(m_dob, dob_format);
+        LocalDate dob = LocalDate.parse(m_dob, DOB_FORMAT);
         LocalDate today = LocalDate.now();
 
         return Period.between(dob, today).getYears();
     }
+
+    /**
+     * Calculates age, BMI, BMR and daily caloric intake and stores them on the profile, stamped with
+     * METRICS_VERSION and the day of the next birthday, when age (and BMR and caloric intake with
+     * it) changes. FitnessProfileRepository does this on every insert/update so the UI can read
+     * the stored values instead of recalculating them on every render.
+     * @param fp
+     * @param todayEpochDay
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static void updateDerivedMetrics(FitnessProfile fp, long todayEpochDay) {
+        LocalDate dob = fp.getM_dateOfBirth();
+        int heightInInches = calculateHeightInInches(fp.getM_heightFeet(), fp.getM_heightInches());
+        int age = calculateAge(dob.toEpochDay(), todayEpochDay);
+        double bmr = calculateBMR(heightInInches, Sex.fromString(fp.getM_sex()), fp.getM_weightInPounds(), age);
+
+        fp.setM_age(age);
+        fp.setM_bmi(calculateBmi(heightInInches, fp.getM_weightInPounds()));
+        fp.setM_bmr(bmr);
+        fp.setM_dailyCaloricIntake(calculateDailyCaloricIntake(bmr,
+                Lifestyle.fromString(fp.getM_lifestyleSelection()), fp.getM_lbsPerWeek()));
+        fp.setM_metricsVersion(METRICS_VERSION);
+        fp.setM_metricsValidUntil(nextBirthday(dob, age).toEpochDay());
+    }
+
+    /**
+     * @return true if the metrics stored on the profile were calculated with an older version of
+     * the formulas, or a birthday has passed since they were calculated.
+     */
+    public static boolean isDerivedMetricsStale(FitnessProfile fp, long todayEpochDay) {
+        return fp.getM_metricsVersion() != METRICS_VERSION || todayEpochDay >= fp.getM_metricsValidUntil();
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    private static LocalDate nextBirthday(LocalDate dob, int age) {
+        LocalDate birthday = dob.plusYears(age + 1);
+        //plusYears moves Feb 29 to Feb 28, but calculateAge only counts the year on Mar 1
+        return birthday.getDayOfMonth() == dob.getDayOfMonth() ? birthday : birthday.plusDays(1);
+    }
+
+    /**
+     * Parses a date of birth in MM/dd/yyyy format, as entered in the profile form.
+     * @param m_dob
+     * @return The date of birth, or null if m_dob isn't a valid MM/dd/yyyy date.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static LocalDate parseDob(String m_dob) {
+        if (!ValidationUtils.isValidDobFormat(m_dob)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(m_dob.trim(), DOB_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static String formatDob(LocalDate dob) {
+        return dob.format(DOB_FORMAT);
+    }
+
+    /**
+     * Latest date of birth of someone who is at least the given age on the given day, so that
+     * FitnessProfiles in an age range can be found with a range query on the indexed dob column.
+     * @param age
+     * @param today
+     * @return
+     */
+    @RequiresApi(api = Build.VERSION_CODES.O)
+    public static LocalDate latestDobForAge(int age, LocalDate today) {
+        //minusYears moves a Feb 29 today to Feb 28, and anyone born on Feb 28 has had their birthday
+        return today.minusYears(age);
+    }
+
+    /**
+     * Age in whole years on the given day, the same as Period.between(dob, today).getYears(), but
+     * without creating any LocalDates.
+     * @param dobEpochDay Date of birth as days since 1970-01-01
+     * @param todayEpochDay
+     * @return
+     */
+    public static int calculateAge(long dobEpochDay, long todayEpochDay) {
+        return (toYearMonthDay(todayEpochDay) - toYearMonthDay(dobEpochDay)) / 10_000;
+    }
+
+    /**
+     * Converts days since 1970-01-01 to a yyyyMMdd int, e.g., 19930315. Subtracting two of these
+     * and dividing by 10,000 gives the number of whole years between them.
+     * Same arithmetic as LocalDate.ofEpochDay.
+     */
+    static int toYearMonthDay(long epochDay) {
+        long zeroDay = epochDay + 719_528 - 60; //Days since 0000-03-01, so leap days come last
+        long adjust = 0;
+        if (zeroDay < 0) {
+            long adjustCycles = (zeroDay + 1) / 146_097 - 1;
+            adjust = adjustCycles * 400;
+            zeroDay += -adjustCycles * 146_097;
+        }
+        long yearEst = (400 * zeroDay + 591) / 146_097;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        yearEst += adjust;
+        int marchDoy0 = (int) doyEst;
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        int month = (marchMonth0 + 2) % 12 + 1;
+        int dayOfMonth = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+        yearEst += marchMonth0 / 10;
+        return (int) yearEst * 10_000 + month * 100 + dayOfMonth;
+    }
 }
@@ -4,11 +4,9 @@ import android.content.Context;
 import android.location.Address;
 import android.location.Geocoder;
 import android.location.Location;
-import android.os.AsyncTask;
 import android.util.Log;
 
 import com.utahmsd.cs6018.instyle.fragment.DashboardFragment;
-import com.utahmsd.cs6018.instyle.util.mapper.CountryCodeMapper;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
@@ -20,8 +18,6 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Scanner;
-import java.util.concurrent.ExecutionException;
 
 import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidCity;
 import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidCountryName;
@@ -40,42 +36,21 @@ public class GeocoderLocationUtils {
     private static final String DEFAULT_CITY = "SALT+LAKE+CITY";
     private static final String DEFAULT_COUNTRY = "US";
 
-    public static String asyncFetchCoordinatesFromApi(String city, String country) {
-        try {
-            return new AsyncTask<String, Void, String>() {
-                @Override
-                protected String doInBackground(String... params) {
-                    String city = params[0];
-                    String country = params[1];
-
-                    Log.d(LOG_TAG, String.format(
-                            "Fetching coordinates using the Google Geocoder API for %s, %s", city, country));
-                    String countryCode = CountryCodeMapper.getCountryCode(country);
-                    try {
-                        return getCoordinatesFromCityAndCountryCode(city, countryCode);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                    return null;
-                }
-
-    //            @Override
-    //            protected void onPostExecute(String coordinates) {
-    //                Log.d(LOG_TAG, "Coordinates: '" + coordinates + "'");
-    //            }
-            }.execute(city, country).get();
-        } catch (ExecutionException e) {
-            e.printStackTrace();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
+    /**
+     * Fetches the coordinates of a city from the Google Geocoder API, blocking until the response
+     * arrives. Lookups from the UI go through GeocodingService, which caches the result.
+     * @param city
+     * @param countryCode
+     * @return "lat,lng", or null if the city can't be found
+     * @throws IOException
+     */
     public static String getCoordinatesFromCityAndCountryCode(String city, String countryCode) throws IOException {
         URL apiUrl = buildGeocoderApiUrl(city, countryCode);
-        String response = retrieveGeocoderApiResponseFromUrl(apiUrl);
-        return extractCoordinatesFromGeocoderResponse(response);
+        //Parse straight from the response stream rather than buffering the body first
+        return HttpTransport.getInstance().get(apiUrl, (responseCode, body) ->
+                responseCode == HttpURLConnection.HTTP_OK ?
+                        extractCoordinatesFromGeocoderResponse(new JsonParser().parse(body).getAsJsonObject()) :
+                        null);
     }
 
     public static URL buildGeocoderApiUrl(String city, String countryCode) {
@@ -102,7 +77,10 @@ public class GeocoderLocationUtils {
     }
 
     public static String extractCoordinatesFromGeocoderResponse(String jsonResponse) {
-        JsonObject jsonObject = new JsonParser().parse(jsonResponse).getAsJsonObject();
+        return extractCoordinatesFromGeocoderResponse(new JsonParser().parse(jsonResponse).getAsJsonObject());
+    }
+
+    private static String extractCoordinatesFromGeocoderResponse(JsonObject jsonObject) {
         String status = jsonObject.get("status").getAsString();
         if (!status.equals("OK")) {
             Log.d(LOG_TAG, "Error performing Google Maps API Geocoder query");
@@ -117,30 +95,7 @@ public class GeocoderLocationUtils {
 
 
     public static String retrieveGeocoderApiResponseFromUrl(URL url) throws IOException {
-        HttpURLConnection connection =
-                (HttpURLConnection) url.openConnection();
-        connection.connect();
-
-        StringBuilder response = new StringBuilder();
-        Scanner s = null;
-            s = new Scanner(connection.getInputStream());
-
-            if (connection.getResponseCode() != 200) {
-                System.out.println("Error ResponseCode: " + connection.getResponseCode());
-                return null;
-            }
-
-            while (s.hasNext()) {
-                String next = s.nextLine();
-                response.append(next);
-            }
-        if (s != null) {
-            s.close();
-        }
-        if (connection != null) {
-            connection.disconnect();
-        }
-        return response.toString();
+        return HttpTransport.getInstance().getString(url);
     }
     //Location[gps 37.421998,-122.084000 hAcc=20 et=+1h16m59s755ms alt=0.0 vAcc=??? sAcc=??? bAcc=??? {Bundle[mParcelledData.dataSize=96]}]
     public static String parseCoordinatesFromLocation(Location location) {
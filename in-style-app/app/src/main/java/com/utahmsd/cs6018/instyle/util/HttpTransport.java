@@ -0,0 +1,185 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Shared HTTP transport used for calls to the OpenWeatherMap and Google Geocoder APIs.
+ *
+ * Every request asks for a gzip-encoded response and hands the (decompressed) response body
+ * straight to a ResponseHandler as a Reader, so callers can parse directly from the socket instead
+ * of buffering the whole body into a String first. Response bodies are always fully drained and
+ * closed rather than disconnect()ing the connection, which lets HttpURLConnection return the
+ * underlying socket to its keep-alive pool so later requests to the same host reuse it.
+ */
+public class HttpTransport {
+
+    private static final String LOG_TAG = HttpTransport.class.getSimpleName();
+
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10_000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 15_000;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Receives the response of a request. The body Reader is only valid for the duration of the
+     * call and is closed by the transport afterwards.
+     */
+    public interface ResponseHandler<T> {
+        T onResponse(int responseCode, Reader body) throws IOException;
+    }
+
+    private static volatile HttpTransport INSTANCE;
+
+    private volatile int m_connectTimeoutMillis;
+    private volatile int m_readTimeoutMillis;
+
+    private final AtomicLong m_requestCount = new AtomicLong();
+    private final AtomicLong m_failedRequestCount = new AtomicLong();
+    private final AtomicLong m_totalRequestNanos = new AtomicLong();
+    private volatile long m_lastRequestNanos;
+
+    public HttpTransport(int connectTimeoutMillis, int readTimeoutMillis) {
+        m_connectTimeoutMillis = connectTimeoutMillis;
+        m_readTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Static method to ensure only one transport (and therefore one connection pool) is used.
+     * @return
+     */
+    public static HttpTransport getInstance() {
+        if (INSTANCE == null) {
+            synchronized (HttpTransport.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new HttpTransport(DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Performs a GET request and passes the response code and body to the handler.
+     * For non-2xx responses the handler receives the error body (which may be empty).
+     * @param url
+     * @param handler
+     * @return Value returned by the handler.
+     * @throws IOException if the connection fails or times out.
+     */
+    public <T> T get(URL url, ResponseHandler<T> handler) throws IOException {
+        long start = System.nanoTime();
+        boolean success = false;
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setConnectTimeout(m_connectTimeoutMillis);
+            connection.setReadTimeout(m_readTimeoutMillis);
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            connection.setRequestProperty("Accept", "application/json");
+
+            int responseCode = connection.getResponseCode();
+            InputStream stream = responseCode >= 400 ?
+                    connection.getErrorStream() : connection.getInputStream();
+            if (stream == null) { //No error body
+                T result = handler.onResponse(responseCode, new InputStreamReader(emptyStream()));
+                success = true;
+                return result;
+            }
+            if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+                stream = new GZIPInputStream(stream, BUFFER_SIZE);
+            }
+            try (Reader body = new BufferedReader(
+                    new InputStreamReader(stream, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                T result = handler.onResponse(responseCode, body);
+                drain(body); //Consume anything the handler didn't read so the socket can be reused
+                success = true;
+                return result;
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            m_lastRequestNanos = elapsed;
+            m_totalRequestNanos.addAndGet(elapsed);
+            m_requestCount.incrementAndGet();
+            if (!success) {
+                m_failedRequestCount.incrementAndGet();
+            }
+            Log.d(LOG_TAG, String.format("GET %s%s took %.1fms", url.getHost(), url.getPath(),
+                    elapsed / 1_000_000.0));
+        }
+    }
+
+    /**
+     * Performs a GET request and returns the body of a successful (200) response as a String.
+     * @param url
+     * @return Response body, or null if the server responded with any other status code.
+     * @throws IOException
+     */
+    public String getString(URL url) throws IOException {
+        return get(url, (responseCode, body) -> {
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                Log.d(LOG_TAG, "Error ResponseCode: " + responseCode);
+                return null;
+            }
+            return readFully(body);
+        });
+    }
+
+    public static String readFully(Reader reader) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            builder.append(buffer, 0, read);
+        }
+        return builder.toString();
+    }
+
+    private static void drain(Reader reader) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        while (reader.read(buffer) != -1) {
+            //Discard
+        }
+    }
+
+    private static InputStream emptyStream() {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return -1;
+            }
+        };
+    }
+
+    ///////// Configuration ///////////
+
+    public int getConnectTimeoutMillis() { return m_connectTimeoutMillis; }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) { m_connectTimeoutMillis = connectTimeoutMillis; }
+
+    public int getReadTimeoutMillis() { return m_readTimeoutMillis; }
+
+    public void setReadTimeoutMillis(int readTimeoutMillis) { m_readTimeoutMillis = readTimeoutMillis; }
+
+    ///////// Timing ///////////
+
+    public long getRequestCount() { return m_requestCount.get(); }
+
+    public long getFailedRequestCount() { return m_failedRequestCount.get(); }
+
+    public double getLastRequestMillis() { return m_lastRequestNanos / 1_000_000.0; }
+
+    public double getAverageRequestMillis() {
+        long count = m_requestCount.get();
+        return count == 0 ? 0 : m_totalRequestNanos.get() / 1_000_000.0 / count;
+    }
+}
@@ -0,0 +1,136 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import android.util.Log;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size thread pool that records how long tasks wait in the queue and how long they take to
+ * run. Used by AppExecutors to back the disk IO and network pools so that queue depth and task
+ * latency can be inspected (or logged) at runtime.
+ *
+ * execute() never throws to the caller, since it's called from LiveData observers and click
+ * handlers that were never written to handle a rejection. The work queue is unbounded unless a
+ * capacity is given; once a bounded queue is full, the oldest queued task is dropped to make room.
+ * Dropped tasks, and tasks submitted after shutdown, are counted as rejected and logged.
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private static final String LOG_TAG = InstrumentedThreadPoolExecutor.class.getSimpleName();
+
+    private final String m_poolName;
+
+    private final AtomicLong m_completedTasks = new AtomicLong();
+    private final AtomicLong m_rejectedTasks = new AtomicLong();
+    private final AtomicLong m_totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong m_totalRunNanos = new AtomicLong();
+    private final AtomicLong m_maxRunNanos = new AtomicLong();
+    private final AtomicInteger m_maxQueueDepth = new AtomicInteger();
+
+    public InstrumentedThreadPoolExecutor(String poolName, int numThreads) {
+        this(poolName, numThreads, Integer.MAX_VALUE);
+    }
+
+    public InstrumentedThreadPoolExecutor(String poolName, int numThreads, int queueCapacity) {
+        super(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), namedThreadFactory(poolName));
+        m_poolName = poolName;
+        setRejectedExecutionHandler(this::onRejected);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new TimedRunnable(command));
+        m_maxQueueDepth.accumulateAndGet(getQueueDepth(), Math::max);
+    }
+
+    private void onRejected(Runnable task, ThreadPoolExecutor executor) {
+        m_rejectedTasks.incrementAndGet();
+        if (isShutdown()) {
+            Log.d(LOG_TAG, String.format("%s pool is shut down, dropped task", m_poolName));
+            return;
+        }
+        //The oldest queued task is the one most likely to be stale by now (e.g., a view scrolled away)
+        getQueue().poll();
+        Log.d(LOG_TAG, String.format("%s pool queue is full (%d), dropped oldest queued task",
+                m_poolName, getQueueDepth()));
+        super.execute(task);
+    }
+
+    ///////// Metrics ///////////
+
+    public String getPoolName() { return m_poolName; }
+
+    public int getQueueDepth() { return getQueue().size(); }
+
+    public int getMaxQueueDepth() { return m_maxQueueDepth.get(); }
+
+    public long getCompletedTasks() { return m_completedTasks.get(); }
+
+    public long getRejectedTasks() { return m_rejectedTasks.get(); }
+
+    public double getAverageQueueWaitMillis() {
+        long completed = m_completedTasks.get();
+        return completed == 0 ? 0 : nanosToMillis(m_totalQueueWaitNanos.get()) / completed;
+    }
+
+    public double getAverageRunMillis() {
+        long completed = m_completedTasks.get();
+        return completed == 0 ? 0 : nanosToMillis(m_totalRunNanos.get()) / completed;
+    }
+
+    public double getMaxRunMillis() { return nanosToMillis(m_maxRunNanos.get()); }
+
+    public void logMetrics() {
+        Log.d(LOG_TAG, String.format("%s pool: queued=%d (max %d), active=%d, completed=%d, " +
+                        "rejected=%d, avg wait=%.2fms, avg run=%.2fms, max run=%.2fms",
+                m_poolName, getQueueDepth(), getMaxQueueDepth(), getActiveCount(),
+                getCompletedTasks(), getRejectedTasks(), getAverageQueueWaitMillis(),
+                getAverageRunMillis(), getMaxRunMillis()));
+    }
+
+    private static double nanosToMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static ThreadFactory namedThreadFactory(String poolName) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, poolName + "-" + threadCount.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1); //Stay below the UI thread
+            return thread;
+        };
+    }
+
+    /**
+     * Wraps a submitted task so its time spent waiting in the queue and time spent running can be
+     * recorded without relying on beforeExecute/afterExecute bookkeeping per thread.
+     */
+    private class TimedRunnable implements Runnable {
+        private final Runnable m_task;
+        private final long m_enqueuedAt = System.nanoTime();
+
+        TimedRunnable(Runnable task) {
+            m_task = task;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            try {
+                m_task.run();
+            } finally {
+                long runNanos = System.nanoTime() - startedAt;
+                m_totalQueueWaitNanos.addAndGet(startedAt - m_enqueuedAt);
+                m_totalRunNanos.addAndGet(runNanos);
+                m_maxRunNanos.accumulateAndGet(runNanos, Math::max);
+                m_completedTasks.incrementAndGet();
+            }
+        }
+    }
+}
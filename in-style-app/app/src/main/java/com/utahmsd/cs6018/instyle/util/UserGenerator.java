@@ -5,6 +5,7 @@ import com.utahmsd.cs6018.instyle.db.entity.User;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Random;
 import java.util.UUID;
 
@@ -13,7 +14,7 @@ import java.util.UUID;
  * to populate the User database table.
  *
  * User records that are generated have a unique email, to be consistent with the unique index on
- * the email attribute of the User database table.
+ * the email_normalized attribute of the User database table.
  */
 public class UserGenerator {
     private final static String LOG_TAG = UserGenerator.class.getSimpleName();
@@ -39,6 +40,25 @@ public class UserGenerator {
         return user;
     }
 
+    /**
+     * Generates a user deterministically from the given Random. The email is derived from the
+     * user's index rather than a random UUID, so it is unique within a generated data set and the
+     * same seed always produces the same users.
+     * @param random
+     * @param index
+     * @return
+     */
+    public static User generateUser(Random random, int index) {
+        User user = new User();
+        String firstName = firstNames.get(random.nextInt(firstNames.size()));
+        String lastName = lastNames.get(random.nextInt(lastNames.size()));
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail((firstName + "." + lastName + "." + index + "@gmail.com").toLowerCase(Locale.US));
+        user.setPassword(passwords.get(random.nextInt(passwords.size())));
+        return user;
+    }
+
     public static List<User> generateUserData(int numUsers) {
         List<User> users = new ArrayList<>();
         while (users.size() < numUsers) {
@@ -1,7 +1,20 @@
 package com.utahmsd.cs6018.instyle.util;
 
+/**
+ * Input validation for the account and profile forms.
+ *
+ * These are called on every form submit (and for every record of a bulk import), so each check is
+ * a single hand-rolled scan over the trimmed input instead of String.matches, which compiles a new
+ * Pattern on every call. Trimming follows String.trim (anything <= ' ') and whitespace follows the
+ * regex \s class, so the results are the same as the patterns documented on each method.
+ */
 public class ValidationUtils {
 
+    private static final int MAX_WEIGHT = 999;
+    private static final int MIN_HEIGHT_FEET = 4; //Exclusive
+    private static final int MAX_HEIGHT_FEET = 7;
+    private static final int MAX_LBS_PER_WEEK = 5;
+
     public static boolean isValidName(String name) {
         return isValidAlphaCharsWithSpaces(name);
     }
@@ -11,23 +24,111 @@ public class ValidationUtils {
     }
 
     public static boolean isValidCountryName(String countryName) {
-        return ValidationUtils.isNotNullOrEmpty(countryName) && isValidAlphaCharsWithSpaces(countryName);
+        return isValidAlphaCharsWithSpaces(countryName);
     }
 
+    /**
+     * Validates that the trimmed input matches
+     * ^[_A-Za-z0-9-\+]+(\.[_A-Za-z0-9-]+)*@[A-Za-z0-9-]+(\.[A-Za-z0-9]+)*(\.[A-Za-z]{2,})$
+     * i.e., dot separated local part segments (only the first may contain '+'), an '@', then a
+     * domain with at least one dot and a top level domain of two or more letters.
+     * @param input
+     * @return boolean
+     */
     public static boolean isValidEmail(String input) {
-        return isNotNullOrEmpty(input) &&
-                input.trim().matches("^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$");
+        if (!isNotNullOrEmpty(input)) {
+            return false;
+        }
+        int i = trimStart(input);
+        int end = trimEnd(input, i);
+
+        //Local part
+        int segmentStart = i;
+        boolean firstSegment = true;
+        for (; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '.' || c == '@') {
+                if (i == segmentStart) {
+                    return false;
+                }
+                if (c == '@') {
+                    break;
+                }
+                segmentStart = i + 1;
+                firstSegment = false;
+            }
+            else if (!isEmailLocalChar(c) && !(firstSegment && c == '+')) {
+                return false;
+            }
+        }
+        if (i == end) {
+            return false; //No '@'
+        }
+
+        //Domain
+        int labelStart = ++i;
+        int labelCount = 0;
+        boolean alphaLabel = true;
+        for (; i <= end; i++) {
+            char c = i < end ? input.charAt(i) : '.';
+            if (c == '.') {
+                if (i == labelStart) {
+                    return false;
+                }
+                labelCount++;
+                if (i == end) {
+                    break;
+                }
+                labelStart = i + 1;
+                alphaLabel = true;
+            }
+            else if (isAsciiLetter(c)) {
+                continue;
+            }
+            else if (isAsciiDigit(c) || (c == '-' && labelCount == 0)) { //Only the first label may contain '-'
+                alphaLabel = false;
+            }
+            else {
+                return false;
+            }
+        }
+        return labelCount >= 2 && alphaLabel && end - labelStart >= 2;
     }
 
+    /**
+     * Validates that the trimmed input matches [A-Za-z]+
+     */
     public static boolean isValidAlphaChars(String input) {
-        return isNotNullOrEmpty(input) &&
-                input.trim().matches("[A-Za-z]+");
+        if (!isNotNullOrEmpty(input)) {
+            return false;
+        }
+        int start = trimStart(input), end = trimEnd(input, start);
+        for (int i = start; i < end; i++) {
+            if (!isAsciiLetter(input.charAt(i))) {
+                return false;
+            }
+        }
+        return end > start;
     }
 
-
+    /**
+     * Validates that the trimmed input is in MM/DD/YYYY format, i.e., matches [0-9]{2}/[0-9]{2}/[0-9]{4}
+     */
     public static boolean isValidDobFormat(String input) {
-        return isNotNullOrEmpty(input) &&
-                input.trim().matches("[0-9]{2}/[0-9]{2}/[0-9]{4}");
+        if (!isNotNullOrEmpty(input)) {
+            return false;
+        }
+        int start = trimStart(input);
+        if (trimEnd(input, start) - start != 10) {
+            return false;
+        }
+        for (int i = 0; i < 10; i++) {
+            char c = input.charAt(start + i);
+            if (i == 2 || i == 5 ? c != '/' : !isAsciiDigit(c)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -36,9 +137,15 @@ public class ValidationUtils {
      * @return boolean
      */
     public static boolean isValidWeight(String input) {
-        return isNotNullOrEmpty(input) &&
-                input.trim().matches("[0-9]{1,3}")
-                && Integer.parseInt(input.trim()) > 0;
+        if (!isNotNullOrEmpty(input)) {
+            return false;
+        }
+        int start = trimStart(input);
+        return isValidWeight(parseDigits(input, start, trimEnd(input, start), 1, 3));
+    }
+
+    public static boolean isValidWeight(int weightInPounds) {
+        return weightInPounds > 0 && weightInPounds <= MAX_WEIGHT;
     }
 
     /**
@@ -50,52 +157,183 @@ public class ValidationUtils {
      * @return boolean
      */
     public static boolean isValidHeight(String feet, String inches) {
-        if (!isNotNullOrEmpty(inches)) {
-            return isNotNullOrEmpty(feet) &&
-                    feet.trim().matches("[0-9]{1,2}") &&
-                    inches.trim().matches("[0-9]{0,2}") &&
-                    Integer.parseInt(feet.trim()) > 4 &&
-                    Integer.parseInt(feet.trim()) <= 7;
-        }
-        return isNotNullOrEmpty(feet) &&
-                feet.trim().matches("[0-9]{1,2}") &&
-                inches.trim().matches("[0-9]{0,2}") &&
-                Integer.parseInt(feet.trim()) > 4 &&
-                Integer.parseInt(feet.trim()) <= 7 &&
-                Integer.parseInt(inches.trim()) >= 0 &&
-                Integer.parseInt(inches.trim()) <= 12;
+        if (!isNotNullOrEmpty(feet)) {
+            return false;
+        }
+        int start = trimStart(feet);
+        int feetValue = parseDigits(feet, start, trimEnd(feet, start), 1, 2);
+        if (inches == null) {
+            return isValidHeight(feetValue, 0);
+        }
+        start = trimStart(inches);
+        return isValidHeight(feetValue, parseDigits(inches, start, trimEnd(inches, start), 0, 2));
     }
 
+    public static boolean isValidHeight(int feet, int inches) {
+        return feet > MIN_HEIGHT_FEET && feet <= MAX_HEIGHT_FEET && inches >= 0 && inches <= 12;
+    }
+
+    /**
+     * Validates that the trimmed input matches [a-zA-Z\s]+
+     */
     public static boolean isValidAlphaCharsWithSpaces(String input) {
-        return isNotNullOrEmpty(input) && input.trim().matches("[a-zA-Z\\s]+");
+        if (!isNotNullOrEmpty(input)) {
+            return false;
+        }
+        int start = trimStart(input), end = trimEnd(input, start);
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (!isAsciiLetter(c) && !isRegexWhitespace(c)) {
+                return false;
+            }
+        }
+        return end > start;
     }
 
+    /**
+     * Validates that the trimmed input matches [A-Za-z0-9]+
+     */
     public static boolean isValidAlphaNumericChars(String input) {
-        return isNotNullOrEmpty(input) &&
-                input.trim().matches("[A-Za-z0-9]+");
+        if (!isNotNullOrEmpty(input)) {
+            return false;
+        }
+        int start = trimStart(input), end = trimEnd(input, start);
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (!isAsciiLetter(c) && !isAsciiDigit(c)) {
+                return false;
+            }
+        }
+        return end > start;
     }
 
+    /**
+     * Validates that the trimmed input matches [0-9]+
+     */
     public static boolean isValidNumericChars(String input) {
-        return isNotNullOrEmpty(input) &&
-                input.trim().matches("[0-9]+");
+        if (!isNotNullOrEmpty(input)) {
+            return false;
+        }
+        int start = trimStart(input);
+        return isDigits(input, start, trimEnd(input, start));
     }
 
+    /**
+     * Returns false if the input is null, empty, or only whitespace.
+     */
     public static boolean isNotNullOrEmpty(String input) {
-        return input != null && !input.isEmpty() && !input.matches("^\\s+$");
+        if (input == null) {
+            return false;
+        }
+        for (int i = 0; i < input.length(); i++) {
+            if (!isRegexWhitespace(input.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public static boolean isValidSex(String input) {
-        return input.equalsIgnoreCase("M") ||
-                input.equalsIgnoreCase("F");
+        return input != null && (input.equalsIgnoreCase("M") || input.equalsIgnoreCase("F"));
     }
 
+    /**
+     * Validates that the weekly weight change entered by user is a whole number of pounds, at
+     * most 5lbs/week. The sign comes from the weight goal, so the input itself has no sign.
+     * @param lbsPerWeek
+     * @return boolean
+     */
     public static boolean isValidWeightPlan(String lbsPerWeek){
-        return isValidNumericChars(lbsPerWeek) &&
-                Integer.parseInt(lbsPerWeek) >= -5 &&
-                Integer.parseInt(lbsPerWeek) <= 5;
+        if (lbsPerWeek == null) {
+            return false;
+        }
+        //Not trimmed, since the profile form parses this value as is
+        int value = parseDigits(lbsPerWeek, 0, lbsPerWeek.length(), 1, Integer.MAX_VALUE);
+        return value >= 0 && isValidWeightPlan(value);
+    }
+
+    /**
+     * Validates a signed weekly weight change, i.e., negative to lose weight.
+     */
+    public static boolean isValidWeightPlan(int lbsPerWeek) {
+        return lbsPerWeek >= -MAX_LBS_PER_WEEK && lbsPerWeek <= MAX_LBS_PER_WEEK;
     }
 
     public static boolean isValidEmailAndPassword(String email, String password) {
         return isValidEmail(email) && isNotNullOrEmpty(password);
     }
+
+    ///////// Scanners ///////////
+
+    /**
+     * Parses the digits in [start, end) if there are between minDigits and maxDigits of them.
+     * An empty range (when minDigits is 0) parses as 0.
+     * @return The value, or -1 if the range isn't all digits, has the wrong number of digits, or
+     * overflows an int.
+     */
+    static int parseDigits(String input, int start, int end, int minDigits, int maxDigits) {
+        int length = end - start;
+        if (length < minDigits || length > maxDigits) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (!isAsciiDigit(c) || value > (Integer.MAX_VALUE - (c - '0')) / 10) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigits(String input, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isAsciiDigit(input.charAt(i))) {
+                return false;
+            }
+        }
+        return end > start;
+    }
+
+    /**
+     * Index of the first character String.trim would keep.
+     */
+    static int trimStart(String input) {
+        int start = 0;
+        while (start < input.length() && input.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Index after the last character String.trim would keep, or start if it keeps nothing.
+     */
+    static int trimEnd(String input, int start) {
+        int end = input.length();
+        while (end > start && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isEmailLocalChar(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c) || c == '_' || c == '-';
+    }
+
+    /**
+     * Same characters as the regex \s class: [ \t\n\x0B\f\r]
+     */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
 }
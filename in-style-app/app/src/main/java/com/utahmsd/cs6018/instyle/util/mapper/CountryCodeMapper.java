@@ -1,298 +1,453 @@
 package com.utahmsd.cs6018.instyle.util.mapper;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
 
+/**
+ * Maps between country names and their two letter country codes.
+ *
+ * The index is built once when the class is loaded (so it's safe to use from any thread) and
+ * never changes afterwards. Lookups in both directions are hash lookups, and match country names
+ * ignoring case and extra whitespace, and country codes ignoring case. Country names are also
+ * kept sorted so that findCountryNamesByPrefix can autocomplete with a binary search.
+ */
 public class CountryCodeMapper {
 
-    private final static HashMap<String, String> countryCodeMap = new HashMap<>();
-    private static ArrayList<String> countryKeys = new ArrayList<>();
+    private static final Map<String, String> COUNTRY_CODE_MAP; //Country name -> country code
+    private static final Map<String, String> CODE_BY_NORMALIZED_NAME;
+    private static final Map<String, String> NAME_BY_NORMALIZED_NAME;
+    private static final Map<String, String> NAME_BY_CODE;
 
-    public CountryCodeMapper() {
-        countryCodeMap.put("Andorra, Principality Of", "AD");
-        countryCodeMap.put("United Arab Emirates", "AE");
-        countryCodeMap.put("Afghanistan, Islamic State Of", "AF");
-        countryCodeMap.put("Antigua And Barbuda", "AG");
-        countryCodeMap.put("Anguilla", "AI");
-        countryCodeMap.put("Albania", "AL");
-        countryCodeMap.put("Armenia", "AM");
-        countryCodeMap.put("Netherlands Antilles", "AN");
-        countryCodeMap.put("Angola", "AO");
-        countryCodeMap.put("Antarctica", "AQ");
-        countryCodeMap.put("Argentina", "AR");
-        countryCodeMap.put("American Samoa", "AS");
-        countryCodeMap.put("Austria", "AT");
-        countryCodeMap.put("Australia", "AU");
-        countryCodeMap.put("Aruba", "AW");
-        countryCodeMap.put("Azerbaidjan", "AZ");
-        countryCodeMap.put("Bosnia-Herzegovina", "BA");
-        countryCodeMap.put("Barbados", "BB");
-        countryCodeMap.put("Bangladesh", "BD");
-        countryCodeMap.put("Belgium", "BE");
-        countryCodeMap.put("Burkina Faso", "BF");
-        countryCodeMap.put("Bulgaria", "BG");
-        countryCodeMap.put("Bahrain", "BH");
-        countryCodeMap.put("Burundi", "BI");
-        countryCodeMap.put("Benin", "BJ");
-        countryCodeMap.put("Bermuda", "BM");
-        countryCodeMap.put("Brunei Darussalam", "BN");
-        countryCodeMap.put("Bolivia", "BO");
-        countryCodeMap.put("Brazil", "BR");
-        countryCodeMap.put("Bahamas", "BS");
-        countryCodeMap.put("Bhutan", "BT");
-        countryCodeMap.put("Bouvet Island", "BV");
-        countryCodeMap.put("Botswana", "BW");
-        countryCodeMap.put("Belarus", "BY");
-        countryCodeMap.put("Belize", "BZ");
-        countryCodeMap.put("Canada", "CA");
-        countryCodeMap.put("Cocos (Keeling) Islands", "CC");
-        countryCodeMap.put("Central African Republic", "CF");
-        countryCodeMap.put("Congo, The Democratic Republic Of The", "CD");
-        countryCodeMap.put("Congo", "CG");
-        countryCodeMap.put("Switzerland", "CH");
-        countryCodeMap.put("Ivory Coast (Cote D'Ivoire)", "CI");
-        countryCodeMap.put("Cook Islands", "CK");
-        countryCodeMap.put("Chile", "CL");
-        countryCodeMap.put("Cameroon", "CM");
-        countryCodeMap.put("China", "CN");
-        countryCodeMap.put("Colombia", "CO");
-        countryCodeMap.put("Costa Rica", "CR");
-        countryCodeMap.put("Former Czechoslovakia", "CS");
-        countryCodeMap.put("Cuba", "CU");
-        countryCodeMap.put("Cape Verde", "CV");
-        countryCodeMap.put("Christmas Island", "CX");
-        countryCodeMap.put("Cyprus", "CY");
-        countryCodeMap.put("Czech Republic", "CZ");
-        countryCodeMap.put("Germany", "DE");
-        countryCodeMap.put("Djibouti", "DJ");
-        countryCodeMap.put("Denmark", "DK");
-        countryCodeMap.put("Dominica", "DM");
-        countryCodeMap.put("Dominican Republic", "DO");
-        countryCodeMap.put("Algeria", "DZ");
-        countryCodeMap.put("Ecuador", "EC");
-        countryCodeMap.put("Estonia", "EE");
-        countryCodeMap.put("Egypt", "EG");
-        countryCodeMap.put("Western Sahara", "EH");
-        countryCodeMap.put("Eritrea", "ER");
-        countryCodeMap.put("Spain", "ES");
-        countryCodeMap.put("Ethiopia", "ET");
-        countryCodeMap.put("Finland", "FI");
-        countryCodeMap.put("Fiji", "FJ");
-        countryCodeMap.put("Falkland Islands", "FK");
-        countryCodeMap.put("Micronesia", "FM");
-        countryCodeMap.put("Faroe Islands", "FO");
-        countryCodeMap.put("France", "FR");
-        countryCodeMap.put("France (European Territory)", "FX");
-        countryCodeMap.put("Gabon", "GA");
-        countryCodeMap.put("Great Britain", "UK");
-        countryCodeMap.put("Grenada", "GD");
-        countryCodeMap.put("Georgia", "GE");
-        countryCodeMap.put("French Guyana", "GF");
-        countryCodeMap.put("Ghana", "GH");
-        countryCodeMap.put("Gibraltar", "GI");
-        countryCodeMap.put("Greenland", "GL");
-        countryCodeMap.put("Gambia", "GM");
-        countryCodeMap.put("Guinea", "GN");
-        countryCodeMap.put("Guadeloupe (French)", "GP");
-        countryCodeMap.put("Equatorial Guinea", "GQ");
-        countryCodeMap.put("Greece", "GR");
-        countryCodeMap.put("S. Georgia & S. Sandwich Isls.", "GS");
-        countryCodeMap.put("Guatemala", "GT");
-        countryCodeMap.put("Guam (USA)", "GU");
-        countryCodeMap.put("Guinea Bissau", "GW");
-        countryCodeMap.put("Guyana", "GY");
-        countryCodeMap.put("Hong Kong", "HK");
-        countryCodeMap.put("Heard And McDonald Islands", "HM");
-        countryCodeMap.put("Honduras", "HN");
-        countryCodeMap.put("Croatia", "HR");
-        countryCodeMap.put("Haiti", "HT");
-        countryCodeMap.put("Hungary", "HU");
-        countryCodeMap.put("Indonesia", "ID");
-        countryCodeMap.put("Ireland", "IE");
-        countryCodeMap.put("Israel", "IL");
-        countryCodeMap.put("India", "IN");
-        countryCodeMap.put("British Indian Ocean Territory", "IO");
-        countryCodeMap.put("Iraq", "IQ");
-        countryCodeMap.put("Iran", "IR");
-        countryCodeMap.put("Iceland", "IS");
-        countryCodeMap.put("Italy", "IT");
-        countryCodeMap.put("Jamaica", "JM");
-        countryCodeMap.put("Jordan", "JO");
-        countryCodeMap.put("Japan", "JP");
-        countryCodeMap.put("Kenya", "KE");
-        countryCodeMap.put("Kyrgyz Republic (Kyrgyzstan)", "KG");
-        countryCodeMap.put("Cambodia, Kingdom Of", "KH");
-        countryCodeMap.put("Kiribati", "KI");
-        countryCodeMap.put("Comoros", "KM");
-        countryCodeMap.put("Saint Kitts & Nevis Anguilla", "KN");
-        countryCodeMap.put("Korea", "KR");
-        countryCodeMap.put("Kuwait", "KW");
-        countryCodeMap.put("Cayman Islands", "KY");
-        countryCodeMap.put("Kazakhstan", "KZ");
-        countryCodeMap.put("Laos", "LA");
-        countryCodeMap.put("Lebanon", "LB");
-        countryCodeMap.put("Saint Lucia", "LC");
-        countryCodeMap.put("Liechtenstein", "LI");
-        countryCodeMap.put("Sri Lanka", "LK");
-        countryCodeMap.put("Liberia", "LR");
-        countryCodeMap.put("Lesotho", "LS");
-        countryCodeMap.put("Lithuania", "LT");
-        countryCodeMap.put("Luxembourg", "LU");
-        countryCodeMap.put("Latvia", "LV");
-        countryCodeMap.put("Libya", "LY");
-        countryCodeMap.put("Morocco", "MA");
-        countryCodeMap.put("Monaco", "MC");
-        countryCodeMap.put("Moldavia", "MD");
-        countryCodeMap.put("Madagascar", "MG");
-        countryCodeMap.put("Marshall Islands", "MH");
-        countryCodeMap.put("Macedonia", "MK");
-        countryCodeMap.put("Mali", "ML");
-        countryCodeMap.put("Myanmar", "MM");
-        countryCodeMap.put("Mongolia", "MN");
-        countryCodeMap.put("Macau", "MO");
-        countryCodeMap.put("Northern Mariana Islands", "MP");
-        countryCodeMap.put("Martinique (French)", "MQ");
-        countryCodeMap.put("Mauritania", "MR");
-        countryCodeMap.put("Montserrat", "MS");
-        countryCodeMap.put("Malta", "MT");
-        countryCodeMap.put("Mauritius", "MU");
-        countryCodeMap.put("Maldives", "MV");
-        countryCodeMap.put("Malawi", "MW");
-        countryCodeMap.put("Mexico", "MX");
-        countryCodeMap.put("Malaysia", "MY");
-        countryCodeMap.put("Mozambique", "MZ");
-        countryCodeMap.put("Namibia", "NA");
-        countryCodeMap.put("New Caledonia (French)", "NC");
-        countryCodeMap.put("Niger", "NE");
-        countryCodeMap.put("Norfolk Island", "NF");
-        countryCodeMap.put("Nigeria", "NG");
-        countryCodeMap.put("Nicaragua", "NI");
-        countryCodeMap.put("Netherlands", "NL");
-        countryCodeMap.put("Norway", "NO");
-        countryCodeMap.put("Nepal", "NP");
-        countryCodeMap.put("Nauru", "NR");
-        countryCodeMap.put("Neutral Zone", "NT");
-        countryCodeMap.put("Niue", "NU");
-        countryCodeMap.put("New Zealand", "NZ");
-        countryCodeMap.put("Oman", "OM");
-        countryCodeMap.put("Panama", "PA");
-        countryCodeMap.put("Peru", "PE");
-        countryCodeMap.put("Polynesia (French)", "PF");
-        countryCodeMap.put("Papua New Guinea", "PG");
-        countryCodeMap.put("Philippines", "PH");
-        countryCodeMap.put("Pakistan", "PK");
-        countryCodeMap.put("Poland", "PL");
-        countryCodeMap.put("Saint Pierre And Miquelon", "PM");
-        countryCodeMap.put("Pitcairn Island", "PN");
-        countryCodeMap.put("Puerto Rico", "PR");
-        countryCodeMap.put("Portugal", "PT");
-        countryCodeMap.put("Palau", "PW");
-        countryCodeMap.put("Paraguay", "PY");
-        countryCodeMap.put("Qatar", "QA");
-        countryCodeMap.put("Reunion (French)", "RE");
-        countryCodeMap.put("Romania", "RO");
-        countryCodeMap.put("Russian Federation", "RU");
-        countryCodeMap.put("Rwanda", "RW");
-        countryCodeMap.put("Saudi Arabia", "SA");
-        countryCodeMap.put("Solomon Islands", "SB");
-        countryCodeMap.put("Seychelles", "SC");
-        countryCodeMap.put("Sudan", "SD");
-        countryCodeMap.put("Sweden", "SE");
-        countryCodeMap.put("Singapore", "SG");
-        countryCodeMap.put("Saint Helena", "SH");
-        countryCodeMap.put("Slovenia", "SI");
-        countryCodeMap.put("Svalbard And Jan Mayen Islands", "SJ");
-        countryCodeMap.put("Slovak Republic", "SK");
-        countryCodeMap.put("Sierra Leone", "SL");
-        countryCodeMap.put("San Marino", "SM");
-        countryCodeMap.put("Senegal", "SN");
-        countryCodeMap.put("Somalia", "SO");
-        countryCodeMap.put("Suriname", "SR");
-        countryCodeMap.put("Saint Tome (Sao Tome) And Principe", "ST");
-        countryCodeMap.put("Former USSR", "SU");
-        countryCodeMap.put("El Salvador", "SV");
-        countryCodeMap.put("Syria", "SY");
-        countryCodeMap.put("Swaziland", "SZ");
-        countryCodeMap.put("Turks And Caicos Islands", "TC");
-        countryCodeMap.put("Chad", "TD");
-        countryCodeMap.put("French Southern Territories", "TF");
-        countryCodeMap.put("Togo", "TG");
-        countryCodeMap.put("Thailand", "TH");
-        countryCodeMap.put("Tadjikistan", "TJ");
-        countryCodeMap.put("Tokelau", "TK");
-        countryCodeMap.put("Turkmenistan", "TM");
-        countryCodeMap.put("Tunisia", "TN");
-        countryCodeMap.put("Tonga", "TO");
-        countryCodeMap.put("East Timor", "TP");
-        countryCodeMap.put("Turkey", "TR");
-        countryCodeMap.put("Trinidad And Tobago", "TT");
-        countryCodeMap.put("Tuvalu", "TV");
-        countryCodeMap.put("Taiwan", "TW");
-        countryCodeMap.put("Tanzania", "TZ");
-        countryCodeMap.put("Ukraine", "UA");
-        countryCodeMap.put("Uganda", "UG");
-        countryCodeMap.put("United Kingdom", "UK");
-        countryCodeMap.put("USA Minor Outlying Islands", "UM");
-        countryCodeMap.put("United States", "US");
-        countryCodeMap.put("Uruguay", "UY");
-        countryCodeMap.put("Uzbekistan", "UZ");
-        countryCodeMap.put("Holy See (Vatican City State)", "VA");
-        countryCodeMap.put("Saint Vincent & Grenadines", "VC");
-        countryCodeMap.put("Venezuela", "VE");
-        countryCodeMap.put("Virgin Islands (British)", "VG");
-        countryCodeMap.put("Virgin Islands (USA)", "VI");
-        countryCodeMap.put("Vietnam", "VN");
-        countryCodeMap.put("Vanuatu", "VU");
-        countryCodeMap.put("Wallis And Futuna Islands", "WF");
-        countryCodeMap.put("Samoa", "WS");
-        countryCodeMap.put("Yemen", "YE");
-        countryCodeMap.put("Mayotte", "YT");
-        countryCodeMap.put("Yugoslavia", "YU");
-        countryCodeMap.put("South Africa", "ZA");
-        countryCodeMap.put("Zambia", "ZM");
-        countryCodeMap.put("Zaire", "ZR");
-        countryCodeMap.put("Zimbabwe", "ZW");
+    private static final List<String> COUNTRY_NAMES; //Sorted by normalized name
+    private static final String[] NORMALIZED_NAMES; //Parallel to COUNTRY_NAMES
 
-        countryKeys.addAll(countryCodeMap.keySet());
-        Collections.sort(countryKeys);
+    static {
+        Map<String, String> countries = loadCountryCodes();
+
+        Map<String, String> codeByNormalizedName = new HashMap<>(countries.size() * 2);
+        Map<String, String> nameByNormalizedName = new HashMap<>(countries.size() * 2);
+        Map<String, String> nameByCode = new HashMap<>(countries.size() * 2);
+        for (Map.Entry<String, String> country : countries.entrySet()) {
+            String normalizedName = normalizeCountryName(country.getKey());
+            codeByNormalizedName.put(normalizedName, country.getValue());
+            nameByNormalizedName.put(normalizedName, country.getKey());
+            //Where several names share a code (i.e., Great Britain and United Kingdom), the last one listed is used
+            nameByCode.put(country.getValue(), country.getKey());
+        }
+
+        String[] names = countries.keySet().toArray(new String[0]);
+        String[] normalizedNames = new String[names.length];
+        Arrays.sort(names, (first, second) ->
+                normalizeCountryName(first).compareTo(normalizeCountryName(second)));
+        for (int i = 0; i < names.length; i++) {
+            normalizedNames[i] = normalizeCountryName(names[i]);
+        }
+
+        COUNTRY_CODE_MAP = Collections.unmodifiableMap(countries);
+        CODE_BY_NORMALIZED_NAME = codeByNormalizedName;
+        NAME_BY_NORMALIZED_NAME = nameByNormalizedName;
+        NAME_BY_CODE = nameByCode;
+        COUNTRY_NAMES = Collections.unmodifiableList(Arrays.asList(names));
+        NORMALIZED_NAMES = normalizedNames;
+    }
+
+    private CountryCodeMapper() {
     }
 
+    private static Map<String, String> loadCountryCodes() {
+        Map<String, String> countries = new LinkedHashMap<>();
+        countries.put("Andorra, Principality Of", "AD");
+        countries.put("United Arab Emirates", "AE");
+        countries.put("Afghanistan, Islamic State Of", "AF");
+        countries.put("Antigua And Barbuda", "AG");
+        countries.put("Anguilla", "AI");
+        countries.put("Albania", "AL");
+        countries.put("Armenia", "AM");
+        countries.put("Netherlands Antilles", "AN");
+        countries.put("Angola", "AO");
+        countries.put("Antarctica", "AQ");
+        countries.put("Argentina", "AR");
+        countries.put("American Samoa", "AS");
+        countries.put("Austria", "AT");
+        countries.put("Australia", "AU");
+        countries.put("Aruba", "AW");
+        countries.put("Azerbaidjan", "AZ");
+        countries.put("Bosnia-Herzegovina", "BA");
+        countries.put("Barbados", "BB");
+        countries.put("Bangladesh", "BD");
+        countries.put("Belgium", "BE");
+        countries.put("Burkina Faso", "BF");
+        countries.put("Bulgaria", "BG");
+        countries.put("Bahrain", "BH");
+        countries.put("Burundi", "BI");
+        countries.put("Benin", "BJ");
+        countries.put("Bermuda", "BM");
+        countries.put("Brunei Darussalam", "BN");
+        countries.put("Bolivia", "BO");
+        countries.put("Brazil", "BR");
+        countries.put("Bahamas", "BS");
+        countries.put("Bhutan", "BT");
+        countries.put("Bouvet Island", "BV");
+        countries.put("Botswana", "BW");
+        countries.put("Belarus", "BY");
+        countries.put("Belize", "BZ");
+        countries.put("Canada", "CA");
+        countries.put("Cocos (Keeling) Islands", "CC");
+        countries.put("Central African Republic", "CF");
+        countries.put("Congo, The Democratic Republic Of The", "CD");
+        countries.put("Congo", "CG");
+        countries.put("Switzerland", "CH");
+        countries.put("Ivory Coast (Cote D'Ivoire)", "CI");
+        countries.put("Cook Islands", "CK");
+        countries.put("Chile", "CL");
+        countries.put("Cameroon", "CM");
+        countries.put("China", "CN");
+        countries.put("Colombia", "CO");
+        countries.put("Costa Rica", "CR");
+        countries.put("Former Czechoslovakia", "CS");
+        countries.put("Cuba", "CU");
+        countries.put("Cape Verde", "CV");
+        countries.put("Christmas Island", "CX");
+        countries.put("Cyprus", "CY");
+        countries.put("Czech Republic", "CZ");
+        countries.put("Germany", "DE");
+        countries.put("Djibouti", "DJ");
+        countries.put("Denmark", "DK");
+        countries.put("Dominica", "DM");
+        countries.put("Dominican Republic", "DO");
+        countries.put("Algeria", "DZ");
+        countries.put("Ecuador", "EC");
+        countries.put("Estonia", "EE");
+        countries.put("Egypt", "EG");
+        countries.put("Western Sahara", "EH");
+        countries.put("Eritrea", "ER");
+        countries.put("Spain", "ES");
+        countries.put("Ethiopia", "ET");
+        countries.put("Finland", "FI");
+        countries.put("Fiji", "FJ");
+        countries.put("Falkland Islands", "FK");
+        countries.put("Micronesia", "FM");
+        countries.put("Faroe Islands", "FO");
+        countries.put("France", "FR");
+        countries.put("France (European Territory)", "FX");
+        countries.put("Gabon", "GA");
+        countries.put("Great Britain", "UK");
+        countries.put("Grenada", "GD");
+        countries.put("Georgia", "GE");
+        countries.put("French Guyana", "GF");
+        countries.put("Ghana", "GH");
+        countries.put("Gibraltar", "GI");
+        countries.put("Greenland", "GL");
+        countries.put("Gambia", "GM");
+        countries.put("Guinea", "GN");
+        countries.put("Guadeloupe (French)", "GP");
+        countries.put("Equatorial Guinea", "GQ");
+        countries.put("Greece", "GR");
+        countries.put("S. Georgia & S. Sandwich Isls.", "GS");
+        countries.put("Guatemala", "GT");
+        countries.put("Guam (USA)", "GU");
+        countries.put("Guinea Bissau", "GW");
+        countries.put("Guyana", "GY");
+        countries.put("Hong Kong", "HK");
+        countries.put("Heard And McDonald Islands", "HM");
+        countries.put("Honduras", "HN");
+        countries.put("Croatia", "HR");
+        countries.put("Haiti", "HT");
+        countries.put("Hungary", "HU");
+        countries.put("Indonesia", "ID");
+        countries.put("Ireland", "IE");
+        countries.put("Israel", "IL");
+        countries.put("India", "IN");
+        countries.put("British Indian Ocean Territory", "IO");
+        countries.put("Iraq", "IQ");
+        countries.put("Iran", "IR");
+        countries.put("Iceland", "IS");
+        countries.put("Italy", "IT");
+        countries.put("Jamaica", "JM");
+        countries.put("Jordan", "JO");
+        countries.put("Japan", "JP");
+        countries.put("Kenya", "KE");
+        countries.put("Kyrgyz Republic (Kyrgyzstan)", "KG");
+        countries.put("Cambodia, Kingdom Of", "KH");
+        countries.put("Kiribati", "KI");
+        countries.put("Comoros", "KM");
+        countries.put("Saint Kitts & Nevis Anguilla", "KN");
+        countries.put("Korea", "KR");
+        countries.put("Kuwait", "KW");
+        countries.put("Cayman Islands", "KY");
+        countries.put("Kazakhstan", "KZ");
+        countries.put("Laos", "LA");
+        countries.put("Lebanon", "LB");
+        countries.put("Saint Lucia", "LC");
+        countries.put("Liechtenstein", "LI");
+        countries.put("Sri Lanka", "LK");
+        countries.put("Liberia", "LR");
+        countries.put("Lesotho", "LS");
+        countries.put("Lithuania", "LT");
+        countries.put("Luxembourg", "LU");
+        countries.put("Latvia", "LV");
+        countries.put("Libya", "LY");
+        countries.put("Morocco", "MA");
+        countries.put("Monaco", "MC");
+        countries.put("Moldavia", "MD");
+        countries.put("Madagascar", "MG");
+        countries.put("Marshall Islands", "MH");
+        countries.put("Macedonia", "MK");
+        countries.put("Mali", "ML");
+        countries.put("Myanmar", "MM");
+        countries.put("Mongolia", "MN");
+        countries.put("Macau", "MO");
+        countries.put("Northern Mariana Islands", "MP");
+        countries.put("Martinique (French)", "MQ");
+        countries.put("Mauritania", "MR");
+        countries.put("Montserrat", "MS");
+        countries.put("Malta", "MT");
+        countries.put("Mauritius", "MU");
+        countries.put("Maldives", "MV");
+        countries.put("Malawi", "MW");
+        countries.put("Mexico", "MX");
+        countries.put("Malaysia", "MY");
+        countries.put("Mozambique", "MZ");
+        countries.put("Namibia", "NA");
+        countries.put("New Caledonia (French)", "NC");
+        countries.put("Niger", "NE");
+        countries.put("Norfolk Island", "NF");
+        countries.put("Nigeria", "NG");
+        countries.put("Nicaragua", "NI");
+        countries.put("Netherlands", "NL");
+        countries.put("Norway", "NO");
+        countries.put("Nepal", "NP");
+        countries.put("Nauru", "NR");
+        countries.put("Neutral Zone", "NT");
+        countries.put("Niue", "NU");
+        countries.put("New Zealand", "NZ");
+        countries.put("Oman", "OM");
+        countries.put("Panama", "PA");
+        countries.put("Peru", "PE");
+        countries.put("Polynesia (French)", "PF");
+        countries.put("Papua New Guinea", "PG");
+        countries.put("Philippines", "PH");
+        countries.put("Pakistan", "PK");
+        countries.put("Poland", "PL");
+        countries.put("Saint Pierre And Miquelon", "PM");
+        countries.put("Pitcairn Island", "PN");
+        countries.put("Puerto Rico", "PR");
+        countries.put("Portugal", "PT");
+        countries.put("Palau", "PW");
+        countries.put("Paraguay", "PY");
+        countries.put("Qatar", "QA");
+        countries.put("Reunion (French)", "RE");
+        countries.put("Romania", "RO");
+        countries.put("Russian Federation", "RU");
+        countries.put("Rwanda", "RW");
+        countries.put("Saudi Arabia", "SA");
+        countries.put("Solomon Islands", "SB");
+        countries.put("Seychelles", "SC");
+        countries.put("Sudan", "SD");
+        countries.put("Sweden", "SE");
+        countries.put("Singapore", "SG");
+        countries.put("Saint Helena", "SH");
+        countries.put("Slovenia", "SI");
+        countries.put("Svalbard And Jan Mayen Islands", "SJ");
+        countries.put("Slovak Republic", "SK");
+        countries.put("Sierra Leone", "SL");
+        countries.put("San Marino", "SM");
+        countries.put("Senegal", "SN");
+        countries.put("Somalia", "SO");
+        countries.put("Suriname", "SR");
+        countries.put("Saint Tome (Sao Tome) And Principe", "ST");
+        countries.put("Former USSR", "SU");
+        countries.put("El Salvador", "SV");
+        countries.put("Syria", "SY");
+        countries.put("Swaziland", "SZ");
+        countries.put("Turks And Caicos Islands", "TC");
+        countries.put("Chad", "TD");
+        countries.put("French Southern Territories", "TF");
+        countries.put("Togo", "TG");
+        countries.put("Thailand", "TH");
+        countries.put("Tadjikistan", "TJ");
+        countries.put("Tokelau", "TK");
+        countries.put("Turkmenistan", "TM");
+        countries.put("Tunisia", "TN");
+        countries.put("Tonga", "TO");
+        countries.put("East Timor", "TP");
+        countries.put("Turkey", "TR");
+        countries.put("Trinidad And Tobago", "TT");
+        countries.put("Tuvalu", "TV");
+        countries.put("Taiwan", "TW");
+        countries.put("Tanzania", "TZ");
+        countries.put("Ukraine", "UA");
+        countries.put("Uganda", "UG");
+        countries.put("United Kingdom", "UK");
+        countries.put("USA Minor Outlying Islands", "UM");
+        countries.put("United States", "US");
+        countries.put("Uruguay", "UY");
+        countries.put("Uzbekistan", "UZ");
+        countries.put("Holy See (Vatican City State)", "VA");
+        countries.put("Saint Vincent & Grenadines", "VC");
+        countries.put("Venezuela", "VE");
+        countries.put("Virgin Islands (British)", "VG");
+        countries.put("Virgin Islands (USA)", "VI");
+        countries.put("Vietnam", "VN");
+        countries.put("Vanuatu", "VU");
+        countries.put("Wallis And Futuna Islands", "WF");
+        countries.put("Samoa", "WS");
+        countries.put("Yemen", "YE");
+        countries.put("Mayotte", "YT");
+        countries.put("Yugoslavia", "YU");
+        countries.put("South Africa", "ZA");
+        countries.put("Zambia", "ZM");
+        countries.put("Zaire", "ZR");
+        countries.put("Zimbabwe", "ZW");
+        return countries;
+    }
+
+    /**
+     * @param countryName Country name, in any case
+     * @return The two letter country code, or null if the country name isn't known
+     */
     public static String getCountryCode(String countryName){
-        if (countryCodeMap.isEmpty()) {
-            CountryCodeMapper mapper = new CountryCodeMapper();
+        if (countryName == null) {
+            return null;
+        }
+        String countryCode = COUNTRY_CODE_MAP.get(countryName); //Exact match, without normalizing
+        return countryCode != null ? countryCode : CODE_BY_NORMALIZED_NAME.get(normalizeCountryName(countryName));
+    }
+
+    /**
+     * @param countryName Country name, in any case
+     * @return The country name as it's listed in getCountryNames, or null if it isn't known
+     */
+    public static String findCountryName(String countryName) {
+        if (countryName == null) {
+            return null;
         }
-        return countryCodeMap.getOrDefault(countryName, null);
+        return COUNTRY_CODE_MAP.containsKey(countryName) ?
+                countryName : NAME_BY_NORMALIZED_NAME.get(normalizeCountryName(countryName));
     }
 
+    /**
+     * @param countryCode Two letter country code, in any case
+     * @return The country name, or null if the country code isn't known
+     */
     public static String getCountryName(String countryCode){
-        if (countryCodeMap.isEmpty()) {
-            CountryCodeMapper mapper = new CountryCodeMapper();
+        if (countryCode == null) {
+            return null;
         }
-        if (countryCodeMap.containsValue(countryCode)) {
-            for (Map.Entry<String, String> each : countryCodeMap.entrySet()) {
-                if (each.getValue().equals(countryCode)) {
-                    return each.getKey();
+        String countryName = NAME_BY_CODE.get(countryCode);
+        return countryName != null ? countryName : NAME_BY_CODE.get(countryCode.trim().toUpperCase(Locale.US));
+    }
+
+    /**
+     * @return Unmodifiable map of country names to country codes.
+     */
+    public static Map<String, String> getMapper() {
+        return COUNTRY_CODE_MAP;
+    }
+
+    /**
+     * @return Unmodifiable, sorted list of country names.
+     */
+    public static List<String> getCountryNames() {
+        return COUNTRY_NAMES;
+    }
+
+    /**
+     * Finds the country names starting with the given prefix, ignoring case and extra whitespace,
+     * e.g., for autocompleting a country name as the user types.
+     * Doesn't copy anything: the result is a view of the sorted country names list.
+     * @param prefix
+     * @return Unmodifiable, sorted list of matching country names
+     */
+    public static List<String> findCountryNamesByPrefix(CharSequence prefix) {
+        if (prefix == null) {
+            return COUNTRY_NAMES;
+        }
+        int from = lowerBound(prefix, false);
+        int to = lowerBound(prefix, true);
+        return COUNTRY_NAMES.subList(from, to);
+    }
+
+    /**
+     * Binary search over the normalized names.
+     * @param afterPrefix False to find the first name >= the prefix, true to find the first name
+     *                    that is past every name starting with the prefix
+     */
+    private static int lowerBound(CharSequence prefix, boolean afterPrefix) {
+        int low = 0, high = NORMALIZED_NAMES.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = comparePrefix(NORMALIZED_NAMES[mid], prefix);
+            if (cmp < 0 || (afterPrefix && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares the start of a normalized name to the prefix, normalizing the prefix as it goes so
+     * that nothing is allocated per keystroke.
+     * @return 0 if the name starts with the prefix, otherwise negative/positive if the name sorts
+     * before/after names starting with the prefix
+     */
+    private static int comparePrefix(String normalizedName, CharSequence prefix) {
+        int nameIndex = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = nameIndex > 0; //Leading whitespace is ignored, runs collapse to one space
+                continue;
+            }
+            if (pendingSpace) {
+                int cmp = compareChar(normalizedName, nameIndex++, ' ');
+                if (cmp != 0) {
+                    return cmp;
                 }
+                pendingSpace = false;
+            }
+            int cmp = compareChar(normalizedName, nameIndex++, Character.toLowerCase(c));
+            if (cmp != 0) {
+                return cmp;
             }
         }
-        //Otherwise return default
-        return null;
+        //A trailing space only matches names with another word after it
+        return pendingSpace ? compareChar(normalizedName, nameIndex, ' ') : 0;
     }
 
-    public static HashMap<String, String> getMapper() {
-        if (countryCodeMap.isEmpty()) {
-            CountryCodeMapper mapper = new CountryCodeMapper();
+    private static int compareChar(String normalizedName, int index, char expected) {
+        if (index == normalizedName.length()) {
+            return -1; //Name is shorter than the prefix
         }
-        return countryCodeMap;
+        return normalizedName.charAt(index) - expected;
     }
 
-    public static ArrayList<String> getCountryNames() {
-        if (countryKeys.isEmpty()) {
-            CountryCodeMapper mapper = new CountryCodeMapper();
+    /**
+     * Lower cases the name and trims/collapses whitespace, e.g., "  united   STATES" -> "united states".
+     */
+    static String normalizeCountryName(String countryName) {
+        StringBuilder normalized = new StringBuilder(countryName.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < countryName.length(); i++) {
+            char c = countryName.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(Character.toLowerCase(c));
         }
-        return countryKeys;
+        return normalized.toString();
     }
 }
@@ -0,0 +1,33 @@
+package com.utahmsd.cs6018.instyle.util.validation;
+
+/**
+ * A single failed validation rule: which record (for batch validation) and field it failed on,
+ * and the message to show the user.
+ */
+public class ValidationError {
+
+    private final int m_recordIndex;
+    private final String m_field;
+    private final String m_message;
+
+    public ValidationError(int recordIndex, String field, String message) {
+        m_recordIndex = recordIndex;
+        m_field = field;
+        m_message = message;
+    }
+
+    /**
+     * Index of the record in the list passed to ValidationRuleSet.validateAll, or 0 for a single
+     * validated record.
+     */
+    public int getRecordIndex() { return m_recordIndex; }
+
+    public String getField() { return m_field; }
+
+    public String getMessage() { return m_message; }
+
+    @Override
+    public String toString() {
+        return "[" + m_recordIndex + "] " + m_field + ": " + m_message;
+    }
+}
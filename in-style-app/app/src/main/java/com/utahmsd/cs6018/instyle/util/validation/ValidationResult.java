@@ -0,0 +1,74 @@
+package com.utahmsd.cs6018.instyle.util.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Errors found by validating a form or a batch of records, in the order of the rules that
+ * produced them (and, for a batch, in record order).
+ */
+public class ValidationResult {
+
+    private final List<ValidationError> m_errors;
+    private final int m_numRecords;
+
+    ValidationResult(List<ValidationError> errors, int numRecords) {
+        m_errors = Collections.unmodifiableList(errors);
+        m_numRecords = numRecords;
+    }
+
+    public boolean isValid() { return m_errors.isEmpty(); }
+
+    public List<ValidationError> getErrors() { return m_errors; }
+
+    public int getNumRecords() { return m_numRecords; }
+
+    /**
+     * @return The error from the first rule that failed, or null if everything is valid.
+     */
+    public ValidationError getFirstError() {
+        return m_errors.isEmpty() ? null : m_errors.get(0);
+    }
+
+    public List<ValidationError> getErrorsForField(String field) {
+        List<ValidationError> errors = new ArrayList<>();
+        for (ValidationError error : m_errors) {
+            if (error.getField().equals(field)) {
+                errors.add(error);
+            }
+        }
+        return errors;
+    }
+
+    public List<ValidationError> getErrorsForRecord(int recordIndex) {
+        List<ValidationError> errors = new ArrayList<>();
+        for (ValidationError error : m_errors) {
+            if (error.getRecordIndex() == recordIndex) {
+                errors.add(error);
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * @return Number of distinct records with at least one error.
+     */
+    public int getNumInvalidRecords() {
+        int count = 0;
+        int lastIndex = -1;
+        for (ValidationError error : m_errors) { //Errors are grouped by record
+            if (error.getRecordIndex() != lastIndex) {
+                count++;
+                lastIndex = error.getRecordIndex();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "Valid (" + m_numRecords + " records)" :
+                getNumInvalidRecords() + " of " + m_numRecords + " records invalid: " + m_errors;
+    }
+}
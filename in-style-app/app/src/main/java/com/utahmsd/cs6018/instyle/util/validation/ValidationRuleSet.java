@@ -0,0 +1,97 @@
+package com.utahmsd.cs6018.instyle.util.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * An ordered set of validation rules for one kind of record, e.g., the fields of a form or an
+ * imported FitnessProfile. Every rule is checked in a single pass over each record, and every
+ * failure is collected into a ValidationResult rather than stopping at the first one.
+ *
+ * Rule sets are meant to be built once (e.g., in a static field) and then shared; validating
+ * doesn't modify the rule set, so it is safe to share between threads once built.
+ *
+ * @param <T> Type of record being validated
+ */
+public class ValidationRuleSet<T> {
+
+    private final List<Predicate<? super T>> m_rules = new ArrayList<>();
+    private final List<String> m_fields = new ArrayList<>();
+    private final List<String> m_messages = new ArrayList<>();
+
+    /**
+     * Adds a rule that checks a single String field of the record.
+     * @param field Name of the field, reported in ValidationErrors
+     * @param value Reads the field's value from a record
+     * @param check Validates the value, e.g., ValidationUtils::isValidEmail
+     * @param message Message reported when the check fails
+     * @return This rule set
+     */
+    public ValidationRuleSet<T> field(String field, Function<? super T, String> value,
+                                      Predicate<String> check, String message) {
+        return rule(field, record -> check.test(value.apply(record)), message);
+    }
+
+    /**
+     * Adds a rule that checks the record as a whole, for rules that span several fields
+     * (e.g., height in feet and inches) or non-String fields.
+     * @param field Name of the field, reported in ValidationErrors
+     * @param check Validates the record
+     * @param message Message reported when the check fails
+     * @return This rule set
+     */
+    public ValidationRuleSet<T> rule(String field, Predicate<? super T> check, String message) {
+        m_rules.add(check);
+        m_fields.add(field);
+        m_messages.add(message);
+        return this;
+    }
+
+    public List<String> getFields() {
+        return Collections.unmodifiableList(m_fields);
+    }
+
+    public ValidationResult validate(T record) {
+        List<ValidationError> errors = new ArrayList<>(0);
+        validate(record, 0, errors);
+        return new ValidationResult(errors, 1);
+    }
+
+    /**
+     * Validates each record in turn, e.g., a batch of imported records, collecting the errors
+     * for all of them into one result.
+     * @param records
+     * @return
+     */
+    public ValidationResult validateAll(List<? extends T> records) {
+        List<ValidationError> errors = new ArrayList<>(0);
+        for (int i = 0; i < records.size(); i++) {
+            validate(records.get(i), i, errors);
+        }
+        return new ValidationResult(errors, records.size());
+    }
+
+    /**
+     * @return True if the record passes every rule. Stops at the first failed rule and doesn't
+     * allocate, for callers that only need a yes/no answer.
+     */
+    public boolean isValid(T record) {
+        for (int i = 0; i < m_rules.size(); i++) {
+            if (!m_rules.get(i).test(record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void validate(T record, int recordIndex, List<ValidationError> errors) {
+        for (int i = 0; i < m_rules.size(); i++) {
+            if (!m_rules.get(i).test(record)) {
+                errors.add(new ValidationError(recordIndex, m_fields.get(i), m_messages.get(i)));
+            }
+        }
+    }
+}
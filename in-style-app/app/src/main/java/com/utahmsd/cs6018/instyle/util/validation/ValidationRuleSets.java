@@ -0,0 +1,31 @@
+package com.utahmsd.cs6018.instyle.util.validation;
+
+import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.db.entity.User;
+import com.utahmsd.cs6018.instyle.util.ValidationUtils;
+
+/**
+ * Rule sets for validating Users and FitnessProfiles that didn't come from the app's own forms,
+ * e.g., a batch of imported records, with the same rules the forms apply.
+ */
+public class ValidationRuleSets {
+
+    public static final ValidationRuleSet<User> USER = new ValidationRuleSet<User>()
+            .field("email", User::getEmail, ValidationUtils::isValidEmail, "Invalid email.")
+            .field("password", User::getPassword, ValidationUtils::isNotNullOrEmpty, "Invalid password.")
+            .field("firstName", User::getFirstName, ValidationUtils::isValidAlphaChars, "Invalid first name.")
+            .field("lastName", User::getLastName, ValidationUtils::isValidAlphaChars, "Invalid last name.");
+
+    public static final ValidationRuleSet<FitnessProfile> FITNESS_PROFILE = new ValidationRuleSet<FitnessProfile>()
+            .field("firstName", FitnessProfile::getM_fName, ValidationUtils::isValidName, "Invalid first name.")
+            .field("lastName", FitnessProfile::getM_lName, ValidationUtils::isValidName, "Invalid last name.")
+            .field("dob", FitnessProfile::getM_dob, ValidationUtils::isValidDobFormat, "Invalid date of birth.")
+            .field("sex", FitnessProfile::getM_sex, ValidationUtils::isValidSex, "Invalid sex.")
+            .field("city", FitnessProfile::getM_city, ValidationUtils::isValidCity, "Invalid city.")
+            .field("country", FitnessProfile::getM_country, ValidationUtils::isValidCountryName, "Invalid country.")
+            .rule("weight", fp -> ValidationUtils.isValidWeight(fp.getM_weightInPounds()), "Invalid weight.")
+            .rule("height", fp -> ValidationUtils.isValidHeight(fp.getM_heightFeet(), fp.getM_heightInches()),
+                    "Invalid height.")
+            .rule("lbsPerWeek", fp -> ValidationUtils.isValidWeightPlan(fp.getM_lbsPerWeek()),
+                    "Invalid weekly weight goal.");
+}
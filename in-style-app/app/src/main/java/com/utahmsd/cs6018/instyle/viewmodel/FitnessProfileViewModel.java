@@ -3,38 +3,69 @@ package com.utahmsd.cs6018.instyle.viewmodel;
 import android.app.Application;
 import android.arch.lifecycle.AndroidViewModel;
 import android.arch.lifecycle.LiveData;
+import android.os.Build;
 import android.support.annotation.NonNull;
+import android.support.annotation.RequiresApi;
 
+import com.utahmsd.cs6018.instyle.db.InStyleDatabase;
 import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.db.entity.StepRollup;
 import com.utahmsd.cs6018.instyle.db.repo.FitnessProfileRepository;
+import com.utahmsd.cs6018.instyle.db.repo.StepCountRepository;
+import com.utahmsd.cs6018.instyle.steps.StepResolution;
+
+import java.util.List;
 
 public class FitnessProfileViewModel extends AndroidViewModel {
 
     private LiveData<FitnessProfile> m_fitnessProfile;
     private FitnessProfileRepository m_fitnessProfileRepository;
+    private StepCountRepository m_stepCountRepository;
 
     public FitnessProfileViewModel(@NonNull Application application) {
         super(application);
         m_fitnessProfileRepository = FitnessProfileRepository.getInstance(application.getApplicationContext());
+        m_stepCountRepository = StepCountRepository.getInstance(InStyleDatabase.getDatabaseInstance(application));
 
     }
 
+    @RequiresApi(api = Build.VERSION_CODES.O)
     public LiveData<FitnessProfile> getFitnessProfile(int userID) {
         m_fitnessProfile = m_fitnessProfileRepository.getFitnessProfileData(userID);
         return m_fitnessProfile;
     }
 
+    @RequiresApi(api = Build.VERSION_CODES.O)
     public void updateFitnessProfile(FitnessProfile fitnessProfile){
         m_fitnessProfileRepository.updateFitnessProfile(fitnessProfile);
     }
 
-    public void updateFitnessProfileDailyStepCount(float numSteps) {
-        //TODO: Fix fitness profile view model database calls for updating step count data
-//        m_fitnessProfile.getValue().setM_stepCount(m_numberOfSteps);
-//        m_fitnessProfile.getValue().setM_dateLastUpdated(new Date(2018, 10, 31));
-        insertNewFitnessProfile(m_fitnessProfile.getValue());
+    /**
+     * Buffers a step counter sensor reading. The profile's daily step count is updated when the
+     * buffered steps are written.
+     * @param userID
+     * @param stepsSinceBoot
+     */
+    public void recordStepCount(int userID, float stepsSinceBoot) {
+        m_stepCountRepository.recordStepCounter(userID, stepsSinceBoot);
+    }
+
+    /**
+     * @return Today's steps, including ones that are still buffered.
+     */
+    public int getStepsToday(int userID, Integer writtenSteps) {
+        return (writtenSteps == null ? 0 : writtenSteps) + m_stepCountRepository.getPendingSteps(userID);
+    }
+
+    public LiveData<Integer> getWrittenStepsToday(int userID) {
+        return m_stepCountRepository.getStepsToday(userID);
+    }
+
+    public LiveData<List<StepRollup>> getStepHistory(int userID, StepResolution resolution, long fromMillis, long toMillis) {
+        return m_stepCountRepository.getStepHistory(userID, resolution, fromMillis, toMillis);
     }
 
+    @RequiresApi(api = Build.VERSION_CODES.O)
     public void insertNewFitnessProfile(FitnessProfile fitnessProfile) {
         m_fitnessProfileRepository.insertNewFitnessProfile(fitnessProfile);
     }
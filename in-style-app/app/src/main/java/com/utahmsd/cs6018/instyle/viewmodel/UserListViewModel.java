@@ -40,7 +40,20 @@ public class UserListViewModel extends AndroidViewModel {
         m_userRepository.asyncResetUserDatabase(numUsers);
     }
 
+    /**
+     * Returns the users loaded so far. The list starts out with the first page of users and grows
+     * each time loadNextPage() is called (e.g., when the end of a scrolling list is reached).
+     * @return
+     */
     public LiveData<List<User>> getUserList() {
         return m_observableUserList;
     }
+
+    public void loadNextPage() {
+        m_userRepository.loadNextUserPage();
+    }
+
+    public boolean hasMorePages() {
+        return !m_userRepository.isLastUserPageLoaded();
+    }
 }
@@ -0,0 +1,78 @@
+package com.utahmsd.cs6018.instyle.weather;
+
+import android.util.Log;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keys (e.g., "City,CountryCode") of the requests that have a database lookup and/or API fetch in
+ * progress, so that concurrent requests for the same key can be coalesced into the one already in
+ * flight instead of repeating it.
+ *
+ * A claimed key must be released however its request ends, or every later request for it would be
+ * coalesced into one that never finishes; run() takes care of that for requests made up of
+ * CompletableFuture stages.
+ */
+public class InFlightRequests {
+
+    private static final String LOG_TAG = InFlightRequests.class.getSimpleName();
+
+    private final Set<String> m_keys = ConcurrentHashMap.newKeySet();
+    private final AtomicLong m_coalesced = new AtomicLong();
+
+    /**
+     * Claims the key, unless a request for it is already in flight, in which case the request is
+     * counted as coalesced.
+     * @param key
+     * @return Whether the key was claimed; if so, the caller must release it
+     */
+    public boolean claim(String key) {
+        if (m_keys.add(key)) {
+            return true;
+        }
+        m_coalesced.incrementAndGet();
+        return false;
+    }
+
+    public void release(String key) {
+        m_keys.remove(key);
+    }
+
+    /**
+     * Claims the key for the request started by startRequest, and releases it once the returned
+     * future completes, whether normally or exceptionally. The key is also released if
+     * startRequest throws (e.g., because an executor rejected the first stage of the request); the
+     * exception is logged rather than thrown to the caller.
+     * @param key
+     * @param startRequest Starts the request; not called if the request is coalesced
+     * @return Whether the request was started, i.e. false if it was coalesced
+     */
+    public boolean run(String key, Supplier<CompletableFuture<?>> startRequest) {
+        if (!claim(key)) {
+            return false;
+        }
+        try {
+            startRequest.get().whenComplete((result, e) -> release(key));
+        } catch (RuntimeException e) {
+            release(key);
+            Log.d(LOG_TAG, String.format("Unable to start request for %s: '%s'", key, e.getMessage()));
+        }
+        return true;
+    }
+
+    public boolean isInFlight(String key) {
+        return m_keys.contains(key);
+    }
+
+    /**
+     * @return Number of requests that were coalesced into a request already in flight, i.e. the
+     * number of database lookups and API calls that were saved
+     */
+    public long getCoalescedCount() {
+        return m_coalesced.get();
+    }
+}
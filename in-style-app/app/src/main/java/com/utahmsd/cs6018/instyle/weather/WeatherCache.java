@@ -0,0 +1,211 @@
+package com.utahmsd.cs6018.instyle.weather;
+
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory (L1) cache of Weather records that sits in front of the Weather table in the database.
+ *
+ * Entries are keyed on the scrubbed city and country code, bounded by a maximum number of entries
+ * and evicted in least-recently-used order. Each entry expires a fixed time to live after the
+ * weather data was last updated from the API. Expired entries are still served as STALE for a
+ * limited window so the UI can display them immediately while a refresh is fetched in the
+ * background (stale-while-revalidate); after that window they are dropped.
+ */
+public class WeatherCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+    public static final long DEFAULT_TTL_MILLIS = 300_000L; //Weather data older than 5 minutes is refetched
+    public static final long DEFAULT_STALE_WINDOW_MILLIS = 3_600_000L; //Serve stale data for up to an hour
+
+    public enum Freshness {
+        FRESH,
+        STALE
+    }
+
+    /**
+     * Result of a cache lookup that returned data.
+     */
+    public static class CacheResult {
+        private final Weather m_weather;
+        private final Freshness m_freshness;
+
+        CacheResult(Weather weather, Freshness freshness) {
+            m_weather = weather;
+            m_freshness = freshness;
+        }
+
+        public Weather getWeather() { return m_weather; }
+
+        public boolean isStale() { return m_freshness == Freshness.STALE; }
+    }
+
+    private static class CacheEntry {
+        final Weather weather;
+        final long updatedAt;
+        final long ttlMillis;
+
+        CacheEntry(Weather weather, long updatedAt, long ttlMillis) {
+            this.weather = weather;
+            this.updatedAt = updatedAt;
+            this.ttlMillis = ttlMillis;
+        }
+    }
+
+    private final int m_maxEntries;
+    private final LongSupplier m_clock;
+    private final LinkedHashMap<String, CacheEntry> m_entries;
+
+    private volatile long m_ttlMillis;
+    private volatile long m_staleWindowMillis;
+
+    private long m_hits;
+    private long m_staleHits;
+    private long m_misses;
+    private long m_evictions;
+    private long m_expirations;
+
+    public WeatherCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS, DEFAULT_STALE_WINDOW_MILLIS, System::currentTimeMillis);
+    }
+
+    public WeatherCache(int maxEntries, long ttlMillis, long staleWindowMillis, LongSupplier clock) {
+        m_maxEntries = maxEntries;
+        m_ttlMillis = ttlMillis;
+        m_staleWindowMillis = staleWindowMillis;
+        m_clock = clock;
+        m_entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > m_maxEntries) {
+                    m_evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static String buildKey(String city, String countryCode) {
+        return city + "," + countryCode;
+    }
+
+    /**
+     * Looks up cached weather data for a location.
+     * @param city Scrubbed city name (see WeatherUtils.formatCaseCity)
+     * @param countryCode Country code (see WeatherUtils.formatCaseCountryCodeFromCountryName)
+     * @return FRESH or STALE result, or null if nothing usable is cached for the location.
+     */
+    public synchronized CacheResult get(String city, String countryCode) {
+        String key = buildKey(city, countryCode);
+        CacheEntry entry = m_entries.get(key);
+        if (entry == null) {
+            m_misses++;
+            return null;
+        }
+        long age = m_clock.getAsLong() - entry.updatedAt;
+        if (age <= entry.ttlMillis) {
+            m_hits++;
+            return new CacheResult(entry.weather, Freshness.FRESH);
+        }
+        if (age <= entry.ttlMillis + m_staleWindowMillis) {
+            m_staleHits++;
+            return new CacheResult(entry.weather, Freshness.STALE);
+        }
+        m_entries.remove(key);
+        m_expirations++;
+        m_misses++;
+        return null;
+    }
+
+    public void put(Weather weather) {
+        put(weather, m_ttlMillis);
+    }
+
+    /**
+     * Caches weather data for the location contained in the Weather record. The entry's age is
+     * measured from the record's last updated timestamp (or now, if it has none).
+     * @param weather
+     * @param ttlMillis Time to live for this entry.
+     */
+    public synchronized void put(Weather weather, long ttlMillis) {
+        if (weather == null || weather.getCity() == null) {
+            return;
+        }
+        long updatedAt = weather.getLastUpdated() != null ?
+                weather.getLastUpdated().getTime() : m_clock.getAsLong();
+        m_entries.put(buildKey(weather.getCity(), weather.getCountryCode()),
+                new CacheEntry(weather, updatedAt, ttlMillis));
+    }
+
+    public synchronized void invalidate(String city, String countryCode) {
+        m_entries.remove(buildKey(city, countryCode));
+    }
+
+    /**
+     * Drops entries that are past their stale window.
+     */
+    public synchronized void purgeExpired() {
+        long now = m_clock.getAsLong();
+        Iterator<CacheEntry> iterator = m_entries.values().iterator();
+        while (iterator.hasNext()) {
+            CacheEntry entry = iterator.next();
+            if (now - entry.updatedAt > entry.ttlMillis + m_staleWindowMillis) {
+                iterator.remove();
+                m_expirations++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        m_entries.clear();
+    }
+
+    /**
+     * Returns whether weather data last updated at the given time is past the cache TTL.
+     * @param lastUpdatedMillis
+     * @return
+     */
+    public boolean isExpired(long lastUpdatedMillis) {
+        return m_clock.getAsLong() - lastUpdatedMillis > m_ttlMillis;
+    }
+
+    ///////// Configuration ///////////
+
+    public long getTtlMillis() { return m_ttlMillis; }
+
+    /**
+     * Sets the time to live used for entries cached from now on.
+     * @param ttlMillis
+     */
+    public void setTtlMillis(long ttlMillis) { m_ttlMillis = ttlMillis; }
+
+    public long getStaleWindowMillis() { return m_staleWindowMillis; }
+
+    public void setStaleWindowMillis(long staleWindowMillis) { m_staleWindowMillis = staleWindowMillis; }
+
+    ///////// Statistics ///////////
+
+    public synchronized int size() { return m_entries.size(); }
+
+    public synchronized long getHitCount() { return m_hits; }
+
+    public synchronized long getStaleHitCount() { return m_staleHits; }
+
+    public synchronized long getMissCount() { return m_misses; }
+
+    public synchronized long getEvictionCount() { return m_evictions; }
+
+    public synchronized long getExpirationCount() { return m_expirations; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("WeatherCache[size=%d/%d, hits=%d, staleHits=%d, misses=%d, " +
+                        "evictions=%d, expirations=%d]",
+                m_entries.size(), m_maxEntries, m_hits, m_staleHits, m_misses, m_evictions, m_expirations);
+    }
+}
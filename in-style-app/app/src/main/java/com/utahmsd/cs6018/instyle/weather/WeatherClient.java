@@ -3,15 +3,12 @@ package com.utahmsd.cs6018.instyle.weather;
 import android.util.Log;
 
 import com.utahmsd.cs6018.instyle.db.entity.Weather;
+import com.utahmsd.cs6018.instyle.util.HttpTransport;
 import com.utahmsd.cs6018.instyle.util.ValidationUtils;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URI;
 import java.net.URL;
-import java.util.Scanner;
 
 import javax.inject.Singleton;
 
@@ -36,9 +33,19 @@ public class WeatherClient {
     public static Weather fetchCurrentWeather(String city, String country) {
         final URL FETCH_WEATHER_URL = buildWeatherApiUrl(city, country);
         try {
-            final String RESPONSE_BODY = getJsonDataFromUrl(FETCH_WEATHER_URL);
-            return parseWeatherFromApiResponse(RESPONSE_BODY);
-        } catch (IOException e) {
+            //Parse straight from the response stream rather than buffering the body first
+            Weather weather = HttpTransport.getInstance().get(FETCH_WEATHER_URL, (responseCode, body) -> {
+                if (responseCode != HttpURLConnection.HTTP_OK) {
+                    Log.d(LOG_TAG,"Error ResponseCode: " + responseCode);
+                    return null;
+                }
+                return WeatherForecast.parseWeather(body);
+            });
+            if (weather != null) {
+                printWeather(weather);
+            }
+            return weather;
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
             e.printStackTrace();
         }
         return null;
@@ -49,8 +56,12 @@ public class WeatherClient {
                 jsonResponse.equals(INVALID_CITY_URL_JSON_RESPONSE)) {
             return null;
         }
-        WeatherForecast forecast = new WeatherForecast();
-        Weather weather = forecast.initWeather(jsonResponse);
+        Weather weather = null;
+        try {
+            weather = WeatherForecast.parseWeather(jsonResponse);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            Log.d(LOG_TAG, "Unable to parse weather API response: " + e.getMessage());
+        }
         if (weather != null) {
             printWeather(weather);
         }
@@ -58,33 +69,8 @@ public class WeatherClient {
     }
 
     public static String getJsonDataFromUrl(URL url) throws IOException {
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.connect();
-
-        StringBuilder response = new StringBuilder();
-        Scanner s = null;
-        try {
-            s = new Scanner(connection.getInputStream());
-
-            if (connection.getResponseCode() != 200) {
-                Log.d(LOG_TAG,"Error ResponseCode: " + connection.getResponseCode());
-                return response.append(INVALID_CITY_URL_JSON_RESPONSE).toString();
-            }
-
-            while (s.hasNext()) {
-                String next = s.nextLine();
-                response.append(next);
-            }
-        } catch (FileNotFoundException e) {
-            return response.append(INVALID_CITY_URL_JSON_RESPONSE).toString();
-        }
-        if (s != null) {
-            s.close();
-        }
-        if (connection != null) {
-            connection.disconnect();
-        }
-        return response.toString();
+        String response = HttpTransport.getInstance().getString(url);
+        return response == null ? INVALID_CITY_URL_JSON_RESPONSE : response;
     }
 
 
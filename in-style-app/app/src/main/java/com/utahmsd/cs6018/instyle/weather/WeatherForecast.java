@@ -3,7 +3,12 @@ package com.utahmsd.cs6018.instyle.weather;
 import com.utahmsd.cs6018.instyle.db.entity.Weather;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Locale;
@@ -33,6 +38,134 @@ public class WeatherForecast {
 
     public WeatherForecast() {}
 
+    /**
+     * Parses an OpenWeatherMap current weather response into a Weather entity in a single pass
+     * over the JSON stream, without building an intermediate JsonObject tree or any of the
+     * formatted String fields populated by initWeather().
+     *
+     * @param response JSON response body
+     * @return Weather, or null if the response does not contain a weather forecast.
+     * @throws IOException if the response is not well-formed JSON
+     */
+    public static Weather parseWeather(String response) throws IOException {
+        return parseWeather(new StringReader(response));
+    }
+
+    /**
+     * Streaming variant of parseWeather(String) that reads directly from the given Reader, e.g.
+     * the response body of an HTTP connection. The reader is not closed.
+     */
+    public static Weather parseWeather(Reader response) throws IOException {
+        JsonReader reader = new JsonReader(response);
+        reader.setLenient(true);
+
+        Weather weather = new Weather();
+        Weather.Temperature temperature = new Weather.Temperature();
+        boolean hasMain = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "coord":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "lat": weather.setLatitude((float) reader.nextDouble()); break;
+                            case "lon": weather.setLongitude((float) reader.nextDouble()); break;
+                            default: reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "weather":
+                    reader.beginArray();
+                    if (reader.hasNext()) { //Only the first (primary) weather condition is used
+                        readWeatherCondition(reader, weather);
+                    }
+                    while (reader.hasNext()) {
+                        reader.skipValue();
+                    }
+                    reader.endArray();
+                    break;
+                case "main":
+                    hasMain = true;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "temp": temperature.temp = reader.nextDouble(); break;
+                            case "temp_min": temperature.tempMin = reader.nextDouble(); break;
+                            case "temp_max": temperature.tempMax = reader.nextDouble(); break;
+                            case "pressure": weather.setPressure((int) reader.nextDouble()); break;
+                            case "humidity": weather.setHumidity((int) reader.nextDouble()); break;
+                            default: reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "wind":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.nextName().equals("speed")) {
+                            weather.setWindSpeed((float) reader.nextDouble());
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "sys":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.nextName().equals("country")) {
+                            weather.setCountryCode(nextStringOrNull(reader));
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "name":
+                    weather.setCity(nextStringOrNull(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (!hasMain || weather.getCity() == null) {
+            return null;
+        }
+        weather.setTemperature(temperature);
+        weather.setLastUpdated(Date.from(Instant.now()));
+        return weather;
+    }
+
+    private static void readWeatherCondition(JsonReader reader, Weather weather) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "main": weather.setForecastMain(nextStringOrNull(reader)); break;
+                case "description": weather.setForecastDescription(nextStringOrNull(reader)); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    /**
+     * Builds a Weather entity from the response using a JsonObject tree, and also populates the
+     * formatted String fields of this WeatherForecast. Prefer the streaming parseWeather() when
+     * only the Weather entity is needed.
+     */
     public Weather initWeather (String response) {
 
         //FIXME: Clean this up later if you have time
@@ -0,0 +1,43 @@
+package com.utahmsd.cs6018.instyle.weather;
+
+import java.util.Objects;
+
+/**
+ * A city and country (name or code) to fetch weather data for.
+ */
+public class WeatherLocation {
+
+    private final String city;
+    private final String country;
+
+    public WeatherLocation(String city, String country) {
+        this.city = city;
+        this.country = country;
+    }
+
+    public String getCity() { return city; }
+
+    public String getCountry() { return country; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WeatherLocation)) {
+            return false;
+        }
+        WeatherLocation that = (WeatherLocation) o;
+        return Objects.equals(city, that.city) && Objects.equals(country, that.country);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(city, country);
+    }
+
+    @Override
+    public String toString() {
+        return city + ", " + country;
+    }
+}
@@ -0,0 +1,191 @@
+package com.utahmsd.cs6018.instyle.weather;
+
+import android.arch.lifecycle.Lifecycle;
+import android.arch.lifecycle.LifecycleObserver;
+import android.arch.lifecycle.OnLifecycleEvent;
+import android.util.Log;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Periodically refreshes weather data for a set of locations (e.g., every distinct city/country in
+ * the FitnessProfile table) in the background, so that by the time the weather screen is opened
+ * the data is already sitting in the cache instead of the placeholder record being displayed while
+ * the API call runs.
+ *
+ * Each prefetch is scheduled one interval after the previous one completes, with random jitter
+ * added so requests don't line up with other periodic work. If an entire batch fails (e.g., the
+ * device is offline), the delay before the next attempt is doubled up to a maximum. The scheduler
+ * is registered as a process lifecycle observer, so prefetching stops while the app is in the
+ * background and resumes when it returns to the foreground.
+ */
+public class WeatherPrefetchScheduler implements LifecycleObserver {
+
+    private static final String LOG_TAG = WeatherPrefetchScheduler.class.getSimpleName();
+
+    public static final long DEFAULT_INITIAL_DELAY_MILLIS = 5_000L;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 1_800_000L; //Back off for at most 30 minutes
+    public static final double DEFAULT_JITTER_FRACTION = 0.1; //Up to +/-10% of the delay
+
+    /**
+     * Fetches weather data for the given locations and reports the outcome of the batch to the
+     * callback once it has completed.
+     */
+    public interface Refresher {
+        void refresh(Collection<WeatherLocation> locations, Consumer<WeatherRefreshResult> onComplete);
+    }
+
+    private final ScheduledExecutorService m_scheduler;
+    private final Supplier<Collection<WeatherLocation>> m_locationSource;
+    private final Refresher m_refresher;
+    private final Random m_random;
+
+    private volatile long m_intervalMillis;
+    private volatile long m_initialDelayMillis = DEFAULT_INITIAL_DELAY_MILLIS;
+    private volatile long m_maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+    private volatile double m_jitterFraction = DEFAULT_JITTER_FRACTION;
+
+    private boolean m_running;
+    private int m_generation; //Incremented on every start() so callbacks from a previous run are ignored
+    private ScheduledFuture<?> m_pendingPrefetch;
+    private int m_consecutiveFailures;
+    private long m_nextDelayMillis;
+    private long m_prefetchCount;
+
+    public WeatherPrefetchScheduler(ScheduledExecutorService scheduler,
+                                    Supplier<Collection<WeatherLocation>> locationSource,
+                                    Refresher refresher,
+                                    long intervalMillis,
+                                    Random random) {
+        m_scheduler = scheduler;
+        m_locationSource = locationSource;
+        m_refresher = refresher;
+        m_intervalMillis = intervalMillis;
+        m_random = random;
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_START)
+    public synchronized void start() {
+        if (m_running) {
+            return;
+        }
+        Log.d(LOG_TAG, "Starting weather prefetch");
+        m_running = true;
+        m_generation++;
+        scheduleNext(m_initialDelayMillis);
+    }
+
+    @OnLifecycleEvent(Lifecycle.Event.ON_STOP)
+    public synchronized void stop() {
+        if (!m_running) {
+            return;
+        }
+        Log.d(LOG_TAG, "Pausing weather prefetch");
+        m_running = false;
+        if (m_pendingPrefetch != null) {
+            m_pendingPrefetch.cancel(false);
+            m_pendingPrefetch = null;
+        }
+    }
+
+    void runPrefetch() {
+        final int generation;
+        synchronized (this) {
+            if (!m_running) {
+                return;
+            }
+            if (m_pendingPrefetch != null) { //No-op when called from the scheduled task itself
+                m_pendingPrefetch.cancel(false);
+                m_pendingPrefetch = null;
+            }
+            generation = m_generation;
+        }
+
+        Collection<WeatherLocation> locations;
+        try {
+            locations = m_locationSource.get();
+        } catch (RuntimeException e) {
+            Log.d(LOG_TAG, String.format("Unable to load prefetch locations: '%s'", e.getMessage()));
+            onPrefetchComplete(generation, false);
+            return;
+        }
+        if (locations == null || locations.isEmpty()) {
+            Log.d(LOG_TAG, "No locations to prefetch weather data for");
+            onPrefetchComplete(generation, true);
+            return;
+        }
+
+        Log.d(LOG_TAG, String.format("Prefetching weather data for %d locations", locations.size()));
+        try {
+            m_refresher.refresh(locations, result -> onPrefetchComplete(generation,
+                    result.getFailed().isEmpty() || !result.getRefreshed().isEmpty()));
+        } catch (RuntimeException e) { //e.g., rejected by a saturated network pool
+            Log.d(LOG_TAG, String.format("Unable to start weather prefetch: '%s'", e.getMessage()));
+            onPrefetchComplete(generation, false);
+        }
+    }
+
+    private synchronized void onPrefetchComplete(int generation, boolean successful) {
+        m_prefetchCount++;
+        long delay;
+        if (successful) {
+            m_consecutiveFailures = 0;
+            delay = m_intervalMillis;
+        } else {
+            m_consecutiveFailures++;
+            delay = backoffDelay(m_consecutiveFailures);
+            Log.d(LOG_TAG, String.format("Weather prefetch failed %d times in a row, backing off for %dms",
+                    m_consecutiveFailures, delay));
+        }
+        if (m_running && generation == m_generation) {
+            scheduleNext(delay);
+        }
+    }
+
+    private long backoffDelay(int failures) {
+        long delay = m_intervalMillis;
+        for (int i = 0; i < failures && delay < m_maxBackoffMillis; i++) {
+            delay *= 2;
+        }
+        return Math.min(delay, m_maxBackoffMillis);
+    }
+
+    private void scheduleNext(long delayMillis) {
+        long jitter = (long) (delayMillis * m_jitterFraction * (2 * m_random.nextDouble() - 1));
+        m_nextDelayMillis = Math.max(0, delayMillis + jitter);
+        m_pendingPrefetch = m_scheduler.schedule(this::runPrefetch, m_nextDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    ///////// Configuration ///////////
+
+    public long getIntervalMillis() { return m_intervalMillis; }
+
+    /**
+     * Sets the delay between prefetches, which should be shorter than the cache TTL so that
+     * cached data is replaced before it expires. Takes effect after the next prefetch.
+     * @param intervalMillis
+     */
+    public void setIntervalMillis(long intervalMillis) { m_intervalMillis = intervalMillis; }
+
+    public void setInitialDelayMillis(long initialDelayMillis) { m_initialDelayMillis = initialDelayMillis; }
+
+    public void setMaxBackoffMillis(long maxBackoffMillis) { m_maxBackoffMillis = maxBackoffMillis; }
+
+    public void setJitterFraction(double jitterFraction) { m_jitterFraction = jitterFraction; }
+
+    ///////// Statistics ///////////
+
+    public synchronized boolean isRunning() { return m_running; }
+
+    public synchronized int getConsecutiveFailures() { return m_consecutiveFailures; }
+
+    public synchronized long getNextDelayMillis() { return m_nextDelayMillis; }
+
+    public synchronized long getPrefetchCount() { return m_prefetchCount; }
+}
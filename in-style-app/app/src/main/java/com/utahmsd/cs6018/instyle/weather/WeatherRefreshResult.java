@@ -0,0 +1,38 @@
+package com.utahmsd.cs6018.instyle.weather;
+
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Aggregated outcome of a batch weather refresh: the records that were fetched and written to the
+ * database in a single transaction, the locations that could not be fetched, and how long the
+ * whole batch took.
+ */
+public class WeatherRefreshResult {
+
+    private final List<Weather> refreshed;
+    private final List<WeatherLocation> failed;
+    private final long elapsedMillis;
+
+    public WeatherRefreshResult(List<Weather> refreshed, List<WeatherLocation> failed, long elapsedMillis) {
+        this.refreshed = Collections.unmodifiableList(refreshed);
+        this.failed = Collections.unmodifiableList(failed);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<Weather> getRefreshed() { return refreshed; }
+
+    public List<WeatherLocation> getFailed() { return failed; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public boolean isSuccessful() { return failed.isEmpty(); }
+
+    @Override
+    public String toString() {
+        return String.format("WeatherRefreshResult[refreshed=%d, failed=%d, elapsed=%dms]",
+                refreshed.size(), failed.size(), elapsedMillis);
+    }
+}
@@ -0,0 +1,41 @@
+package android.util;
+
+/**
+ * Stand-in for android.util.Log in the JVM unit tests and benchmarks, so code under test that logs
+ * can run off-device without the "Method ... not mocked" stubs from android.jar. Log calls are
+ * no-ops, which keeps logging from skewing benchmark timings.
+ */
+public final class Log {
+
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    private Log() { }
+
+    public static int v(String tag, String msg) { return 0; }
+
+    public static int v(String tag, String msg, Throwable tr) { return 0; }
+
+    public static int d(String tag, String msg) { return 0; }
+
+    public static int d(String tag, String msg, Throwable tr) { return 0; }
+
+    public static int i(String tag, String msg) { return 0; }
+
+    public static int i(String tag, String msg, Throwable tr) { return 0; }
+
+    public static int w(String tag, String msg) { return 0; }
+
+    public static int w(String tag, String msg, Throwable tr) { return 0; }
+
+    public static int w(String tag, Throwable tr) { return 0; }
+
+    public static int e(String tag, String msg) { return 0; }
+
+    public static int e(String tag, String msg, Throwable tr) { return 0; }
+
+    public static boolean isLoggable(String tag, int level) { return false; }
+}
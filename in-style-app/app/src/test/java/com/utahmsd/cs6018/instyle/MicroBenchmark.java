@@ -0,0 +1,182 @@
+package com.utahmsd.cs6018.instyle;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Small micro-benchmark harness for the JVM unit tests.
+ *
+ * Each operation is warmed up, then timed over several rounds, and the median time per operation
+ * is recorded. Results are compared against the checked in baseline in
+ * src/test/resources/benchmarks/baseline.properties and anything more than REGRESSION_THRESHOLD
+ * times slower than its baseline is reported as a regression. Regressions only fail the test when
+ * run with -Dbenchmark.failOnRegression=true, since timings vary between machines.
+ *
+ * Current results are written to build/benchmarks/[suite].properties, which can be copied into
+ * the baseline file to update it.
+ *
+ * Benchmarks are skipped unless run with -Dbenchmarks=true, so they don't slow down (or depend on
+ * the speed of the machine running) every test run. Each benchmark class calls assumeEnabled()
+ * before its benchmarks.
+ */
+public class MicroBenchmark {
+
+    public static final String BASELINE_RESOURCE = "benchmarks/baseline.properties";
+    public static final double REGRESSION_THRESHOLD = 1.5;
+
+    private static final long WARMUP_NANOS = 200_000_000L;
+    private static final long ROUND_NANOS = 50_000_000L;
+    private static final int ROUNDS = 5;
+
+    //Results are compared against this so the JIT can't eliminate the benchmarked calls as dead code
+    private static volatile Object s_sentinel = new Object();
+
+    private final String m_suite;
+    private final Map<String, Double> m_results = new LinkedHashMap<>();
+    private long m_sink;
+
+    public MicroBenchmark(String suite) {
+        m_suite = suite;
+    }
+
+    /**
+     * Skips the calling test unless benchmarks were enabled with -Dbenchmarks=true.
+     */
+    public static void assumeEnabled() {
+        assumeTrue("Benchmarks only run with -Dbenchmarks=true", Boolean.getBoolean("benchmarks"));
+    }
+
+    /**
+     * Measures an operation, applying it to each of the inputs in turn.
+     * @return Median nanoseconds per operation.
+     */
+    public <T> double measure(String name, T[] inputs, Function<T, ?> operation) {
+        int[] index = {0};
+        return measure(name, () -> {
+            T input = inputs[index[0]];
+            index[0] = index[0] + 1 == inputs.length ? 0 : index[0] + 1;
+            return operation.apply(input);
+        });
+    }
+
+    /**
+     * @return Median nanoseconds per operation.
+     */
+    public double measure(String name, Supplier<?> operation) {
+        //Warm up, and work out how many iterations fit in one measurement round
+        long iterations = 0;
+        long start = System.nanoTime();
+        long deadline = start + WARMUP_NANOS;
+        while (System.nanoTime() < deadline) {
+            consume(operation.get());
+            iterations++;
+        }
+        long iterationsPerRound = Math.max(1, iterations * ROUND_NANOS / (System.nanoTime() - start));
+
+        double[] rounds = new double[ROUNDS];
+        for (int r = 0; r < ROUNDS; r++) {
+            long roundStart = System.nanoTime();
+            for (long i = 0; i < iterationsPerRound; i++) {
+                consume(operation.get());
+            }
+            rounds[r] = (double) (System.nanoTime() - roundStart) / iterationsPerRound;
+        }
+        Arrays.sort(rounds);
+        double nanosPerOp = rounds[ROUNDS / 2];
+        m_results.put(m_suite + "." + name, nanosPerOp);
+        return nanosPerOp;
+    }
+
+    private void consume(Object result) {
+        if (result == s_sentinel) {
+            m_sink++;
+        }
+    }
+
+    public Map<String, Double> getResults() {
+        return m_results;
+    }
+
+    /**
+     * Prints the results next to their baselines and writes them to build/benchmarks.
+     * @return Names of the benchmarks that regressed.
+     */
+    public List<String> report() {
+        Properties baseline = loadBaseline();
+        List<String> regressions = new ArrayList<>();
+
+        System.out.println(String.format(Locale.US, "%-60s %12s %12s %8s",
+                "Benchmark", "Baseline", "Current", "Ratio"));
+        for (Map.Entry<String, Double> result : m_results.entrySet()) {
+            String baselineValue = baseline.getProperty(result.getKey());
+            if (baselineValue == null) {
+                System.out.println(String.format(Locale.US, "%-60s %12s %9.1f ns %8s",
+                        result.getKey(), "-", result.getValue(), "new"));
+                continue;
+            }
+            double ratio = result.getValue() / Double.parseDouble(baselineValue);
+            boolean regressed = ratio > REGRESSION_THRESHOLD;
+            if (regressed) {
+                regressions.add(result.getKey());
+            }
+            System.out.println(String.format(Locale.US, "%-60s %9.1f ns %9.1f ns %7.2fx%s",
+                    result.getKey(), Double.parseDouble(baselineValue), result.getValue(), ratio,
+                    regressed ? "  REGRESSION" : ""));
+        }
+
+        writeResults();
+        return regressions;
+    }
+
+    /**
+     * Reports the results, failing if any benchmark regressed and -Dbenchmark.failOnRegression=true.
+     */
+    public void reportAndCheck() {
+        List<String> regressions = report();
+        if (!regressions.isEmpty() && Boolean.getBoolean("benchmark.failOnRegression")) {
+            fail("Benchmarks regressed by more than " + REGRESSION_THRESHOLD + "x: " + regressions);
+        }
+    }
+
+    private static Properties loadBaseline() {
+        Properties baseline = new Properties();
+        try (InputStream in = MicroBenchmark.class.getClassLoader().getResourceAsStream(BASELINE_RESOURCE)) {
+            if (in != null) {
+                baseline.load(in);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return baseline;
+    }
+
+    private void writeResults() {
+        Properties results = new Properties();
+        m_results.forEach((name, nanos) -> results.setProperty(name, String.format(Locale.US, "%.1f", nanos)));
+
+        File directory = new File("build", "benchmarks");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+        try (OutputStream out = new FileOutputStream(new File(directory, m_suite + ".properties"))) {
+            results.store(out, "ns/op");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
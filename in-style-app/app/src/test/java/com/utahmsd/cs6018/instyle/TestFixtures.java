@@ -0,0 +1,34 @@
+package com.utahmsd.cs6018.instyle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads recorded API responses from src/test/resources/fixtures.
+ */
+public class TestFixtures {
+
+    public static final String OWM_WEATHER_PROVO = "owm_weather_provo.json";
+    public static final String OWM_WEATHER_TOKYO = "owm_weather_tokyo.json";
+    public static final String GOOGLE_GEOCODE_PROVO = "google_geocode_provo.json";
+
+    public static String read(String fixtureName) {
+        try (InputStream in = TestFixtures.class.getClassLoader()
+                .getResourceAsStream("fixtures/" + fixtureName)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Missing test fixture: " + fixtureName);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BackupRestorerUnitTest {
+
+    private static final int CHUNK_SIZE = 4_096;
+    private static final int RANGE_SIZE = 1_000;
+    private static final int DATABASE_VERSION = 8;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService executor;
+    private FileObjectStore store;
+    private File database;
+    private File restoredDatabase;
+    private SnapshotBackup snapshotBackup;
+    private IncrementalBackup incrementalBackup;
+    private long now = 1_541_116_800_000L;
+
+    @Before
+    public void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(4);
+        store = new FileObjectStore(folder.newFolder("store"));
+        database = folder.newFile("instyle_database");
+        restoredDatabase = new File(folder.newFolder("restored"), "instyle_database");
+        writeDatabase(1);
+        snapshotBackup = new SnapshotBackup(destination ->
+                Files.copy(database.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING),
+                store, "full/", new File(folder.getRoot(), "work"), () -> now++);
+        incrementalBackup = new IncrementalBackup(store, "incremental/",
+                new File(folder.getRoot(), "backup-state.manifest"), CHUNK_SIZE, () -> now++);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void listBackups_mergesBothKindsOldestFirst() throws IOException {
+        String snapshotKey = snapshotBackup.backup().getKey();
+        String manifestKey = incrementalBackup.backup(database).getManifestKey();
+        store.put(snapshotBackup.artifactKey(now++), new byte[] {0}); //Upload interrupted before its checksum
+
+        List<RestorePoint> restorePoints = newRestorer(() -> 0).listBackups();
+
+        assertEquals(2, restorePoints.size());
+        assertEquals(snapshotKey, restorePoints.get(0).getKey());
+        assertEquals(RestorePoint.Kind.SNAPSHOT, restorePoints.get(0).getKind());
+        assertEquals(manifestKey, restorePoints.get(1).getKey());
+        assertEquals(RestorePoint.Kind.INCREMENTAL, restorePoints.get(1).getKind());
+        assertTrue(restorePoints.get(0).getCreatedAt() < restorePoints.get(1).getCreatedAt());
+    }
+
+    @Test
+    public void stageRestore_snapshot_fetchesRangesAndApplies() throws IOException {
+        byte[] original = Files.readAllBytes(database.toPath());
+        String key = snapshotBackup.backup().getKey();
+        assertTrue(store.size(key) > 4 * RANGE_SIZE); //Fetched in several ranges
+
+        newRestorer(() -> 0).stageRestore(new RestorePoint(RestorePoint.Kind.SNAPSHOT, key), restoredDatabase);
+
+        assertFalse(restoredDatabase.exists()); //Only staged until the next launch
+        assertTrue(BackupRestorer.applyPendingRestore(restoredDatabase, DATABASE_VERSION));
+        assertArrayEquals(original, Files.readAllBytes(restoredDatabase.toPath()));
+    }
+
+    @Test
+    public void stageLatest_incremental_fetchesChunksInParallel() throws IOException {
+        snapshotBackup.backup();
+        incrementalBackup.backup(database);
+        writeDatabase(2);
+        byte[] latest = Files.readAllBytes(database.toPath());
+        incrementalBackup.backup(database);
+
+        RestoreResult result = newRestorer(() -> 0).stageLatest(restoredDatabase);
+
+        assertEquals(RestorePoint.Kind.INCREMENTAL, result.getRestorePoint().getKind());
+        assertEquals(latest.length, result.getRestoredBytes());
+        assertTrue(BackupRestorer.applyPendingRestore(restoredDatabase, DATABASE_VERSION));
+        assertArrayEquals(latest, Files.readAllBytes(restoredDatabase.toPath()));
+    }
+
+    @Test
+    public void stageRestore_corruptSnapshot_stagesNothing() throws IOException {
+        String key = snapshotBackup.backup().getKey();
+        byte[] artifact = store.get(key);
+        artifact[artifact.length / 2] ^= 1;
+        store.put(key, artifact);
+
+        try {
+            newRestorer(() -> 0).stageRestore(new RestorePoint(RestorePoint.Kind.SNAPSHOT, key), restoredDatabase);
+            fail("Expected the corrupt snapshot to be detected");
+        } catch (IOException e) {
+            assertFalse(BackupRestorer.applyPendingRestore(restoredDatabase, DATABASE_VERSION));
+            String[] leftovers = restoredDatabase.getParentFile().list();
+            assertEquals(0, leftovers.length);
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void stageLatest_noBackups_throws() throws IOException {
+        newRestorer(() -> 0).stageLatest(restoredDatabase);
+    }
+
+    @Test
+    public void stageRestore_reportsElapsedTimeAgainstSlo() throws IOException {
+        String key = snapshotBackup.backup().getKey();
+        RestorePoint restorePoint = new RestorePoint(RestorePoint.Kind.SNAPSHOT, key);
+        long[] clock = {0};
+
+        RestoreResult fast = newRestorer(() -> clock[0] += 10_000).stageRestore(restorePoint, restoredDatabase);
+        BackupRestorer restorer = newRestorer(() -> clock[0] += BackupRestorer.COLD_RESTORE_SLO_MILLIS + 1);
+        RestoreResult slow = restorer.stageRestore(restorePoint, restoredDatabase);
+
+        assertEquals(10_000, fast.getElapsedMillis());
+        assertTrue(fast.isWithinSlo());
+        assertFalse(slow.isWithinSlo());
+        assertEquals(1, restorer.getMissedSloCount());
+    }
+
+    @Test
+    public void applyPendingRestore_removesOldWalAndShm() throws IOException {
+        String key = snapshotBackup.backup().getKey();
+        Files.write(restoredDatabase.toPath(), new byte[] {1});
+        File wal = new File(restoredDatabase.getPath() + "-wal");
+        File shm = new File(restoredDatabase.getPath() + "-shm");
+        Files.write(wal.toPath(), new byte[] {2});
+        Files.write(shm.toPath(), new byte[] {3});
+        newRestorer(() -> 0).stageRestore(new RestorePoint(RestorePoint.Kind.SNAPSHOT, key), restoredDatabase);
+
+        assertTrue(BackupRestorer.applyPendingRestore(restoredDatabase, DATABASE_VERSION));
+
+        assertFalse(wal.exists());
+        assertFalse(shm.exists());
+        assertEquals(database.length(), restoredDatabase.length());
+        assertFalse(BackupRestorer.applyPendingRestore(restoredDatabase, DATABASE_VERSION)); //Already applied
+    }
+
+    @Test
+    public void applyPendingRestore_newerUserVersion_rejectsIt() throws IOException {
+        writeDatabase(3, DATABASE_VERSION + 1);
+        String key = snapshotBackup.backup().getKey();
+        Files.write(restoredDatabase.toPath(), new byte[] {1});
+        newRestorer(() -> 0).stageRestore(new RestorePoint(RestorePoint.Kind.SNAPSHOT, key), restoredDatabase);
+
+        try {
+            BackupRestorer.applyPendingRestore(restoredDatabase, DATABASE_VERSION);
+            fail("Expected the restore from a newer schema to be rejected");
+        } catch (IOException e) {
+            assertArrayEquals(new byte[] {1}, Files.readAllBytes(restoredDatabase.toPath()));
+            assertFalse(BackupRestorer.applyPendingRestore(restoredDatabase, DATABASE_VERSION)); //Deleted
+        }
+    }
+
+    @Test
+    public void applyPendingRestore_olderUserVersion_appliesIt() throws IOException {
+        writeDatabase(3, DATABASE_VERSION - 1); //Room migrates it when it's opened
+        String key = snapshotBackup.backup().getKey();
+        newRestorer(() -> 0).stageRestore(new RestorePoint(RestorePoint.Kind.SNAPSHOT, key), restoredDatabase);
+
+        assertTrue(BackupRestorer.applyPendingRestore(restoredDatabase, DATABASE_VERSION));
+        assertEquals(database.length(), restoredDatabase.length());
+    }
+
+    private BackupRestorer newRestorer(LongSupplier clock) {
+        return new BackupRestorer(snapshotBackup, incrementalBackup, executor, RANGE_SIZE, clock);
+    }
+
+    private void writeDatabase(long seed) throws IOException {
+        writeDatabase(seed, DATABASE_VERSION);
+    }
+
+    /**
+     * Writes 32 pages of which about half are random (don't compress) and half repeat, with the
+     * user_version in the header.
+     */
+    private void writeDatabase(long seed, int userVersion) throws IOException {
+        Random random = new Random(seed);
+        byte[] data = new byte[32 * CHUNK_SIZE];
+        for (int page = 0; page < 32; page += 2) {
+            byte[] randomPage = new byte[CHUNK_SIZE];
+            random.nextBytes(randomPage);
+            System.arraycopy(randomPage, 0, data, page * CHUNK_SIZE, CHUNK_SIZE);
+        }
+        ByteBuffer.wrap(data).putInt(60, userVersion);
+        Files.write(database.toPath(), data);
+        database.setLastModified(1_541_116_800_000L + seed * 1_000);
+    }
+}
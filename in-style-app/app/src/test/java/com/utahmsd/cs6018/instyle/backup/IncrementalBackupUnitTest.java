@@ -0,0 +1,262 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IncrementalBackupUnitTest {
+
+    private static final int CHUNK_SIZE = 4_096;
+    private static final int FILE_SIZE = 64 * CHUNK_SIZE + 100; //Last chunk is partial
+    private static final String PREFIX = "incremental/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CountingObjectStore store;
+    private File database;
+    private File stateFile;
+    private long now = 1_541_116_800_000L;
+
+    @Before
+    public void setUp() throws IOException {
+        store = new CountingObjectStore(new FileObjectStore(folder.newFolder("store")));
+        database = folder.newFile("instyle_database");
+        stateFile = new File(folder.getRoot(), "backup-state.manifest");
+        byte[] data = new byte[FILE_SIZE];
+        new Random(42).nextBytes(data);
+        Files.write(database.toPath(), data);
+    }
+
+    @Test
+    public void backup_firstBackup_uploadsEveryChunkAndManifest() throws IOException {
+        BackupResult result = newBackup().backup(database);
+
+        assertFalse(result.isUnchanged());
+        assertEquals(65, result.getTotalChunks());
+        assertEquals(65, result.getUploadedChunks());
+        assertEquals(FILE_SIZE, result.getUploadedBytes());
+        assertEquals(66, store.puts); //Chunks and manifest
+        assertTrue(stateFile.isFile());
+    }
+
+    @Test
+    public void backup_unchangedFile_uploadsNothing() throws IOException {
+        newBackup().backup(database);
+        store.puts = 0;
+        store.existsCalls = 0;
+
+        BackupResult result = newBackup().backup(database);
+
+        assertTrue(result.isUnchanged());
+        assertEquals(0, store.puts);
+        assertEquals(0, store.existsCalls);
+    }
+
+    @Test
+    public void backup_onePageChanged_uploadsOneChunk() throws IOException {
+        newBackup().backup(database);
+        store.putBytes = 0;
+        writePage(10, (byte) 1);
+
+        BackupResult result = newBackup().backup(database);
+
+        assertEquals(1, result.getUploadedChunks());
+        assertEquals(CHUNK_SIZE, result.getUploadedBytes());
+        assertEquals(2, newBackup().listManifests().size());
+    }
+
+    @Test
+    public void backup_touchedButNotChanged_uploadsNothing() throws IOException {
+        newBackup().backup(database);
+        store.puts = 0;
+        assertTrue(database.setLastModified(database.lastModified() + 60_000));
+
+        BackupResult result = newBackup().backup(database);
+
+        assertTrue(result.isUnchanged());
+        assertEquals(0, store.puts);
+    }
+
+    @Test
+    public void backup_stateFileLost_reusesChunksAlreadyInStore() throws IOException {
+        newBackup().backup(database);
+        assertTrue(stateFile.delete());
+        writePage(3, (byte) 7);
+
+        BackupResult result = newBackup().backup(database);
+
+        assertEquals(1, result.getUploadedChunks());
+    }
+
+    @Test
+    public void isBackedUp_sourceChangeStampOfLastSnapshot_true() throws IOException {
+        assertFalse(newBackup().isBackedUp("4096:1541116800000:0:0"));
+
+        newBackup().backup(takeSnapshot(), "4096:1541116800000:0:0");
+
+        assertTrue(newBackup().isBackedUp("4096:1541116800000:0:0"));
+        assertFalse(newBackup().isBackedUp("4096:1541116800000:8272:1541116801000"));
+        assertFalse(newBackup().isBackedUp(null));
+    }
+
+    @Test
+    public void isBackedUp_unchangedSnapshotBackedUpWithNewStamp_recordsNewStamp() throws IOException {
+        newBackup().backup(takeSnapshot(), "before-checkpoint");
+
+        BackupResult result = newBackup().backup(takeSnapshot(), "after-checkpoint");
+
+        assertTrue(result.isUnchanged());
+        assertTrue(newBackup().isBackedUp("after-checkpoint"));
+        assertFalse(newBackup().isBackedUp("before-checkpoint"));
+    }
+
+    @Test
+    public void isBackedUp_stateFileLost_false() throws IOException {
+        newBackup().backup(takeSnapshot(), "stamp");
+        assertTrue(stateFile.delete());
+
+        assertFalse(newBackup().isBackedUp("stamp"));
+    }
+
+    @Test
+    public void restore_eachManifest_rebuildsThatSnapshot() throws IOException {
+        byte[] original = Files.readAllBytes(database.toPath());
+        String first = newBackup().backup(database).getManifestKey();
+        writePage(0, (byte) 9);
+        byte[] modified = Files.readAllBytes(database.toPath());
+        String second = newBackup().backup(database).getManifestKey();
+
+        File restored = new File(folder.getRoot(), "restored");
+        newBackup().restore(first, restored);
+        assertArrayEquals(original, Files.readAllBytes(restored.toPath()));
+        newBackup().restore(second, restored);
+        assertArrayEquals(modified, Files.readAllBytes(restored.toPath()));
+    }
+
+    @Test
+    public void restore_corruptChunk_failsWithoutReplacingDestination() throws IOException {
+        IncrementalBackup backup = newBackup();
+        String manifestKey = backup.backup(database).getManifestKey();
+        BackupManifest manifest = BackupManifest.fromBytes(store.get(manifestKey));
+        String chunkKey = backup.chunkKey(manifest.getChunkHashes().get(5));
+        byte[] chunk = store.get(chunkKey);
+        chunk[0] ^= 1;
+        store.put(chunkKey, chunk);
+
+        File restored = folder.newFile("restored");
+        try {
+            backup.restore(manifestKey, restored);
+            fail("Expected the corrupt chunk to be detected");
+        } catch (IOException e) {
+            assertEquals(0, restored.length());
+            assertFalse(new File(restored.getPath() + ".restore").exists());
+        }
+    }
+
+    @Test
+    public void manifest_roundTripsThroughBytes() throws IOException {
+        String manifestKey = newBackup().backup(database).getManifestKey();
+        byte[] bytes = store.get(manifestKey);
+
+        BackupManifest manifest = BackupManifest.fromBytes(bytes);
+
+        assertNotNull(manifest);
+        assertEquals(FILE_SIZE, manifest.getFileLength());
+        assertEquals(100, manifest.getChunkLength(64));
+        assertArrayEquals(bytes, manifest.toBytes());
+    }
+
+    private IncrementalBackup newBackup() {
+        now += 60_000;
+        long time = now;
+        return new IncrementalBackup(store, PREFIX, stateFile, CHUNK_SIZE, () -> time);
+    }
+
+    /**
+     * Like SnapshotBackup.takeSnapshot(), a new file with a new modification time every time.
+     */
+    private File takeSnapshot() throws IOException {
+        File snapshot = new File(folder.getRoot(), "snapshot.db");
+        Files.copy(database.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        assertTrue(snapshot.setLastModified(now));
+        return snapshot;
+    }
+
+    private void writePage(int page, byte value) throws IOException {
+        long lastModified = database.lastModified();
+        try (RandomAccessFile file = new RandomAccessFile(database, "rw")) {
+            file.seek((long) page * CHUNK_SIZE);
+            file.write(value);
+        }
+        //File times can be too coarse to change between writes in a fast test
+        assertTrue(database.setLastModified(lastModified + 1_000));
+    }
+
+    private static class CountingObjectStore implements ObjectStore {
+        private final ObjectStore m_delegate;
+        int puts;
+        long putBytes;
+        int existsCalls;
+
+        CountingObjectStore(ObjectStore delegate) {
+            m_delegate = delegate;
+        }
+
+        @Override
+        public boolean exists(String key) throws IOException {
+            existsCalls++;
+            return m_delegate.exists(key);
+        }
+
+        @Override
+        public void put(String key, byte[] data) throws IOException {
+            puts++;
+            putBytes += data.length;
+            m_delegate.put(key, data);
+        }
+
+        @Override
+        public void put(String key, File file) throws IOException {
+            puts++;
+            putBytes += file.length();
+            m_delegate.put(key, file);
+        }
+
+        @Override
+        public byte[] get(String key) throws IOException {
+            return m_delegate.get(key);
+        }
+
+        @Override
+        public byte[] getRange(String key, long offset, int length) throws IOException {
+            return m_delegate.getRange(key, offset, length);
+        }
+
+        @Override
+        public long size(String key) throws IOException {
+            return m_delegate.size(key);
+        }
+
+        @Override
+        public List<String> list(String prefix) throws IOException {
+            return m_delegate.list(prefix);
+        }
+    }
+}
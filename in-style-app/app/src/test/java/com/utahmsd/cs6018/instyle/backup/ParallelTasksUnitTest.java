@@ -0,0 +1,105 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelTasksUnitTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void runAll_taskFails_waitsForRunningTasksBeforeThrowing() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        List<ParallelTasks.Task> tasks = Arrays.asList(
+                () -> {
+                    started.countDown();
+                    sleep(200);
+                    finished.set(true); //Would write to the channel after it was closed
+                },
+                () -> {
+                    await(started);
+                    throw new IOException("Chunk is corrupt");
+                });
+
+        try {
+            ParallelTasks.runAll(executor, tasks);
+            fail("Expected the failure to be rethrown");
+        } catch (IOException e) {
+            assertEquals("Chunk is corrupt", e.getMessage());
+            assertTrue(finished.get());
+        }
+    }
+
+    @Test
+    public void runAll_taskFails_skipsTasksThatHaveNotStarted() {
+        List<String> ran = new ArrayList<>();
+        List<ParallelTasks.Task> tasks = Arrays.asList(
+                () -> ran.add("first"),
+                () -> {
+                    throw new IOException("Range is short");
+                },
+                () -> ran.add("third"));
+
+        try {
+            ParallelTasks.runAll(Runnable::run, tasks);
+            fail("Expected the failure to be rethrown");
+        } catch (IOException e) {
+            assertEquals(Arrays.asList("first"), ran);
+        }
+    }
+
+    @Test
+    public void runAll_executorRejectsTask_doesNotWaitForIt() throws IOException {
+        List<String> ran = new ArrayList<>();
+        int[] executed = {0};
+        List<ParallelTasks.Task> tasks = Arrays.asList(() -> ran.add("first"), () -> ran.add("second"));
+
+        try {
+            ParallelTasks.runAll(task -> {
+                if (executed[0]++ > 0) {
+                    throw new RejectedExecutionException("Executor is shut down");
+                }
+                task.run();
+            }, tasks);
+            fail("Expected the rejection to be rethrown");
+        } catch (RejectedExecutionException e) {
+            assertEquals(Arrays.asList("first"), ran);
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.utahmsd.cs6018.instyle.backup;
+
+import com.utahmsd.cs6018.instyle.util.Checksums;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SnapshotBackupUnitTest {
+
+    private static final String PREFIX = "full/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileObjectStore store;
+    private File database;
+    private File workDir;
+    private long now = 1_541_116_800_000L;
+
+    @Before
+    public void setUp() throws IOException {
+        store = new FileObjectStore(folder.newFolder("store"));
+        database = folder.newFile("instyle_database");
+        workDir = new File(folder.getRoot(), "work");
+        //Database pages are mostly repetitive, so they compress well
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            rows.append("user").append(i).append("@instyle.com,Provo,US\n");
+        }
+        Files.write(database.toPath(), rows.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void backup_uploadsCompressedSnapshotAndChecksum() throws IOException {
+        SnapshotResult result = newBackup(this::copyDatabase).backup();
+
+        assertEquals(PREFIX + "snapshots/1541116800001.db.gz", result.getKey());
+        byte[] restored = gunzip(store.get(result.getKey()));
+        assertArrayEquals(Files.readAllBytes(database.toPath()), restored);
+        String checksum = new String(store.get(result.getKey() + SnapshotBackup.CHECKSUM_SUFFIX),
+                StandardCharsets.UTF_8);
+        assertEquals(Checksums.sha256(restored, 0, restored.length) + "  snapshot.db\n", checksum);
+    }
+
+    @Test
+    public void backup_recordsSizesAndTimings() throws IOException {
+        SnapshotBackup backup = newBackup(this::copyDatabase);
+
+        SnapshotResult result = backup.backup();
+
+        assertEquals(database.length(), result.getSnapshotBytes());
+        assertTrue(result.getCompressedBytes() < result.getSnapshotBytes() / 4);
+        assertEquals(1, result.getSnapshotMillis()); //One clock tick per stage
+        assertEquals(1, result.getCompressMillis());
+        assertEquals(1, result.getUploadMillis());
+        assertEquals(database.length() * 1000.0 / 3, result.getThroughputBytesPerSecond(), 0.001);
+        assertEquals(1, backup.getRunCount());
+        assertEquals(result, backup.getLastResult());
+    }
+
+    @Test
+    public void backup_leavesNothingInWorkDir() throws IOException {
+        newBackup(this::copyDatabase).backup();
+
+        String[] files = workDir.list();
+        assertNotNull(files);
+        assertEquals(0, files.length);
+    }
+
+    @Test
+    public void backup_snapshotFails_uploadsNothing() throws IOException {
+        SnapshotBackup backup = newBackup(destination -> {
+            Files.write(destination.toPath(), new byte[] {1, 2, 3}); //Partially written
+            throw new IOException("database is locked");
+        });
+
+        try {
+            backup.backup();
+            fail("Expected the snapshot failure to be rethrown");
+        } catch (IOException e) {
+            assertEquals(Collections.emptyList(), store.list(""));
+            assertEquals(0, workDir.list().length);
+            assertEquals(1, backup.getFailedRunCount());
+        }
+    }
+
+    @Test
+    public void listSnapshots_skipsBackupsWithoutChecksum() throws IOException {
+        SnapshotBackup backup = newBackup(this::copyDatabase);
+        String first = backup.backup().getKey();
+        String second = backup.backup().getKey();
+        store.put(backup.artifactKey(now + 1), new byte[] {0}); //Upload interrupted before its checksum
+
+        assertEquals(Arrays.asList(first, second), backup.listSnapshots());
+    }
+
+    private SnapshotBackup newBackup(SnapshotSource source) {
+        return new SnapshotBackup(source, store, PREFIX, workDir, () -> ++now);
+    }
+
+    private void copyDatabase(File destination) throws IOException {
+        Files.copy(database.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[8_192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,21 @@
+package com.utahmsd.cs6018.instyle.db;
+
+import android.arch.persistence.room.migration.Migration;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class InStyleDatabaseUnitTest {
+
+    @Test
+    public void migrations_formUnbrokenChainToCurrentVersion() {
+        int version = 1;
+        for (Migration migration : InStyleDatabase.MIGRATIONS) {
+            assertEquals(version, migration.startVersion);
+            assertEquals(version + 1, migration.endVersion);
+            version = migration.endVersion;
+        }
+        assertEquals(InStyleDatabase.VERSION, version);
+    }
+}
@@ -0,0 +1,163 @@
+package com.utahmsd.cs6018.instyle.db.repo;
+
+import com.utahmsd.cs6018.instyle.db.entity.User;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UserPageLoaderUnitTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private final List<User> table = new ArrayList<>();
+    private int queries;
+    private UserPageLoader loader = new UserPageLoader(this::loadUsersAfter, PAGE_SIZE);
+
+    @Test
+    public void loadNextPage_appendsPagesInIdOrder() {
+        insertUsers(1, 7);
+
+        assertEquals(ids(1, 3), idsOf(loader.loadNextPage()));
+        assertFalse(loader.isAllUsersLoaded());
+        assertEquals(ids(1, 6), idsOf(loader.loadNextPage()));
+        assertFalse(loader.isAllUsersLoaded());
+        assertEquals(ids(1, 7), idsOf(loader.loadNextPage()));
+        assertTrue(loader.isAllUsersLoaded());
+    }
+
+    @Test
+    public void loadNextPage_tableIsMultipleOfPageSize_allLoadedAfterEmptyPage() {
+        insertUsers(1, 6);
+
+        loader.loadNextPage();
+        assertEquals(ids(1, 6), idsOf(loader.loadNextPage()));
+        assertFalse(loader.isAllUsersLoaded()); //A full page may not be the last one
+
+        assertEquals(ids(1, 6), idsOf(loader.loadNextPage()));
+        assertTrue(loader.isAllUsersLoaded());
+    }
+
+    @Test
+    public void loadNextPage_emptyTable_allLoaded() {
+        assertTrue(loader.loadNextPage().isEmpty());
+        assertTrue(loader.isAllUsersLoaded());
+    }
+
+    @Test
+    public void loadNextPage_afterAllLoaded_picksUpInsertedUsers() {
+        insertUsers(1, 2);
+        loader.loadNextPage();
+        assertTrue(loader.isAllUsersLoaded());
+
+        insertUsers(3, 4);
+
+        assertEquals(ids(1, 4), idsOf(loader.loadNextPage()));
+        assertTrue(loader.isAllUsersLoaded());
+    }
+
+    @Test
+    public void loadNextPage_earlierListsAreUnchanged() {
+        insertUsers(1, 20);
+        List<User> firstPage = loader.loadNextPage();
+        for (int i = 0; i < 5; i++) {
+            loader.loadNextPage(); //Grows the backing array past the first page
+        }
+
+        assertEquals(ids(1, 3), idsOf(firstPage));
+        assertEquals(ids(1, 18), idsOf(loader.getLoadedUsers()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getLoadedUsers_isReadOnly() {
+        insertUsers(1, 2);
+        loader.loadNextPage().add(newUser(3));
+    }
+
+    @Test
+    public void reset_startsOverFromFirstPage() {
+        insertUsers(1, 7);
+        loader.loadNextPage();
+        loader.loadNextPage();
+        List<User> beforeReset = loader.getLoadedUsers();
+
+        loader.reset();
+
+        assertTrue(loader.getLoadedUsers().isEmpty());
+        assertFalse(loader.isAllUsersLoaded());
+        assertEquals(ids(1, 6), idsOf(beforeReset));
+        assertEquals(ids(1, 3), idsOf(loader.loadNextPage()));
+    }
+
+    @Test
+    public void reload_reloadsAsManyUsersAsWereLoaded() {
+        insertUsers(1, 10);
+        loader.loadNextPage();
+        loader.loadNextPage();
+        table.remove(1); //User 2 is deleted
+        table.get(0).setFirstName("Updated");
+        queries = 0;
+
+        List<User> reloaded = loader.reload();
+
+        assertEquals(ids(1, 7).stream().filter(id -> id != 2).collect(Collectors.toList()), idsOf(reloaded));
+        assertEquals("Updated", reloaded.get(0).getFirstName());
+        assertFalse(loader.isAllUsersLoaded());
+        assertEquals(2, queries);
+    }
+
+    @Test
+    public void reload_nothingLoaded_loadsFirstPage() {
+        insertUsers(1, 7);
+
+        assertEquals(ids(1, 3), idsOf(loader.reload()));
+    }
+
+    @Test
+    public void reload_tableShrank_allLoaded() {
+        insertUsers(1, 7);
+        loader.loadNextPage();
+        loader.loadNextPage();
+        table.clear();
+        insertUsers(8, 8);
+
+        assertEquals(ids(8, 8), idsOf(loader.reload()));
+        assertTrue(loader.isAllUsersLoaded());
+    }
+
+    private List<User> loadUsersAfter(int afterId, int pageSize) {
+        queries++;
+        return table.stream().filter(user -> user.getId() > afterId).limit(pageSize).collect(Collectors.toList());
+    }
+
+    private void insertUsers(int fromId, int toId) {
+        for (int id = fromId; id <= toId; id++) {
+            table.add(newUser(id));
+        }
+    }
+
+    private static User newUser(int id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@test.com");
+        return user;
+    }
+
+    private static List<Integer> ids(int fromId, int toId) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = fromId; id <= toId; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static List<Integer> idsOf(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+}
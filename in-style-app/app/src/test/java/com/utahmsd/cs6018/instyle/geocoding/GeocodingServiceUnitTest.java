@@ -0,0 +1,218 @@
+package com.utahmsd.cs6018.instyle.geocoding;
+
+import com.utahmsd.cs6018.instyle.db.dao.GeocodingDao;
+import com.utahmsd.cs6018.instyle.db.entity.GeocodedLocation;
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GeocodingServiceUnitTest {
+
+    private static final long TTL_MILLIS = TimeUnit.DAYS.toMillis(90);
+    private static final String SLC_COORDINATES = "40.7607793,-111.8910474";
+
+    private InMemoryGeocodingDao dao;
+    private Queue<Runnable> pending;
+    private int fetches;
+    private String fetchResult = SLC_COORDINATES;
+    private IOException fetchFailure;
+    private boolean rejectTasks;
+    private long now = 1_541_116_800_000L;
+
+    @Before
+    public void setUp() {
+        dao = new InMemoryGeocodingDao();
+        pending = new ArrayDeque<>();
+    }
+
+    @Test
+    public void getCoordinates_miss_fetchesAndStores() throws Exception {
+        GeocodingService service = newService();
+
+        assertEquals(SLC_COORDINATES, service.getCoordinates("salt lake city", "United States").get());
+        assertEquals(1, fetches);
+        GeocodedLocation stored = dao.findLocation("Salt Lake City", "US");
+        assertEquals(40.7607793, stored.getLatitude(), 0);
+        assertEquals(-111.8910474, stored.getLongitude(), 0);
+        assertEquals(now, stored.getUpdatedAt());
+    }
+
+    @Test
+    public void getCoordinates_cached_doesNotFetch() throws Exception {
+        GeocodingService service = newService();
+        service.getCoordinates("Salt Lake City", "United States").get();
+        now += TTL_MILLIS - 1;
+
+        //Country code and country name are the same location
+        assertEquals(SLC_COORDINATES, service.getCoordinates("SALT LAKE CITY", "us").get());
+        assertEquals(1, fetches);
+        assertEquals(1, service.getCacheHits());
+    }
+
+    @Test
+    public void getCoordinates_expired_refetches() throws Exception {
+        GeocodingService service = newService();
+        service.getCoordinates("Salt Lake City", "United States").get();
+        now += TTL_MILLIS;
+        fetchResult = "40.76,-111.89";
+
+        assertEquals("40.76,-111.89", service.getCoordinates("Salt Lake City", "United States").get());
+        assertEquals(2, fetches);
+        assertEquals(now, dao.findLocation("Salt Lake City", "US").getUpdatedAt());
+    }
+
+    @Test
+    public void getCoordinates_expiredAndFetchFails_returnsExpiredCoordinates() throws Exception {
+        GeocodingService service = newService();
+        service.getCoordinates("Salt Lake City", "United States").get();
+        now += TTL_MILLIS;
+        fetchFailure = new IOException("No network");
+
+        assertEquals(SLC_COORDINATES, service.getCoordinates("Salt Lake City", "United States").get());
+        assertEquals(1, service.getFailedFetches());
+    }
+
+    @Test
+    public void getCoordinates_notFound_returnsNullAndStoresNothing() throws Exception {
+        fetchResult = null;
+        GeocodingService service = newService();
+
+        assertNull(service.getCoordinates("Welisasdeqewjglisej", "United States").get());
+        assertTrue(dao.locations.isEmpty());
+    }
+
+    @Test
+    public void getCoordinates_invalidCity_completesWithoutLookup() throws Exception {
+        GeocodingService service = newService();
+
+        assertNull(service.getCoordinates("", "United States").get());
+        assertEquals(0, fetches);
+    }
+
+    @Test
+    public void getCoordinates_concurrentLookups_shareOneFetch() throws Exception {
+        GeocodingService service = newQueuedService();
+
+        CompletableFuture<String> first = service.getCoordinates("Provo", "United States");
+        CompletableFuture<String> second = service.getCoordinates("provo", "US");
+        assertSame(first, second);
+        assertFalse(first.isDone()); //Doesn't block the caller
+        runPending();
+
+        assertEquals(SLC_COORDINATES, second.get());
+        assertEquals(1, fetches);
+        assertEquals(1, service.getCoalescedLookups());
+
+        service.getCoordinates("Provo", "United States"); //A later lookup isn't coalesced with a finished one
+        assertEquals(1, pending.size());
+    }
+
+    @Test
+    public void getCoordinates_executorRejects_failsAndDoesNotBlockLaterLookups() throws Exception {
+        GeocodingService service = new GeocodingService(dao, this::fetch, task -> {
+            if (rejectTasks) {
+                throw new RejectedExecutionException("Executor is shut down");
+            }
+            task.run();
+        }, Runnable::run, TTL_MILLIS, () -> now);
+        rejectTasks = true;
+
+        CompletableFuture<String> rejected = service.getCoordinates("Provo", "United States");
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+            fail("Expected the rejection to fail the lookup");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+
+        rejectTasks = false;
+        assertEquals(SLC_COORDINATES, service.getCoordinates("Provo", "United States").get());
+        assertEquals(0, service.getCoalescedLookups());
+    }
+
+    @Test
+    public void recordWeatherCoordinates_servesLookupsWithoutFetching() throws Exception {
+        GeocodingService service = newService();
+        Weather weather = new Weather();
+        weather.setCity("Salt Lake City");
+        weather.setCountryCode("US");
+        weather.setLatitude(40.77f);
+        weather.setLongitude(-111.89f);
+
+        service.recordWeatherCoordinates(Collections.singletonList(weather));
+
+        assertEquals("40.77,-111.89", service.getCoordinates("salt lake city", "United States").get());
+        assertEquals(0, fetches);
+    }
+
+    @Test
+    public void toCountryCode() {
+        assertEquals("US", GeocodingService.toCountryCode("United States"));
+        assertEquals("US", GeocodingService.toCountryCode(" us "));
+        assertEquals("", GeocodingService.toCountryCode(null));
+        assertEquals("", GeocodingService.toCountryCode("Atlantis"));
+    }
+
+    private GeocodingService newService() {
+        return new GeocodingService(dao, this::fetch, Runnable::run, Runnable::run, TTL_MILLIS, () -> now);
+    }
+
+    private GeocodingService newQueuedService() {
+        return new GeocodingService(dao, this::fetch, pending::add, Runnable::run, TTL_MILLIS, () -> now);
+    }
+
+    private void runPending() {
+        Runnable task;
+        while ((task = pending.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private String fetch(String city, String countryCode) throws IOException {
+        fetches++;
+        if (fetchFailure != null) {
+            throw fetchFailure;
+        }
+        return fetchResult;
+    }
+
+    private static class InMemoryGeocodingDao implements GeocodingDao {
+        final Map<String, GeocodedLocation> locations = new HashMap<>();
+
+        @Override
+        public GeocodedLocation findLocation(String city, String countryCode) {
+            return locations.get(city + "," + countryCode);
+        }
+
+        @Override
+        public void insertLocation(GeocodedLocation location) {
+            locations.put(location.getCity() + "," + location.getCountryCode(), location);
+        }
+
+        @Override
+        public void insertAllLocations(List<GeocodedLocation> locations) {
+            locations.forEach(this::insertLocation);
+        }
+    }
+}
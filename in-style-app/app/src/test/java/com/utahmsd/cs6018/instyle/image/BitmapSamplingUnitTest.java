@@ -0,0 +1,53 @@
+package com.utahmsd.cs6018.instyle.image;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BitmapSamplingUnitTest {
+
+    @Test
+    public void calculateInSampleSize_12MegapixelPhoto_subsamplesBy8() {
+        //4000x3000 / 8 = 500x375, the last power of 2 that keeps the longer side at least 300
+        assertEquals(8, BitmapSampling.calculateInSampleSize(4000, 3000, 300));
+        assertEquals(4, BitmapSampling.calculateInSampleSize(4000, 3000, 600));
+    }
+
+    @Test
+    public void calculateInSampleSize_portrait_usesLongerSide() {
+        assertEquals(8, BitmapSampling.calculateInSampleSize(3000, 4000, 300));
+    }
+
+    @Test
+    public void calculateInSampleSize_exactMultiple_subsamplesToTargetSize() {
+        assertEquals(4, BitmapSampling.calculateInSampleSize(1200, 1200, 300));
+    }
+
+    @Test
+    public void calculateInSampleSize_smallerThanTarget_returns1() {
+        assertEquals(1, BitmapSampling.calculateInSampleSize(160, 120, 300));
+        assertEquals(1, BitmapSampling.calculateInSampleSize(599, 599, 300));
+    }
+
+    @Test
+    public void fitWithin_keepsAspectRatio() {
+        assertArrayEquals(new int[] {300, 225}, BitmapSampling.fitWithin(500, 375, 300));
+        assertArrayEquals(new int[] {225, 300}, BitmapSampling.fitWithin(375, 500, 300));
+    }
+
+    @Test
+    public void fitWithin_smallImage_isNotScaledUp() {
+        assertArrayEquals(new int[] {160, 120}, BitmapSampling.fitWithin(160, 120, 300));
+    }
+
+    @Test
+    public void fitWithin_veryWideImage_keepsAtLeastOnePixel() {
+        assertArrayEquals(new int[] {300, 1}, BitmapSampling.fitWithin(10_000, 2, 300));
+    }
+
+    @Test
+    public void memoryCacheSizeKb_isFractionOfHeap() {
+        assertEquals(32 * 1024, BitmapSampling.memoryCacheSizeKb(256L * 1024 * 1024, 8));
+    }
+}
@@ -0,0 +1,135 @@
+package com.utahmsd.cs6018.instyle.image;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ImageStoreUnitTest {
+
+    private static final long GRACE_MILLIS = 60_000;
+    //"abc", from the SHA-256 test vectors
+    private static final String ABC_KEY = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private ImageStore store;
+    private long now = 1_541_116_800_000L;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = new File(folder.getRoot(), "images");
+        store = new ImageStore(directory, () -> now);
+    }
+
+    @Test
+    public void put_storesImageUnderItsHash() throws IOException {
+        String key = store.put(bytes("abc"));
+
+        assertEquals(ABC_KEY, key);
+        assertTrue(store.contains(key));
+        assertArrayEquals(bytes("abc"), Files.readAllBytes(store.getFile(key).toPath()));
+        assertEquals(1, store.getStoredCount());
+        assertEquals(3, store.getBytesWritten());
+    }
+
+    @Test
+    public void put_identicalImageIsStoredOnce() throws IOException {
+        String first = store.put(bytes("abc"));
+        String second = store.put(bytes("abc"));
+
+        assertEquals(first, second);
+        assertEquals(1, directory.listFiles().length);
+        assertEquals(1, store.getStoredCount());
+        assertEquals(1, store.getDeduplicatedCount());
+    }
+
+    @Test
+    public void put_failedReadLeavesNoTempFile() throws IOException {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Permission revoked");
+            }
+        };
+        try {
+            store.put(failing);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("Permission revoked", e.getMessage());
+        }
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void isKey() {
+        assertTrue(ImageStore.isKey(ABC_KEY));
+        assertFalse(ImageStore.isKey(null));
+        assertFalse(ImageStore.isKey("content://com.android.providers.media.documents/document/image%3A42"));
+        assertFalse(ImageStore.isKey(ABC_KEY.toUpperCase()));
+        assertFalse(ImageStore.isKey(ABC_KEY.substring(1)));
+    }
+
+    @Test
+    public void collectGarbage_deletesOnlyUnreferencedImagesPastGracePeriod() throws IOException {
+        String referenced = store.put(bytes("referenced"));
+        String unreferenced = store.put(bytes("unreferenced"));
+        now += GRACE_MILLIS + 1000;
+        String recent = store.put(bytes("recent"));
+
+        int deleted = store.collectGarbage(Collections.singleton(referenced), GRACE_MILLIS);
+
+        assertEquals(1, deleted);
+        assertTrue(store.contains(referenced));
+        assertFalse(store.contains(unreferenced));
+        assertTrue(store.contains(recent));
+        assertEquals(1, store.getCollectedCount());
+        assertEquals("unreferenced".length(), store.getBytesCollected());
+    }
+
+    @Test
+    public void collectGarbage_storingAgainRestartsGracePeriod() throws IOException {
+        String key = store.put(bytes("abc"));
+        now += GRACE_MILLIS + 1000;
+        store.put(bytes("abc")); //e.g., picked again on the profile form
+
+        assertEquals(0, store.collectGarbage(Collections.emptySet(), GRACE_MILLIS));
+        assertTrue(store.contains(key));
+    }
+
+    @Test
+    public void collectGarbage_deletesAbandonedTempFiles() throws IOException {
+        directory.mkdirs();
+        File temp = new File(directory, "image123.tmp");
+        Files.write(temp.toPath(), bytes("partial"));
+        temp.setLastModified(now);
+        File unrelated = new File(directory, "notes.txt");
+        Files.write(unrelated.toPath(), bytes("kept"));
+        unrelated.setLastModified(now);
+        now += GRACE_MILLIS + 1000;
+
+        store.collectGarbage(Collections.emptySet(), GRACE_MILLIS);
+
+        assertFalse(temp.exists());
+        assertTrue(unrelated.exists());
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+package com.utahmsd.cs6018.instyle.sensor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShakeGestureDetectorUnitTest {
+
+    private static final float GRAVITY = 9.81f;
+    private static final long SAMPLE_PERIOD_NANOS = 20_000_000L; //SENSOR_DELAY_GAME
+    private static final float JOLT = 25f;
+
+    private ShakeGestureDetector detector;
+    private long now;
+
+    @Before
+    public void setUp() {
+        detector = new ShakeGestureDetector();
+        now = 0;
+    }
+
+    @Test
+    public void onSample_deviceAtRestWithNoise_neverDetectsShake() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            assertFalse(sample((float) random.nextGaussian() * 0.2f, (float) random.nextGaussian() * 0.2f,
+                    GRAVITY + (float) random.nextGaussian() * 0.2f));
+        }
+        assertEquals(0, detector.getGestureCount());
+    }
+
+    @Test
+    public void onSample_deviceSlowlyTilted_neverDetectsShake() {
+        //Gravity rotates from the z axis to the x axis over two seconds
+        for (int i = 0; i <= 100; i++) {
+            double angle = Math.PI / 2 * i / 100;
+            assertFalse(sample(GRAVITY * (float) Math.sin(angle), 0, GRAVITY * (float) Math.cos(angle)));
+        }
+    }
+
+    @Test
+    public void onSample_twoJoltsWithinWindow_detectsOneShake() {
+        rest(10);
+        assertFalse(jolt());
+        rest(5);
+        assertTrue(jolt());
+        assertEquals(1, detector.getGestureCount());
+    }
+
+    @Test
+    public void onSample_sustainedJolt_countsAsOnePeak() {
+        rest(10);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(sample(JOLT, 0, GRAVITY));
+        }
+        assertEquals(0, detector.getGestureCount());
+    }
+
+    @Test
+    public void onSample_joltsFurtherApartThanWindow_doesNotDetectShake() {
+        rest(10);
+        assertFalse(jolt());
+        rest(50); //A second
+        assertFalse(jolt());
+        assertEquals(0, detector.getGestureCount());
+    }
+
+    @Test
+    public void onSample_continuedShaking_isDebouncedUntilCooldownPasses() {
+        rest(10);
+        int gestures = 0;
+        //Shake for three seconds, with a jolt every 100ms
+        for (int i = 0; i < 30; i++) {
+            if (jolt()) {
+                gestures++;
+            }
+            rest(4);
+        }
+        //One shake per cooldown, rather than one every other jolt
+        assertEquals(3, gestures);
+    }
+
+    @Test
+    public void reset_forgetsPeaks() {
+        rest(10);
+        jolt();
+        detector.reset();
+        rest(10);
+        assertFalse(jolt());
+    }
+
+    private boolean jolt() {
+        boolean detected = sample(JOLT, 0, GRAVITY);
+        return sample(0, 0, GRAVITY) || detected;
+    }
+
+    private void rest(int samples) {
+        for (int i = 0; i < samples; i++) {
+            sample(0, 0, GRAVITY);
+        }
+    }
+
+    private boolean sample(float x, float y, float z) {
+        now += SAMPLE_PERIOD_NANOS;
+        return detector.onSample(now, x, y, z);
+    }
+}
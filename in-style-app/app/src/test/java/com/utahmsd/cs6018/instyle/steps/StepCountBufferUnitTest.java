@@ -0,0 +1,189 @@
+package com.utahmsd.cs6018.instyle.steps;
+
+import com.utahmsd.cs6018.instyle.db.entity.StepRollup;
+import com.utahmsd.cs6018.instyle.db.entity.StepSample;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StepCountBufferUnitTest {
+
+    private static final TimeZone DENVER = TimeZone.getTimeZone("America/Denver");
+    private static final int USER_ID = 7;
+    private static final long FLUSH_INTERVAL = 60_000L;
+    //2018-11-01 09:00:00 in Denver
+    private static final long T0 = toMillis(LocalDateTime.of(2018, 11, 1, 9, 0));
+
+    private ScheduledThreadPoolExecutor scheduler;
+    private List<List<StepSample>> writtenSamples = new ArrayList<>();
+    private List<List<StepRollup>> writtenRollups = new ArrayList<>();
+    private boolean failWrite;
+
+    private StepCountBuffer buffer;
+
+    @Before
+    public void setUp() {
+        scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setRemoveOnCancelPolicy(true);
+        buffer = new StepCountBuffer(scheduler, Runnable::run, (samples, rollups) -> {
+            if (failWrite) {
+                throw new IllegalStateException("database is locked");
+            }
+            writtenSamples.add(samples);
+            writtenRollups.add(rollups);
+        }, DENVER);
+        buffer.setFlushIntervalMillis(FLUSH_INTERVAL);
+        buffer.setMaxPendingSamples(4);
+        buffer.setCoalesceMillis(10_000L);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void record_firstReadingIsOnlyTheBaseline() {
+        buffer.record(USER_ID, 1_000f, T0);
+
+        assertEquals(0, buffer.getPendingSampleCount());
+        assertEquals(0, buffer.getPendingSteps(USER_ID));
+        assertEquals(0, scheduler.getQueue().size());
+    }
+
+    @Test
+    public void record_coalescesEventsWithinWindowAndMinute() {
+        buffer.record(USER_ID, 1_000f, T0);
+        buffer.record(USER_ID, 1_003f, T0 + 1_000);
+        buffer.record(USER_ID, 1_005f, T0 + 5_000);
+        buffer.record(USER_ID, 1_010f, T0 + 20_000); //Outside the coalesce window
+        buffer.record(USER_ID, 1_011f, T0 + 60_000); //Next minute
+
+        assertEquals(3, buffer.getPendingSampleCount());
+        assertEquals(11, buffer.getPendingSteps(USER_ID));
+        assertEquals(0, buffer.getPendingSteps(USER_ID + 1));
+        assertEquals(1, scheduler.getQueue().size()); //One timed flush for the whole batch
+    }
+
+    @Test
+    public void record_counterResetAfterReboot_countsStepsSinceReboot() {
+        buffer.record(USER_ID, 5_000f, T0);
+        buffer.record(USER_ID, 12f, T0 + 1_000);
+
+        assertEquals(12, buffer.getPendingSteps(USER_ID));
+    }
+
+    @Test
+    public void record_userChanges_startsNewBaseline() {
+        buffer.record(USER_ID, 1_000f, T0);
+        buffer.record(USER_ID + 1, 1_500f, T0 + 1_000);
+        buffer.record(USER_ID + 1, 1_510f, T0 + 2_000);
+
+        assertEquals(0, buffer.getPendingSteps(USER_ID));
+        assertEquals(10, buffer.getPendingSteps(USER_ID + 1));
+    }
+
+    @Test
+    public void record_maxPendingSamples_flushesImmediately() {
+        float steps = 1_000f;
+        buffer.record(USER_ID, steps, T0);
+        for (int i = 1; i <= 4; i++) {
+            buffer.record(USER_ID, steps += 10, T0 + i * 60_000L);
+        }
+
+        assertEquals(1, writtenSamples.size());
+        assertEquals(4, writtenSamples.get(0).size());
+        assertEquals(0, buffer.getPendingSampleCount());
+        assertEquals(0, scheduler.getQueue().size());
+    }
+
+    @Test
+    public void flush_writeFails_requeuesSamples() {
+        buffer.record(USER_ID, 1_000f, T0);
+        buffer.record(USER_ID, 1_020f, T0 + 1_000);
+        failWrite = true;
+        buffer.flush();
+
+        assertEquals(1, buffer.getFailedFlushCount());
+        assertEquals(20, buffer.getPendingSteps(USER_ID));
+        assertEquals(1, scheduler.getQueue().size());
+
+        failWrite = false;
+        buffer.flush();
+        assertEquals(1, writtenSamples.size());
+        assertEquals(20, writtenSamples.get(0).get(0).getSteps());
+        assertEquals(0, buffer.getPendingSampleCount());
+    }
+
+    @Test
+    public void flush_nothingBuffered_writesNothing() {
+        buffer.flush();
+
+        assertTrue(writtenSamples.isEmpty());
+        assertEquals(0, buffer.getFlushCount());
+    }
+
+    @Test
+    public void rollUp_sumsSamplesIntoMinuteHourAndDayBuckets() {
+        List<StepSample> samples = Arrays.asList(
+                new StepSample(USER_ID, T0 + 5_000, 10),
+                new StepSample(USER_ID, T0 + 30_000, 5),
+                new StepSample(USER_ID, T0 + 61_000, 7),
+                new StepSample(USER_ID, T0 + 3_600_000, 3));
+
+        List<StepRollup> rollups = StepCountBuffer.rollUp(samples, DENVER);
+
+        assertEquals(Arrays.asList(15, 7, 3), stepsOf(rollups, StepResolution.MINUTE));
+        assertEquals(Arrays.asList(22, 3), stepsOf(rollups, StepResolution.HOUR));
+        assertEquals(Arrays.asList(25), stepsOf(rollups, StepResolution.DAY));
+        for (StepRollup rollup : rollups) {
+            assertEquals(USER_ID, rollup.getUserId());
+        }
+    }
+
+    @Test
+    public void bucketStart_dayWithDaylightSavingChange_isLocalMidnight() {
+        //Clocks go back an hour at 2am on 2018-11-04 in Denver
+        long afternoon = toMillis(LocalDateTime.of(2018, 11, 4, 15, 30));
+
+        assertEquals(toMillis(LocalDateTime.of(2018, 11, 4, 0, 0)),
+                StepResolution.DAY.bucketStart(afternoon, DENVER));
+        assertEquals(toMillis(LocalDateTime.of(2018, 11, 4, 15, 0)),
+                StepResolution.HOUR.bucketStart(afternoon, DENVER));
+        assertEquals(toMillis(LocalDateTime.of(2018, 11, 4, 15, 30)),
+                StepResolution.MINUTE.bucketStart(afternoon + 59_999, DENVER));
+    }
+
+    @Test
+    public void fromMinutes_roundTripsEveryResolution() {
+        for (StepResolution resolution : StepResolution.values()) {
+            assertEquals(resolution, StepResolution.fromMinutes(resolution.getMinutes()));
+        }
+    }
+
+    private static List<Integer> stepsOf(List<StepRollup> rollups, StepResolution resolution) {
+        List<Integer> steps = new ArrayList<>();
+        for (StepRollup rollup : rollups) {
+            if (rollup.getResolution() == resolution) {
+                steps.add(rollup.getSteps());
+            }
+        }
+        return steps;
+    }
+
+    private static long toMillis(LocalDateTime localDateTime) {
+        return localDateTime.atZone(ZoneId.of("America/Denver")).toInstant().toEpochMilli();
+    }
+}
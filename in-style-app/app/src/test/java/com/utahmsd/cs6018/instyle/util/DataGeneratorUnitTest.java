@@ -0,0 +1,104 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.db.entity.User;
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.utahmsd.cs6018.instyle.util.WeatherUtils.formatCaseCity;
+import static com.utahmsd.cs6018.instyle.util.WeatherUtils.formatCaseCountryCodeFromCountryName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DataGeneratorUnitTest {
+
+    private static final long SEED = 6018L;
+
+    @Test
+    public void generate_sameSeed_isDeterministicRegardlessOfBatchSize() {
+        List<User> inOneBatch = collectUsers(new DataGenerator(SEED, 20), 1_000, 1_000);
+        List<User> inSmallBatches = collectUsers(new DataGenerator(SEED, 20), 1_000, 7);
+
+        assertEquals(inOneBatch.size(), inSmallBatches.size());
+        for (int i = 0; i < inOneBatch.size(); i++) {
+            assertEquals(inOneBatch.get(i).getEmail(), inSmallBatches.get(i).getEmail());
+            assertEquals(inOneBatch.get(i).getPassword(), inSmallBatches.get(i).getPassword());
+        }
+    }
+
+    @Test
+    public void generate_differentSeed_producesDifferentData() {
+        User first = new DataGenerator(SEED, 20).generateBatch(0, 1).getUsers().get(0);
+        User second = new DataGenerator(SEED + 1, 20).generateBatch(0, 1).getUsers().get(0);
+        assertNotEquals(first.getFirstName() + first.getLastName() + first.getPassword(),
+                second.getFirstName() + second.getLastName() + second.getPassword());
+    }
+
+    @Test
+    public void generateBatch_usersHaveUniqueEmailsAndSequentialIds() {
+        DataGenerator generator = new DataGenerator(SEED, 20);
+        generator.setFirstUserId(100);
+        DataGenerator.Batch batch = generator.generateBatch(0, 10_000);
+
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            User user = batch.getUsers().get(i);
+            assertTrue(emails.add(user.getNormalizedEmail()));
+            assertEquals(100 + i, user.getId());
+            assertEquals(user.getId(), batch.getFitnessProfiles().get(i).getUserId());
+        }
+    }
+
+    @Test
+    public void generateBatch_profilesLiveInGeneratedWeatherLocations() {
+        DataGenerator generator = new DataGenerator(SEED, 40);
+        Set<String> weatherLocations = new HashSet<>();
+        for (Weather weather : generator.generateWeather()) {
+            assertTrue(weatherLocations.add(weather.getCity() + "," + weather.getCountryCode()));
+        }
+        assertEquals(40, weatherLocations.size());
+
+        for (FitnessProfile fp : generator.generateBatch(0, 2_000).getFitnessProfiles()) {
+            String location = formatCaseCity(fp.getM_city()) + "," +
+                    formatCaseCountryCodeFromCountryName(fp.getM_country());
+            assertTrue(location, weatherLocations.contains(location));
+        }
+    }
+
+    @Test
+    public void generateBatch_profileMetricsAreConsistent() {
+        for (FitnessProfile fp : new DataGenerator(SEED, 20).generateBatch(0, 2_000).getFitnessProfiles()) {
+            assertTrue(ValidationUtils.isValidDobFormat(fp.getM_dob()));
+            assertTrue(fp.getM_heightFeet() >= 4 && fp.getM_heightFeet() <= 7);
+            assertEquals(FitnessProfileUtils.calculateBmi(
+                    FitnessProfileUtils.calculateHeightInInches(fp.getM_heightFeet(), fp.getM_heightInches()),
+                    fp.getM_weightInPounds()), fp.getM_bmi(), 0.0001);
+            if (fp.getM_weightGoal().equals("MAINTAIN")) {
+                assertEquals(0, fp.getM_lbsPerWeek());
+            }
+        }
+    }
+
+    @Test
+    public void getCity_pastBuiltInCities_appendsUniqueSuffix() {
+        Set<String> cities = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            String city = DataGenerator.getCity(i);
+            assertTrue(city, ValidationUtils.isValidCity(city));
+            assertTrue(city, cities.add(formatCaseCity(city) + "," + DataGenerator.getCountry(i)));
+        }
+    }
+
+    private static List<User> collectUsers(DataGenerator generator, int numUsers, int batchSize) {
+        List<User> users = new ArrayList<>();
+        generator.generate(numUsers, batchSize, batch -> users.addAll(batch.getUsers()));
+        return users;
+    }
+}
@@ -0,0 +1,92 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.util.FitnessProfileUtils.BodyMassIndex;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+public class FitnessMetricsBatchUnitTest {
+
+    private static final long SEED = 6018L;
+
+    @Test
+    public void compute_matchesPerProfileCalculations() {
+        List<FitnessProfile> profiles = new DataGenerator(SEED, 20).generateBatch(0, 2_000).getFitnessProfiles();
+        FitnessMetricsBatch batch = FitnessMetricsBatch.fromProfiles(profiles);
+        batch.compute(LocalDate.now().toEpochDay());
+
+        assertEquals(profiles.size(), batch.size());
+        for (int row = 0; row < batch.size(); row++) {
+            FitnessProfile fp = profiles.get(row);
+            int heightInInches = FitnessProfileUtils.calculateHeightInInches(fp.getM_heightFeet(), fp.getM_heightInches());
+            int age = FitnessProfileUtils.calculateAge(fp.getM_dob());
+            double bmi = FitnessProfileUtils.calculateBmi(heightInInches, fp.getM_weightInPounds());
+
+            assertEquals(fp.getUserId(), batch.getUserId(row));
+            assertEquals(age, batch.getAge(row));
+            assertEquals(bmi, batch.getBmi(row), 0);
+            assertEquals(FitnessProfileUtils.getBmiClassification(bmi), batch.getBmiClassification(row));
+            assertEquals(FitnessProfileUtils.calculateBMR(fp.getM_heightFeet(), fp.getM_heightInches(),
+                    fp.getM_sex(), fp.getM_weightInPounds(), age), batch.getBmr(row), 0);
+            assertEquals(FitnessProfileUtils.calculateDailyCaloricIntake(fp), batch.getDailyCaloricIntake(row), 0);
+        }
+    }
+
+    @Test
+    public void computeParallel_matchesCompute() {
+        int numProfiles = FitnessMetricsBatch.PARALLEL_THRESHOLD * 5 + 17;
+        List<FitnessProfile> profiles = new DataGenerator(SEED, 20).generateBatch(0, numProfiles).getFitnessProfiles();
+        long today = LocalDate.of(2018, 12, 1).toEpochDay();
+
+        FitnessMetricsBatch serial = FitnessMetricsBatch.fromProfiles(profiles);
+        serial.compute(today);
+        FitnessMetricsBatch parallel = FitnessMetricsBatch.fromProfiles(profiles);
+        parallel.computeParallel(today, new ForkJoinPool(4));
+
+        for (int row = 0; row < numProfiles; row++) {
+            assertEquals(serial.getAge(row), parallel.getAge(row));
+            assertEquals(serial.getBmi(row), parallel.getBmi(row), 0);
+            assertEquals(serial.getDailyCaloricIntake(row), parallel.getDailyCaloricIntake(row), 0);
+        }
+        int[] counts = parallel.countByBmiClassification();
+        int total = 0;
+        for (BodyMassIndex bmi : BodyMassIndex.values()) {
+            total += counts[bmi.ordinal()];
+        }
+        assertEquals(numProfiles, total);
+    }
+
+    @Test
+    public void fromProfiles_skipsInvalidDob() {
+        List<FitnessProfile> profiles = new DataGenerator(SEED, 20).generateBatch(0, 10).getFitnessProfiles();
+        profiles.get(3).setM_dob(null);
+        profiles.get(7).setM_dob("13/45/1990");
+
+        FitnessMetricsBatch batch = FitnessMetricsBatch.fromProfiles(profiles);
+        assertEquals(8, batch.size());
+        assertEquals(2, batch.getNumSkipped());
+        assertEquals(profiles.get(4).getUserId(), batch.getUserId(3));
+    }
+
+    @Test
+    public void calculateAge_epochDay_matchesPeriod() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < 100_000; i++) {
+            LocalDate dob = LocalDate.ofEpochDay(random.nextInt(60_000) - 30_000);
+            LocalDate today = dob.plusDays(random.nextInt(40_000));
+            assertEquals(dob + " " + today, Period.between(dob, today).getYears(),
+                    FitnessProfileUtils.calculateAge(dob.toEpochDay(), today.toEpochDay()));
+        }
+        //Leap day birthdays
+        assertEquals(0, FitnessProfileUtils.calculateAge(LocalDate.of(2000, 2, 29).toEpochDay(), LocalDate.of(2001, 2, 28).toEpochDay()));
+        assertEquals(1, FitnessProfileUtils.calculateAge(LocalDate.of(2000, 2, 29).toEpochDay(), LocalDate.of(2001, 3, 1).toEpochDay()));
+    }
+}
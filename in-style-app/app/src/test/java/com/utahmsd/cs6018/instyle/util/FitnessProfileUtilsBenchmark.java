@@ -0,0 +1,79 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import com.utahmsd.cs6018.instyle.MicroBenchmark;
+import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Benchmarks each of the FitnessProfileUtils calculations on generated fitness profiles.
+ */
+public class FitnessProfileUtilsBenchmark {
+
+    private static final String[] DOBS = {"01/01/1990", "06/15/1975", "12/31/2000", "02/29/1996"};
+    private static final Double[] BMIS = {17.0, 22.5, 27.0, 32.0, 40.0};
+
+    @Before
+    public void setUp() {
+        MicroBenchmark.assumeEnabled();
+    }
+
+    @Test
+    public void benchmarkFitnessProfileUtils() {
+        FitnessProfile[] profiles = new DataGenerator(6018L, 20).generateBatch(0, 64)
+                .getFitnessProfiles().toArray(new FitnessProfile[0]);
+        MicroBenchmark benchmark = new MicroBenchmark("FitnessProfileUtils");
+
+        benchmark.measure("calculateBmi", profiles, fp -> FitnessProfileUtils.calculateBmi(
+                FitnessProfileUtils.calculateHeightInInches(fp.getM_heightFeet(), fp.getM_heightInches()),
+                fp.getM_weightInPounds()));
+        benchmark.measure("getBmiClassification", BMIS, FitnessProfileUtils::getBmiClassification);
+        benchmark.measure("calculateBMR", profiles, fp -> FitnessProfileUtils.calculateBMR(
+                fp.getM_heightFeet(), fp.getM_heightInches(), fp.getM_sex(), fp.getM_weightInPounds(), 30));
+        benchmark.measure("calculateDailyCaloricIntake", profiles, FitnessProfileUtils::calculateDailyCaloricIntake);
+        benchmark.measure("calculateCalories", profiles, FitnessProfileUtils::calculateCalories);
+        benchmark.measure("calculateHeightInInches", profiles,
+                fp -> FitnessProfileUtils.calculateHeightInInches(fp.getM_heightFeet(), fp.getM_heightInches()));
+        benchmark.measure("calculateAge", DOBS, FitnessProfileUtils::calculateAge);
+
+        benchmark.reportAndCheck();
+    }
+
+    /**
+     * Calculates metrics for 10,000 profiles with FitnessMetricsBatch, compared to calling the per
+     * profile methods for each one.
+     */
+    @Test
+    public void benchmarkFitnessMetricsBatch() {
+        List<FitnessProfile> profiles = new DataGenerator(6018L, 20).generateBatch(0, 10_000).getFitnessProfiles();
+        FitnessMetricsBatch batch = FitnessMetricsBatch.fromProfiles(profiles);
+        long today = LocalDate.now().toEpochDay();
+        MicroBenchmark benchmark = new MicroBenchmark("FitnessMetricsBatch");
+
+        benchmark.measure("perProfile", () -> {
+            double total = 0;
+            for (FitnessProfile fp : profiles) {
+                int heightInInches = FitnessProfileUtils.calculateHeightInInches(fp.getM_heightFeet(), fp.getM_heightInches());
+                double bmi = FitnessProfileUtils.calculateBmi(heightInInches, fp.getM_weightInPounds());
+                total += bmi + FitnessProfileUtils.getBmiClassification(bmi).ordinal() +
+                        FitnessProfileUtils.calculateDailyCaloricIntake(fp);
+            }
+            return total;
+        });
+        benchmark.measure("fromProfiles", () -> FitnessMetricsBatch.fromProfiles(profiles));
+        benchmark.measure("compute", () -> {
+            batch.compute(today);
+            return batch;
+        });
+        benchmark.measure("computeParallel", () -> {
+            batch.computeParallel(today);
+            return batch;
+        });
+
+        benchmark.reportAndCheck();
+    }
+}
@@ -5,7 +5,10 @@ import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
 import org.junit.Test;
 
 import java.sql.Date;
+import java.time.LocalDate;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class FitnessProfileUtilsUnitTest {
@@ -59,4 +62,96 @@ public class FitnessProfileUtilsUnitTest {
         fitnessProfile.setM_lbsPerWeek(0);
         System.out.println(FitnessProfileUtils.calculateDailyCaloricIntake(fitnessProfile));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void updateDerivedMetrics() {
+        FitnessProfile fitnessProfile = newFitnessProfile("03/15/1993");
+        long today = LocalDate.of(2018, 11, 1).toEpochDay();
+        FitnessProfileUtils.updateDerivedMetrics(fitnessProfile, today);
+
+        assertEquals(25, fitnessProfile.getM_age());
+        assertEquals(FitnessProfileUtils.calculateBmi(70, 200), fitnessProfile.getM_bmi(), 0);
+        assertEquals(FitnessProfileUtils.calculateBMR(5, 10, "M", 200, 25), fitnessProfile.getM_bmr(), 0);
+        assertEquals(fitnessProfile.getM_bmr() * 1.2, fitnessProfile.getM_dailyCaloricIntake(), 0.0001);
+        assertEquals(FitnessProfileUtils.METRICS_VERSION, fitnessProfile.getM_metricsVersion());
+        assertEquals(LocalDate.of(2019, 3, 15).toEpochDay(), fitnessProfile.getM_metricsValidUntil());
+    }
+
+    @Test
+    public void isDerivedMetricsStale_afterBirthday() {
+        FitnessProfile fitnessProfile = newFitnessProfile("03/15/1993");
+        FitnessProfileUtils.updateDerivedMetrics(fitnessProfile, LocalDate.of(2018, 11, 1).toEpochDay());
+
+        assertFalse(FitnessProfileUtils.isDerivedMetricsStale(fitnessProfile, LocalDate.of(2019, 3, 14).toEpochDay()));
+        assertTrue(FitnessProfileUtils.isDerivedMetricsStale(fitnessProfile, LocalDate.of(2019, 3, 15).toEpochDay()));
+
+        fitnessProfile.setM_metricsVersion(FitnessProfileUtils.METRICS_VERSION - 1);
+        assertTrue(FitnessProfileUtils.isDerivedMetricsStale(fitnessProfile, LocalDate.of(2018, 11, 1).toEpochDay()));
+    }
+
+    @Test
+    public void isDerivedMetricsStale_leapDayBirthday() {
+        FitnessProfile fitnessProfile = newFitnessProfile("02/29/1992");
+        FitnessProfileUtils.updateDerivedMetrics(fitnessProfile, LocalDate.of(2018, 11, 1).toEpochDay());
+        assertEquals(26, fitnessProfile.getM_age());
+
+        //Age only changes on Mar 1 in non leap years
+        long feb28 = LocalDate.of(2019, 2, 28).toEpochDay();
+        assertFalse(FitnessProfileUtils.isDerivedMetricsStale(fitnessProfile, feb28));
+        long mar1 = LocalDate.of(2019, 3, 1).toEpochDay();
+        assertTrue(FitnessProfileUtils.isDerivedMetricsStale(fitnessProfile, mar1));
+        FitnessProfileUtils.updateDerivedMetrics(fitnessProfile, mar1);
+        assertEquals(27, fitnessProfile.getM_age());
+        assertEquals(LocalDate.of(2020, 2, 29).toEpochDay(), fitnessProfile.getM_metricsValidUntil());
+    }
+
+    @Test
+    public void parseDob() {
+        assertEquals(LocalDate.of(1993, 3, 15), FitnessProfileUtils.parseDob("03/15/1993"));
+        assertEquals(LocalDate.of(1993, 3, 15), FitnessProfileUtils.parseDob(" 03/15/1993 "));
+        assertEquals(LocalDate.of(1990, 2, 28), FitnessProfileUtils.parseDob("02/30/1990"));
+        assertEquals(LocalDate.of(2000, 2, 29), FitnessProfileUtils.parseDob("02/29/2000"));
+        assertEquals(null, FitnessProfileUtils.parseDob("13/45/1990"));
+        assertEquals(null, FitnessProfileUtils.parseDob("00/10/1990"));
+        assertEquals(null, FitnessProfileUtils.parseDob("1/1/1990"));
+        assertEquals(null, FitnessProfileUtils.parseDob(""));
+        assertEquals(null, FitnessProfileUtils.parseDob(null));
+        assertEquals("03/05/1993", FitnessProfileUtils.formatDob(LocalDate.of(1993, 3, 5)));
+    }
+
+    @Test
+    public void setM_dob_storesDateOfBirth() {
+        FitnessProfile fitnessProfile = newFitnessProfile("03/15/1993");
+        assertEquals(LocalDate.of(1993, 3, 15), fitnessProfile.getM_dateOfBirth());
+        assertEquals("03/15/1993", fitnessProfile.getM_dob());
+
+        fitnessProfile.setM_dob("not a date");
+        assertEquals(null, fitnessProfile.getM_dateOfBirth());
+        assertEquals(null, fitnessProfile.getM_dob());
+    }
+
+    @Test
+    public void latestDobForAge_matchesCalculateAge() {
+        LocalDate start = LocalDate.of(1999, 12, 1);
+        for (int t = 0; t < 2 * 366 + 120; t += 1) {
+            LocalDate today = start.plusDays(t);
+            for (int age = 1; age < 4; age++) {
+                LocalDate latest = FitnessProfileUtils.latestDobForAge(age, today);
+                assertTrue(today + " " + age, FitnessProfileUtils.calculateAge(latest.toEpochDay(), today.toEpochDay()) >= age);
+                assertTrue(today + " " + age, FitnessProfileUtils.calculateAge(latest.plusDays(1).toEpochDay(), today.toEpochDay()) < age);
+            }
+        }
+    }
+
+    private static FitnessProfile newFitnessProfile(String dob) {
+        FitnessProfile fitnessProfile = new FitnessProfile();
+        fitnessProfile.setM_dob(dob);
+        fitnessProfile.setM_heightInches(10);
+        fitnessProfile.setM_sex("M");
+        fitnessProfile.setM_heightFeet(5);
+        fitnessProfile.setM_weightInPounds(200);
+        fitnessProfile.setM_lifestyleSelection("SEDENTARY");
+        fitnessProfile.setM_lbsPerWeek(0);
+        return fitnessProfile;
+    }
+}
@@ -0,0 +1,40 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import com.utahmsd.cs6018.instyle.MicroBenchmark;
+import com.utahmsd.cs6018.instyle.TestFixtures;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Benchmarks parsing coordinates out of a recorded Google Geocoder API response, and building
+ * Geocoder API urls.
+ */
+public class GeocoderLocationUtilsBenchmark {
+
+    private static final String[][] LOCATIONS = {{"Provo", "US"}, {"Ogden", "US"},
+            {"Tokyo", "JP"}, {"Provo", ""}, {"1234", "US"}};
+
+    @Before
+    public void setUp() {
+        MicroBenchmark.assumeEnabled();
+    }
+
+    @Test
+    public void benchmarkGeocoderLocationUtils() {
+        String response = TestFixtures.read(TestFixtures.GOOGLE_GEOCODE_PROVO);
+        assertEquals("40.2338438,-111.6585337",
+                GeocoderLocationUtils.extractCoordinatesFromGeocoderResponse(response));
+        MicroBenchmark benchmark = new MicroBenchmark("GeocoderLocationUtils");
+
+        benchmark.measure("extractCoordinatesFromGeocoderResponse",
+                () -> GeocoderLocationUtils.extractCoordinatesFromGeocoderResponse(response));
+        benchmark.measure("buildGeocoderApiUrl", LOCATIONS,
+                l -> GeocoderLocationUtils.buildGeocoderApiUrl(l[0], l[1]));
+        benchmark.measure("buildDefaultGeocoderApiUrl", GeocoderLocationUtils::buildDefaultGeocoderApiUrl);
+
+        benchmark.reportAndCheck();
+    }
+}
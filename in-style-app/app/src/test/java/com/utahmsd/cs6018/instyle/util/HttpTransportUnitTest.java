@@ -0,0 +1,127 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.utahmsd.cs6018.instyle.TestFixtures;
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+import com.utahmsd.cs6018.instyle.weather.WeatherForecast;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs HttpTransport against a local mock HTTP server.
+ */
+public class HttpTransportUnitTest {
+
+    private HttpServer server;
+    private HttpTransport transport;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/weather", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = TestFixtures.read(TestFixtures.OWM_WEATHER_PROVO).getBytes(StandardCharsets.UTF_8);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                body = gzip(body);
+            }
+            respond(exchange, 200, body);
+        });
+        server.createContext("/missing", exchange ->
+                respond(exchange, 404, WeatherUtils.INVALID_CITY_URL_JSON_RESPONSE.getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(1_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, new byte[0]);
+        });
+        server.start();
+
+        transport = new HttpTransport(1_000, 200);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void get_gzipResponse_streamsDecodedBodyToHandler() throws IOException {
+        Weather weather = transport.get(url("/weather"), (responseCode, body) -> {
+            assertEquals(200, responseCode);
+            return WeatherForecast.parseWeather(body);
+        });
+
+        assertNotNull(weather);
+        assertEquals("Provo", weather.getCity());
+        assertEquals(1, transport.getRequestCount());
+        assertTrue(transport.getLastRequestMillis() > 0);
+    }
+
+    @Test
+    public void getString_errorResponse_returnsNull() throws IOException {
+        assertNull(transport.getString(url("/missing")));
+        assertEquals(0, transport.getFailedRequestCount());
+    }
+
+    @Test
+    public void get_repeatedRequests_reuseConnection() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(transport.getString(url("/weather")));
+        }
+        assertEquals(1, clientPorts.size());
+    }
+
+    @Test
+    public void get_slowResponse_timesOut() throws IOException {
+        try {
+            transport.getString(url("/slow"));
+            fail("Expected read timeout");
+        } catch (SocketTimeoutException e) {
+            assertEquals(1, transport.getFailedRequestCount());
+        }
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,105 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InstrumentedThreadPoolExecutorUnitTest {
+
+    private InstrumentedThreadPoolExecutor executor =
+            new InstrumentedThreadPoolExecutor("test", 1, 2);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void execute_recordsCompletedTasksAndQueueDepth() throws InterruptedException {
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+
+        executor.execute(() -> {
+            awaitQuietly(blocker);
+            done.countDown();
+        });
+        executor.execute(done::countDown);
+        executor.execute(done::countDown);
+
+        assertEquals(2, executor.getQueueDepth());
+
+        blocker.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(3, executor.getCompletedTasks());
+        assertEquals(2, executor.getMaxQueueDepth());
+        assertEquals(0, executor.getQueueDepth());
+        assertTrue(executor.getAverageQueueWaitMillis() >= 0);
+    }
+
+    @Test
+    public void execute_fullQueue_dropsOldestQueuedTask() throws InterruptedException {
+        CountDownLatch blocker = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(blocker));
+        executor.execute(() -> ran.addAndGet(1));
+        executor.execute(() -> ran.addAndGet(10));
+
+        executor.execute(() -> {
+            ran.addAndGet(100);
+            done.countDown();
+        });
+
+        assertEquals(1, executor.getRejectedTasks());
+        assertEquals(2, executor.getQueueDepth());
+        blocker.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(110, ran.get());
+    }
+
+    @Test
+    public void execute_afterShutdown_dropsTaskWithoutThrowing() {
+        executor.shutdown();
+
+        executor.execute(() -> fail("Task ran after shutdown"));
+
+        assertEquals(1, executor.getRejectedTasks());
+    }
+
+    @Test
+    public void execute_unboundedQueue_neverRejects() throws InterruptedException {
+        InstrumentedThreadPoolExecutor unbounded = new InstrumentedThreadPoolExecutor("unbounded", 1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1000);
+        try {
+            unbounded.execute(() -> awaitQuietly(blocker));
+            for (int i = 0; i < 1000; i++) {
+                unbounded.execute(done::countDown);
+            }
+            assertEquals(1000, unbounded.getQueueDepth());
+            blocker.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(0, unbounded.getRejectedTasks());
+        } finally {
+            unbounded.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import com.utahmsd.cs6018.instyle.MicroBenchmark;
+import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.util.validation.ValidationRuleSets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Benchmarks each of the ValidationUtils methods on a mix of valid and invalid input, like the
+ * values checked on every keystroke/submit in the account and profile forms, against the original
+ * String.matches implementation in RegexValidationUtils.
+ */
+public class ValidationUtilsBenchmark {
+
+    private static final String[] NAMES = {"Hello", "Kitty", "Mary Jane", "R2D2", "", "   "};
+    private static final String[] CITIES = {"Salt Lake City", "Provo", "New York", "Tokyo", "L.A.", ""};
+    private static final String[] EMAILS = {"test@test.com", "first.last@utah.edu", "user+tag@gmail.com",
+            "not-an-email", "missing@tld", ""};
+    private static final String[] DOBS = {"01/01/1990", "12/31/2000", "1/1/90", "01-01-1990", ""};
+    private static final String[] WEIGHTS = {"150", "220", "0", "1000", "abc", ""};
+    private static final String[][] HEIGHTS = {{"5", "10"}, {"6", "0"}, {"6", ""}, {"8", "2"}, {"5", "13"}};
+    private static final String[] ALPHANUMERIC = {"abc123", "ABC", "123", "abc 123", "!@#", ""};
+    private static final String[] SEXES = {"M", "F", "m", "f", "X"};
+    private static final String[] WEIGHT_PLANS = {"1", "2", "5", "-1", "10", "abc"};
+    private static final String[][] CREDENTIALS = {{"test@test.com", "password"}, {"test@test.com", ""},
+            {"not-an-email", "password"}};
+
+    @Before
+    public void setUp() {
+        MicroBenchmark.assumeEnabled();
+    }
+
+    @Test
+    public void benchmarkValidationUtils() {
+        MicroBenchmark benchmark = new MicroBenchmark("ValidationUtils");
+
+        benchmark.measure("isValidName", NAMES, ValidationUtils::isValidName);
+        benchmark.measure("isValidCity", CITIES, ValidationUtils::isValidCity);
+        benchmark.measure("isValidCountryName", CITIES, ValidationUtils::isValidCountryName);
+        benchmark.measure("isValidEmail", EMAILS, ValidationUtils::isValidEmail);
+        benchmark.measure("isValidAlphaChars", NAMES, ValidationUtils::isValidAlphaChars);
+        benchmark.measure("isValidDobFormat", DOBS, ValidationUtils::isValidDobFormat);
+        benchmark.measure("isValidWeight", WEIGHTS, ValidationUtils::isValidWeight);
+        benchmark.measure("isValidHeight", HEIGHTS, h -> ValidationUtils.isValidHeight(h[0], h[1]));
+        benchmark.measure("isValidAlphaCharsWithSpaces", CITIES, ValidationUtils::isValidAlphaCharsWithSpaces);
+        benchmark.measure("isValidAlphaNumericChars", ALPHANUMERIC, ValidationUtils::isValidAlphaNumericChars);
+        benchmark.measure("isValidNumericChars", WEIGHTS, ValidationUtils::isValidNumericChars);
+        benchmark.measure("isNotNullOrEmpty", NAMES, ValidationUtils::isNotNullOrEmpty);
+        benchmark.measure("isValidSex", SEXES, ValidationUtils::isValidSex);
+        benchmark.measure("isValidWeightPlan", WEIGHT_PLANS, ValidationUtils::isValidWeightPlan);
+        benchmark.measure("isValidEmailAndPassword", CREDENTIALS,
+                c -> ValidationUtils.isValidEmailAndPassword(c[0], c[1]));
+
+        benchmark.reportAndCheck();
+    }
+
+    @Test
+    public void benchmarkRegexValidationUtils() {
+        MicroBenchmark benchmark = new MicroBenchmark("RegexValidationUtils");
+
+        benchmark.measure("isValidName", NAMES, RegexValidationUtils::isValidName);
+        benchmark.measure("isValidCity", CITIES, RegexValidationUtils::isValidCity);
+        benchmark.measure("isValidCountryName", CITIES, RegexValidationUtils::isValidCountryName);
+        benchmark.measure("isValidEmail", EMAILS, RegexValidationUtils::isValidEmail);
+        benchmark.measure("isValidAlphaChars", NAMES, RegexValidationUtils::isValidAlphaChars);
+        benchmark.measure("isValidDobFormat", DOBS, RegexValidationUtils::isValidDobFormat);
+        benchmark.measure("isValidWeight", WEIGHTS, RegexValidationUtils::isValidWeight);
+        benchmark.measure("isValidHeight", HEIGHTS, h -> RegexValidationUtils.isValidHeight(h[0], h[1]));
+        benchmark.measure("isValidAlphaCharsWithSpaces", CITIES, RegexValidationUtils::isValidAlphaCharsWithSpaces);
+        benchmark.measure("isValidAlphaNumericChars", ALPHANUMERIC, RegexValidationUtils::isValidAlphaNumericChars);
+        benchmark.measure("isValidNumericChars", WEIGHTS, RegexValidationUtils::isValidNumericChars);
+        benchmark.measure("isNotNullOrEmpty", NAMES, RegexValidationUtils::isNotNullOrEmpty);
+        benchmark.measure("isValidSex", SEXES, RegexValidationUtils::isValidSex);
+        benchmark.measure("isValidWeightPlan", WEIGHT_PLANS, RegexValidationUtils::isValidWeightPlan);
+        benchmark.measure("isValidEmailAndPassword", CREDENTIALS,
+                c -> RegexValidationUtils.isValidEmailAndPassword(c[0], c[1]));
+
+        benchmark.reportAndCheck();
+    }
+
+    /**
+     * Validates a batch of 1,000 imported profiles with the FitnessProfile rule set, compared to
+     * checking the same fields one at a time with the regex implementation.
+     */
+    @Test
+    public void benchmarkFitnessProfileBatch() {
+        List<FitnessProfile> profiles = new DataGenerator(6018L, 20).generateBatch(0, 1_000).getFitnessProfiles();
+        MicroBenchmark benchmark = new MicroBenchmark("ValidationRuleSet");
+
+        benchmark.measure("validateAll",
+                () -> ValidationRuleSets.FITNESS_PROFILE.validateAll(profiles));
+        benchmark.measure("regexValidate", () -> {
+            int invalid = 0;
+            for (FitnessProfile fp : profiles) {
+                if (!(RegexValidationUtils.isValidName(fp.getM_fName()) &&
+                        RegexValidationUtils.isValidName(fp.getM_lName()) &&
+                        RegexValidationUtils.isValidDobFormat(fp.getM_dob()) &&
+                        RegexValidationUtils.isValidSex(fp.getM_sex()) &&
+                        RegexValidationUtils.isValidCity(fp.getM_city()) &&
+                        RegexValidationUtils.isValidCountryName(fp.getM_country()) &&
+                        RegexValidationUtils.isValidWeight(String.valueOf(fp.getM_weightInPounds())) &&
+                        RegexValidationUtils.isValidHeight(String.valueOf(fp.getM_heightFeet()),
+                                String.valueOf(fp.getM_heightInches())))) {
+                    invalid++;
+                }
+            }
+            return invalid;
+        });
+
+        benchmark.reportAndCheck();
+    }
+}
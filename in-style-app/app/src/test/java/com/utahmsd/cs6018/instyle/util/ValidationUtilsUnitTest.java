@@ -2,11 +2,18 @@ package com.utahmsd.cs6018.instyle.util;
 
 import org.junit.Test;
 
+import java.util.Random;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
 import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isNotNullOrEmpty;
 import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidCity;
 import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidCountryName;
 import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidDobFormat;
 import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidEmail;
+import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidHeight;
+import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidWeight;
+import static com.utahmsd.cs6018.instyle.util.ValidationUtils.isValidWeightPlan;
 import static org.junit.Assert.*;
 
 public class ValidationUtilsUnitTest {
@@ -81,4 +88,115 @@ public class ValidationUtilsUnitTest {
         assertTrue(isValidCountryName("United States"));
         assertFalse(isValidCountryName(null));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void isValidHeight_blankInches() {
+        assertTrue(isValidHeight("5", ""));
+        assertTrue(isValidHeight(" 6 ", "  "));
+        assertTrue(isValidHeight("7", null));
+        assertFalse(isValidHeight("4", ""));
+        assertFalse(isValidHeight("", "10"));
+    }
+
+    @Test
+    public void isValidHeight_inchesOutOfRange() {
+        assertTrue(isValidHeight("5", "12"));
+        assertFalse(isValidHeight("5", "13"));
+        assertFalse(isValidHeight("5", "100"));
+        assertFalse(isValidHeight("5", "-1"));
+    }
+
+    @Test
+    public void isValidWeight_() {
+        assertTrue(isValidWeight(" 150 "));
+        assertFalse(isValidWeight("0"));
+        assertFalse(isValidWeight("000"));
+        assertFalse(isValidWeight("1000"));
+        assertFalse(isValidWeight("15o"));
+    }
+
+    @Test
+    public void isValidWeightPlan_() {
+        assertTrue(isValidWeightPlan("0"));
+        assertTrue(isValidWeightPlan("5"));
+        assertFalse(isValidWeightPlan("6"));
+        assertFalse(isValidWeightPlan(" 3")); //Previously threw NumberFormatException
+        assertFalse(isValidWeightPlan("99999999999999999999"));
+        assertTrue(isValidWeightPlan(-5));
+        assertFalse(isValidWeightPlan(-6));
+    }
+
+    /**
+     * Checks the hand-rolled scanners against the original String.matches implementation on
+     * random input built from the characters the patterns care about.
+     */
+    @Test
+    public void matchesRegexImplementation() {
+        Random random = new Random(6018L);
+        String alphabet = "aZz09_-+.@/ \t\n\u000B\u0001\u00e9";
+        for (int i = 0; i < 200_000; i++) {
+            String input = randomString(random, alphabet);
+            String other = randomString(random, alphabet);
+
+            assertSame(input, ValidationUtils::isNotNullOrEmpty, RegexValidationUtils::isNotNullOrEmpty);
+            assertSame(input, ValidationUtils::isValidName, RegexValidationUtils::isValidName);
+            assertSame(input, ValidationUtils::isValidCountryName, RegexValidationUtils::isValidCountryName);
+            assertSame(input, ValidationUtils::isValidAlphaChars, RegexValidationUtils::isValidAlphaChars);
+            assertSame(input, ValidationUtils::isValidAlphaNumericChars, RegexValidationUtils::isValidAlphaNumericChars);
+            assertSame(input, ValidationUtils::isValidNumericChars, RegexValidationUtils::isValidNumericChars);
+            assertSame(input, ValidationUtils::isValidDobFormat, RegexValidationUtils::isValidDobFormat);
+            assertSame(input, ValidationUtils::isValidWeight, RegexValidationUtils::isValidWeight);
+            assertSame(input, ValidationUtils::isValidWeightPlan, RegexValidationUtils::isValidWeightPlan);
+            assertSame(input, ValidationUtils::isValidEmail, RegexValidationUtils::isValidEmail);
+            assertSame(input, other, ValidationUtils::isValidHeight, RegexValidationUtils::isValidHeight);
+            assertSame(input, other, ValidationUtils::isValidEmailAndPassword, RegexValidationUtils::isValidEmailAndPassword);
+        }
+    }
+
+    @Test
+    public void isValidEmail_matchesRegexImplementation() {
+        Random random = new Random(6018L);
+        String[] parts = {"a", "Z9", "_", "-", "+", ".", "@", "co", "uk", "1", " "};
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder email = new StringBuilder();
+            for (int j = random.nextInt(10); j >= 0; j--) {
+                email.append(parts[random.nextInt(parts.length)]);
+            }
+            assertSame(email.toString(), ValidationUtils::isValidEmail, RegexValidationUtils::isValidEmail);
+        }
+    }
+
+    private static String randomString(Random random, String alphabet) {
+        char[] chars = new char[random.nextInt(12)];
+        for (int i = 0; i < chars.length; i++) {
+            //Mostly digits so the numeric checks get exercised past their first character
+            chars[i] = random.nextBoolean() ? (char) ('0' + random.nextInt(10)) :
+                    alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Inputs the regex implementation threw on (e.g., parsing a blank inches value) are skipped.
+     */
+    private static void assertSame(String input, Predicate<String> actual, Predicate<String> expected) {
+        boolean expectedResult;
+        try {
+            expectedResult = expected.test(input);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        assertEquals("\"" + input + "\"", expectedResult, actual.test(input));
+    }
+
+    private static void assertSame(String first, String second, BiPredicate<String, String> actual,
+                                   BiPredicate<String, String> expected) {
+        boolean expectedResult;
+        try {
+            expectedResult = expected.test(first, second);
+        } catch (NumberFormatException e) {
+            return;
+        }
+        assertEquals("\"" + first + "\", \"" + second + "\"", expectedResult, actual.test(first, second));
+    }
+}
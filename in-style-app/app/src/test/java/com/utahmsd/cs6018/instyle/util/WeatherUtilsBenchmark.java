@@ -0,0 +1,52 @@
+package com.utahmsd.cs6018.instyle.util;
+
+import com.utahmsd.cs6018.instyle.MicroBenchmark;
+import com.utahmsd.cs6018.instyle.TestFixtures;
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+import com.utahmsd.cs6018.instyle.weather.WeatherForecast;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * Benchmarks each of the WeatherUtils methods.
+ */
+public class WeatherUtilsBenchmark {
+
+    private static final String[] CITIES = {"SALT LAKE CITY", "provo", "New York", "tokyo", "Hong Kong"};
+    private static final String[] COUNTRIES = {"United States", "united states", "Japan", "Korea", "Hong Kong"};
+    private static final String[][] LOCATIONS = {{"Salt Lake City", "United States"}, {"Tokyo", "Japan"},
+            {"Seoul", "Korea"}, {"Rome", "Italy"}, {"Nowhere", "Atlantis"}};
+    private static final Double[] TEMPS_KELVIN = {255.0, 273.15, 277.37, 295.5, 310.0};
+    private static final Double[] TEMPS_FARENHEIT = {0.0, 32.0, 39.6, 72.2, 98.3};
+
+    @Before
+    public void setUp() {
+        MicroBenchmark.assumeEnabled();
+    }
+
+    @Test
+    public void benchmarkWeatherUtils() throws IOException {
+        Weather[] weather = {
+                WeatherForecast.parseWeather(TestFixtures.read(TestFixtures.OWM_WEATHER_PROVO)),
+                WeatherForecast.parseWeather(TestFixtures.read(TestFixtures.OWM_WEATHER_TOKYO))};
+        MicroBenchmark benchmark = new MicroBenchmark("WeatherUtils");
+
+        benchmark.measure("buildWeatherApiUrl", LOCATIONS, l -> WeatherUtils.buildWeatherApiUrl(l[0], l[1]));
+        benchmark.measure("buildDefaultWeatherApiUrl", WeatherUtils::buildDefaultWeatherApiUrl);
+        benchmark.measure("printWeather", weather, w -> {
+            WeatherUtils.printWeather(w);
+            return w;
+        });
+        benchmark.measure("kelvinToFarenheit", TEMPS_KELVIN, WeatherUtils::kelvinToFarenheit);
+        benchmark.measure("convertAndFormatKelvinTemp", TEMPS_KELVIN, WeatherUtils::convertAndFormatKelvinTemp);
+        benchmark.measure("formatFarenheitTemp", TEMPS_FARENHEIT, WeatherUtils::formatFarenheitTemp);
+        benchmark.measure("formatCaseCity", CITIES, WeatherUtils::formatCaseCity);
+        benchmark.measure("formatCaseCountryCodeFromCountryName", COUNTRIES,
+                WeatherUtils::formatCaseCountryCodeFromCountryName);
+
+        benchmark.reportAndCheck();
+    }
+}
@@ -0,0 +1,34 @@
+package com.utahmsd.cs6018.instyle.util.mapper;
+
+import com.utahmsd.cs6018.instyle.MicroBenchmark;
+
+import org.junit.Test;
+
+/**
+ * Benchmarks the CountryCodeMapper lookups, including country codes near the end of the map and
+ * names/codes that aren't in it.
+ */
+public class CountryCodeMapperBenchmark {
+
+    private static final String[] COUNTRY_NAMES = {"United States", "Japan", "Korea", "Zimbabwe",
+            "Andorra, Principality Of", "Atlantis"};
+    private static final String[] COUNTRY_CODES = {"US", "JP", "KR", "ZW", "AD", "XX"};
+    private static final String[] UNNORMALIZED_NAMES = {"united states", "JAPAN", " korea ", "zimbabwe",
+            "andorra,  principality of", "atlantis"};
+    private static final String[] PREFIXES = {"u", "un", "united", "united s", "ja", "z", "xyz"};
+
+    @Test
+    public void benchmarkCountryCodeMapper() {
+        MicroBenchmark benchmark = new MicroBenchmark("CountryCodeMapper");
+
+        benchmark.measure("getCountryCode", COUNTRY_NAMES, CountryCodeMapper::getCountryCode);
+        benchmark.measure("getCountryName", COUNTRY_CODES, CountryCodeMapper::getCountryName);
+        benchmark.measure("getMapper", CountryCodeMapper::getMapper);
+        benchmark.measure("getCountryNames", CountryCodeMapper::getCountryNames);
+        benchmark.measure("getCountryCode(unnormalized)", UNNORMALIZED_NAMES, CountryCodeMapper::getCountryCode);
+        benchmark.measure("findCountryName", UNNORMALIZED_NAMES, CountryCodeMapper::findCountryName);
+        benchmark.measure("findCountryNamesByPrefix", PREFIXES, CountryCodeMapper::findCountryNamesByPrefix);
+
+        benchmark.reportAndCheck();
+    }
+}
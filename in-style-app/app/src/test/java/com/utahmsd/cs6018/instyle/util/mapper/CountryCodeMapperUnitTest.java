@@ -2,6 +2,10 @@ package com.utahmsd.cs6018.instyle.util.mapper;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.Assert.*;
 
 public class CountryCodeMapperUnitTest {
@@ -18,4 +22,69 @@ public class CountryCodeMapperUnitTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getCountryCode_ignoresCaseAndWhitespace() {
+        assertEquals("US", CountryCodeMapper.getCountryCode("united states"));
+        assertEquals("US", CountryCodeMapper.getCountryCode("  UNITED   States "));
+        assertEquals("AD", CountryCodeMapper.getCountryCode("andorra, principality of"));
+        assertNull(CountryCodeMapper.getCountryCode(null));
+    }
+
+    @Test
+    public void getCountryName_everyCodeMapsBack() {
+        for (Map.Entry<String, String> country : CountryCodeMapper.getMapper().entrySet()) {
+            assertEquals(country.getValue(), CountryCodeMapper.getCountryCode(CountryCodeMapper.getCountryName(country.getValue())));
+        }
+        assertEquals("Japan", CountryCodeMapper.getCountryName("jp"));
+        assertEquals("United Kingdom", CountryCodeMapper.getCountryName("UK"));
+        assertNull(CountryCodeMapper.getCountryName("XX"));
+        assertNull(CountryCodeMapper.getCountryName(null));
+    }
+
+    @Test
+    public void findCountryName_returnsListedName() {
+        assertEquals("United States", CountryCodeMapper.findCountryName("united states "));
+        assertEquals("Great Britain", CountryCodeMapper.findCountryName("GREAT BRITAIN"));
+        assertNull(CountryCodeMapper.findCountryName("Atlantis"));
+    }
+
+    @Test
+    public void findCountryNamesByPrefix_matchesCaseInsensitivelyInSortedOrder() {
+        assertEquals(Arrays.asList("United Arab Emirates", "United Kingdom", "United States"),
+                CountryCodeMapper.findCountryNamesByPrefix("united"));
+        assertEquals(Arrays.asList("United Kingdom"), CountryCodeMapper.findCountryNamesByPrefix("  UNITED  k"));
+        assertEquals(Arrays.asList("Jamaica", "Japan"), CountryCodeMapper.findCountryNamesByPrefix("ja"));
+        assertTrue(CountryCodeMapper.findCountryNamesByPrefix("united statesx").isEmpty());
+        assertTrue(CountryCodeMapper.findCountryNamesByPrefix("zz").isEmpty());
+        assertEquals(CountryCodeMapper.getCountryNames(), CountryCodeMapper.findCountryNamesByPrefix(""));
+    }
+
+    @Test
+    public void findCountryNamesByPrefix_matchesLinearScan() {
+        List<String> names = CountryCodeMapper.getCountryNames();
+        for (String name : names) {
+            for (int length = 0; length <= name.length(); length++) {
+                String prefix = name.substring(0, length).toUpperCase();
+                List<String> matches = CountryCodeMapper.findCountryNamesByPrefix(prefix);
+                int expected = 0;
+                for (String each : names) {
+                    if (each.toLowerCase().startsWith(prefix.toLowerCase())) {
+                        expected++;
+                        assertTrue(prefix + " " + each, matches.contains(each));
+                    }
+                }
+                assertEquals(prefix, expected, matches.size());
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getCountryNames_isImmutable() {
+        CountryCodeMapper.getCountryNames().add(0, "United States");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getMapper_isImmutable() {
+        CountryCodeMapper.getMapper().put("Atlantis", "XX");
+    }
+}
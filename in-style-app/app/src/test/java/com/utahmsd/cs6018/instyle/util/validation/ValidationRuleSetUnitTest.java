@@ -0,0 +1,71 @@
+package com.utahmsd.cs6018.instyle.util.validation;
+
+import com.utahmsd.cs6018.instyle.db.entity.FitnessProfile;
+import com.utahmsd.cs6018.instyle.util.DataGenerator;
+import com.utahmsd.cs6018.instyle.util.ValidationUtils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ValidationRuleSetUnitTest {
+
+    private static final ValidationRuleSet<String[]> RULES = new ValidationRuleSet<String[]>()
+            .field("email", r -> r[0], ValidationUtils::isValidEmail, "Invalid email.")
+            .field("name", r -> r[1], ValidationUtils::isValidName, "Invalid name.")
+            .rule("height", r -> ValidationUtils.isValidHeight(r[2], r[3]), "Invalid height.");
+
+    @Test
+    public void validate_validRecord() {
+        ValidationResult result = RULES.validate(new String[]{"test@test.com", "Mary Jane", "5", "10"});
+        assertTrue(result.isValid());
+        assertNull(result.getFirstError());
+        assertTrue(RULES.isValid(new String[]{"test@test.com", "Mary Jane", "5", "10"}));
+    }
+
+    @Test
+    public void validate_collectsEveryErrorInRuleOrder() {
+        ValidationResult result = RULES.validate(new String[]{"not-an-email", "Mary Jane", "9", "10"});
+        assertFalse(result.isValid());
+        assertEquals(2, result.getErrors().size());
+        assertEquals("email", result.getFirstError().getField());
+        assertEquals("Invalid email.", result.getFirstError().getMessage());
+        assertEquals("Invalid height.", result.getErrorsForField("height").get(0).getMessage());
+        assertTrue(result.getErrorsForField("name").isEmpty());
+    }
+
+    @Test
+    public void validateAll_reportsRecordIndex() {
+        List<String[]> records = Arrays.asList(
+                new String[]{"test@test.com", "Mary", "5", ""},
+                new String[]{"test@test.com", "R2D2", "5", ""},
+                new String[]{"test@test.com", "Mary", "5", "11"},
+                new String[]{"test", "", "5", "13"});
+        ValidationResult result = RULES.validateAll(records);
+
+        assertEquals(4, result.getNumRecords());
+        assertEquals(2, result.getNumInvalidRecords());
+        assertEquals(1, result.getErrorsForRecord(1).size());
+        assertEquals("name", result.getErrorsForRecord(1).get(0).getField());
+        assertEquals(3, result.getErrorsForRecord(3).size());
+        assertTrue(result.getErrorsForRecord(2).isEmpty());
+    }
+
+    @Test
+    public void fitnessProfileRules_generatedProfiles() {
+        List<FitnessProfile> profiles = new DataGenerator(6018L, 20).generateBatch(0, 1_000).getFitnessProfiles();
+        ValidationResult result = ValidationRuleSets.FITNESS_PROFILE.validateAll(profiles);
+
+        //Only height is expected to fail, since the generator includes 4ft tall users the form doesn't accept
+        for (ValidationError error : result.getErrors()) {
+            assertEquals(error.toString(), "height", error.getField());
+            assertEquals(4, profiles.get(error.getRecordIndex()).getM_heightFeet());
+        }
+    }
+}
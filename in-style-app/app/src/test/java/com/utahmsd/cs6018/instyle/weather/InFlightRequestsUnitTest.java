@@ -0,0 +1,100 @@
+package com.utahmsd.cs6018.instyle.weather;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InFlightRequestsUnitTest {
+
+    private static final String KEY = "Salt Lake City,US";
+
+    private InFlightRequests requests = new InFlightRequests();
+    private AtomicInteger started = new AtomicInteger();
+
+    @Test
+    public void run_concurrentRequest_isCoalesced() {
+        CompletableFuture<Void> fetch = new CompletableFuture<>();
+
+        assertTrue(requests.run(KEY, () -> start(fetch)));
+        assertFalse(requests.run(KEY, () -> start(new CompletableFuture<>())));
+
+        assertEquals(1, started.get());
+        assertEquals(1, requests.getCoalescedCount());
+        assertTrue(requests.isInFlight(KEY));
+        assertTrue(requests.run("Provo,US", () -> start(new CompletableFuture<>()))); //Other locations aren't
+
+        fetch.complete(null);
+        assertFalse(requests.isInFlight(KEY));
+        assertTrue(requests.run(KEY, () -> start(new CompletableFuture<>())));
+        assertEquals(3, started.get());
+    }
+
+    @Test
+    public void run_fetchThrows_releasesKey() {
+        //e.g., a Gson parse error on a malformed response
+        CompletableFuture<Void> fetch = CompletableFuture.runAsync(() -> {
+            throw new IllegalStateException("Malformed response");
+        }, Runnable::run);
+
+        assertTrue(requests.run(KEY, () -> start(fetch)));
+
+        assertFalse(requests.isInFlight(KEY));
+        assertTrue(requests.run(KEY, () -> start(new CompletableFuture<>())));
+        assertEquals(0, requests.getCoalescedCount());
+    }
+
+    @Test
+    public void run_failsAfterRequestIsCoalesced_releasesKey() {
+        CompletableFuture<Void> fetch = new CompletableFuture<>();
+        requests.run(KEY, () -> start(fetch));
+        assertFalse(requests.run(KEY, () -> start(new CompletableFuture<>())));
+
+        fetch.completeExceptionally(new RuntimeException("No network"));
+
+        assertFalse(requests.isInFlight(KEY));
+        assertTrue(requests.run(KEY, () -> start(new CompletableFuture<>())));
+    }
+
+    @Test
+    public void run_executorRejectsFetch_releasesKeyWithoutThrowing() {
+        assertTrue(requests.run(KEY, () -> CompletableFuture.runAsync(() -> { }, task -> {
+            throw new RejectedExecutionException("Pool is shut down");
+        })));
+
+        assertFalse(requests.isInFlight(KEY));
+    }
+
+    @Test
+    public void run_laterStageRejected_releasesKey() {
+        CompletableFuture<Void> fetch = new CompletableFuture<>();
+        requests.run(KEY, () -> fetch.thenRunAsync(() -> { }, task -> {
+            throw new RejectedExecutionException("Pool is shut down");
+        }));
+        assertTrue(requests.isInFlight(KEY));
+
+        fetch.complete(null);
+
+        assertFalse(requests.isInFlight(KEY));
+    }
+
+    @Test
+    public void claim_heldKey_isCoalescedUntilReleased() {
+        assertTrue(requests.claim(KEY));
+        assertFalse(requests.claim(KEY));
+        assertEquals(1, requests.getCoalescedCount());
+
+        requests.release(KEY);
+        assertTrue(requests.claim(KEY));
+    }
+
+    private CompletableFuture<?> start(CompletableFuture<?> fetch) {
+        started.incrementAndGet();
+        return fetch;
+    }
+}
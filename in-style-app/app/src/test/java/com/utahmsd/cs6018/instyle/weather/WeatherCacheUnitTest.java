@@ -0,0 +1,93 @@
+package com.utahmsd.cs6018.instyle.weather;
+
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WeatherCacheUnitTest {
+
+    private static final long TTL = 300_000L;
+    private static final long STALE_WINDOW = 600_000L;
+
+    private long now = 1_000_000_000L;
+
+    private WeatherCache cache = new WeatherCache(2, TTL, STALE_WINDOW, () -> now);
+
+    @Test
+    public void get_emptyCache_returnsMiss() {
+        assertNull(cache.get("Provo", "US"));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void get_withinTtl_returnsFreshHit() {
+        cache.put(createWeather("Provo", "US", now));
+        now += TTL;
+
+        WeatherCache.CacheResult result = cache.get("Provo", "US");
+        assertNotNull(result);
+        assertFalse(result.isStale());
+        assertEquals("Provo", result.getWeather().getCity());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void get_pastTtlWithinStaleWindow_returnsStaleHit() {
+        cache.put(createWeather("Provo", "US", now));
+        now += TTL + 1;
+
+        WeatherCache.CacheResult result = cache.get("Provo", "US");
+        assertNotNull(result);
+        assertTrue(result.isStale());
+        assertEquals(1, cache.getStaleHitCount());
+    }
+
+    @Test
+    public void get_pastStaleWindow_dropsEntry() {
+        cache.put(createWeather("Provo", "US", now));
+        now += TTL + STALE_WINDOW + 1;
+
+        assertNull(cache.get("Provo", "US"));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void put_overCapacity_evictsLeastRecentlyUsed() {
+        cache.put(createWeather("Provo", "US", now));
+        cache.put(createWeather("Tokyo", "JP", now));
+        cache.get("Provo", "US"); //Tokyo is now least recently used
+        cache.put(createWeather("Rome", "IT", now));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get("Provo", "US"));
+        assertNull(cache.get("Tokyo", "JP"));
+    }
+
+    @Test
+    public void setTtlMillis_appliesToNewEntries() {
+        cache.setTtlMillis(1_000L);
+        cache.put(createWeather("Provo", "US", now));
+        now += 1_001L;
+
+        assertTrue(cache.get("Provo", "US").isStale());
+        assertTrue(cache.isExpired(now - 1_001L));
+    }
+
+    private static Weather createWeather(String city, String countryCode, long lastUpdated) {
+        Weather weather = new Weather();
+        weather.setCity(city);
+        weather.setCountryCode(countryCode);
+        weather.setLastUpdated(new Date(lastUpdated));
+        return weather;
+    }
+}
@@ -0,0 +1,85 @@
+package com.utahmsd.cs6018.instyle.weather;
+
+import com.utahmsd.cs6018.instyle.MicroBenchmark;
+import com.utahmsd.cs6018.instyle.TestFixtures;
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Compares the JsonObject tree based WeatherForecast.initWeather() parser against the streaming
+ * WeatherForecast.parseWeather() parser on recorded OpenWeatherMap responses.
+ */
+public class WeatherForecastBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 100_000;
+
+    @Before
+    public void setUp() {
+        MicroBenchmark.assumeEnabled();
+    }
+
+    @Test
+    public void compareParsers() throws IOException {
+        for (String fixture : new String[] {TestFixtures.OWM_WEATHER_PROVO, TestFixtures.OWM_WEATHER_TOKYO}) {
+            String response = TestFixtures.read(fixture);
+
+            measure(response, WARMUP_ITERATIONS, false);
+            measure(response, WARMUP_ITERATIONS, true);
+
+            double treeNanos = measure(response, MEASURED_ITERATIONS, false);
+            double streamingNanos = measure(response, MEASURED_ITERATIONS, true);
+
+            System.out.println(String.format(Locale.US,
+                    "%s: initWeather %.0f ns/op, parseWeather %.0f ns/op (%.2fx)",
+                    fixture, treeNanos, streamingNanos, treeNanos / streamingNanos));
+        }
+    }
+
+    @Test
+    public void benchmarkWeatherForecast() {
+        String[] responses = {TestFixtures.read(TestFixtures.OWM_WEATHER_PROVO),
+                TestFixtures.read(TestFixtures.OWM_WEATHER_TOKYO)};
+        MicroBenchmark benchmark = new MicroBenchmark("WeatherForecast");
+
+        benchmark.measure("parseWeather(String)", responses, response -> {
+            try {
+                return WeatherForecast.parseWeather(response);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        benchmark.measure("parseWeather(Reader)", responses, response -> {
+            try {
+                return WeatherForecast.parseWeather(new StringReader(response));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        benchmark.measure("initWeather", responses, response -> new WeatherForecast().initWeather(response));
+
+        benchmark.reportAndCheck();
+    }
+
+    private static double measure(String response, int iterations, boolean streaming) throws IOException {
+        Weather weather = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            weather = streaming ?
+                    WeatherForecast.parseWeather(response) :
+                    new WeatherForecast().initWeather(response);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertNotNull(weather);
+        return (double) elapsed / iterations;
+    }
+}
@@ -0,0 +1,60 @@
+package com.utahmsd.cs6018.instyle.weather;
+
+import com.utahmsd.cs6018.instyle.TestFixtures;
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+import com.utahmsd.cs6018.instyle.util.WeatherUtils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class WeatherForecastUnitTest {
+
+    private static final double DELTA = 0.0001;
+
+    @Test
+    public void parseWeather_matchesInitWeather() throws IOException {
+        for (String fixture : new String[] {TestFixtures.OWM_WEATHER_PROVO, TestFixtures.OWM_WEATHER_TOKYO}) {
+            String response = TestFixtures.read(fixture);
+
+            Weather expected = new WeatherForecast().initWeather(response);
+            Weather actual = WeatherForecast.parseWeather(response);
+
+            assertNotNull(actual);
+            assertEquals(expected.getCity(), actual.getCity());
+            assertEquals(expected.getCountryCode(), actual.getCountryCode());
+            assertEquals(expected.getLatitude(), actual.getLatitude(), DELTA);
+            assertEquals(expected.getLongitude(), actual.getLongitude(), DELTA);
+            assertEquals(expected.getForecastMain(), actual.getForecastMain());
+            assertEquals(expected.getForecastDescription(), actual.getForecastDescription());
+            assertEquals(expected.getTemperature().temp, actual.getTemperature().temp, DELTA);
+            assertEquals(expected.getTemperature().tempMin, actual.getTemperature().tempMin, DELTA);
+            assertEquals(expected.getTemperature().tempMax, actual.getTemperature().tempMax, DELTA);
+            assertEquals(expected.getWindSpeed(), actual.getWindSpeed(), DELTA);
+            assertEquals(expected.getPressure(), actual.getPressure());
+            assertEquals(expected.getHumidity(), actual.getHumidity());
+            assertNotNull(actual.getLastUpdated());
+        }
+    }
+
+    @Test
+    public void parseWeather_usesFirstWeatherCondition() throws IOException {
+        Weather weather = WeatherForecast.parseWeather(TestFixtures.read(TestFixtures.OWM_WEATHER_TOKYO));
+        assertEquals("Rain", weather.getForecastMain());
+        assertEquals("light rain", weather.getForecastDescription());
+    }
+
+    @Test
+    public void parseWeather_cityNotFound_returnsNull() throws IOException {
+        assertNull(WeatherForecast.parseWeather(WeatherUtils.INVALID_CITY_URL_JSON_RESPONSE));
+    }
+
+    @Test
+    public void parseWeatherFromApiResponse_malformedJson_returnsNull() {
+        assertNull(WeatherClient.parseWeatherFromApiResponse("{\"coord\":{\"lat\":"));
+    }
+}
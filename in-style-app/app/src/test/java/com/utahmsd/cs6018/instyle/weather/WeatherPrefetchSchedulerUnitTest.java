@@ -0,0 +1,131 @@
+package com.utahmsd.cs6018.instyle.weather;
+
+import com.utahmsd.cs6018.instyle.db.entity.Weather;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WeatherPrefetchSchedulerUnitTest {
+
+    private static final long INTERVAL = 60_000L;
+    private static final List<WeatherLocation> LOCATIONS = Arrays.asList(
+            new WeatherLocation("Provo", "United States"),
+            new WeatherLocation("Tokyo", "Japan"));
+
+    private ScheduledThreadPoolExecutor executor;
+    private List<Collection<WeatherLocation>> refreshed = new ArrayList<>();
+    private boolean failRefresh;
+    private List<WeatherLocation> locations = LOCATIONS;
+
+    private WeatherPrefetchScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        scheduler = new WeatherPrefetchScheduler(executor, () -> locations,
+                (batch, onComplete) -> {
+                    refreshed.add(batch);
+                    onComplete.accept(failRefresh ?
+                            new WeatherRefreshResult(Collections.emptyList(), new ArrayList<>(batch), 10) :
+                            new WeatherRefreshResult(Collections.singletonList(new Weather()), Collections.emptyList(), 10));
+                },
+                INTERVAL, new Random(42));
+        scheduler.setInitialDelayMillis(INTERVAL); //Drive prefetches manually through runPrefetch()
+        scheduler.setJitterFraction(0);
+        scheduler.setMaxBackoffMillis(4 * INTERVAL);
+        scheduler.start();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void runPrefetch_refreshesAllLocationsAndSchedulesNextAfterInterval() {
+        scheduler.runPrefetch();
+
+        assertEquals(1, refreshed.size());
+        assertEquals(LOCATIONS, new ArrayList<>(refreshed.get(0)));
+        assertEquals(INTERVAL, scheduler.getNextDelayMillis());
+        assertEquals(1, executor.getQueue().size());
+    }
+
+    @Test
+    public void runPrefetch_noLocations_skipsRefresh() {
+        locations = Collections.emptyList();
+        scheduler.runPrefetch();
+
+        assertTrue(refreshed.isEmpty());
+        assertEquals(INTERVAL, scheduler.getNextDelayMillis());
+    }
+
+    @Test
+    public void runPrefetch_repeatedFailures_backsOffUpToMax() {
+        failRefresh = true;
+        scheduler.runPrefetch();
+        assertEquals(2 * INTERVAL, scheduler.getNextDelayMillis());
+        scheduler.runPrefetch();
+        assertEquals(4 * INTERVAL, scheduler.getNextDelayMillis());
+        scheduler.runPrefetch();
+        assertEquals(4 * INTERVAL, scheduler.getNextDelayMillis());
+        assertEquals(3, scheduler.getConsecutiveFailures());
+
+        failRefresh = false;
+        scheduler.runPrefetch();
+        assertEquals(INTERVAL, scheduler.getNextDelayMillis());
+        assertEquals(0, scheduler.getConsecutiveFailures());
+    }
+
+    @Test
+    public void runPrefetch_locationSourceThrows_backsOff() {
+        WeatherPrefetchScheduler failing = new WeatherPrefetchScheduler(executor,
+                () -> { throw new IllegalStateException("database closed"); },
+                (batch, onComplete) -> refreshed.add(batch), INTERVAL, new Random(42));
+        failing.setJitterFraction(0);
+        failing.start();
+        failing.runPrefetch();
+
+        assertTrue(refreshed.isEmpty());
+        assertEquals(1, failing.getConsecutiveFailures());
+        assertEquals(2 * INTERVAL, failing.getNextDelayMillis());
+        failing.stop();
+    }
+
+    @Test
+    public void stop_cancelsPendingPrefetchAndIgnoresFurtherRuns() {
+        scheduler.stop();
+        scheduler.runPrefetch();
+
+        assertFalse(scheduler.isRunning());
+        assertTrue(refreshed.isEmpty());
+        assertEquals(0, executor.getQueue().size());
+    }
+
+    @Test
+    public void start_appliesJitterWithinBounds() {
+        scheduler.stop();
+        scheduler.setJitterFraction(0.1);
+        for (int i = 0; i < 100; i++) {
+            scheduler.start();
+            long delay = scheduler.getNextDelayMillis();
+            assertTrue(delay >= INTERVAL * 0.9 && delay <= INTERVAL * 1.1);
+            scheduler.stop();
+        }
+    }
+}